@@ -0,0 +1,202 @@
+package com.escape.bulk;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 批量导入引擎
+ * 1. 并行校验全部行；
+ * 2. 有唯一键时标记批内重复的行，并按批一次查询库中已存在的唯一键（忽略大小写和首尾空白）；
+ * 3. 通过校验的行按块写入：每块一个独立事务，使用JDBC批处理插入（配合连接参数
+ *    rewriteBatchedStatements=true 由驱动改写为多值INSERT），提交后回调；
+ *    整块写入失败时回滚该块并逐行重试，定位出错的行
+ *
+ * 每块单独提交，锁只在块内持有；已提交的块不会因后续块失败而回滚。
+ * 返回 totalCount / successCount / failCount / errors（“第N条数据导入失败：原因”，N从1开始）
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class BulkImportEngine {
+
+    private static final int KEY_QUERY_SIZE = 1000;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.bulk-import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 批量导入
+     */
+    public <T> Map<String, Object> importRows(List<T> rows, BulkImportSpec<T> spec) {
+        long start = System.currentTimeMillis();
+        int total = rows == null ? 0 : rows.size();
+        String[] errors = new String[total];
+
+        // 校验无副作用，并行执行
+        IntStream.range(0, total).parallel().forEach(i -> {
+            try {
+                spec.getValidator().accept(rows.get(i));
+            } catch (Exception e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        if (spec.getKeyOf() != null) {
+            markDuplicateKeys(rows, spec, errors);
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (errors[i] == null) {
+                pending.add(i);
+            }
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int successCount = 0;
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < pending.size(); from += size) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + size, pending.size()));
+            successCount += writeChunk(rows, chunk, spec, errors, transaction);
+        }
+
+        List<String> errorList = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (errors[i] != null) {
+                errorList.add(String.format("第%d条数据导入失败：%s", i + 1, errors[i]));
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalCount", total);
+        result.put("successCount", successCount);
+        result.put("failCount", total - successCount);
+        result.put("errors", errorList);
+        log.info("批量导入{}完成: 总数={}, 成功={}, 失败={}, 耗时={}ms",
+                spec.getLabel(), total, successCount, total - successCount, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 批内重复的行保留第一条，库中已存在的唯一键全部标记失败
+     * 唯一键去掉首尾空白并转为小写后比较，与数据库大小写不敏感的排序规则一致
+     */
+    private <T> void markDuplicateKeys(List<T> rows, BulkImportSpec<T> spec, String[] errors) {
+        Map<String, Integer> firstIndex = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            String key = spec.getKeyOf().apply(rows.get(i));
+            if (key == null) {
+                continue;
+            }
+            if (firstIndex.putIfAbsent(normalizeKey(key), i) != null) {
+                errors[i] = spec.getLabel() + "重复: " + key;
+            } else {
+                keys.add(key);
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += KEY_QUERY_SIZE) {
+            spec.getExistingKeys().apply(keys.subList(from, Math.min(from + KEY_QUERY_SIZE, keys.size())))
+                    .forEach(key -> existing.add(normalizeKey(String.valueOf(key))));
+        }
+        firstIndex.forEach((key, index) -> {
+            if (existing.contains(key)) {
+                errors[index] = spec.getLabel() + "已存在: " + spec.getKeyOf().apply(rows.get(index));
+            }
+        });
+    }
+
+    /**
+     * 写入一块，返回成功行数
+     */
+    private <T> int writeChunk(List<T> rows, List<Integer> indexes, BulkImportSpec<T> spec, String[] errors,
+                               TransactionTemplate transaction) {
+        List<T> chunk = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            chunk.add(rows.get(index));
+        }
+
+        try {
+            transaction.executeWithoutResult(status -> Db.saveBatch(chunk, chunk.size()));
+            afterChunk(spec, chunk);
+            return chunk.size();
+        } catch (Exception e) {
+            log.warn("批量写入{}失败，逐行重试: 行数={}, 原因: {}", spec.getLabel(), chunk.size(), rootMessage(e));
+        }
+
+        // 整块已回滚，逐行写入以定位出错的行
+        List<T> inserted = new ArrayList<>();
+        for (int index : indexes) {
+            T row = rows.get(index);
+            clearId(row);
+            try {
+                transaction.executeWithoutResult(status -> Db.save(row));
+                inserted.add(row);
+            } catch (Exception e) {
+                errors[index] = rootMessage(e);
+            }
+        }
+        afterChunk(spec, inserted);
+        return inserted.size();
+    }
+
+    private <T> void afterChunk(BulkImportSpec<T> spec, List<T> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        try {
+            spec.getAfterChunk().accept(inserted);
+        } catch (Exception e) {
+            log.warn("批量导入{}提交后处理失败: {}", spec.getLabel(), e.getMessage());
+        }
+    }
+
+    /**
+     * 回滚的批处理可能已回填自增ID，重试前清除
+     */
+    private void clearId(Object row) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(row.getClass());
+        if (tableInfo != null && tableInfo.getKeyProperty() != null) {
+            tableInfo.setPropertyValue(row, tableInfo.getKeyProperty(), (Object) null);
+        }
+    }
+
+    private static String normalizeKey(String key) {
+        return key.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String rootMessage(Exception e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
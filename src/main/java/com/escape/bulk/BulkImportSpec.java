@@ -0,0 +1,71 @@
+package com.escape.bulk;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 批量导入的行处理规则
+ * 校验函数必须是无副作用的纯校验（会被并行调用），校验失败时抛出异常，异常信息即该行的错误信息
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Getter
+public class BulkImportSpec<T> {
+
+    /**
+     * 实体名称，用于日志和错误信息，如“英雄”
+     */
+    private final String label;
+
+    private Consumer<T> validator = row -> {
+    };
+
+    private Function<T, String> keyOf;
+
+    private Function<List<String>, ? extends Collection<?>> existingKeys;
+
+    private Consumer<List<T>> afterChunk = rows -> {
+    };
+
+    private BulkImportSpec(String label) {
+        this.label = label;
+    }
+
+    public static <T> BulkImportSpec<T> of(String label) {
+        return new BulkImportSpec<>(label);
+    }
+
+    /**
+     * 行校验
+     */
+    public BulkImportSpec<T> validator(Consumer<T> validator) {
+        this.validator = validator;
+        return this;
+    }
+
+    /**
+     * 唯一键：批内重复的行和库中已存在的行导入失败（忽略大小写和首尾空白）
+     *
+     * @param keyOf        取行的唯一键
+     * @param existingKeys 按一批唯一键查询库中已存在的唯一键
+     */
+    public BulkImportSpec<T> uniqueKey(Function<T, String> keyOf,
+                                       Function<List<String>, ? extends Collection<?>> existingKeys) {
+        this.keyOf = keyOf;
+        this.existingKeys = existingKeys;
+        return this;
+    }
+
+    /**
+     * 每块提交后的回调（参数为本块成功写入、已回填ID的行），如登记ID、刷新索引
+     */
+    public BulkImportSpec<T> afterChunk(Consumer<List<T>> afterChunk) {
+        this.afterChunk = afterChunk;
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+package com.escape.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+/**
+ * 缓存编解码器
+ * 负责缓存对象与Redis字符串值之间的相互转换
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+public interface CacheCodec {
+
+    /**
+     * 编码对象为缓存值
+     */
+    String encode(Object value);
+
+    /**
+     * 解码缓存值为指定类型
+     */
+    <T> T decode(String data, TypeReference<T> type);
+}
@@ -0,0 +1,41 @@
+package com.escape.cache;
+
+/**
+ * 带刷新元数据的缓存值
+ * 存储格式：{加载耗时毫秒}|{逻辑过期时间戳}|{编码后的值}
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+record CacheEnvelope(long loadMillis, long expireAt, String payload) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * 序列化为存储字符串
+     */
+    String format() {
+        return loadMillis + String.valueOf(SEPARATOR) + expireAt + SEPARATOR + payload;
+    }
+
+    /**
+     * 解析存储字符串，格式不匹配（如旧格式数据）时返回null
+     */
+    static CacheEnvelope parse(String data) {
+        if (data == null) {
+            return null;
+        }
+        int first = data.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : data.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            return null;
+        }
+        try {
+            long loadMillis = Long.parseLong(data.substring(0, first));
+            long expireAt = Long.parseLong(data.substring(first + 1, second));
+            return new CacheEnvelope(loadMillis, expireAt, data.substring(second + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
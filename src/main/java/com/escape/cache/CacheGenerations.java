@@ -0,0 +1,89 @@
+package com.escape.cache;
+
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命名空间代数（generation）管理
+ * 命名空间下的缓存key携带当前代数，失效时只需INCR代数，旧key不再被读取并随TTL自然过期
+ *
+ * 代数在本地缓存若干秒，其他节点递增代数时通过Redis广播清除本地值
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheGenerations {
+
+    private static final String GENERATION_KEY_PREFIX = "cache:gen:";
+
+    /**
+     * 代数key有效期，需大于命名空间内任何缓存的TTL，保证代数重置时旧key已全部过期
+     */
+    private static final long GENERATION_EXPIRE_DAYS = 7;
+
+    private static final int MAX_LOCAL_GENERATIONS = 10000;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Value("${app.cache.generation.local-ttl-seconds:5}")
+    private long localTtlSeconds;
+
+    private final Map<String, LocalGeneration> localGenerations = new ConcurrentHashMap<>();
+
+    /**
+     * 获取命名空间当前代数
+     */
+    public long current(String namespace) {
+        long now = System.currentTimeMillis();
+        LocalGeneration local = localGenerations.get(namespace);
+        if (local != null && local.expireAt > now) {
+            return local.generation;
+        }
+
+        String value = redisUtils.get(GENERATION_KEY_PREFIX + namespace);
+        long generation = StringUtils.hasText(value) ? Long.parseLong(value) : 0L;
+        remember(namespace, generation, now);
+        return generation;
+    }
+
+    /**
+     * 递增命名空间代数，使该命名空间下的所有缓存失效
+     */
+    public long bump(String namespace) {
+        String key = GENERATION_KEY_PREFIX + namespace;
+        long generation = redisUtils.increment(key);
+        redisUtils.expire(key, GENERATION_EXPIRE_DAYS, TimeUnit.DAYS);
+        remember(namespace, generation, System.currentTimeMillis());
+        log.debug("缓存命名空间代数递增: {} -> {}", namespace, generation);
+        return generation;
+    }
+
+    /**
+     * 清除本地代数，下次读取时从Redis获取
+     */
+    public void forget(String namespace) {
+        localGenerations.remove(namespace);
+    }
+
+    private void remember(String namespace, long generation, long now) {
+        if (localGenerations.size() >= MAX_LOCAL_GENERATIONS) {
+            // 按用户划分的命名空间较多，超出上限时整体清空
+            localGenerations.clear();
+        }
+        localGenerations.put(namespace, new LocalGeneration(generation, now + localTtlSeconds * 1000));
+    }
+
+    private record LocalGeneration(long generation, long expireAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.escape.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 缓存失效广播监听器
+ * 接收其他节点通过Redis发布的失效消息，清理本地近端缓存
+ *
+ * 消息格式：K:{key} 删除单个key，P:{prefix} 删除前缀匹配的key，
+ * G:{namespace} 命名空间代数已递增，B:{type}:{id} 新增实体ID，
+ * R:{nodeId}:{index}:{payload} 进程内索引变更，分发给同名的 {@link ReplicatedIndex}（发送节点忽略自己的消息）
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheInvalidationListener implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    static final String KEY_MESSAGE = "K:";
+    static final String PREFIX_MESSAGE = "P:";
+    static final String GENERATION_MESSAGE = "G:";
+    static final String REGISTER_MESSAGE = "B:";
+    static final String REINDEX_MESSAGE = "R:";
+
+    /**
+     * 索引变更消息中表示全量重建的ID
+     */
+    public static final String REINDEX_ALL = "*";
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    @Autowired
+    private NearCache nearCache;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private List<ReplicatedIndex> replicatedIndexes;
+
+    /**
+     * 构造索引变更消息
+     *
+     * @param id 变更内容，由接收方的 {@link ReplicatedIndex#applyRemote} 解析
+     */
+    public static String reindexMessage(String index, Object id) {
+        return REINDEX_MESSAGE + NODE_ID + ":" + index + ":" + id;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(KEY_MESSAGE)) {
+            nearCache.remove(body.substring(KEY_MESSAGE.length()));
+        } else if (body.startsWith(PREFIX_MESSAGE)) {
+            nearCache.removeByPrefix(body.substring(PREFIX_MESSAGE.length()));
+        } else if (body.startsWith(GENERATION_MESSAGE)) {
+            String namespace = body.substring(GENERATION_MESSAGE.length());
+            cacheGenerations.forget(namespace);
+            nearCache.removeByPrefix(namespace);
+        } else if (body.startsWith(REGISTER_MESSAGE)) {
+            String[] parts = body.substring(REGISTER_MESSAGE.length()).split(":");
+            if (parts.length == 2) {
+                // 批量登记时ID以逗号分隔
+                for (String id : parts[1].split(",")) {
+                    idExistenceFilter.add(parts[0], Long.valueOf(id));
+                }
+            }
+        } else if (body.startsWith(REINDEX_MESSAGE)) {
+            applyReindex(body.substring(REINDEX_MESSAGE.length()));
+        } else {
+            log.warn("未知的缓存失效消息: {}", body);
+        }
+    }
+
+    private void applyReindex(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length != 3 || NODE_ID.equals(parts[0])) {
+            return;
+        }
+        for (ReplicatedIndex index : replicatedIndexes) {
+            if (index.indexName().equals(parts[1])) {
+                index.applyRemote(parts[2]);
+                return;
+            }
+        }
+        log.warn("未知的索引变更消息: {}", payload);
+    }
+}
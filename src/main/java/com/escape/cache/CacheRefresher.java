@@ -0,0 +1,53 @@
+package com.escape.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 缓存后台刷新器
+ * 同一key同一时刻只提交一个刷新任务，刷新期间调用方继续读取旧值
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheRefresher {
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 提交后台刷新任务，已有刷新进行中时忽略
+     */
+    public void refreshAsync(String key, Runnable task) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    task.run();
+                    log.debug("缓存后台刷新完成: {}", key);
+                } catch (Exception e) {
+                    log.error("缓存后台刷新失败, key: {}, 错误: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.warn("缓存刷新任务被拒绝, key: {}", key);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.escape.cache;
+
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存后台清理器
+ * 使用SCAN分批删除前缀匹配的key，在异步线程执行，不阻塞请求和Redis
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheSweeper {
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 异步删除指定前缀的所有key
+     */
+    @Async
+    public void sweep(String prefix) {
+        long start = System.currentTimeMillis();
+        long deleted = redisUtils.deleteByScan(prefix + "*", SCAN_BATCH_SIZE);
+        log.info("缓存清理完成, prefix: {}, 删除数量: {}, 耗时: {}ms",
+                prefix, deleted, System.currentTimeMillis() - start);
+    }
+}
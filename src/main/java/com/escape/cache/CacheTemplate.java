@@ -0,0 +1,341 @@
+package com.escape.cache;
+
+import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 类型化缓存模板
+ * 在RedisUtils之上提供读穿透（read-through）缓存：命中时直接返回反序列化结果，
+ * 未命中时调用loader加载并回写缓存；热点详情数据可额外使用进程内近端缓存
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheTemplate {
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private CacheCodec cacheCodec;
+
+    @Autowired
+    private NearCache nearCache;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private CacheSweeper cacheSweeper;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private CacheRefresher cacheRefresher;
+
+    @Value("${app.cache.lock.enabled:false}")
+    private boolean lockEnabled;
+
+    @Value("${app.cache.lock.wait-millis:2000}")
+    private long lockWaitMillis;
+
+    @Value("${app.cache.refresh.beta:1.0}")
+    private double refreshBeta;
+
+    private static final String LOCK_KEY_PREFIX = "cache:lock:";
+    private static final long LOCK_EXPIRE_SECONDS = 10;
+    private static final long LOCK_POLL_MILLIS = 50;
+
+    /**
+     * 读穿透获取缓存
+     * loader返回null时不写入缓存；同一key的并发未命中在本节点内合并为一次加载
+     */
+    public <T> T getOrLoad(String key, TypeReference<T> type, long timeout, TimeUnit unit, Supplier<T> loader) {
+        T cached = get(key, type);
+        if (cached != null) {
+            log.debug("缓存命中: {}", key);
+            return cached;
+        }
+
+        return singleFlight.execute(key, () -> loadAndPut(key, type, timeout, unit, loader));
+    }
+
+    /**
+     * 读穿透获取缓存，开启分布式锁时在集群范围内合并加载
+     * 适用于回源代价高的热门列表：未抢到锁的节点轮询缓存，等待超时后再自行加载
+     */
+    public <T> T getOrLoadLocked(String key, TypeReference<T> type, long timeout, TimeUnit unit, Supplier<T> loader) {
+        if (!lockEnabled) {
+            return getOrLoad(key, type, timeout, unit, loader);
+        }
+
+        T cached = get(key, type);
+        if (cached != null) {
+            log.debug("缓存命中: {}", key);
+            return cached;
+        }
+
+        return singleFlight.execute(key, () -> loadWithLock(key,
+                () -> get(key, type), () -> loadAndPut(key, type, timeout, unit, loader)));
+    }
+
+    /**
+     * 读穿透获取缓存，临近过期时提前在后台刷新（stale-while-revalidate）
+     * 按XFetch规则以概率提前刷新：加载越慢、越接近过期，触发概率越高；
+     * 超过逻辑过期但仍在物理TTL内时返回旧值并后台刷新，调用方不会因过期而阻塞
+     */
+    public <T> T getOrRefresh(String key, TypeReference<T> type, long timeout, TimeUnit unit, Supplier<T> loader) {
+        CacheEnvelope envelope = CacheEnvelope.parse(redisUtils.get(key));
+        if (envelope != null) {
+            try {
+                T cached = cacheCodec.decode(envelope.payload(), type);
+                if (shouldRefreshEarly(envelope)) {
+                    cacheRefresher.refreshAsync(key, () -> loadAndPutEnvelope(key, timeout, unit, loader));
+                }
+                log.debug("缓存命中: {}", key);
+                return cached;
+            } catch (Exception e) {
+                log.warn("缓存解码失败, key: {}, 错误: {}", key, e.getMessage());
+                redisUtils.delete(key);
+            }
+        }
+
+        if (!lockEnabled) {
+            return singleFlight.execute(key, () -> loadAndPutEnvelope(key, timeout, unit, loader));
+        }
+        return singleFlight.execute(key, () -> loadWithLock(key,
+                () -> getEnvelopeValue(key, type), () -> loadAndPutEnvelope(key, timeout, unit, loader)));
+    }
+
+    /**
+     * 带进程内近端缓存的读穿透获取
+     * 适用于读多写少的详情类数据，先查本地再查Redis，失效通过Redis广播同步到各节点
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoadNear(String key, TypeReference<T> type, long timeout, TimeUnit unit, Supplier<T> loader) {
+        Object local = nearCache.get(key);
+        if (local != null) {
+            log.debug("近端缓存命中: {}", key);
+            return (T) local;
+        }
+
+        String data = redisUtils.get(key);
+        if (StringUtils.hasText(data)) {
+            try {
+                T cached = cacheCodec.decode(data, type);
+                nearCache.put(key, cached, data.length(), unit.toMillis(timeout));
+                log.debug("缓存命中: {}", key);
+                return cached;
+            } catch (Exception e) {
+                log.warn("缓存解码失败, key: {}, 错误: {}", key, e.getMessage());
+                redisUtils.delete(key);
+            }
+        }
+
+        return singleFlight.execute(key, () -> {
+            T value = loader.get();
+            if (value != null) {
+                try {
+                    String encoded = cacheCodec.encode(value);
+                    redisUtils.set(key, encoded, timeout, unit);
+                    nearCache.put(key, value, encoded.length(), unit.toMillis(timeout));
+                } catch (Exception e) {
+                    log.error("缓存写入失败, key: {}, 错误: {}", key, e.getMessage());
+                }
+            }
+            return value;
+        });
+    }
+
+    /**
+     * 获取缓存，不存在或解码失败时返回null
+     */
+    public <T> T get(String key, TypeReference<T> type) {
+        String data = redisUtils.get(key);
+        if (!StringUtils.hasText(data)) {
+            return null;
+        }
+        try {
+            return cacheCodec.decode(data, type);
+        } catch (Exception e) {
+            // 旧格式或损坏的数据直接丢弃，按未命中处理
+            log.warn("缓存解码失败, key: {}, 错误: {}", key, e.getMessage());
+            redisUtils.delete(key);
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, Object value, long timeout, TimeUnit unit) {
+        try {
+            redisUtils.set(key, cacheCodec.encode(value), timeout, unit);
+        } catch (Exception e) {
+            log.error("缓存写入失败, key: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除缓存，同时通知所有节点清理近端缓存
+     * 在事务中调用时提交后再删除一次：提交前并发读取会把旧数据重新写回缓存
+     */
+    public void evict(String key) {
+        evictNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * 生成命名空间下的缓存key，格式为 {namespace}g{代数}:{suffix}
+     */
+    public String namespacedKey(String namespace, Object suffix) {
+        return namespace + "g" + cacheGenerations.current(namespace) + ":" + suffix;
+    }
+
+    /**
+     * 使整个命名空间失效
+     * 只递增代数（一次INCR），旧key不再被读取并随TTL过期
+     */
+    public void invalidateNamespace(String namespace) {
+        cacheGenerations.bump(namespace);
+        nearCache.removeByPrefix(namespace);
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.GENERATION_MESSAGE + namespace);
+    }
+
+    /**
+     * 按前缀删除缓存，同时通知所有节点清理近端缓存
+     * Redis中的key由后台SCAN清理，适用于管理端的全量刷新
+     */
+    public void evictByPrefix(String prefix) {
+        nearCache.removeByPrefix(prefix);
+        cacheSweeper.sweep(prefix);
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.PREFIX_MESSAGE + prefix);
+    }
+
+    private void evictNow(String key) {
+        redisUtils.delete(key);
+        nearCache.remove(key);
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.KEY_MESSAGE + key);
+    }
+
+    /**
+     * 加载并写入缓存
+     */
+    private <T> T loadAndPut(String key, TypeReference<T> type, long timeout, TimeUnit unit, Supplier<T> loader) {
+        T value = loader.get();
+        if (value != null) {
+            put(key, value, timeout, unit);
+        }
+        return value;
+    }
+
+    /**
+     * 加载并以带刷新元数据的格式写入缓存
+     * 物理TTL为逻辑TTL的1.5倍，逻辑过期后的这段时间内返回旧值并后台刷新
+     */
+    private <T> T loadAndPutEnvelope(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        long start = System.currentTimeMillis();
+        T value = loader.get();
+        if (value != null) {
+            try {
+                long now = System.currentTimeMillis();
+                long ttlMillis = unit.toMillis(timeout);
+                CacheEnvelope envelope = new CacheEnvelope(now - start, now + ttlMillis, cacheCodec.encode(value));
+                redisUtils.set(key, envelope.format(), ttlMillis + ttlMillis / 2, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.error("缓存写入失败, key: {}, 错误: {}", key, e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 读取带刷新元数据的缓存值，不存在或解码失败时返回null
+     */
+    private <T> T getEnvelopeValue(String key, TypeReference<T> type) {
+        CacheEnvelope envelope = CacheEnvelope.parse(redisUtils.get(key));
+        if (envelope == null) {
+            return null;
+        }
+        try {
+            return cacheCodec.decode(envelope.payload(), type);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * XFetch提前刷新判定：now - delta * beta * ln(rand) >= expiry
+     */
+    private boolean shouldRefreshEarly(CacheEnvelope envelope) {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -envelope.loadMillis() * refreshBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= envelope.expireAt();
+    }
+
+    /**
+     * 持有分布式锁时加载，未获取到锁时等待持有者写入缓存
+     *
+     * @param reader 读取缓存，未命中返回null
+     * @param loadAndWrite 加载并写入缓存
+     */
+    private <T> T loadWithLock(String key, Supplier<T> reader, Supplier<T> loadAndWrite) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + lockWaitMillis;
+
+        while (true) {
+            Boolean acquired = redisUtils.setIfAbsent(lockKey, token, LOCK_EXPIRE_SECONDS, TimeUnit.SECONDS);
+            if (acquired == null) {
+                // Redis不可用，直接加载
+                return loadAndWrite.get();
+            }
+            if (acquired) {
+                try {
+                    // 获取锁后再检查一次，其他节点可能已完成加载
+                    T cached = reader.get();
+                    return cached != null ? cached : loadAndWrite.get();
+                } finally {
+                    redisUtils.deleteIfEquals(lockKey, token);
+                }
+            }
+
+            T cached = reader.get();
+            if (cached != null) {
+                return cached;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("等待缓存加载锁超时，直接加载, key: {}", key);
+                return loadAndWrite.get();
+            }
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loadAndWrite.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.escape.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.HeroMapper;
+import com.escape.mapper.PositionMapper;
+import com.escape.mapper.UserMapper;
+import com.escape.mapper.WeaponMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体ID存在性过滤器
+ * 每种实体维护一个有效ID的布隆过滤器，用于在查缓存和数据库之前拒绝不存在的ID；
+ * 布隆过滤器放行但数据库确认不存在的ID写入短期负缓存
+ *
+ * 启动后和定时任务中从数据库重建（逻辑删除的ID随重建移除），新增ID实时加入并广播到其他节点。
+ * 大于重建时最大ID的请求直接放行，避免广播延迟导致新数据被误拒
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class IdExistenceFilter {
+
+    public static final String CONTENT = "content";
+    public static final String POSITION = "position";
+    public static final String HERO = "hero";
+    public static final String WEAPON = "weapon";
+    public static final String USER = "user";
+
+    private static final String MISSING_KEY_PREFIX = "cache:missing:";
+    private static final long MISSING_EXPIRE_MINUTES = 5;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 10000;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private PositionMapper positionMapper;
+
+    @Autowired
+    private HeroMapper heroMapper;
+
+    @Autowired
+    private WeaponMapper weaponMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * ID是否可能存在
+     * 过滤器尚未构建或ID大于构建时最大ID时返回true
+     */
+    public boolean mightExist(String type, Long id) {
+        if (id == null) {
+            return false;
+        }
+        Snapshot snapshot = snapshots.get(type);
+        if (snapshot == null || id > snapshot.maxId) {
+            return true;
+        }
+        return snapshot.filter.mightContain(id);
+    }
+
+    /**
+     * 是否已确认不存在（负缓存）
+     */
+    public boolean isKnownMissing(String type, Long id) {
+        return redisUtils.hasKey(MISSING_KEY_PREFIX + type + ":" + id);
+    }
+
+    /**
+     * 记录不存在的ID
+     */
+    public void markMissing(String type, Long id) {
+        redisUtils.set(MISSING_KEY_PREFIX + type + ":" + id, "1", MISSING_EXPIRE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 新增实体后登记ID，并通知其他节点
+     */
+    public void register(String type, Long id) {
+        if (id == null) {
+            return;
+        }
+        add(type, id);
+        redisUtils.delete(MISSING_KEY_PREFIX + type + ":" + id);
+        redisUtils.publish(CacheInvalidationListener.CHANNEL,
+                CacheInvalidationListener.REGISTER_MESSAGE + type + ":" + id);
+    }
+
+    /**
+     * 批量导入后登记一批ID，只发送一条广播
+     */
+    public void registerAll(String type, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<String> missingKeys = new ArrayList<>(ids.size());
+        StringJoiner message = new StringJoiner(",", CacheInvalidationListener.REGISTER_MESSAGE + type + ":", "");
+        for (Long id : ids) {
+            if (id != null) {
+                add(type, id);
+                missingKeys.add(MISSING_KEY_PREFIX + type + ":" + id);
+                message.add(String.valueOf(id));
+            }
+        }
+        redisUtils.delete(missingKeys);
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, message.toString());
+    }
+
+    /**
+     * 仅在本节点登记ID（接收广播时使用）
+     */
+    public void add(String type, Long id) {
+        Snapshot snapshot = snapshots.get(type);
+        if (snapshot != null) {
+            snapshot.filter.add(id);
+        }
+    }
+
+    /**
+     * 应用就绪后在后台构建过滤器，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuildAll);
+    }
+
+    /**
+     * 定时重建，移除已删除的ID
+     */
+    @Scheduled(initialDelayString = "${app.cache.bloom.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.cache.bloom.rebuild-interval-ms:3600000}")
+    public void rebuildAll() {
+        rebuild(CONTENT, contentMapper);
+        rebuild(POSITION, positionMapper);
+        rebuild(HERO, heroMapper);
+        rebuild(WEAPON, weaponMapper);
+        rebuild(USER, userMapper);
+    }
+
+    private <E> void rebuild(String type, BaseMapper<E> mapper) {
+        try {
+            // @TableLogic 自动追加 deleted = 0 条件
+            List<Object> ids = mapper.selectObjs(new QueryWrapper<E>().select("id"));
+            IdBloomFilter filter = new IdBloomFilter(Math.max(ids.size() * 2L, MIN_CAPACITY), FALSE_POSITIVE_RATE);
+            long maxId = 0;
+            for (Object value : ids) {
+                long id = ((Number) value).longValue();
+                filter.add(id);
+                maxId = Math.max(maxId, id);
+            }
+            snapshots.put(type, new Snapshot(filter, maxId));
+            log.info("ID过滤器构建完成, type: {}, 数量: {}, 最大ID: {}", type, ids.size(), maxId);
+        } catch (Exception e) {
+            log.warn("ID过滤器构建失败, type: {}, 错误: {}", type, e.getMessage());
+        }
+    }
+
+    private record Snapshot(IdBloomFilter filter, long maxId) {
+    }
+}
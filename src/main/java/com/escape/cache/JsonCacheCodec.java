@@ -0,0 +1,47 @@
+package com.escape.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Component;
+
+/**
+ * JSON缓存编解码器
+ * 使用独立的ObjectMapper，避免受Web层序列化配置影响
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Component
+public class JsonCacheCodec implements CacheCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonCacheCodec() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public String encode(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("缓存序列化失败: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(String data, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("缓存反序列化失败: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.escape.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内近端缓存（L1）
+ * 位于Redis之前，按条目数和权重（编码后字符数）做LRU淘汰，
+ * 跨节点失效依赖 {@link CacheInvalidationListener} 接收Redis广播
+ *
+ * 注意：缓存的是反序列化后的对象实例，调用方不应修改返回值
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class NearCache {
+
+    @Value("${app.cache.near.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.cache.near.max-weight:52428800}")
+    private long maxWeight;
+
+    @Value("${app.cache.near.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long totalWeight;
+
+    /**
+     * 获取缓存，不存在或已过期时返回null
+     */
+    public synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt < System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param weight 条目权重（通常为编码后的字符数）
+     * @param ttlMillis 远端缓存剩余有效期，本地有效期取两者较小值
+     */
+    public synchronized void put(String key, Object value, long weight, long ttlMillis) {
+        if (weight > maxWeight) {
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + Math.min(ttlMillis, ttlSeconds * 1000);
+        Entry previous = entries.put(key, new Entry(value, weight, expireAt));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+        evictIfNecessary();
+    }
+
+    /**
+     * 删除单个key
+     */
+    public synchronized void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * 删除指定前缀的所有key
+     */
+    public synchronized void removeByPrefix(String prefix) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            if (next.getKey().startsWith(prefix)) {
+                totalWeight -= next.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * 当前条目数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 按LRU顺序淘汰，直到条目数和权重都在限制内
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalWeight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            totalWeight -= eldest.getValue().weight;
+            iterator.remove();
+        }
+    }
+
+    private record Entry(Object value, long weight, long expireAt) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.escape.cache;
+
+/**
+ * 需要在节点间同步变更的进程内索引
+ * 索引变更后通过 {@link CacheInvalidationListener#reindexMessage} 广播，
+ * 其他节点的监听器按索引名把变更分发给对应的实现
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+public interface ReplicatedIndex {
+
+    /**
+     * 索引名，与广播消息中的索引名一致
+     */
+    String indexName();
+
+    /**
+     * 应用其他节点广播的变更
+     *
+     * @param payload 广播时携带的变更内容，为 {@link CacheInvalidationListener#REINDEX_ALL} 时全量重建
+     */
+    void applyRemote(String payload);
+}
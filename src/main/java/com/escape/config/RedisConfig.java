@@ -1,13 +1,19 @@
 package com.escape.config;
 
+import com.escape.cache.CacheInvalidationListener;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -18,6 +24,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  * @author escape
  * @since 2025-06-05
  */
+@Slf4j
 @Configuration
 public class RedisConfig {
 
@@ -57,4 +64,39 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 配置Redis消息监听容器
+     * 用于接收缓存失效广播，不随容器自动启动，避免Redis不可用时阻断应用启动
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CacheInvalidationListener cacheInvalidationListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationListener, new ChannelTopic(CacheInvalidationListener.CHANNEL));
+        container.setRecoveryInterval(10000L);
+        return container;
+    }
+
+    /**
+     * 应用就绪后启动消息监听容器
+     * 启动失败时仅记录日志，近端缓存依靠本地过期时间兜底
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> redisListenerStarter(RedisMessageListenerContainer container) {
+        return event -> {
+            try {
+                container.start();
+                log.info("缓存失效监听已启动, channel: {}", CacheInvalidationListener.CHANNEL);
+            } catch (Exception e) {
+                log.warn("缓存失效监听启动失败，近端缓存将仅依赖本地过期: {}", e.getMessage());
+            }
+        };
+    }
+}
@@ -113,7 +113,8 @@ public class SecurityConfig {
                                 "/weapon/{id}",
                                 "/positions/list",
                                 "/positions/{id}",
-                                "/tags/list"
+                                "/tags/list",
+                                "/suggest"
                         ).permitAll()
 
                         // ==================== 静态资源 ====================
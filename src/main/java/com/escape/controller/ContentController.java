@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.common.Result;
 import com.escape.common.ResultCode;
 import com.escape.entity.Content;
+import com.escape.search.ContentFilter;
 import com.escape.service.ContentService;
 import com.escape.utils.JwtUtils;
 import jakarta.validation.constraints.NotNull;
@@ -219,6 +220,41 @@ public class ContentController {
         }
     }
 
+    /**
+     * 多标签组合过滤已发布内容
+     * tagIds全部命中、anyTagIds命中其一、excludeTagIds均不命中，可叠加英雄/地图/武器/类型条件
+     */
+    @GetMapping("/filter")
+    public Result<IPage<Content>> filterContents(@RequestParam(defaultValue = "1") Integer current,
+                                                 @RequestParam(defaultValue = "10") Integer size,
+                                                 @RequestParam(required = false) List<Long> tagIds,
+                                                 @RequestParam(required = false) List<Long> anyTagIds,
+                                                 @RequestParam(required = false) List<Long> excludeTagIds,
+                                                 @RequestParam(required = false) Long heroId,
+                                                 @RequestParam(required = false) Long mapId,
+                                                 @RequestParam(required = false) Long weaponId,
+                                                 @RequestParam(required = false) String contentType) {
+        try {
+            Page<Content> page = new Page<>(current, size);
+
+            ContentFilter filter = new ContentFilter();
+            filter.setStatus(1);
+            filter.setContentType(contentType);
+            filter.setHeroId(heroId);
+            filter.setMapId(mapId);
+            filter.setWeaponId(weaponId);
+            filter.setAllTagIds(tagIds);
+            filter.setAnyTagIds(anyTagIds);
+            filter.setExcludeTagIds(excludeTagIds);
+
+            IPage<Content> result = contentService.filterContents(page, filter);
+            return Result.success(result);
+        } catch (Exception e) {
+            log.error("过滤内容失败", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 获取内容统计信息
      */
@@ -413,7 +449,7 @@ public class ContentController {
             boolean success = contentService.removeById(contentId);
             if (success) {
                 // 刷新缓存
-                contentService.refreshContentCache();
+                contentService.invalidateContentCache();
                 return Result.success("内容删除成功");
             } else {
                 return Result.error(ResultCode.INTERNAL_SERVER_ERROR.getCode(), "内容删除失败");
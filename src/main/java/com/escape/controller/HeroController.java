@@ -404,6 +404,8 @@ public class HeroController {
             validateAdminPermission(currentUserId);
 
             heroSkillService.saveOrUpdateHeroSkills(heroId, skills);
+            // 英雄详情缓存中包含技能，需要同步刷新
+            heroService.refreshHeroCache();
             return Result.success("技能保存成功");
         } catch (Exception e) {
             log.error("保存英雄技能系统错误: heroId={}, skills={}, error={}", heroId, skills, e.getMessage(), e);
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.common.Result;
 import com.escape.common.ResultCode;
+import com.escape.dto.response.NearbyPosition;
 import com.escape.entity.Position;
 import com.escape.service.PositionService;
 import com.escape.utils.JwtUtils;
@@ -208,6 +209,87 @@ public class PositionController {
         }
     }
 
+    // ==================== 空间查询接口 ====================
+
+    /**
+     * 查询地图上坐标在圆内的点位（按距离升序）
+     * 坐标为小地图归一化坐标（0~1），anchor选择站位（stand）或落点（landing）
+     */
+    @GetMapping("/map/{mapId}/nearby")
+    public Result<List<NearbyPosition>> getPositionsWithinRadius(@PathVariable @NotNull(message = "地图ID不能为空") Long mapId,
+                                                                 @RequestParam Double x,
+                                                                 @RequestParam Double y,
+                                                                 @RequestParam Double radius,
+                                                                 @RequestParam(defaultValue = "landing") String anchor,
+                                                                 @RequestParam(required = false) Long heroId,
+                                                                 @RequestParam(required = false) String side,
+                                                                 @RequestParam(required = false) String positionType,
+                                                                 @RequestParam(defaultValue = "50") Integer limit) {
+        try {
+            List<NearbyPosition> positions = positionService.getPositionsWithinRadius(mapId, anchor, x, y, radius,
+                    spatialParams(heroId, side, positionType), limit);
+            return Result.success(positions);
+        } catch (RuntimeException e) {
+            log.warn("半径查询点位失败: mapId={}, x={}, y={}, radius={}, 原因: {}", mapId, x, y, radius, e.getMessage());
+            return handlePositionException(e);
+        } catch (Exception e) {
+            log.error("半径查询点位系统错误: mapId={}", mapId, e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 查询地图上坐标在矩形内的点位
+     */
+    @GetMapping("/map/{mapId}/box")
+    public Result<List<Position>> getPositionsInBox(@PathVariable @NotNull(message = "地图ID不能为空") Long mapId,
+                                                    @RequestParam Double minX,
+                                                    @RequestParam Double minY,
+                                                    @RequestParam Double maxX,
+                                                    @RequestParam Double maxY,
+                                                    @RequestParam(defaultValue = "landing") String anchor,
+                                                    @RequestParam(required = false) Long heroId,
+                                                    @RequestParam(required = false) String side,
+                                                    @RequestParam(required = false) String positionType,
+                                                    @RequestParam(defaultValue = "50") Integer limit) {
+        try {
+            List<Position> positions = positionService.getPositionsInBox(mapId, anchor, minX, minY, maxX, maxY,
+                    spatialParams(heroId, side, positionType), limit);
+            return Result.success(positions);
+        } catch (RuntimeException e) {
+            log.warn("矩形查询点位失败: mapId={}, 原因: {}", mapId, e.getMessage());
+            return handlePositionException(e);
+        } catch (Exception e) {
+            log.error("矩形查询点位系统错误: mapId={}", mapId, e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 查询地图上距离最近的k个点位（按距离升序）
+     */
+    @GetMapping("/map/{mapId}/nearest")
+    public Result<List<NearbyPosition>> getNearestPositions(@PathVariable @NotNull(message = "地图ID不能为空") Long mapId,
+                                                            @RequestParam Double x,
+                                                            @RequestParam Double y,
+                                                            @RequestParam(defaultValue = "10") Integer k,
+                                                            @RequestParam(defaultValue = "landing") String anchor,
+                                                            @RequestParam(required = false) Long heroId,
+                                                            @RequestParam(required = false) String side,
+                                                            @RequestParam(required = false) String positionType) {
+        try {
+            List<NearbyPosition> positions = positionService.getNearestPositions(mapId, anchor, x, y, k,
+                    spatialParams(heroId, side, positionType));
+            return Result.success(positions);
+        } catch (RuntimeException e) {
+            log.warn("最近邻查询点位失败: mapId={}, x={}, y={}, 原因: {}", mapId, x, y, e.getMessage());
+            return handlePositionException(e);
+        } catch (Exception e) {
+            log.error("最近邻查询点位系统错误: mapId={}", mapId, e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // ==================== 统计分析接口 ====================
 
     /**
@@ -529,4 +611,15 @@ public class PositionController {
             return Result.error(ResultCode.BAD_REQUEST.getCode(), message);
         }
     }
+
+    /**
+     * 空间查询的可选过滤条件（英雄、攻防方、点位类型），未传的条件不加入
+     */
+    private Map<String, Object> spatialParams(Long heroId, String side, String positionType) {
+        Map<String, Object> params = new HashMap<>();
+        if (heroId != null) params.put("heroId", heroId);
+        if (side != null) params.put("side", side);
+        if (positionType != null) params.put("positionType", positionType);
+        return params;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.escape.controller;
+
+import com.escape.common.Result;
+import com.escape.common.ResultCode;
+import com.escape.search.SuggestIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索建议控制器
+ * 提供输入联想相关API接口
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@RestController
+@RequestMapping("/suggest")
+public class SuggestController {
+
+    private static final int MAX_LIMIT = 20;
+
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    /**
+     * 获取输入联想（标签、英雄、地图、武器）
+     */
+    @GetMapping
+    public Result<List<Map<String, Object>>> suggest(@RequestParam String prefix,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(defaultValue = "10") Integer limit) {
+        try {
+            int finalLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            return Result.success(suggestIndex.suggest(prefix, type, finalLimit));
+        } catch (Exception e) {
+            log.error("获取搜索建议失败: prefix={}", prefix, e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
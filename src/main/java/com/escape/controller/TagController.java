@@ -244,7 +244,7 @@ public class TagController {
             boolean success = tagService.updateById(tag);
             if (success) {
                 // 刷新缓存
-                tagService.refreshTagCache();
+                tagService.invalidateTagCache();
                 return Result.success("标签更新成功");
             } else {
                 return Result.error(ResultCode.INTERNAL_SERVER_ERROR.getCode(), "标签更新失败");
@@ -301,7 +301,7 @@ public class TagController {
             boolean success = tagService.removeById(tagId);
             if (success) {
                 // 刷新缓存
-                tagService.refreshTagCache();
+                tagService.invalidateTagCache();
                 return Result.success("标签删除成功");
             } else {
                 return Result.error(ResultCode.INTERNAL_SERVER_ERROR.getCode(), "标签删除失败");
@@ -0,0 +1,99 @@
+package com.escape.controller;
+
+import com.escape.common.Result;
+import com.escape.common.ResultCode;
+import com.escape.service.UserService;
+import com.escape.trending.TrendingEngine;
+import com.escape.utils.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热度排行控制器
+ * 提供热度排行维护相关API接口
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@RestController
+@RequestMapping("/trending")
+public class TrendingController {
+
+    @Autowired
+    private TrendingEngine trendingEngine;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    /**
+     * 从数据库重建热度排行（管理员功能）
+     */
+    @PostMapping("/rebuild")
+    public Result<Map<String, Integer>> rebuildTrending(@RequestHeader("Authorization") String token) {
+        try {
+            Long currentUserId = getUserIdFromToken(token);
+
+            // 验证管理员权限
+            validateAdminPermission(currentUserId);
+
+            Map<String, Integer> result = trendingEngine.rebuildAll();
+            return Result.success(result);
+        } catch (RuntimeException e) {
+            log.warn("重建热度排行失败: {}", e.getMessage());
+            return Result.error(ResultCode.BAD_REQUEST.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("重建热度排行系统错误", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // ==================== 工具方法 ====================
+
+    /**
+     * 从Token中获取用户ID
+     */
+    private Long getUserIdFromToken(String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            throw new RuntimeException("Token格式错误");
+        }
+
+        String actualToken = token.substring(7);
+        Long userId = jwtUtils.getUserIdFromToken(actualToken);
+
+        if (userId == null) {
+            throw new RuntimeException("无法从Token中获取用户信息");
+        }
+
+        return userId;
+    }
+
+    /**
+     * 检查用户是否有管理员权限
+     */
+    private boolean hasAdminPermission(Long userId) {
+        try {
+            List<String> roles = userService.getUserRoles(userId);
+            return roles.contains("SUPER_ADMIN") || roles.contains("CONTENT_ADMIN");
+        } catch (Exception e) {
+            log.error("检查管理员权限失败: userId={}", userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 验证管理员权限，如果没有权限则抛出异常
+     */
+    private void validateAdminPermission(Long userId) {
+        if (!hasAdminPermission(userId)) {
+            throw new RuntimeException("权限不足，需要管理员权限");
+        }
+    }
+}
@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.common.Result;
 import com.escape.common.ResultCode;
 import com.escape.entity.ViewHistory;
+import com.escape.entity.ViewHistoryTargetDaily;
+import com.escape.ingest.ViewHistoryIngestor;
+import com.escape.service.UserService;
 import com.escape.service.ViewHistoryService;
 import com.escape.utils.JwtUtils;
 import jakarta.validation.constraints.NotBlank;
@@ -37,6 +40,12 @@ public class ViewHistoryController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private ViewHistoryIngestor viewHistoryIngestor;
+
+    @Autowired
+    private UserService userService;
+
     // ==================== 记录浏览历史接口 ====================
 
     /**
@@ -227,6 +236,29 @@ public class ViewHistoryController {
         }
     }
 
+    /**
+     * 获取观看进度（续播位置）
+     */
+    @GetMapping("/progress")
+    public Result<Integer> getResumeProgress(
+            @RequestParam @NotBlank(message = "目标类型不能为空") String targetType,
+            @RequestParam @NotNull(message = "目标ID不能为空") Long targetId,
+            @RequestHeader("Authorization") String token) {
+        try {
+            Long userId = getUserIdFromToken(token);
+
+            if (userId == -1L) {
+                return Result.success(0);
+            }
+
+            int progress = viewHistoryService.getResumeProgress(userId, targetType, targetId);
+            return Result.success(progress);
+        } catch (Exception e) {
+            log.error("获取观看进度失败", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 获取未完成的视频
      */
@@ -289,6 +321,23 @@ public class ViewHistoryController {
         }
     }
 
+    /**
+     * 获取目标每日浏览趋势
+     */
+    @GetMapping("/target-trend")
+    public Result<List<ViewHistoryTargetDaily>> getTargetViewTrend(
+            @RequestParam @NotBlank(message = "目标类型不能为空") String targetType,
+            @RequestParam @NotNull(message = "目标ID不能为空") Long targetId,
+            @RequestParam(defaultValue = "30") Integer days) {
+        try {
+            List<ViewHistoryTargetDaily> trend = viewHistoryService.getTargetViewTrend(targetType, targetId, days);
+            return Result.success(trend);
+        } catch (Exception e) {
+            log.error("获取浏览趋势失败: targetType={}, targetId={}", targetType, targetId, e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 获取浏览历史热力图
      */
@@ -355,6 +404,27 @@ public class ViewHistoryController {
         }
     }
 
+    /**
+     * 按目标删除浏览历史（用于最近浏览列表中的记录）
+     */
+    @DeleteMapping("/delete-targets")
+    public Result<Integer> deleteHistoryByTargets(@RequestBody List<ViewHistory> targets,
+                                                  @RequestHeader("Authorization") String token) {
+        try {
+            Long userId = getUserIdFromToken(token);
+
+            if (userId == -1L) {
+                return Result.error(ResultCode.LOGIN_REQUIRED.getCode(), "游客用户请先登录");
+            }
+
+            int count = viewHistoryService.deleteHistoryByTargets(userId, targets);
+            return Result.success("删除成功", count);
+        } catch (Exception e) {
+            log.error("按目标删除浏览历史失败", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 清空所有浏览历史
      */
@@ -399,6 +469,27 @@ public class ViewHistoryController {
 
     // ==================== 公共查询接口 ====================
 
+    /**
+     * 获取浏览历史写入管道指标（管理员）
+     */
+    @GetMapping("/ingest-metrics")
+    public Result<Map<String, Object>> getIngestMetrics(@RequestHeader("Authorization") String token) {
+        try {
+            Long currentUserId = getUserIdFromToken(token);
+
+            // 验证管理员权限
+            validateAdminPermission(currentUserId);
+
+            return Result.success(viewHistoryIngestor.getMetrics());
+        } catch (RuntimeException e) {
+            log.warn("获取写入管道指标失败: {}", e.getMessage());
+            return handleHistoryException(e);
+        } catch (Exception e) {
+            log.error("获取写入管道指标系统错误", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 获取内容的浏览用户数
      */
@@ -415,6 +506,31 @@ public class ViewHistoryController {
         }
     }
 
+    /**
+     * 精确重新统计浏览用户数（管理员功能）
+     */
+    @PostMapping("/viewer-count/recount")
+    public Result<Integer> recountUniqueViewers(
+            @RequestParam @NotBlank(message = "目标类型不能为空") String targetType,
+            @RequestParam @NotNull(message = "目标ID不能为空") Long targetId,
+            @RequestHeader("Authorization") String token) {
+        try {
+            Long currentUserId = getUserIdFromToken(token);
+
+            // 验证管理员权限
+            validateAdminPermission(currentUserId);
+
+            int count = viewHistoryService.recountUniqueViewers(targetType, targetId);
+            return Result.success(count);
+        } catch (RuntimeException e) {
+            log.warn("重新统计浏览用户数失败: {}", e.getMessage());
+            return handleHistoryException(e);
+        } catch (Exception e) {
+            log.error("重新统计浏览用户数系统错误", e);
+            return Result.error(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // ==================== 请求DTO ====================
 
     /**
@@ -467,6 +583,28 @@ public class ViewHistoryController {
         return userId;
     }
 
+    /**
+     * 检查用户是否有管理员权限
+     */
+    private boolean hasAdminPermission(Long userId) {
+        try {
+            List<String> roles = userService.getUserRoles(userId);
+            return roles.contains("SUPER_ADMIN") || roles.contains("CONTENT_ADMIN");
+        } catch (Exception e) {
+            log.error("检查管理员权限失败: userId={}", userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 验证管理员权限，如果没有权限则抛出异常
+     */
+    private void validateAdminPermission(Long userId) {
+        if (!hasAdminPermission(userId)) {
+            throw new RuntimeException("权限不足，需要管理员权限");
+        }
+    }
+
     /**
      * 统一处理浏览历史相关异常
      */
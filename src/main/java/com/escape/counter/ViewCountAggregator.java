@@ -0,0 +1,90 @@
+package com.escape.counter;
+
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.PositionMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 浏览次数聚合器
+ * 浏览次数先累加在内存中，定时以一条多行 UPDATE ... CASE id 语句批量写入各表
+ *
+ * 写入的是增量（view_count = view_count + delta），多节点各自刷新互不覆盖；
+ * 写库失败时增量归还到缓冲区，应用关闭前执行最后一次刷新
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ViewCountAggregator {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private PositionMapper positionMapper;
+
+    private final WriteBehindCounter contentViews = new WriteBehindCounter();
+    private final WriteBehindCounter positionViews = new WriteBehindCounter();
+
+    /**
+     * 记录内容浏览
+     */
+    public void recordContentView(Long contentId) {
+        contentViews.add(contentId, 1);
+    }
+
+    /**
+     * 记录点位浏览
+     */
+    public void recordPositionView(Long positionId) {
+        positionViews.add(positionId, 1);
+    }
+
+    /**
+     * 定时刷新到数据库
+     */
+    @Scheduled(initialDelayString = "${app.counter.flush-interval-ms:5000}",
+            fixedDelayString = "${app.counter.flush-interval-ms:5000}")
+    public void flush() {
+        flush("contents", contentViews, contentMapper::batchIncrementViewCount);
+        flush("positions", positionViews, positionMapper::batchIncrementViewCount);
+    }
+
+    /**
+     * 应用关闭前写入剩余增量
+     */
+    @PreDestroy
+    public void drainOnShutdown() {
+        flush();
+        long remaining = contentViews.pending() + positionViews.pending();
+        if (remaining > 0) {
+            log.warn("应用关闭时仍有浏览次数未能写入数据库: {}", remaining);
+        }
+    }
+
+    private void flush(String table, WriteBehindCounter counter, ToIntFunction<Map<Long, Long>> writer) {
+        List<Map<Long, Long>> batches = counter.drain(FLUSH_BATCH_SIZE);
+        for (Map<Long, Long> batch : batches) {
+            try {
+                writer.applyAsInt(batch);
+            } catch (Exception e) {
+                counter.restore(batch);
+                log.error("浏览次数写入失败, table: {}, 数量: {}, 错误: {}", table, batch.size(), e.getMessage());
+            }
+        }
+        if (!batches.isEmpty()) {
+            log.debug("浏览次数已写入, table: {}, 批次: {}", table, batches.size());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.escape.counter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写回（write-behind）计数缓冲
+ * 每个目标ID对应一个LongAdder，高并发递增无锁竞争；定时取出增量批量写库
+ *
+ * 取增量使用sumThenReset，与并发递增交错时未被取走的部分留到下一轮，不会丢失。
+ * 计数器条目不主动移除，数量受有效ID总数约束
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+public class WriteBehindCounter {
+
+    private final Map<Long, LongAdder> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 增加计数
+     */
+    public void add(Long id, long delta) {
+        LongAdder adder = buffers.get(id);
+        if (adder == null) {
+            adder = buffers.computeIfAbsent(id, key -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * 取出所有待写入的增量并清零，按批次大小切分
+     */
+    public List<Map<Long, Long>> drain(int batchSize) {
+        List<Map<Long, Long>> batches = new ArrayList<>();
+        Map<Long, Long> batch = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : buffers.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                continue;
+            }
+            batch.put(entry.getKey(), delta);
+            if (batch.size() >= batchSize) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * 写库失败时归还增量，等待下一轮重试
+     */
+    public void restore(Map<Long, Long> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    /**
+     * 当前待写入的增量总和
+     */
+    public long pending() {
+        long total = 0;
+        for (LongAdder adder : buffers.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+}
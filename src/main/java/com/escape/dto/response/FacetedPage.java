@@ -0,0 +1,28 @@
+package com.escape.dto.response;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Map;
+
+/**
+ * 带分面统计的分页结果
+ * 在普通分页字段之外附带facets：维度 -> 取值 -> 命中数量
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class FacetedPage<T> extends Page<T> {
+
+    private Map<String, Map<String, Integer>> facets;
+
+    public FacetedPage(IPage<T> page, Map<String, Map<String, Integer>> facets) {
+        super(page.getCurrent(), page.getSize(), page.getTotal());
+        setRecords(page.getRecords());
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,25 @@
+package com.escape.dto.response;
+
+import com.escape.entity.Position;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 空间查询命中的点位及其到查询点的距离
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyPosition {
+
+    private Position position;
+
+    /**
+     * 到查询点的距离（归一化小地图坐标，小地图边长为1）
+     */
+    private Double distance;
+}
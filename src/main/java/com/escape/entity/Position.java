@@ -53,6 +53,24 @@ public class Position {
     @TableField("landing_image")
     private String landingImage;
 
+    /**
+     * 站位在小地图上的归一化坐标（0~1，左上角为原点）
+     */
+    @TableField("stand_x")
+    private Double standX;
+
+    @TableField("stand_y")
+    private Double standY;
+
+    /**
+     * 落点在小地图上的归一化坐标（0~1，左上角为原点）
+     */
+    @TableField("landing_x")
+    private Double landingX;
+
+    @TableField("landing_y")
+    private Double landingY;
+
     @TableField("view_count")
     private Integer viewCount;
 
@@ -0,0 +1,41 @@
+package com.escape.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 目标每日浏览汇总实体类
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("view_history_target_daily")
+public class ViewHistoryTargetDaily {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @TableField("target_type")
+    private String targetType;
+
+    @TableField("target_id")
+    private Long targetId;
+
+    @TableField("view_date")
+    private LocalDate viewDate;
+
+    @TableField("viewer_count")
+    private Integer viewerCount;
+
+    @TableField("total_duration")
+    private Long totalDuration;
+
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,38 @@
+package com.escape.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户每日浏览汇总实体类
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("view_history_user_daily")
+public class ViewHistoryUserDaily {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @TableField("user_id")
+    private Long userId;
+
+    @TableField("view_date")
+    private LocalDate viewDate;
+
+    @TableField("view_count")
+    private Integer viewCount;
+
+    @TableField("total_duration")
+    private Long totalDuration;
+
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,37 @@
+package com.escape.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户已归档浏览记录汇总实体类
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("view_history_user_summary")
+public class ViewHistoryUserSummary {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @TableField("user_id")
+    private Long userId;
+
+    @TableField("target_type")
+    private String targetType;
+
+    @TableField("view_count")
+    private Long viewCount;
+
+    @TableField("total_duration")
+    private Long totalDuration;
+
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,153 @@
+package com.escape.ingest;
+
+import com.escape.cache.IdExistenceFilter;
+import com.escape.entity.ViewHistory;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.search.PositionCatalog;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户已学习点位位图
+ * 每个用户一个Redis字符串，以点位ID为位偏移（SETBIT），浏览点位时置位；
+ * 学习进度直接读取整个位图，与点位目录中对应地图的点位位图按字节求交后计数
+ *
+ * 位图不存在（首次使用或30天未活跃过期）时从浏览历史回填一次并设置已加载标记；回填同时读取
+ * view_history 和 view_history_archive，超过保留期被归档的浏览仍计为已学习。回填只置位不清位，
+ * 不会丢失回填前已经写入的浏览；Redis不可用时返回null，由调用方查询数据库
+ *
+ * 位偏移来自客户端提交的点位ID，置位（包括回填）前校验点位存在（在点位目录中或在ID存在性过滤器中），
+ * 且不超过目录中的最大点位ID，避免任意大的偏移把位图撑到数百MB；点位目录未就绪时不置位，
+ * 只清除已加载标记，目录就绪后下次读取时从浏览历史回填
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class LearnedPositionBits {
+
+    private static final String BITS_KEY_PREFIX = "position:learned:";
+    private static final String LOADED_KEY_PREFIX = "position:learned:loaded:";
+    private static final String POSITION_TYPE = "position";
+    private static final long EXPIRE_DAYS = 30;
+
+    /**
+     * 置位并续期
+     * KEYS[1]=位图, KEYS[2]=已加载标记；ARGV[1]=过期秒数, 之后为点位ID ...
+     */
+    private static final DefaultRedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do " +
+            "  redis.call('SETBIT', KEYS[1], ARGV[i], 1) " +
+            "end " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('EXPIRE', KEYS[2], ARGV[1]) end " +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Autowired
+    private PositionCatalog positionCatalog;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    /**
+     * 记录学习（浏览）了某个点位
+     */
+    public void record(Long userId, Long positionId) {
+        if (positionId == null || positionId < 0) {
+            return;
+        }
+        if (!positionCatalog.isReady()) {
+            invalidate(userId);
+            return;
+        }
+        if (!isKnownPosition(positionId)) {
+            log.debug("忽略不存在的点位: userId={}, positionId={}", userId, positionId);
+            return;
+        }
+        redisUtils.execute(SET_SCRIPT, Arrays.asList(bitsKey(userId), loadedKey(userId)),
+                String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)),
+                String.valueOf(positionId));
+    }
+
+    /**
+     * 获取用户已学习点位位图，第 id 位（字节 id/8 的高位起第 id%8 位）表示点位 id 已学习
+     *
+     * @return Redis不可用或点位目录未就绪时返回null
+     */
+    public byte[] bits(Long userId) {
+        if (!ensureLoaded(userId)) {
+            return null;
+        }
+        return redisUtils.getBytes(bitsKey(userId));
+    }
+
+    /**
+     * 清除用户的已学习位图（删除浏览历史后调用，下次读取时从数据库回填）
+     */
+    public void invalidate(Long userId) {
+        redisUtils.delete(Arrays.asList(bitsKey(userId), loadedKey(userId)));
+    }
+
+    /**
+     * 位图未加载时从浏览历史（含归档）回填
+     */
+    private boolean ensureLoaded(Long userId) {
+        if (redisUtils.hasKey(loadedKey(userId))) {
+            return true;
+        }
+        if (!positionCatalog.isReady()) {
+            return false;
+        }
+
+        // findByUserAndType 合并查询归档表
+        List<ViewHistory> histories = viewHistoryMapper.findByUserAndType(userId, POSITION_TYPE);
+        List<String> args = new ArrayList<>(histories.size() + 1);
+        args.add(String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)));
+        for (ViewHistory history : histories) {
+            if (history.getTargetId() != null && isKnownPosition(history.getTargetId())) {
+                args.add(String.valueOf(history.getTargetId()));
+            }
+        }
+
+        Long result = redisUtils.execute(SET_SCRIPT, Arrays.asList(bitsKey(userId), loadedKey(userId)), args.toArray());
+        if (result == null) {
+            return false;
+        }
+        redisUtils.set(loadedKey(userId), "1", EXPIRE_DAYS, TimeUnit.DAYS);
+        log.debug("回填已学习点位位图: userId={}, count={}", userId, args.size() - 1);
+        return true;
+    }
+
+    /**
+     * 点位存在且位偏移不超过目录中的最大点位ID，调用前目录须已就绪
+     */
+    private boolean isKnownPosition(long positionId) {
+        return positionId >= 0 && positionId <= positionCatalog.maxId()
+                && (positionCatalog.contains(positionId)
+                || idExistenceFilter.mightExist(IdExistenceFilter.POSITION, positionId));
+    }
+
+    private String bitsKey(Long userId) {
+        return BITS_KEY_PREFIX + userId;
+    }
+
+    private String loadedKey(Long userId) {
+        return LOADED_KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,243 @@
+package com.escape.ingest;
+
+import com.escape.entity.ViewHistory;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户最近浏览列表
+ * 每个用户一个有容量上限的Redis有序集合，成员为 {targetType}:{targetId}，分数为最后浏览时间（毫秒），
+ * 配套一个Hash保存每个成员的 {累计时长},{最新进度}（与数据库的合并规则一致）；
+ * 浏览时写入并裁剪到容量上限；最近浏览、今日浏览和推荐种子直接从这里读取，不访问数据库
+ *
+ * 集合不存在时从数据库回填一次并设置已加载标记，回填只写入比集合中更新的时间，
+ * 不会覆盖回填前已经写入的浏览；Redis不可用时返回null，由调用方查询数据库。
+ * 列表不保存记录ID，删除最近浏览时按目标删除
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class RecentViewList {
+
+    private static final String RECENT_KEY_PREFIX = "view:recent:";
+    private static final String LOADED_KEY_PREFIX = "view:recent:loaded:";
+    private static final String DETAIL_KEY_PREFIX = "view:recent:detail:";
+    private static final long EXPIRE_DAYS = 30;
+
+    /**
+     * 裁剪到容量上限（同时删除被裁掉成员的时长和进度）并续期，追加在写入脚本之后
+     */
+    private static final String TRIM_SCRIPT =
+            "local removed = redis.call('ZRANGE', KEYS[1], 0, -tonumber(ARGV[1]) - 1) " +
+            "if #removed > 0 then " +
+            "  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[1]) - 1) " +
+            "  redis.call('HDEL', KEYS[3], unpack(removed)) " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "if redis.call('EXISTS', KEYS[3]) == 1 then redis.call('EXPIRE', KEYS[3], ARGV[2]) end " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('EXPIRE', KEYS[2], ARGV[2]) end " +
+            "return 1";
+
+    /**
+     * 写入一次浏览：更新时间，累加时长、覆盖进度
+     * KEYS[1]=有序集合, KEYS[2]=已加载标记, KEYS[3]=时长进度Hash；
+     * ARGV[1]=容量, ARGV[2]=过期秒数, ARGV[3]=分数, ARGV[4]=成员, ARGV[5]=时长增量, ARGV[6]=进度
+     */
+    private static final DefaultRedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('ZSCORE', KEYS[1], ARGV[4]) " +
+            "if not current or tonumber(current) < tonumber(ARGV[3]) then " +
+            "  redis.call('ZADD', KEYS[1], ARGV[3], ARGV[4]) " +
+            "end " +
+            "local detail = redis.call('HGET', KEYS[3], ARGV[4]) " +
+            "local duration = 0 " +
+            "if detail then duration = tonumber(string.match(detail, '^(-?%d+),')) or 0 end " +
+            "redis.call('HSET', KEYS[3], ARGV[4], (duration + tonumber(ARGV[5])) .. ',' .. ARGV[6]) " +
+            TRIM_SCRIPT,
+            Long.class);
+
+    /**
+     * 回填：分数只增不减，时长进度只写入不存在的成员
+     * KEYS同上；ARGV[1]=容量, ARGV[2]=过期秒数, 之后为 分数, 成员, 时长,进度 ...
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "for i = 3, #ARGV, 3 do " +
+            "  local current = redis.call('ZSCORE', KEYS[1], ARGV[i + 1]) " +
+            "  if not current or tonumber(current) < tonumber(ARGV[i]) then " +
+            "    redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "  end " +
+            "  redis.call('HSETNX', KEYS[3], ARGV[i + 1], ARGV[i + 2]) " +
+            "end " +
+            TRIM_SCRIPT,
+            Long.class);
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Value("${app.history.recent.capacity:100}")
+    private int capacity;
+
+    /**
+     * 记录浏览
+     *
+     * @param duration 本次浏览时长（增量）
+     * @param progress 最新进度
+     */
+    public void record(Long userId, String targetType, Long targetId, int duration, int progress) {
+        redisUtils.execute(RECORD_SCRIPT, keys(userId),
+                String.valueOf(capacity),
+                String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)),
+                String.valueOf(System.currentTimeMillis()),
+                targetType + ":" + targetId,
+                String.valueOf(duration),
+                String.valueOf(progress));
+    }
+
+    /**
+     * 获取最近浏览（按时间倒序）
+     *
+     * @return 无法从Redis获取（不可用或limit超过容量）时返回null
+     */
+    public List<ViewHistory> recent(Long userId, int limit) {
+        if (limit > capacity || !ensureLoaded(userId)) {
+            return null;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisUtils.zReverseRangeWithScores(recentKey(userId), 0, limit - 1);
+        return tuples != null ? toHistories(userId, tuples) : null;
+    }
+
+    /**
+     * 获取指定时间之后的浏览（按时间倒序）
+     *
+     * @return 无法从Redis获取或时间段内的浏览可能已被裁剪时返回null
+     */
+    public List<ViewHistory> since(Long userId, LocalDateTime startTime) {
+        if (!ensureLoaded(userId)) {
+            return null;
+        }
+        double min = startTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisUtils.zReverseRangeByScoreWithScores(recentKey(userId), min, Double.POSITIVE_INFINITY);
+        if (tuples == null || tuples.size() >= capacity) {
+            return null;
+        }
+        return toHistories(userId, tuples);
+    }
+
+    /**
+     * 清除用户的最近浏览（删除浏览历史后调用，下次读取时从数据库回填）
+     */
+    public void invalidate(Long userId) {
+        redisUtils.delete(keys(userId));
+    }
+
+    /**
+     * 集合未加载时从数据库回填
+     */
+    private boolean ensureLoaded(Long userId) {
+        if (redisUtils.hasKey(loadedKey(userId))) {
+            return true;
+        }
+
+        List<ViewHistory> histories = viewHistoryMapper.findRecentHistory(userId, capacity);
+        List<String> args = new ArrayList<>(histories.size() * 3 + 2);
+        args.add(String.valueOf(capacity));
+        args.add(String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)));
+        for (ViewHistory history : histories) {
+            if (history.getUpdateTime() == null) {
+                continue;
+            }
+            args.add(String.valueOf(history.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+            args.add(history.getTargetType() + ":" + history.getTargetId());
+            args.add(formatDetail(history.getViewDuration(), history.getProgress()));
+        }
+
+        Long result = redisUtils.execute(LOAD_SCRIPT, keys(userId), args.toArray());
+        if (result == null) {
+            return false;
+        }
+        redisUtils.set(loadedKey(userId), "1", EXPIRE_DAYS, TimeUnit.DAYS);
+        return true;
+    }
+
+    /**
+     * 有序集合成员转为浏览记录，时长和进度从配套Hash读取；记录ID为空
+     */
+    private List<ViewHistory> toHistories(Long userId, Set<ZSetOperations.TypedTuple<String>> tuples) {
+        List<ViewHistory> histories = new ArrayList<>(tuples.size());
+        if (tuples.isEmpty()) {
+            return histories;
+        }
+        Map<String, String> details = redisUtils.hGetAll(detailKey(userId));
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            String member = tuple.getValue();
+            if (member == null || tuple.getScore() == null) {
+                continue;
+            }
+            int separator = member.lastIndexOf(':');
+            ViewHistory history = new ViewHistory();
+            history.setUserId(userId);
+            history.setTargetType(member.substring(0, separator));
+            history.setTargetId(Long.valueOf(member.substring(separator + 1)));
+            history.setUpdateTime(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(tuple.getScore().longValue()), ZoneId.systemDefault()));
+            parseDetail(history, details.get(member));
+            histories.add(history);
+        }
+        return histories;
+    }
+
+    private static String formatDetail(Integer duration, Integer progress) {
+        return (duration != null ? duration : 0) + "," + (progress != null ? progress : 0);
+    }
+
+    private static void parseDetail(ViewHistory history, String detail) {
+        int separator = detail != null ? detail.indexOf(',') : -1;
+        if (separator < 0) {
+            return;
+        }
+        try {
+            history.setViewDuration(Integer.valueOf(detail.substring(0, separator)));
+            history.setProgress(Integer.valueOf(detail.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.debug("最近浏览时长进度格式错误: {}", detail);
+        }
+    }
+
+    private List<String> keys(Long userId) {
+        return Arrays.asList(recentKey(userId), loadedKey(userId), detailKey(userId));
+    }
+
+    private String recentKey(Long userId) {
+        return RECENT_KEY_PREFIX + userId;
+    }
+
+    private String loadedKey(Long userId) {
+        return LOADED_KEY_PREFIX + userId;
+    }
+
+    private String detailKey(Long userId) {
+        return DETAIL_KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.escape.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 浏览事件
+ * 同一用户对同一目标的多个事件合并时，时长累加、进度取最新值
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+@AllArgsConstructor
+public class ViewEvent {
+
+    private Long userId;
+
+    private String targetType;
+
+    private Long targetId;
+
+    private Integer duration;
+
+    private Integer progress;
+
+    /**
+     * 合并键（用户 + 目标）
+     */
+    public String coalesceKey() {
+        return userId + ":" + targetType + ":" + targetId;
+    }
+
+    /**
+     * 合并后到达的事件
+     */
+    public void merge(ViewEvent later) {
+        this.duration += later.duration;
+        this.progress = later.progress;
+    }
+}
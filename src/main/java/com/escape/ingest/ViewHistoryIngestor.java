@@ -0,0 +1,252 @@
+package com.escape.ingest;
+
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 浏览历史异步写入管道
+ * 浏览事件进入有界队列，后台线程按（用户, 目标）合并后以多行
+ * INSERT ... ON DUPLICATE KEY UPDATE 批量写入，将写库移出请求链路
+ *
+ * 队列满时调用方等待一段时间，仍无法入队则在调用线程同步写入，以此形成背压且不丢事件；
+ * 批量写入重试后仍失败的行转入Redis死信列表，定时重放，重放失败时放回列表等待下次重放
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ViewHistoryIngestor {
+
+    private static final String DEAD_LETTER_KEY = "view:ingest:dead-letter";
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Value("${app.history.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.history.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.history.ingest.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.history.ingest.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<ViewEvent> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private final AtomicLong submittedEvents = new AtomicLong();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong syncFallbackEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong deadLetteredRows = new AtomicLong();
+    private final AtomicLong replayedRows = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::runWorker, "view-history-ingestor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 应用关闭前写入队列中剩余的事件
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ViewEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    /**
+     * 提交浏览事件
+     */
+    public void submit(ViewEvent event) {
+        submittedEvents.incrementAndGet();
+        try {
+            if (queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 队列已满，在调用线程同步写入
+        syncFallbackEvents.incrementAndGet();
+        flush(List.of(event));
+    }
+
+    /**
+     * 管道运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("submittedEvents", submittedEvents.get());
+        metrics.put("writtenRows", writtenRows.get());
+        metrics.put("syncFallbackEvents", syncFallbackEvents.get());
+        metrics.put("failedEvents", failedEvents.get());
+        metrics.put("deadLetterBacklog", redisUtils.listSize(DEAD_LETTER_KEY));
+        metrics.put("deadLetteredRows", deadLetteredRows.get());
+        metrics.put("replayedRows", replayedRows.get());
+        metrics.put("flushCount", flushCount.get());
+        metrics.put("lastFlushMillis", lastFlushMillis.get());
+        metrics.put("maxFlushMillis", maxFlushMillis.get());
+        return metrics;
+    }
+
+    /**
+     * 定时重放死信列表，写入失败时放回列表，等到下一周期再试
+     */
+    @Scheduled(initialDelayString = "${app.history.ingest.replay-interval-ms:60000}",
+            fixedDelayString = "${app.history.ingest.replay-interval-ms:60000}")
+    public void replayDeadLetters() {
+        List<String> values;
+        while (!(values = redisUtils.leftPop(DEAD_LETTER_KEY, batchSize)).isEmpty()) {
+            List<ViewEvent> rows = new ArrayList<>(values.size());
+            for (String value : values) {
+                rows.add(decode(value));
+            }
+            if (!write(rows)) {
+                redisUtils.rightPushAll(DEAD_LETTER_KEY, values);
+                log.warn("浏览历史死信重放失败，等待下次重放, 行数: {}", rows.size());
+                return;
+            }
+            writtenRows.addAndGet(rows.size());
+            replayedRows.addAndGet(rows.size());
+            log.info("浏览历史死信重放完成, 行数: {}", rows.size());
+        }
+    }
+
+    private void runWorker() {
+        List<ViewEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ViewEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("浏览历史写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 合并同一（用户, 目标）的事件后批量写库，失败时重试一次，仍失败时转入死信列表
+     */
+    private void flush(List<ViewEvent> events) {
+        long start = System.currentTimeMillis();
+        Map<String, ViewEvent> merged = new LinkedHashMap<>();
+        for (ViewEvent event : events) {
+            ViewEvent existing = merged.get(event.coalesceKey());
+            if (existing == null) {
+                merged.put(event.coalesceKey(), copyOf(event));
+            } else {
+                existing.merge(event);
+            }
+        }
+        List<ViewEvent> rows = new ArrayList<>(merged.values());
+
+        if (!write(rows) && !write(rows)) {
+            deadLetter(rows, events.size());
+            return;
+        }
+
+        writtenRows.addAndGet(rows.size());
+        long elapsed = System.currentTimeMillis() - start;
+        flushCount.incrementAndGet();
+        lastFlushMillis.set(elapsed);
+        maxFlushMillis.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private boolean write(List<ViewEvent> rows) {
+        try {
+            viewHistoryMapper.batchInsertOrUpdate(rows);
+            return true;
+        } catch (Exception e) {
+            log.warn("浏览历史批量写入异常, 行数: {}, 错误: {}", rows.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void deadLetter(List<ViewEvent> rows, int eventCount) {
+        List<String> values = new ArrayList<>(rows.size());
+        for (ViewEvent row : rows) {
+            values.add(encode(row));
+        }
+        if (redisUtils.rightPushAll(DEAD_LETTER_KEY, values) > 0) {
+            deadLetteredRows.addAndGet(rows.size());
+            log.warn("浏览历史批量写入失败，转入死信列表, 行数: {}", rows.size());
+        } else {
+            failedEvents.addAndGet(eventCount);
+            log.error("浏览历史批量写入失败且死信列表不可用，丢弃事件数: {}", eventCount);
+        }
+    }
+
+    private static String encode(ViewEvent event) {
+        return event.getUserId() + "," + event.getTargetType() + "," + event.getTargetId() + ","
+                + event.getDuration() + "," + event.getProgress();
+    }
+
+    private static ViewEvent decode(String value) {
+        String[] parts = value.split(",");
+        return new ViewEvent(Long.valueOf(parts[0]), parts[1], Long.valueOf(parts[2]),
+                Integer.valueOf(parts[3]), Integer.valueOf(parts[4]));
+    }
+
+    private static ViewEvent copyOf(ViewEvent event) {
+        return new ViewEvent(event.getUserId(), event.getTargetType(), event.getTargetId(),
+                event.getDuration(), event.getProgress());
+    }
+}
@@ -0,0 +1,249 @@
+package com.escape.ingest;
+
+import com.escape.utils.RedisUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 观看进度缓冲
+ * 视频播放器的进度心跳写入每个用户一个的Redis Hash，时长以增量累加、进度保留最新值，
+ * 定时（或视频播放完成时）取出增量交给写入管道批量落库，心跳本身不访问数据库
+ *
+ * Hash字段格式为 {targetType}:{targetId}:{d|p|t|x}，分别为未落库时长增量、最新进度、
+ * 最后心跳时间和待落库标记；有待落库数据的用户ID记录在脏集合中。
+ * 用户由取出脚本在同一次原子执行中移出脏集合，取出失败时留在集合中下次重试；
+ * 取出后提交写入管道失败的部分放回缓冲
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ViewProgressBuffer {
+
+    private static final String PROGRESS_KEY_PREFIX = "view:progress:";
+    private static final String DIRTY_USERS_KEY = "view:progress:dirty";
+    private static final long PROGRESS_EXPIRE_DAYS = 7;
+    private static final int FLUSH_BATCH_SIZE = 200;
+    private static final int FINISHED_PROGRESS = 100;
+
+    /**
+     * 记录心跳：累加时长、更新进度和时间、标记待落库
+     */
+    private static final DefaultRedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':d', ARGV[2]) " +
+            "redis.call('HSET', KEYS[1], ARGV[1] .. ':p', ARGV[3], ARGV[1] .. ':t', ARGV[4], ARGV[1] .. ':x', 1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[5]) " +
+            "redis.call('SADD', KEYS[2], ARGV[6]) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * 取出待落库数据并将用户移出脏集合：返回 [目标, 时长增量, 进度, ...]，时长增量清零；已看完的目标从Hash中移除
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} " +
+            "local fields = redis.call('HKEYS', KEYS[1]) " +
+            "for _, field in ipairs(fields) do " +
+            "  if string.sub(field, -2) == ':x' then " +
+            "    local target = string.sub(field, 1, -3) " +
+            "    local duration = redis.call('HGET', KEYS[1], target .. ':d') or '0' " +
+            "    local progress = redis.call('HGET', KEYS[1], target .. ':p') or '0' " +
+            "    if tonumber(progress) >= tonumber(ARGV[1]) then " +
+            "      redis.call('HDEL', KEYS[1], target .. ':d', target .. ':p', target .. ':t', field) " +
+            "    else " +
+            "      redis.call('HSET', KEYS[1], target .. ':d', 0) " +
+            "      redis.call('HDEL', KEYS[1], field) " +
+            "    end " +
+            "    table.insert(result, target) " +
+            "    table.insert(result, duration) " +
+            "    table.insert(result, progress) " +
+            "  end " +
+            "end " +
+            "redis.call('SREM', KEYS[2], ARGV[2]) " +
+            "return result",
+            List.class);
+
+    /**
+     * 放回未能提交的数据：累加时长、补回进度、标记待落库
+     * ARGV[1]=过期秒数, ARGV[2]=用户ID, 之后为 目标, 时长增量, 进度 ...
+     */
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 3, #ARGV - 2, 3 do " +
+            "  redis.call('HINCRBY', KEYS[1], ARGV[i] .. ':d', ARGV[i + 1]) " +
+            "  redis.call('HSETNX', KEYS[1], ARGV[i] .. ':p', ARGV[i + 2]) " +
+            "  redis.call('HSET', KEYS[1], ARGV[i] .. ':x', 1) " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "redis.call('SADD', KEYS[2], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private ViewHistoryIngestor viewHistoryIngestor;
+
+    @Value("${app.history.progress.max-flush-users:5000}")
+    private int maxFlushUsers;
+
+    /**
+     * 记录进度心跳，视频播放完成时立即落库
+     *
+     * @return Redis不可用时返回false，由调用方直接写入
+     */
+    public boolean record(Long userId, String targetType, Long targetId, int duration, int progress) {
+        Long result = redisUtils.execute(RECORD_SCRIPT,
+                Arrays.asList(progressKey(userId), DIRTY_USERS_KEY),
+                targetType + ":" + targetId,
+                String.valueOf(duration),
+                String.valueOf(progress),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TimeUnit.DAYS.toSeconds(PROGRESS_EXPIRE_DAYS)),
+                String.valueOf(userId));
+        if (result == null) {
+            return false;
+        }
+
+        if (progress >= FINISHED_PROGRESS) {
+            flushUser(userId);
+        }
+        return true;
+    }
+
+    /**
+     * 获取缓冲中的观看进度，未缓冲时返回null
+     */
+    public Integer getProgress(Long userId, String targetType, Long targetId) {
+        String value = redisUtils.hGet(progressKey(userId), targetType + ":" + targetId + ":p");
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * 获取用户某类型下缓冲中的观看进度（目标ID -> 进度），按最后心跳时间倒序
+     */
+    public Map<Long, Integer> getProgressByType(Long userId, String targetType) {
+        Map<String, String> fields = redisUtils.hGetAll(progressKey(userId));
+        if (fields.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        String prefix = targetType + ":";
+        List<Map.Entry<Long, Long>> targets = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            if (field.startsWith(prefix) && field.endsWith(":t")) {
+                Long targetId = Long.valueOf(field.substring(prefix.length(), field.length() - 2));
+                targets.add(Map.entry(targetId, Long.parseLong(value)));
+            }
+        });
+        targets.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> target : targets) {
+            String progress = fields.get(prefix + target.getKey() + ":p");
+            if (progress != null) {
+                result.put(target.getKey(), Integer.valueOf(progress));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除用户的进度缓冲（清空浏览历史时调用）
+     */
+    public void clear(Long userId) {
+        redisUtils.delete(progressKey(userId));
+    }
+
+    /**
+     * 定时将脏用户的进度提交到写入管道
+     */
+    @Scheduled(initialDelayString = "${app.history.progress.flush-interval-ms:10000}",
+            fixedDelayString = "${app.history.progress.flush-interval-ms:10000}")
+    public void flush() {
+        int flushed = 0;
+        while (flushed < maxFlushUsers) {
+            // 只读取不移除，取出成功的用户由脚本移出脏集合
+            Set<String> userIds = redisUtils.sRandMembers(DIRTY_USERS_KEY, FLUSH_BATCH_SIZE);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            for (String userId : userIds) {
+                if (!flushUser(Long.valueOf(userId))) {
+                    log.warn("观看进度取出失败，下次重试, 已落库用户数: {}", flushed);
+                    return;
+                }
+            }
+            flushed += userIds.size();
+        }
+        if (flushed > 0) {
+            log.debug("观看进度落库, 用户数: {}", flushed);
+        }
+    }
+
+    /**
+     * 应用关闭前提交剩余进度
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 取出单个用户的待落库进度并提交到写入管道
+     *
+     * @return 取出失败（Redis不可用）时返回false，用户仍在脏集合中
+     */
+    private boolean flushUser(Long userId) {
+        List<?> drained = redisUtils.execute(DRAIN_SCRIPT, Arrays.asList(progressKey(userId), DIRTY_USERS_KEY),
+                String.valueOf(FINISHED_PROGRESS), String.valueOf(userId));
+        if (drained == null) {
+            return false;
+        }
+
+        int i = 0;
+        try {
+            for (; i + 2 < drained.size(); i += 3) {
+                String target = drained.get(i).toString();
+                int separator = target.lastIndexOf(':');
+                viewHistoryIngestor.submit(new ViewEvent(userId,
+                        target.substring(0, separator),
+                        Long.valueOf(target.substring(separator + 1)),
+                        Integer.parseInt(drained.get(i + 1).toString()),
+                        Integer.parseInt(drained.get(i + 2).toString())));
+            }
+        } catch (Exception e) {
+            log.warn("观看进度提交失败，放回缓冲: userId={}, 错误: {}", userId, e.getMessage());
+            restore(userId, drained.subList(i, drained.size()));
+        }
+        return true;
+    }
+
+    private void restore(Long userId, List<?> drained) {
+        List<String> args = new ArrayList<>(drained.size() + 2);
+        args.add(String.valueOf(TimeUnit.DAYS.toSeconds(PROGRESS_EXPIRE_DAYS)));
+        args.add(String.valueOf(userId));
+        drained.forEach(value -> args.add(value.toString()));
+        redisUtils.execute(RESTORE_SCRIPT, Arrays.asList(progressKey(userId), DIRTY_USERS_KEY), args.toArray());
+    }
+
+    private String progressKey(Long userId) {
+        return PROGRESS_KEY_PREFIX + userId;
+    }
+}
@@ -1,8 +1,6 @@
 package com.escape.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.entity.Content;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -73,6 +71,17 @@ public interface ContentMapper extends BaseMapper<Content> {
     @Update("UPDATE contents SET view_count = view_count + 1 WHERE id = #{id}")
     int incrementViewCount(@Param("id") Long id);
 
+    /**
+     * 批量累加浏览次数（key为ID，value为增量）
+     */
+    @Update("<script>" +
+            "UPDATE contents SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementViewCount(@Param("deltas") Map<Long, Long> deltas);
+
     /**
      * 更新点赞次数
      */
@@ -102,19 +111,6 @@ public interface ContentMapper extends BaseMapper<Content> {
             "GROUP BY content_type")
     List<Map<String, Object>> statisticsByType();
 
-    /**
-     * 查询相关内容（基于标签，建议在XML实现）
-     */
-    List<Map<String, Object>> findRelatedContentsByTags(@Param("contentId") Long contentId,
-                                                        @Param("limit") Integer limit);
-
-    /**
-     * 搜索内容（标题和描述，建议在XML实现）
-     */
-    IPage<Content> searchContents(Page<Content> page,
-                                  @Param("keyword") String keyword,
-                                  @Param("contentType") String contentType);
-
     /**
      * 查询内容详情（包含关联信息）
      */
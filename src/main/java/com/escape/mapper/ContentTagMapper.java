@@ -28,6 +28,12 @@ public interface ContentTagMapper extends BaseMapper<ContentTag> {
     int batchInsert(@Param("contentId") Long contentId,
                     @Param("tagIds") List<Long> tagIds);
 
+    /**
+     * 查询关联表水位：最大ID和总行数（用于校验标签共现矩阵快照）
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) AS max_id, COUNT(*) AS total FROM content_tags")
+    Map<String, Object> selectWatermark();
+
     /**
      * 删除内容的所有标签关联
      */
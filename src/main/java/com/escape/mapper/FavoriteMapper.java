@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.entity.Favorite;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -117,6 +118,27 @@ public interface FavoriteMapper extends BaseMapper<Favorite> {
     List<Map<String, Object>> findHotTargets(@Param("targetType") String targetType,
                                              @Param("limit") Integer limit);
 
+    /**
+     * 批量查询目标被收藏次数
+     */
+    @Select("<script>" +
+            "SELECT target_id, COUNT(*) AS collect_count FROM favorites " +
+            "WHERE target_type = #{targetType} AND target_id IN " +
+            "<foreach collection='targetIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY target_id" +
+            "</script>")
+    List<Map<String, Object>> countByTargets(@Param("targetType") String targetType,
+                                             @Param("targetIds") List<Long> targetIds);
+
+    /**
+     * 按目标汇总指定时间之后的收藏，每条按距今时长以半衰期衰减（用于重建热度分）
+     */
+    @Select("SELECT target_id, SUM(POW(0.5, TIMESTAMPDIFF(SECOND, create_time, NOW()) / #{halfLifeSeconds})) AS total " +
+            "FROM favorites WHERE target_type = #{targetType} AND create_time >= #{since} GROUP BY target_id")
+    List<Map<String, Object>> sumDecayedByTarget(@Param("targetType") String targetType,
+                                                 @Param("since") LocalDateTime since,
+                                                 @Param("halfLifeSeconds") double halfLifeSeconds);
+
     /**
      * 获取用户最近收藏
      */
@@ -124,4 +146,14 @@ public interface FavoriteMapper extends BaseMapper<Favorite> {
             "ORDER BY create_time DESC LIMIT #{limit}")
     List<Favorite> findRecentFavorites(@Param("userId") Long userId,
                                        @Param("limit") Integer limit);
-}
\ No newline at end of file
+
+    /**
+     * 批量查询用户收藏的目标（用于构建物品相似度）
+     */
+    @Select("<script>" +
+            "SELECT user_id, target_type, target_id FROM favorites WHERE user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "ORDER BY user_id, create_time DESC" +
+            "</script>")
+    List<Map<String, Object>> findUserItems(@Param("userIds") List<Long> userIds);
+}
@@ -67,6 +67,18 @@ public interface PositionMapper extends BaseMapper<Position> {
             "ORDER BY p.view_count DESC LIMIT #{limit}")
     List<Map<String, Object>> findHotPositions(@Param("limit") Integer limit);
 
+    /**
+     * 根据ID批量查询点位（含地图和英雄名称）
+     */
+    @Select("<script>" +
+            "SELECT p.*, m.map_name, h.hero_name FROM positions p " +
+            "LEFT JOIN maps m ON p.map_id = m.id " +
+            "LEFT JOIN heroes h ON p.hero_id = h.id " +
+            "WHERE p.status = 1 AND p.deleted = 0 AND p.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> findPositionsWithNamesByIds(@Param("ids") List<Long> ids);
+
     /**
      * 根据难度查询点位
      */
@@ -80,6 +92,17 @@ public interface PositionMapper extends BaseMapper<Position> {
     @Update("UPDATE positions SET view_count = view_count + 1 WHERE id = #{id}")
     int incrementViewCount(@Param("id") Long id);
 
+    /**
+     * 批量累加浏览次数（key为ID，value为增量）
+     */
+    @Update("<script>" +
+            "UPDATE positions SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementViewCount(@Param("deltas") Map<Long, Long> deltas);
+
     /**
      * 统计各地图的点位数量
      */
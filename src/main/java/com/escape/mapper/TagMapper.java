@@ -79,17 +79,4 @@ public interface TagMapper extends BaseMapper<Tag> {
             "GROUP BY t.id, t.tag_name " +
             "ORDER BY use_count DESC LIMIT #{limit}")
     List<Map<String, Object>> statisticsTagUsage(@Param("limit") Integer limit);
-
-    /**
-     * 查询相关标签（基于共同出现）
-     */
-    @Select("SELECT t2.*, COUNT(*) as relate_count FROM tags t1 " +
-            "INNER JOIN content_tags ct1 ON t1.id = ct1.tag_id " +
-            "INNER JOIN content_tags ct2 ON ct1.content_id = ct2.content_id " +
-            "INNER JOIN tags t2 ON ct2.tag_id = t2.id " +
-            "WHERE t1.id = #{tagId} AND t2.id != #{tagId} AND t2.status = 1 " +
-            "GROUP BY t2.id " +
-            "ORDER BY relate_count DESC LIMIT #{limit}")
-    List<Map<String, Object>> findRelatedTags(@Param("tagId") Long tagId,
-                                              @Param("limit") Integer limit);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.escape.entity.ViewHistory;
+import com.escape.ingest.ViewEvent;
 import org.apache.ibatis.annotations.*;
 
 import java.time.LocalDateTime;
@@ -20,10 +21,15 @@ import java.util.Map;
 public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
 
     /**
-     * 查询用户的浏览历史（按类型）
+     * 查询用户的浏览历史（按类型，含已归档且之后未再浏览的记录）
      */
-    @Select("SELECT * FROM view_history WHERE user_id = #{userId} " +
-            "AND target_type = #{targetType} " +
+    @Select("SELECT id, user_id, target_type, target_id, view_duration, progress, create_time, update_time " +
+            "FROM view_history WHERE user_id = #{userId} AND target_type = #{targetType} " +
+            "UNION ALL " +
+            "SELECT a.id, a.user_id, a.target_type, a.target_id, a.view_duration, a.progress, a.create_time, a.update_time " +
+            "FROM view_history_archive a WHERE a.user_id = #{userId} AND a.target_type = #{targetType} " +
+            "AND NOT EXISTS (SELECT 1 FROM view_history v WHERE v.user_id = a.user_id " +
+            "AND v.target_type = a.target_type AND v.target_id = a.target_id) " +
             "ORDER BY update_time DESC")
     List<ViewHistory> findByUserAndType(@Param("userId") Long userId,
                                         @Param("targetType") String targetType);
@@ -66,6 +72,17 @@ public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
             "GROUP BY target_type")
     List<Map<String, Object>> statisticsByUser(@Param("userId") Long userId);
 
+    /**
+     * 按日期统计用户指定时间段的浏览记录数
+     */
+    @Select("SELECT DATE(update_time) AS view_date, COUNT(*) AS total FROM view_history " +
+            "WHERE user_id = #{userId} " +
+            "AND update_time >= #{startTime} AND update_time < #{endTime} " +
+            "GROUP BY DATE(update_time)")
+    List<Map<String, Object>> countDailyByUser(@Param("userId") Long userId,
+                                               @Param("startTime") LocalDateTime startTime,
+                                               @Param("endTime") LocalDateTime endTime);
+
     /**
      * 查询用户指定时间段的浏览历史
      */
@@ -84,6 +101,34 @@ public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
     int deleteOldHistory(@Param("userId") Long userId,
                          @Param("beforeTime") LocalDateTime beforeTime);
 
+    /**
+     * 删除指定时间之前的归档记录
+     */
+    @Delete("DELETE FROM view_history_archive WHERE user_id = #{userId} " +
+            "AND update_time < #{beforeTime}")
+    int deleteOldArchive(@Param("userId") Long userId,
+                         @Param("beforeTime") LocalDateTime beforeTime);
+
+    /**
+     * 查询指定时间之前的记录ID（按ID分块归档）
+     */
+    @Select("SELECT id FROM view_history WHERE update_time < #{beforeTime} " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Long> findIdsBefore(@Param("beforeTime") LocalDateTime beforeTime,
+                             @Param("limit") Integer limit);
+
+    /**
+     * 将指定记录复制到归档表
+     */
+    @Insert("<script>" +
+            "INSERT INTO view_history_archive(id, user_id, target_type, target_id, view_duration, progress, " +
+            "create_time, update_time) " +
+            "SELECT id, user_id, target_type, target_id, view_duration, progress, create_time, update_time " +
+            "FROM view_history WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyToArchive(@Param("ids") List<Long> ids);
+
     /**
      * 批量删除浏览历史
      */
@@ -96,12 +141,50 @@ public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
     int batchDelete(@Param("userId") Long userId,
                     @Param("ids") List<Long> ids);
 
+    /**
+     * 批量删除归档记录（归档保留原记录ID）
+     */
+    @Delete("<script>" +
+            "DELETE FROM view_history_archive WHERE user_id = #{userId} AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int batchDeleteArchive(@Param("userId") Long userId,
+                           @Param("ids") List<Long> ids);
+
+    /**
+     * 按目标批量删除浏览历史
+     */
+    @Delete("<script>" +
+            "DELETE FROM view_history WHERE user_id = #{userId} AND (target_type, target_id) IN " +
+            "<foreach collection='targets' item='t' open='(' separator=',' close=')'>(#{t.targetType}, #{t.targetId})</foreach>" +
+            "</script>")
+    int deleteByTargets(@Param("userId") Long userId,
+                        @Param("targets") List<ViewHistory> targets);
+
+    /**
+     * 按目标批量删除归档记录
+     */
+    @Delete("<script>" +
+            "DELETE FROM view_history_archive WHERE user_id = #{userId} AND (target_type, target_id) IN " +
+            "<foreach collection='targets' item='t' open='(' separator=',' close=')'>(#{t.targetType}, #{t.targetId})</foreach>" +
+            "</script>")
+    int deleteArchiveByTargets(@Param("userId") Long userId,
+                               @Param("targets") List<ViewHistory> targets);
+
     /**
      * 清空用户的所有浏览历史
      */
     @Delete("DELETE FROM view_history WHERE user_id = #{userId}")
     int clearUserHistory(@Param("userId") Long userId);
 
+    /**
+     * 清空用户的所有归档记录
+     */
+    @Delete("DELETE FROM view_history_archive WHERE user_id = #{userId}")
+    int clearUserArchive(@Param("userId") Long userId);
+
     /**
      * 查询浏览历史详情（分页，带内容信息）
      * 建议在XML中实现，根据target_type关联不同的表
@@ -122,13 +205,40 @@ public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
     List<Map<String, Object>> findUnfinishedVideos(@Param("userId") Long userId);
 
     /**
-     * 统计内容的浏览用户数
+     * 统计内容的浏览用户数（含归档）
      */
-    @Select("SELECT COUNT(DISTINCT user_id) FROM view_history " +
-            "WHERE target_type = #{targetType} AND target_id = #{targetId}")
+    @Select("SELECT COUNT(DISTINCT user_id) FROM (" +
+            "SELECT user_id FROM view_history WHERE target_type = #{targetType} AND target_id = #{targetId} " +
+            "UNION ALL " +
+            "SELECT user_id FROM view_history_archive WHERE target_type = #{targetType} AND target_id = #{targetId}" +
+            ") viewers")
     int countUniqueViewers(@Param("targetType") String targetType,
                            @Param("targetId") Long targetId);
 
+    /**
+     * 查询浏览过某个目标的所有用户ID（去重，含归档）
+     */
+    @Select("SELECT user_id FROM view_history WHERE target_type = #{targetType} AND target_id = #{targetId} " +
+            "UNION " +
+            "SELECT user_id FROM view_history_archive WHERE target_type = #{targetType} AND target_id = #{targetId}")
+    List<Long> findViewerIds(@Param("targetType") String targetType,
+                             @Param("targetId") Long targetId);
+
+    /**
+     * 按目标汇总指定时间之后的浏览记录，每条按最后浏览距今时长以半衰期衰减（用于重建热度分，含归档）
+     */
+    @Select("SELECT target_id, SUM(POW(0.5, TIMESTAMPDIFF(SECOND, update_time, NOW()) / #{halfLifeSeconds})) AS total " +
+            "FROM (" +
+            "SELECT target_id, update_time FROM view_history " +
+            "WHERE target_type = #{targetType} AND update_time >= #{since} " +
+            "UNION ALL " +
+            "SELECT target_id, update_time FROM view_history_archive " +
+            "WHERE target_type = #{targetType} AND update_time >= #{since}" +
+            ") views GROUP BY target_id")
+    List<Map<String, Object>> sumDecayedByTarget(@Param("targetType") String targetType,
+                                                 @Param("since") LocalDateTime since,
+                                                 @Param("halfLifeSeconds") double halfLifeSeconds);
+
     /**
      * 插入或更新浏览记录
      */
@@ -143,4 +253,31 @@ public interface ViewHistoryMapper extends BaseMapper<ViewHistory> {
                        @Param("targetId") Long targetId,
                        @Param("duration") Integer duration,
                        @Param("progress") Integer progress);
-}
\ No newline at end of file
+
+    /**
+     * 批量插入或更新浏览记录（多行 ON DUPLICATE KEY UPDATE）
+     */
+    @Insert("<script>" +
+            "INSERT INTO view_history(user_id, target_type, target_id, view_duration, progress) VALUES " +
+            "<foreach collection='events' item='e' separator=','>" +
+            "(#{e.userId}, #{e.targetType}, #{e.targetId}, #{e.duration}, #{e.progress})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE " +
+            "view_duration = view_duration + VALUES(view_duration), " +
+            "progress = VALUES(progress), " +
+            "update_time = NOW()" +
+            "</script>")
+    int batchInsertOrUpdate(@Param("events") List<ViewEvent> events);
+
+    /**
+     * 批量查询用户在指定时间之后浏览的目标（用于构建物品相似度）
+     */
+    @Select("<script>" +
+            "SELECT user_id, target_type, target_id FROM view_history WHERE user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "AND update_time >= #{since} " +
+            "ORDER BY user_id, update_time DESC" +
+            "</script>")
+    List<Map<String, Object>> findUserItems(@Param("userIds") List<Long> userIds,
+                                            @Param("since") LocalDateTime since);
+}
@@ -0,0 +1,46 @@
+package com.escape.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.escape.entity.ViewHistoryTargetDaily;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 目标每日浏览汇总数据访问层
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Mapper
+public interface ViewHistoryTargetDailyMapper extends BaseMapper<ViewHistoryTargetDaily> {
+
+    /**
+     * 将时间段内的浏览记录按目标、日期汇总写入（重复执行结果相同）
+     */
+    @Insert("INSERT INTO view_history_target_daily(target_type, target_id, view_date, viewer_count, total_duration) " +
+            "SELECT target_type, target_id, DATE(update_time), COUNT(*), COALESCE(SUM(view_duration), 0) " +
+            "FROM view_history " +
+            "WHERE update_time >= #{startTime} AND update_time < #{endTime} " +
+            "GROUP BY target_type, target_id, DATE(update_time) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "viewer_count = VALUES(viewer_count), " +
+            "total_duration = VALUES(total_duration), " +
+            "update_time = NOW()")
+    int rollup(@Param("startTime") LocalDateTime startTime,
+               @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 查询目标日期范围内的汇总（包含两端）
+     */
+    @Select("SELECT * FROM view_history_target_daily " +
+            "WHERE target_type = #{targetType} AND target_id = #{targetId} " +
+            "AND view_date BETWEEN #{startDate} AND #{endDate} " +
+            "ORDER BY view_date")
+    List<ViewHistoryTargetDaily> findByTargetAndDateRange(@Param("targetType") String targetType,
+                                                          @Param("targetId") Long targetId,
+                                                          @Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate);
+}
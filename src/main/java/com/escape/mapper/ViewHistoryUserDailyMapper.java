@@ -0,0 +1,50 @@
+package com.escape.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.escape.entity.ViewHistoryUserDaily;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户每日浏览汇总数据访问层
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Mapper
+public interface ViewHistoryUserDailyMapper extends BaseMapper<ViewHistoryUserDaily> {
+
+    /**
+     * 将时间段内的浏览记录按用户、日期汇总写入（重复执行结果相同）
+     */
+    @Insert("INSERT INTO view_history_user_daily(user_id, view_date, view_count, total_duration) " +
+            "SELECT user_id, DATE(update_time), COUNT(*), COALESCE(SUM(view_duration), 0) " +
+            "FROM view_history " +
+            "WHERE update_time >= #{startTime} AND update_time < #{endTime} " +
+            "GROUP BY user_id, DATE(update_time) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "view_count = VALUES(view_count), " +
+            "total_duration = VALUES(total_duration), " +
+            "update_time = NOW()")
+    int rollup(@Param("startTime") LocalDateTime startTime,
+               @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 查询用户日期范围内的汇总（包含两端）
+     */
+    @Select("SELECT * FROM view_history_user_daily WHERE user_id = #{userId} " +
+            "AND view_date BETWEEN #{startDate} AND #{endDate} " +
+            "ORDER BY view_date")
+    List<ViewHistoryUserDaily> findByUserAndDateRange(@Param("userId") Long userId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+    /**
+     * 删除用户的每日汇总
+     */
+    @Delete("DELETE FROM view_history_user_daily WHERE user_id = #{userId}")
+    int deleteByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,45 @@
+package com.escape.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.escape.entity.ViewHistoryUserSummary;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 用户已归档浏览记录汇总数据访问层
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Mapper
+public interface ViewHistoryUserSummaryMapper extends BaseMapper<ViewHistoryUserSummary> {
+
+    /**
+     * 将即将归档的浏览记录按用户、类型累加到汇总
+     */
+    @Insert("<script>" +
+            "INSERT INTO view_history_user_summary(user_id, target_type, view_count, total_duration) " +
+            "SELECT user_id, target_type, COUNT(*), COALESCE(SUM(view_duration), 0) " +
+            "FROM view_history WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY user_id, target_type " +
+            "ON DUPLICATE KEY UPDATE " +
+            "view_count = view_count + VALUES(view_count), " +
+            "total_duration = total_duration + VALUES(total_duration), " +
+            "update_time = NOW()" +
+            "</script>")
+    int accumulateByHistoryIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询用户各类型的归档汇总
+     */
+    @Select("SELECT * FROM view_history_user_summary WHERE user_id = #{userId}")
+    List<ViewHistoryUserSummary> findByUser(@Param("userId") Long userId);
+
+    /**
+     * 删除用户的归档汇总
+     */
+    @Delete("DELETE FROM view_history_user_summary WHERE user_id = #{userId}")
+    int deleteByUser(@Param("userId") Long userId);
+}
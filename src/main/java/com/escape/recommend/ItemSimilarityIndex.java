@@ -0,0 +1,315 @@
+package com.escape.recommend;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.escape.entity.User;
+import com.escape.mapper.FavoriteMapper;
+import com.escape.mapper.UserMapper;
+import com.escape.mapper.ViewHistoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 物品相似度索引（基于物品的协同过滤）
+ * 后台任务按用户分批读取浏览记录和收藏，累加物品对的共现权重（收藏权重高于浏览），
+ * 按余弦相似度为每个物品保留前K个相似物品；推荐时只需合并用户最近物品的相似列表
+ *
+ * 物品用 {类型编号 << 48 | ID} 编码为long，索引以排序数组加二分查找的只读快照发布，
+ * 查询不访问数据库和Redis
+ *
+ * 相似度按周期全量重建而不是逐事件增量更新：余弦相似度的分母随物品的每次浏览变化，
+ * 快照只保留前K个相似物品，丢弃了增量更新所需的完整物品对权重。
+ * 相似度最多滞后一个重建间隔（app.recommend.rebuild-interval-ms，默认6小时）加一次重建耗时，
+ * 新物品在下次重建前没有相似物品；推荐的种子物品取自实时的最近浏览列表，不受此滞后影响
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ItemSimilarityIndex {
+
+    /**
+     * 参与推荐的目标类型，下标+1为类型编号
+     */
+    private static final List<String> TYPES = List.of("content", "position", "hero", "map", "weapon");
+
+    private static final int TYPE_SHIFT = 48;
+    private static final long ID_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final float VIEW_WEIGHT = 1.0f;
+    private static final float FAVORITE_WEIGHT = 2.0f;
+    private static final int USER_BATCH_SIZE = 500;
+
+    /**
+     * 单个用户参与计算的最大物品数，物品对数量随其平方增长
+     */
+    private static final int MAX_ITEMS_PER_USER = 50;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Value("${app.recommend.neighbors:20}")
+    private int neighborCount;
+
+    @Value("${app.recommend.window-days:90}")
+    private int windowDays;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 根据用户最近的物品推荐相似物品
+     *
+     * @param recentItems 最近的物品（类型, ID），越靠前权重越高
+     * @param limit 数量
+     * @return 推荐列表（targetType, targetId, score）
+     */
+    public List<Map<String, Object>> recommend(List<Map.Entry<String, Long>> recentItems, int limit) {
+        Snapshot current = snapshot;
+        Set<Long> seen = new HashSet<>();
+        for (Map.Entry<String, Long> item : recentItems) {
+            long key = encode(item.getKey(), item.getValue());
+            if (key != -1) {
+                seen.add(key);
+            }
+        }
+
+        Map<Long, Float> scores = new HashMap<>();
+        int rank = 0;
+        for (Map.Entry<String, Long> item : recentItems) {
+            int index = current.indexOf(encode(item.getKey(), item.getValue()));
+            float recency = 1.0f / (1 + 0.1f * rank++);
+            if (index < 0) {
+                continue;
+            }
+            long[] neighbors = current.neighborKeys[index];
+            float[] similarities = current.neighborScores[index];
+            for (int i = 0; i < neighbors.length; i++) {
+                if (!seen.contains(neighbors[i])) {
+                    scores.merge(neighbors[i], similarities[i] * recency, Float::sum);
+                }
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> {
+                    Map<String, Object> recommendation = new LinkedHashMap<>();
+                    recommendation.put("targetType", TYPES.get((int) (entry.getKey() >>> TYPE_SHIFT) - 1));
+                    recommendation.put("targetId", entry.getKey() & ID_MASK);
+                    recommendation.put("score", entry.getValue());
+                    result.add(recommendation);
+                });
+        return result;
+    }
+
+    /**
+     * 索引中的物品数
+     */
+    public int size() {
+        return snapshot.itemKeys.length;
+    }
+
+    /**
+     * 应用就绪后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 定时重建索引
+     */
+    @Scheduled(initialDelayString = "${app.recommend.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${app.recommend.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            snapshot = build();
+            log.info("物品相似度索引构建完成, 物品数: {}, 耗时: {}ms",
+                    snapshot.itemKeys.length, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("物品相似度索引构建失败，继续使用旧索引: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 按用户分批累加共现权重，最后计算相似度并截取前K个
+     */
+    private Snapshot build() {
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+        Map<Long, Integer> itemIndex = new HashMap<>();
+        float[] norms = new float[1024];
+        PairAccumulator pairs = new PairAccumulator(1 << 16);
+
+        long lastUserId = 0;
+        while (true) {
+            List<Object> userIds = userMapper.selectObjs(new QueryWrapper<User>()
+                    .select("id").gt("id", lastUserId).orderByAsc("id").last("LIMIT " + USER_BATCH_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            List<Long> batch = new ArrayList<>(userIds.size());
+            userIds.forEach(id -> batch.add(((Number) id).longValue()));
+            lastUserId = batch.get(batch.size() - 1);
+
+            Map<Long, Map<Long, Float>> userItems = new HashMap<>();
+            collect(userItems, viewHistoryMapper.findUserItems(batch, since), VIEW_WEIGHT);
+            collect(userItems, favoriteMapper.findUserItems(batch), FAVORITE_WEIGHT);
+
+            for (Map<Long, Float> items : userItems.values()) {
+                int[] indexes = new int[items.size()];
+                float[] weights = new float[items.size()];
+                int n = 0;
+                for (Map.Entry<Long, Float> item : items.entrySet()) {
+                    int index = itemIndex.computeIfAbsent(item.getKey(), key -> itemIndex.size());
+                    if (index >= norms.length) {
+                        norms = Arrays.copyOf(norms, norms.length * 2);
+                    }
+                    norms[index] += item.getValue() * item.getValue();
+                    indexes[n] = index;
+                    weights[n++] = item.getValue();
+                }
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        pairs.add(indexes[i], indexes[j], weights[i] * weights[j]);
+                    }
+                }
+            }
+        }
+
+        return topNeighbors(itemIndex, norms, pairs);
+    }
+
+    /**
+     * 将查询结果按用户合并，同一物品取较高权重；每个用户最多保留 MAX_ITEMS_PER_USER 个物品
+     */
+    private void collect(Map<Long, Map<Long, Float>> userItems, List<Map<String, Object>> rows, float weight) {
+        for (Map<String, Object> row : rows) {
+            long key = encode((String) row.get("target_type"), ((Number) row.get("target_id")).longValue());
+            if (key == -1) {
+                continue;
+            }
+            Map<Long, Float> items = userItems.computeIfAbsent(((Number) row.get("user_id")).longValue(),
+                    userId -> new HashMap<>());
+            if (items.size() < MAX_ITEMS_PER_USER || items.containsKey(key)) {
+                items.merge(key, weight, Math::max);
+            }
+        }
+    }
+
+    /**
+     * 计算余弦相似度，为每个物品保留相似度最高的 neighborCount 个物品
+     */
+    private Snapshot topNeighbors(Map<Long, Integer> itemIndex, float[] norms, PairAccumulator pairs) {
+        int itemTotal = itemIndex.size();
+        int[][] topIndexes = new int[itemTotal][];
+        float[][] topScores = new float[itemTotal][];
+        int[] topSizes = new int[itemTotal];
+
+        pairs.forEach((a, b, dot) -> {
+            float similarity = (float) (dot / Math.sqrt((double) norms[a] * norms[b]));
+            offer(topIndexes, topScores, topSizes, a, b, similarity);
+            offer(topIndexes, topScores, topSizes, b, a, similarity);
+        });
+
+        // 按物品编码排序，便于二分查找
+        long[] indexToKey = new long[itemTotal];
+        itemIndex.forEach((key, index) -> indexToKey[index] = key);
+        long[] itemKeys = indexToKey.clone();
+        Arrays.sort(itemKeys);
+
+        long[][] neighborKeys = new long[itemTotal][];
+        float[][] neighborScores = new float[itemTotal][];
+        for (int position = 0; position < itemTotal; position++) {
+            int index = itemIndex.get(itemKeys[position]);
+            int size = topSizes[index];
+            neighborKeys[position] = new long[size];
+            neighborScores[position] = size > 0 ? Arrays.copyOf(topScores[index], size) : new float[0];
+            for (int i = 0; i < size; i++) {
+                neighborKeys[position][i] = indexToKey[topIndexes[index][i]];
+            }
+        }
+        return new Snapshot(itemKeys, neighborKeys, neighborScores);
+    }
+
+    /**
+     * 插入到物品的前K列表（按相似度降序），列表已满且相似度不足时丢弃
+     */
+    private void offer(int[][] topIndexes, float[][] topScores, int[] topSizes, int item, int neighbor, float score) {
+        if (topIndexes[item] == null) {
+            topIndexes[item] = new int[neighborCount];
+            topScores[item] = new float[neighborCount];
+        }
+        int size = topSizes[item];
+        if (size == neighborCount && score <= topScores[item][size - 1]) {
+            return;
+        }
+        int position = size == neighborCount ? size - 1 : size;
+        while (position > 0 && topScores[item][position - 1] < score) {
+            topIndexes[item][position] = topIndexes[item][position - 1];
+            topScores[item][position] = topScores[item][position - 1];
+            position--;
+        }
+        topIndexes[item][position] = neighbor;
+        topScores[item][position] = score;
+        if (size < neighborCount) {
+            topSizes[item] = size + 1;
+        }
+    }
+
+    private static long encode(String type, Long id) {
+        int code = TYPES.indexOf(type);
+        if (code < 0 || id == null) {
+            return -1;
+        }
+        return ((long) (code + 1) << TYPE_SHIFT) | id;
+    }
+
+    /**
+     * 只读索引快照
+     */
+    private record Snapshot(long[] itemKeys, long[][] neighborKeys, float[][] neighborScores) {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0][], new float[0][]);
+
+        int indexOf(long key) {
+            return key == -1 ? -1 : Arrays.binarySearch(itemKeys, key);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.escape.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 物品对共现权重累加器
+ * 开放寻址的 long -> float 哈希表，key为两个物品下标拼接（小下标在高32位），
+ * 避免为每个物品对创建Long和Float对象
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PairAccumulator {
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private float[] values;
+    private int size;
+    private int threshold;
+
+    PairAccumulator(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 累加物品对 (a, b) 的权重，a与b顺序无关
+     */
+    void add(int a, int b, float delta) {
+        long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有物品对
+     */
+    void forEach(PairConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept((int) (keys[i] >>> 32), (int) keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(int a, int b, float weight);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, EMPTY);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
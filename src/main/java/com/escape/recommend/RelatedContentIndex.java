@@ -0,0 +1,443 @@
+package com.escape.recommend;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.cache.ReplicatedIndex;
+import com.escape.entity.Content;
+import com.escape.entity.ContentTag;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.ContentTagMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 相关内容索引（MinHash + LSH）
+ * 每个已发布内容的特征集合为 标签 + 英雄 + 地图 + 武器 + 点位，
+ * 计算MinHash签名后按band分桶，同桶内容作为候选，再以精确Jaccard相似度为每个内容保留前N个相关内容；
+ * 查询只读预计算结果，不访问数据库
+ *
+ * 后台定时全量重建；内容标签或关联变更时在事务提交后单独重算该内容的相关列表，
+ * 其他内容列表中的旧结果在下次重建时修正；重算通过缓存失效频道广播到其他节点
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class RelatedContentIndex implements ReplicatedIndex {
+
+    /**
+     * 广播消息中的索引名
+     */
+    public static final String INDEX_NAME = "related-content";
+
+    private static final int PUBLISHED = 1;
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    /**
+     * 签名长度 = BANDS * ROWS，相似度约 (1/BANDS)^(1/ROWS) ≈ 0.25 以上的内容大概率成为候选
+     */
+    private static final int BANDS = 16;
+    private static final int ROWS = 2;
+    private static final int SIGNATURE_LENGTH = BANDS * ROWS;
+
+    /**
+     * 单个桶参与比较的最大内容数，避免特征完全相同的大量内容产生平方级候选
+     */
+    private static final int MAX_BUCKET_CANDIDATES = 200;
+
+    private static final long[] SEEDS = new SplittableRandom(20261017L).longs(SIGNATURE_LENGTH).toArray();
+
+    private static final long TAG = 1;
+    private static final long HERO = 2;
+    private static final long MAP = 3;
+    private static final long WEAPON = 4;
+    private static final long POSITION = 5;
+    private static final int FEATURE_SHIFT = 48;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private ContentTagMapper contentTagMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Value("${app.recommend.related-count:20}")
+    private int relatedCount;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexState state = new IndexState();
+
+    /**
+     * 重建期间发生变更的内容ID，重建完成后重新计算
+     */
+    private Set<Long> pendingIds;
+
+    /**
+     * 获取相关内容
+     *
+     * @return 内容ID -> 相似度，按相似度降序
+     */
+    public Map<Long, Float> related(Long contentId, int limit) {
+        Map<Long, Float> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            Neighbors neighbors = state.related.get(contentId);
+            if (neighbors != null) {
+                for (int i = 0; i < neighbors.ids.length && result.size() < limit; i++) {
+                    result.put(neighbors.ids[i], neighbors.scores[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 重新计算内容的相关列表，在事务中调用时延迟到提交后执行
+     */
+    public void reindex(Long contentId) {
+        if (contentId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindexNow(contentId);
+                    broadcast(contentId);
+                }
+            });
+        } else {
+            reindexNow(contentId);
+            broadcast(contentId);
+        }
+    }
+
+    /**
+     * 在本节点后台全量重建，并通知其他节点重建（批量导入后调用）
+     */
+    public void rebuildAllNodes() {
+        taskExecutor.execute(this::rebuild);
+        broadcast(CacheInvalidationListener.REINDEX_ALL);
+    }
+
+    @Override
+    public String indexName() {
+        return INDEX_NAME;
+    }
+
+    /**
+     * 应用其他节点广播的变更（内容ID），在后台执行
+     */
+    @Override
+    public void applyRemote(String payload) {
+        taskExecutor.execute(CacheInvalidationListener.REINDEX_ALL.equals(payload)
+                ? this::rebuild : () -> reindexNow(Long.valueOf(payload)));
+    }
+
+    /**
+     * 应用就绪后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 定时全量重建
+     */
+    @Scheduled(initialDelayString = "${app.recommend.related-rebuild-interval-ms:21600000}",
+            fixedDelayString = "${app.recommend.related-rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                return;
+            }
+            pendingIds = new LinkedHashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexState rebuilt = null;
+        long start = System.currentTimeMillis();
+        try {
+            rebuilt = scan();
+            for (Long contentId : rebuilt.features.keySet()) {
+                rebuilt.computeRelated(contentId, relatedCount);
+            }
+        } catch (Exception e) {
+            log.warn("相关内容索引构建失败，继续使用旧索引: {}", e.getMessage());
+        }
+
+        Set<Long> pending;
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                state = rebuilt;
+            }
+            pending = pendingIds;
+            pendingIds = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (rebuilt != null) {
+            pending.forEach(this::reindexNow);
+            log.info("相关内容索引构建完成, 内容数: {}, 桶数: {}, 耗时: {}ms",
+                    rebuilt.features.size(), rebuilt.buckets.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 按ID分批扫描已发布内容及其标签，计算签名并分桶
+     */
+    private IndexState scan() {
+        IndexState index = new IndexState();
+        long lastId = 0;
+        while (true) {
+            List<Content> contents = contentMapper.selectList(new QueryWrapper<Content>()
+                    .select("id", "hero_id", "map_id", "weapon_id", "position_id")
+                    .eq("status", PUBLISHED).gt("id", lastId).orderByAsc("id").last("LIMIT " + SCAN_BATCH_SIZE));
+            if (contents.isEmpty()) {
+                break;
+            }
+            lastId = contents.get(contents.size() - 1).getId();
+
+            List<Long> ids = new ArrayList<>(contents.size());
+            contents.forEach(content -> ids.add(content.getId()));
+            Map<Long, List<Long>> tagIds = new HashMap<>();
+            for (ContentTag contentTag : contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                    .select("content_id", "tag_id").in("content_id", ids))) {
+                tagIds.computeIfAbsent(contentTag.getContentId(), id -> new ArrayList<>()).add(contentTag.getTagId());
+            }
+
+            for (Content content : contents) {
+                index.add(content.getId(), features(content, tagIds.getOrDefault(content.getId(), List.of())));
+            }
+        }
+        return index;
+    }
+
+    private void reindexNow(Long contentId) {
+        long[] features = null;
+        try {
+            Content content = contentMapper.selectById(contentId);
+            if (content != null && Integer.valueOf(PUBLISHED).equals(content.getStatus())) {
+                List<Long> tagIds = new ArrayList<>();
+                for (ContentTag contentTag : contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                        .select("tag_id").eq("content_id", contentId))) {
+                    tagIds.add(contentTag.getTagId());
+                }
+                features = features(content, tagIds);
+            }
+        } catch (Exception e) {
+            log.warn("相关内容索引更新失败, contentId: {}, 错误: {}", contentId, e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                pendingIds.add(contentId);
+            }
+            state.remove(contentId);
+            if (features != null) {
+                state.add(contentId, features);
+                state.computeRelated(contentId, relatedCount);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 内容的特征集合，{特征类型 << 48 | ID}，排序后便于求交集
+     */
+    private static long[] features(Content content, List<Long> tagIds) {
+        List<Long> features = new ArrayList<>(tagIds.size() + 4);
+        tagIds.forEach(tagId -> features.add(TAG << FEATURE_SHIFT | tagId));
+        if (content.getHeroId() != null) {
+            features.add(HERO << FEATURE_SHIFT | content.getHeroId());
+        }
+        if (content.getMapId() != null) {
+            features.add(MAP << FEATURE_SHIFT | content.getMapId());
+        }
+        if (content.getWeaponId() != null) {
+            features.add(WEAPON << FEATURE_SHIFT | content.getWeaponId());
+        }
+        if (content.getPositionId() != null) {
+            features.add(POSITION << FEATURE_SHIFT | content.getPositionId());
+        }
+        return features.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    /**
+     * 64位混淆（MurmurHash3 finalizer）
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private void broadcast(Object contentId) {
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.reindexMessage(INDEX_NAME, contentId));
+    }
+
+    /**
+     * 相关列表
+     */
+    private record Neighbors(long[] ids, float[] scores) {
+    }
+
+    /**
+     * 索引数据，由读写锁保护
+     */
+    private static class IndexState {
+
+        private final Map<Long, long[]> features = new HashMap<>();
+        private final Map<Long, long[]> bandKeys = new HashMap<>();
+        private final Map<Long, List<Long>> buckets = new HashMap<>();
+        private final Map<Long, Neighbors> related = new HashMap<>();
+
+        void add(Long contentId, long[] contentFeatures) {
+            if (contentFeatures.length == 0) {
+                return;
+            }
+            long[] keys = bandKeys(signature(contentFeatures));
+            features.put(contentId, contentFeatures);
+            bandKeys.put(contentId, keys);
+            for (long key : keys) {
+                buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(contentId);
+            }
+        }
+
+        void remove(Long contentId) {
+            features.remove(contentId);
+            related.remove(contentId);
+            long[] keys = bandKeys.remove(contentId);
+            if (keys == null) {
+                return;
+            }
+            for (long key : keys) {
+                List<Long> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(contentId);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 汇总同桶候选，按精确Jaccard相似度保留前count个
+         */
+        void computeRelated(Long contentId, int count) {
+            long[] own = features.get(contentId);
+            long[] keys = bandKeys.get(contentId);
+            if (own == null) {
+                return;
+            }
+            Map<Long, Float> candidates = new HashMap<>();
+            for (long key : keys) {
+                List<Long> bucket = buckets.get(key);
+                int limit = Math.min(bucket.size(), MAX_BUCKET_CANDIDATES);
+                for (int i = 0; i < limit; i++) {
+                    Long candidate = bucket.get(i);
+                    if (!candidate.equals(contentId) && !candidates.containsKey(candidate)) {
+                        candidates.put(candidate, jaccard(own, features.get(candidate)));
+                    }
+                }
+            }
+
+            List<Map.Entry<Long, Float>> sorted = new ArrayList<>(candidates.entrySet());
+            sorted.sort(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+            int size = Math.min(count, sorted.size());
+            long[] ids = new long[size];
+            float[] scores = new float[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = sorted.get(i).getKey();
+                scores[i] = sorted.get(i).getValue();
+            }
+            related.put(contentId, new Neighbors(ids, scores));
+        }
+
+        private static int[] signature(long[] contentFeatures) {
+            int[] signature = new int[SIGNATURE_LENGTH];
+            Arrays.fill(signature, Integer.MAX_VALUE);
+            for (long feature : contentFeatures) {
+                for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                    int hash = (int) (mix(feature ^ SEEDS[i]) >>> 33);
+                    if (hash < signature[i]) {
+                        signature[i] = hash;
+                    }
+                }
+            }
+            return signature;
+        }
+
+        private static long[] bandKeys(int[] signature) {
+            long[] keys = new long[BANDS];
+            for (int band = 0; band < BANDS; band++) {
+                long key = band;
+                for (int row = 0; row < ROWS; row++) {
+                    key = mix(key * 31 + signature[band * ROWS + row]);
+                }
+                keys[band] = key;
+            }
+            return keys;
+        }
+
+        private static float jaccard(long[] a, long[] b) {
+            int i = 0;
+            int j = 0;
+            int common = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    common++;
+                    i++;
+                    j++;
+                }
+            }
+            return (float) common / (a.length + b.length - common);
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.escape.recommend;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.cache.ReplicatedIndex;
+import com.escape.entity.ContentTag;
+import com.escape.mapper.ContentTagMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 标签共现矩阵
+ * 稀疏存储每对标签同时出现在同一内容上的次数（对称，按行保存），相关标签直接读取行内前K个，
+ * 不再对content_tags做四表自连接
+ *
+ * 内容标签变更时在事务提交后增量更新，并把变更前后的标签集合广播到其他节点；标签合并时各节点全量重建。
+ * 矩阵以紧凑的varint快照保存到Redis，快照同时记录写入时content_tags的水位（最大ID和行数）。
+ * 增量变更后的定时快照由抢到锁的单个节点写入（锁有效期略短于周期），全量重建后直接写入；
+ * 启动时水位一致才加载快照，不一致（如快照写入后有停机期间或未送达的变更）或没有快照时扫描content_tags重建；
+ * 定时全量重建修正漂移
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class TagCooccurrenceMatrix implements ReplicatedIndex {
+
+    /**
+     * 广播消息中的索引名
+     */
+    public static final String INDEX_NAME = "tag-cooccurrence";
+
+
+    private static final String SNAPSHOT_KEY = "tag-cooccurrence:snapshot";
+    private static final String SNAPSHOT_LOCK_KEY = "tag-cooccurrence:snapshot:lock";
+    private static final byte SNAPSHOT_VERSION = 2;
+    private static final int SCAN_BATCH_SIZE = 2000;
+
+    /**
+     * 增量广播中分隔变更前后标签集合
+     */
+    private static final String DELTA_SEPARATOR = "|";
+
+    /**
+     * 每个标签缓存的有序相关标签数
+     */
+    private static final int TOP_CACHE_SIZE = 50;
+
+    @Autowired
+    private ContentTagMapper contentTagMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Value("${app.tag.cooccurrence.snapshot-ttl-days:30}")
+    private long snapshotTtlDays;
+
+    @Value("${app.tag.cooccurrence.snapshot-interval-ms:300000}")
+    private long snapshotIntervalMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Map<Long, Integer>> rows = new HashMap<>();
+
+    /**
+     * 标签ID -> 按共现次数降序的相关标签（交替存放ID和次数），行变更时失效
+     */
+    private final Map<Long, long[]> topCache = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 获取共现次数最高的相关标签
+     *
+     * @return 标签ID -> 共现次数，按次数降序
+     */
+    public Map<Long, Integer> related(Long tagId, int limit) {
+        long[] top = topCache.get(tagId);
+        if (top == null) {
+            // 在读锁内写入缓存，保证不会覆盖写锁内的失效
+            lock.readLock().lock();
+            try {
+                top = sortRow(rows.get(tagId));
+                topCache.put(tagId, top);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < top.length && result.size() < limit; i += 2) {
+            result.put(top[i], (int) top[i + 1]);
+        }
+        // 缓存不够时直接按行排序
+        if (result.size() < limit && top.length / 2 == TOP_CACHE_SIZE) {
+            lock.readLock().lock();
+            try {
+                result.clear();
+                rows.getOrDefault(tagId, Map.of()).entrySet().stream()
+                        .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                        .limit(limit)
+                        .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 内容标签从oldTagIds变为newTagIds，在事务中调用时延迟到提交后执行并广播到其他节点
+     */
+    public void onContentTagsChanged(Collection<Long> oldTagIds, Collection<Long> newTagIds) {
+        Set<Long> before = oldTagIds == null ? Set.of() : new HashSet<>(oldTagIds);
+        Set<Long> after = newTagIds == null ? Set.of() : new HashSet<>(newTagIds);
+        if (before.equals(after)) {
+            return;
+        }
+        runAfterCommit(() -> {
+            applyDelta(before, after);
+            broadcast(joinIds(before) + DELTA_SEPARATOR + joinIds(after));
+        });
+    }
+
+    /**
+     * 标签合并后全量重建（合并涉及三元共现，无法由成对计数推出），在事务提交后异步执行并通知其他节点重建
+     */
+    public void rebuildAfterCommit() {
+        runAfterCommit(() -> {
+            taskExecutor.execute(this::rebuild);
+            broadcast(CacheInvalidationListener.REINDEX_ALL);
+        });
+    }
+
+    @Override
+    public String indexName() {
+        return INDEX_NAME;
+    }
+
+    /**
+     * 应用其他节点广播的变更：变更前后的标签集合（以 | 分隔，集合内以逗号分隔），或全量重建
+     */
+    @Override
+    public void applyRemote(String payload) {
+        if (CacheInvalidationListener.REINDEX_ALL.equals(payload)) {
+            taskExecutor.execute(this::rebuild);
+            return;
+        }
+        String[] sides = payload.split(Pattern.quote(DELTA_SEPARATOR), -1);
+        if (sides.length != 2) {
+            log.warn("无效的标签共现变更消息: {}", payload);
+            return;
+        }
+        applyDelta(parseIds(sides[0]), parseIds(sides[1]));
+    }
+
+    /**
+     * 应用就绪后在后台加载快照，没有快照或快照水位与当前content_tags不一致时重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        taskExecutor.execute(() -> {
+            String snapshot = redisUtils.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                try {
+                    Map<Long, Map<Long, Integer>> loaded = decode(snapshot, watermark());
+                    replace(loaded);
+                    log.info("标签共现矩阵从快照加载完成, 标签数: {}", loaded.size());
+                    return;
+                } catch (Exception e) {
+                    log.warn("标签共现矩阵快照无效，重新构建: {}", e.getMessage());
+                }
+            }
+            rebuild();
+        });
+    }
+
+    /**
+     * 定时全量重建
+     */
+    @Scheduled(initialDelayString = "${app.tag.cooccurrence.rebuild-interval-ms:86400000}",
+            fixedDelayString = "${app.tag.cooccurrence.rebuild-interval-ms:86400000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Map<Long, Map<Long, Integer>> rebuilt = scan();
+            replace(rebuilt);
+            // 全量重建的结果与数据库一致，不经选举直接写入快照
+            dirty.set(false);
+            writeSnapshot();
+            log.info("标签共现矩阵构建完成, 标签数: {}, 耗时: {}ms",
+                    rebuilt.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("标签共现矩阵构建失败，继续使用旧数据: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 有增量变更时定时写入快照，每个周期只由抢到锁的一个节点写入；
+     * 各节点通过广播应用相同的增量，未抢到锁的节点不再重复写入
+     */
+    @Scheduled(fixedDelayString = "${app.tag.cooccurrence.snapshot-interval-ms:300000}")
+    public void persist() {
+        if (!dirty.compareAndSet(true, false)) {
+            return;
+        }
+        // 锁有效期略短于周期，保证每个周期只写入一次
+        long lockMillis = Math.max(snapshotIntervalMs - 10000, 1000);
+        if (!Boolean.TRUE.equals(redisUtils.setIfAbsent(SNAPSHOT_LOCK_KEY, "1", lockMillis, TimeUnit.MILLISECONDS))) {
+            return;
+        }
+        writeSnapshot();
+    }
+
+    /**
+     * 以当前水位写入快照，查询水位失败时保留变更标记稍后重试
+     */
+    private void writeSnapshot() {
+        long[] watermark;
+        try {
+            watermark = watermark();
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("查询content_tags水位失败，稍后写入快照: {}", e.getMessage());
+            return;
+        }
+        String snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = encode(rows, watermark);
+        } finally {
+            lock.readLock().unlock();
+        }
+        redisUtils.set(SNAPSHOT_KEY, snapshot, snapshotTtlDays, TimeUnit.DAYS);
+    }
+
+    /**
+     * 按 (content_id, id) 顺序分批扫描content_tags，逐个内容累加标签对
+     */
+    private Map<Long, Map<Long, Integer>> scan() {
+        Map<Long, Map<Long, Integer>> matrix = new HashMap<>();
+        List<Long> group = new ArrayList<>();
+        long lastContentId = 0;
+        long lastId = 0;
+        while (true) {
+            long contentId = lastContentId;
+            long id = lastId;
+            List<ContentTag> batch = contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                    .select("id", "content_id", "tag_id")
+                    .and(w -> w.gt("content_id", contentId).or(o -> o.eq("content_id", contentId).gt("id", id)))
+                    .orderByAsc("content_id", "id").last("LIMIT " + SCAN_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (ContentTag contentTag : batch) {
+                if (contentTag.getContentId() != lastContentId) {
+                    addPairs(matrix, group, 1);
+                    group.clear();
+                    lastContentId = contentTag.getContentId();
+                }
+                group.add(contentTag.getTagId());
+                lastId = contentTag.getId();
+            }
+        }
+        addPairs(matrix, group, 1);
+        return matrix;
+    }
+
+    /**
+     * content_tags当前水位：[最大ID, 行数]
+     */
+    private long[] watermark() {
+        Map<String, Object> row = contentTagMapper.selectWatermark();
+        return new long[]{((Number) row.get("max_id")).longValue(), ((Number) row.get("total")).longValue()};
+    }
+
+    private void applyDelta(Set<Long> before, Set<Long> after) {
+        lock.writeLock().lock();
+        try {
+            addPairs(before, -1);
+            addPairs(after, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    private void broadcast(String payload) {
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.reindexMessage(INDEX_NAME, payload));
+    }
+
+    private void replace(Map<Long, Map<Long, Integer>> matrix) {
+        lock.writeLock().lock();
+        try {
+            rows = matrix;
+            topCache.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在当前矩阵上累加，调用方持有写锁
+     */
+    private void addPairs(Collection<Long> tagIds, int delta) {
+        addPairs(rows, tagIds, delta);
+        tagIds.forEach(topCache::remove);
+    }
+
+    private static void addPairs(Map<Long, Map<Long, Integer>> matrix, Collection<Long> tagIds, int delta) {
+        Long[] tags = new HashSet<>(tagIds).toArray(new Long[0]);
+        for (int i = 0; i < tags.length; i++) {
+            for (int j = 0; j < tags.length; j++) {
+                if (i == j) {
+                    continue;
+                }
+                Map<Long, Integer> row = matrix.computeIfAbsent(tags[i], t -> new HashMap<>());
+                int count = row.getOrDefault(tags[j], 0) + delta;
+                if (count > 0) {
+                    row.put(tags[j], count);
+                } else {
+                    row.remove(tags[j]);
+                    if (row.isEmpty()) {
+                        matrix.remove(tags[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String joinIds(Set<Long> tagIds) {
+        return tagIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static Set<Long> parseIds(String joined) {
+        Set<Long> tagIds = new HashSet<>();
+        for (String id : joined.split(",")) {
+            if (!id.isEmpty()) {
+                tagIds.add(Long.valueOf(id));
+            }
+        }
+        return tagIds;
+    }
+
+    private static long[] sortRow(Map<Long, Integer> row) {
+        if (row == null) {
+            return new long[0];
+        }
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(row.entrySet());
+        entries.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        int size = Math.min(entries.size(), TOP_CACHE_SIZE);
+        long[] top = new long[size * 2];
+        for (int i = 0; i < size; i++) {
+            top[i * 2] = entries.get(i).getKey();
+            top[i * 2 + 1] = entries.get(i).getValue();
+        }
+        return top;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 快照格式：版本号、水位最大ID、水位行数，然后每个标签（ID升序）写 ID差值、上三角邻居数，
+     * 再逐个写 邻居ID差值、次数，版本号之后全部为varint
+     */
+    private static String encode(Map<Long, Map<Long, Integer>> matrix, long[] watermark) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(SNAPSHOT_VERSION);
+        writeVarLong(out, watermark[0]);
+        writeVarLong(out, watermark[1]);
+        long previousTag = 0;
+        for (Map.Entry<Long, Map<Long, Integer>> row : new TreeMap<>(matrix).entrySet()) {
+            long tagId = row.getKey();
+            Map<Long, Integer> upper = new TreeMap<>();
+            row.getValue().forEach((other, count) -> {
+                if (other > tagId) {
+                    upper.put(other, count);
+                }
+            });
+            if (upper.isEmpty()) {
+                continue;
+            }
+            writeVarLong(out, tagId - previousTag);
+            writeVarLong(out, upper.size());
+            previousTag = tagId;
+            long previousOther = tagId;
+            for (Map.Entry<Long, Integer> entry : upper.entrySet()) {
+                writeVarLong(out, entry.getKey() - previousOther);
+                writeVarLong(out, entry.getValue());
+                previousOther = entry.getKey();
+            }
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * @param watermark 当前水位，与快照记录的不一致时抛出异常
+     */
+    private static Map<Long, Map<Long, Integer>> decode(String snapshot, long[] watermark) {
+        ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(snapshot));
+        if (in.get() != SNAPSHOT_VERSION) {
+            throw new IllegalStateException("快照版本不匹配");
+        }
+        long maxId = readVarLong(in);
+        long total = readVarLong(in);
+        if (maxId != watermark[0] || total != watermark[1]) {
+            throw new IllegalStateException("快照水位(" + maxId + ", " + total + ")与当前content_tags(" +
+                    watermark[0] + ", " + watermark[1] + ")不一致");
+        }
+        Map<Long, Map<Long, Integer>> matrix = new HashMap<>();
+        long tagId = 0;
+        while (in.hasRemaining()) {
+            tagId += readVarLong(in);
+            long neighbors = readVarLong(in);
+            long other = tagId;
+            for (long i = 0; i < neighbors; i++) {
+                other += readVarLong(in);
+                int count = (int) readVarLong(in);
+                matrix.computeIfAbsent(tagId, t -> new HashMap<>()).put(other, count);
+                matrix.computeIfAbsent(other, t -> new HashMap<>()).put(tagId, count);
+            }
+        }
+        return matrix;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.escape.rollup;
+
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.mapper.ViewHistoryUserSummaryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 浏览历史归档
+ * 按ID分块将超过保留期的记录移入 view_history_archive，
+ * 移出前将其条数和时长累加到用户汇总，保证统计结果不因归档而变化；
+ * 浏览用户数、热度重建和按类型的用户历史直接合并查询归档表，用户删除历史时同时删除归档记录
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ViewHistoryArchiver {
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Autowired
+    private ViewHistoryUserSummaryMapper userSummaryMapper;
+
+    /**
+     * 归档一块记录（单个事务）
+     *
+     * @return 归档的记录数，为0表示已没有需要归档的记录
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int archiveChunk(LocalDateTime beforeTime, int chunkSize) {
+        List<Long> ids = viewHistoryMapper.findIdsBefore(beforeTime, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        userSummaryMapper.accumulateByHistoryIds(ids);
+        viewHistoryMapper.copyToArchive(ids);
+        return viewHistoryMapper.deleteByIds(ids);
+    }
+}
@@ -0,0 +1,129 @@
+package com.escape.rollup;
+
+import com.escape.mapper.ViewHistoryTargetDailyMapper;
+import com.escape.mapper.ViewHistoryUserDailyMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 浏览历史汇总与归档任务
+ * 每天凌晨将前一天的浏览记录按用户、按目标汇总到每日汇总表；
+ * 随后将超过保留期的记录分块移入归档表，块之间暂停以限制对主库的压力
+ * 多节点部署时通过Redis锁保证只有一个节点执行
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ViewHistoryRollupJob {
+
+    private static final String ROLLUP_LOCK_KEY = "rollup:view-history:lock";
+    private static final String ARCHIVE_LOCK_KEY = "rollup:view-history:archive:lock";
+    private static final long ROLLUP_LOCK_MINUTES = 30;
+    private static final long ARCHIVE_LOCK_HOURS = 2;
+
+    @Autowired
+    private ViewHistoryUserDailyMapper userDailyMapper;
+
+    @Autowired
+    private ViewHistoryTargetDailyMapper targetDailyMapper;
+
+    @Autowired
+    private ViewHistoryArchiver viewHistoryArchiver;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Value("${app.history.rollup.lookback-days:1}")
+    private int lookbackDays;
+
+    @Value("${app.history.archive.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${app.history.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.history.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.history.archive.max-chunks:500}")
+    private int maxChunks;
+
+    /**
+     * 定时汇总最近几天（不含当天）的浏览记录
+     */
+    @Scheduled(cron = "${app.history.rollup.cron:0 10 0 * * ?}")
+    public void rollup() {
+        Boolean acquired = redisUtils.setIfAbsent(ROLLUP_LOCK_KEY, "1", ROLLUP_LOCK_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        rollup(today.minusDays(lookbackDays), today);
+    }
+
+    /**
+     * 汇总指定日期范围 [startDate, endDate) 的浏览记录
+     *
+     * @return 写入的汇总行数
+     */
+    public int rollup(LocalDate startDate, LocalDate endDate) {
+        int total = 0;
+        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
+            LocalDateTime start = date.atStartOfDay();
+            try {
+                total += userDailyMapper.rollup(start, start.plusDays(1));
+                total += targetDailyMapper.rollup(start, start.plusDays(1));
+            } catch (Exception e) {
+                log.error("浏览历史汇总失败, date: {}", date, e);
+            }
+        }
+        log.info("浏览历史汇总完成, 日期: [{}, {}), 行数: {}", startDate, endDate, total);
+        return total;
+    }
+
+    /**
+     * 定时归档超过保留期的浏览记录
+     */
+    @Scheduled(cron = "${app.history.archive.cron:0 30 3 * * ?}")
+    public void archive() {
+        Boolean acquired = redisUtils.setIfAbsent(ARCHIVE_LOCK_KEY, "1", ARCHIVE_LOCK_HOURS, TimeUnit.HOURS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+
+        // 保留期按整天计算，归档的记录已在之前的汇总中统计过
+        LocalDateTime beforeTime = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        long archived = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxChunks) {
+                int count = viewHistoryArchiver.archiveChunk(beforeTime, chunkSize);
+                if (count == 0) {
+                    break;
+                }
+                archived += count;
+                chunks++;
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("浏览历史归档失败, 已归档: {}", archived, e);
+        } finally {
+            redisUtils.delete(ARCHIVE_LOCK_KEY);
+        }
+
+        log.info("浏览历史归档完成, 截止时间: {}, 记录数: {}, 块数: {}", beforeTime, archived, chunks);
+    }
+}
@@ -0,0 +1,467 @@
+package com.escape.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * 压缩位图（Roaring结构）
+ * 按整数高16位分块，每块低16位根据基数选择存储方式：
+ * 不超过4096个元素时用有序char数组，超过时用1024个long的定长位图，
+ * 稀疏和稠密的ID集合都能以较小内存保存，并支持快速求交、并、差和交集基数
+ *
+ * 非线程安全，由调用方加锁；静态运算方法返回新位图，不修改参数
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int value) {
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new Container());
+        }
+        containers[index].add((char) value);
+    }
+
+    public void remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index];
+        container.remove((char) value);
+        if (container.cardinality == 0) {
+            removeContainer(index);
+        }
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按升序遍历
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * 按升序遍历，consumer返回false时提前结束
+     */
+    public void forEachWhile(IntPredicate consumer) {
+        for (int i = 0; i < size; i++) {
+            if (!containers[i].forEachWhile(keys[i] << 16, consumer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 升序导出为数组
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] position = {0};
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(size, 4));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality > 0) {
+                    result.appendContainer(a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendContainer(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                result.appendContainer(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container container = j < b.size && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            if (container.cardinality > 0) {
+                result.appendContainer(a.keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 交集基数，不生成中间位图
+     */
+    public static int andCardinality(CompressedBitmap a, CompressedBitmap b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += a.containers[i].andCardinality(b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insertContainer(int index, char high, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(char high, Container container) {
+        insertContainer(size, high, container);
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * 块内容器，bits为空时是有序数组形式
+     */
+    private static final class Container {
+
+        private char[] array = new char[4];
+        private long[] bits;
+        private int cardinality;
+
+        void add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) {
+                    bits[low >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, low);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_MAX) {
+                toBitmap();
+                add(low);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(Math.max(cardinality * 2, 4), ARRAY_MAX));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = low;
+            cardinality++;
+        }
+
+        void remove(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) {
+                    bits[low >>> 6] &= ~mask;
+                    cardinality--;
+                    if (cardinality <= ARRAY_MAX) {
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, low);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        void forEach(int base, IntConsumer consumer) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    consumer.accept(base | array[i]);
+                }
+                return;
+            }
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long value = bits[word];
+                while (value != 0) {
+                    consumer.accept(base | (word << 6) | Long.numberOfTrailingZeros(value));
+                    value &= value - 1;
+                }
+            }
+        }
+
+        boolean forEachWhile(int base, IntPredicate consumer) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (!consumer.test(base | array[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long value = bits[word];
+                while (value != 0) {
+                    if (!consumer.test(base | (word << 6) | Long.numberOfTrailingZeros(value))) {
+                        return false;
+                    }
+                    value &= value - 1;
+                }
+            }
+            return true;
+        }
+
+        Container and(Container other) {
+            Container result = new Container();
+            if (bits != null && other.bits != null) {
+                result.bits = new long[BITMAP_WORDS];
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result.bits[i] = bits[i] & other.bits[i];
+                    result.cardinality += Long.bitCount(result.bits[i]);
+                }
+                if (result.cardinality <= ARRAY_MAX) {
+                    result.toArray();
+                }
+                return result;
+            }
+            Container arrayOne = bits == null ? this : other;
+            Container probe = arrayOne == this ? other : this;
+            result.array = new char[Math.max(arrayOne.cardinality, 1)];
+            for (int i = 0; i < arrayOne.cardinality; i++) {
+                if (probe.contains(arrayOne.array[i])) {
+                    result.array[result.cardinality++] = arrayOne.array[i];
+                }
+            }
+            return result;
+        }
+
+        Container or(Container other) {
+            if (bits == null && other.bits == null) {
+                return mergeArrays(other);
+            }
+            Container result;
+            Container added;
+            if (bits != null) {
+                result = copy();
+                added = other;
+            } else {
+                result = other.copy();
+                added = this;
+            }
+            if (result.bits != null && added.bits != null) {
+                result.cardinality = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result.bits[i] |= added.bits[i];
+                    result.cardinality += Long.bitCount(result.bits[i]);
+                }
+                return result;
+            }
+            for (int i = 0; i < added.cardinality; i++) {
+                result.add(added.array[i]);
+            }
+            return result;
+        }
+
+        Container andNot(Container other) {
+            Container result = copy();
+            if (result.bits != null && other.bits != null) {
+                result.cardinality = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result.bits[i] &= ~other.bits[i];
+                    result.cardinality += Long.bitCount(result.bits[i]);
+                }
+                if (result.cardinality <= ARRAY_MAX) {
+                    result.toArray();
+                }
+                return result;
+            }
+            if (result.bits == null) {
+                int kept = 0;
+                for (int i = 0; i < result.cardinality; i++) {
+                    if (!other.contains(result.array[i])) {
+                        result.array[kept++] = result.array[i];
+                    }
+                }
+                result.cardinality = kept;
+                return result;
+            }
+            for (int i = 0; i < other.cardinality; i++) {
+                result.remove(other.array[i]);
+            }
+            return result;
+        }
+
+        int andCardinality(Container other) {
+            if (bits != null && other.bits != null) {
+                int total = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    total += Long.bitCount(bits[i] & other.bits[i]);
+                }
+                return total;
+            }
+            Container arrayOne = bits == null ? this : other;
+            Container probe = arrayOne == this ? other : this;
+            int total = 0;
+            for (int i = 0; i < arrayOne.cardinality; i++) {
+                if (probe.contains(arrayOne.array[i])) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        Container copy() {
+            Container copy = new Container();
+            copy.cardinality = cardinality;
+            if (bits != null) {
+                copy.bits = bits.clone();
+                copy.array = null;
+            } else {
+                copy.array = Arrays.copyOf(array, Math.max(cardinality, 1));
+            }
+            return copy;
+        }
+
+        private Container mergeArrays(Container other) {
+            Container result = new Container();
+            result.array = new char[Math.max(cardinality + other.cardinality, 1)];
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < other.cardinality) {
+                char next;
+                if (j >= other.cardinality || (i < cardinality && array[i] < other.array[j])) {
+                    next = array[i++];
+                } else if (i >= cardinality || array[i] > other.array[j]) {
+                    next = other.array[j++];
+                } else {
+                    next = array[i++];
+                    j++;
+                }
+                result.array[result.cardinality++] = next;
+            }
+            if (result.cardinality > ARRAY_MAX) {
+                result.toBitmap();
+            }
+            return result;
+        }
+
+        private void toBitmap() {
+            bits = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int position = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long value = bits[word];
+                while (value != 0) {
+                    values[position++] = (char) ((word << 6) | Long.numberOfTrailingZeros(value));
+                    value &= value - 1;
+                }
+            }
+            array = values;
+            bits = null;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.cache.ReplicatedIndex;
+import com.escape.entity.Content;
+import com.escape.entity.ContentTag;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.ContentTagMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内容位图索引
+ * 按标签、英雄、地图、武器、内容类型和状态各维护一组压缩位图（每个取值一个），
+ * 多条件过滤在内存中做位图交、并、差运算，不再依赖content_tags上的GROUP BY；
+ * 分面统计用结果集与各取值位图的交集基数计算，按查询签名缓存
+ *
+ * 启动后在后台按ID分批扫描构建，之后由内容写入和标签设置增量更新（事务提交后执行），
+ * 定时全量重建兜底；变更通过缓存失效频道广播，其他节点收到后同样更新
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ContentBitmapIndex implements ReplicatedIndex {
+
+    /**
+     * 广播消息中的索引名
+     */
+    public static final String INDEX_NAME = "content-bitmap";
+
+    public static final String TAG = "tag";
+    public static final String HERO = "hero";
+    public static final String MAP = "map";
+    public static final String WEAPON = "weapon";
+    public static final String TYPE = "type";
+    public static final String STATUS = "status";
+    public static final String FEATURED = "featured";
+    public static final String OFFICIAL = "official";
+    public static final String AUTHOR = "author";
+
+    /**
+     * 返回分面统计的维度
+     */
+    public static final List<String> FACET_DIMENSIONS = List.of(TYPE, HERO, MAP, WEAPON, TAG);
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private ContentTagMapper contentTagMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Value("${app.search.facet-max-values:50}")
+    private int facetMaxValues;
+
+    @Value("${app.search.facet-cache-size:1000}")
+    private int facetCacheSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexState state = new IndexState();
+
+    /**
+     * 查询签名 -> 分面统计，索引任何变更都整体清空
+     */
+    private final LinkedHashMap<String, Map<String, Map<String, Integer>>> facetCache =
+            new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * 重建期间发生变更的内容ID，重建完成后重新索引
+     */
+    private Set<Long> pendingIds;
+
+    /**
+     * 索引版本，每次变更递增，由facetCache的锁保护
+     */
+    private long version;
+
+    /**
+     * 按条件过滤，返回命中的内容ID位图（调用方独占，可随意修改）
+     */
+    public CompressedBitmap filter(ContentFilter filter) {
+        lock.readLock().lock();
+        try {
+            IndexState index = state;
+            List<CompressedBitmap> required = new ArrayList<>();
+            if (filter.getStatus() != null) {
+                required.add(index.get(STATUS, filter.getStatus()));
+            }
+            if (filter.getContentType() != null) {
+                required.add(index.get(TYPE, filter.getContentType()));
+            }
+            if (filter.getHeroId() != null) {
+                required.add(index.get(HERO, filter.getHeroId()));
+            }
+            if (filter.getMapId() != null) {
+                required.add(index.get(MAP, filter.getMapId()));
+            }
+            if (filter.getWeaponId() != null) {
+                required.add(index.get(WEAPON, filter.getWeaponId()));
+            }
+            if (filter.getIsFeatured() != null) {
+                required.add(index.get(FEATURED, filter.getIsFeatured()));
+            }
+            if (filter.getIsOfficial() != null) {
+                required.add(index.get(OFFICIAL, filter.getIsOfficial()));
+            }
+            if (filter.getAuthorId() != null) {
+                required.add(index.get(AUTHOR, filter.getAuthorId()));
+            }
+            if (filter.getAllTagIds() != null) {
+                filter.getAllTagIds().forEach(tagId -> required.add(index.get(TAG, tagId)));
+            }
+            if (filter.getAnyTagIds() != null && !filter.getAnyTagIds().isEmpty()) {
+                CompressedBitmap union = new CompressedBitmap();
+                for (Long tagId : filter.getAnyTagIds()) {
+                    union = CompressedBitmap.or(union, index.get(TAG, tagId));
+                }
+                required.add(union);
+            }
+
+            // 从基数最小的位图开始求交，中间结果尽快缩小
+            required.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+            CompressedBitmap result = required.isEmpty() ? index.all.copy() : required.get(0).copy();
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result = CompressedBitmap.and(result, required.get(i));
+            }
+
+            if (filter.getExcludeTagIds() != null) {
+                for (Long tagId : filter.getExcludeTagIds()) {
+                    if (result.isEmpty()) {
+                        break;
+                    }
+                    result = CompressedBitmap.andNot(result, index.get(TAG, tagId));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取已缓存的分面统计，未命中返回null
+     */
+    public Map<String, Map<String, Integer>> cachedFacets(String signature) {
+        synchronized (facetCache) {
+            return facetCache.get(signature);
+        }
+    }
+
+    /**
+     * 统计结果集在各分面取值上的数量并按签名缓存
+     * 数量为结果集与取值位图的交集基数；每个维度按数量降序保留前facetMaxValues个
+     */
+    public Map<String, Map<String, Integer>> facets(String signature, CompressedBitmap matched) {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        long indexVersion;
+        lock.readLock().lock();
+        try {
+            indexVersion = version;
+            for (String dimension : FACET_DIMENSIONS) {
+                List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+                if (!matched.isEmpty()) {
+                    state.bitmaps.getOrDefault(dimension, Map.of()).forEach((value, bitmap) -> {
+                        int count = CompressedBitmap.andCardinality(matched, bitmap);
+                        if (count > 0) {
+                            counts.add(Map.entry(value, count));
+                        }
+                    });
+                }
+                counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+                Map<String, Integer> values = new LinkedHashMap<>();
+                counts.stream().limit(facetMaxValues).forEach(entry -> values.put(entry.getKey(), entry.getValue()));
+                facets.put(dimension, values);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        synchronized (facetCache) {
+            // 统计期间索引发生变更时不缓存，避免旧结果覆盖清空
+            if (indexVersion == version) {
+                facetCache.put(signature, facets);
+                Iterator<String> iterator = facetCache.keySet().iterator();
+                while (facetCache.size() > facetCacheSize && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * 重新索引内容，在事务中调用时延迟到提交后执行
+     */
+    public void reindex(Long contentId) {
+        if (contentId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindexNow(contentId);
+                    broadcast(contentId);
+                }
+            });
+        } else {
+            reindexNow(contentId);
+            broadcast(contentId);
+        }
+    }
+
+    /**
+     * 在本节点后台全量重建，并通知其他节点重建（批量导入后调用）
+     */
+    public void rebuildAllNodes() {
+        taskExecutor.execute(this::rebuild);
+        broadcast(CacheInvalidationListener.REINDEX_ALL);
+    }
+
+    @Override
+    public String indexName() {
+        return INDEX_NAME;
+    }
+
+    /**
+     * 应用其他节点广播的变更（内容ID），在后台执行
+     */
+    @Override
+    public void applyRemote(String payload) {
+        taskExecutor.execute(CacheInvalidationListener.REINDEX_ALL.equals(payload)
+                ? this::rebuild : () -> reindexNow(Long.valueOf(payload)));
+    }
+
+    /**
+     * 应用就绪后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 定时全量重建，修正漏掉的增量（如直接改库、标签删除）
+     */
+    @Scheduled(initialDelayString = "${app.search.bitmap-rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.search.bitmap-rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                return;
+            }
+            pendingIds = new LinkedHashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexState rebuilt = null;
+        long start = System.currentTimeMillis();
+        try {
+            rebuilt = scan();
+        } catch (Exception e) {
+            log.warn("内容位图索引构建失败，继续使用旧索引: {}", e.getMessage());
+        }
+
+        Set<Long> pending;
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                state = rebuilt;
+                invalidateFacets();
+            }
+            pending = pendingIds;
+            pendingIds = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (rebuilt != null) {
+            pending.forEach(this::reindexNow);
+            log.info("内容位图索引构建完成, 内容数: {}, 位图数: {}, 耗时: {}ms",
+                    rebuilt.members.size(), rebuilt.bitmapCount(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 按ID分批扫描未删除内容及其标签
+     */
+    private IndexState scan() {
+        IndexState index = new IndexState();
+        long lastId = 0;
+        while (true) {
+            List<Content> contents = contentMapper.selectList(new QueryWrapper<Content>()
+                    .select("id", "content_type", "hero_id", "map_id", "weapon_id", "status",
+                            "is_featured", "is_official", "author_id")
+                    .gt("id", lastId).orderByAsc("id").last("LIMIT " + SCAN_BATCH_SIZE));
+            if (contents.isEmpty()) {
+                break;
+            }
+            lastId = contents.get(contents.size() - 1).getId();
+
+            List<Long> ids = new ArrayList<>(contents.size());
+            contents.forEach(content -> ids.add(content.getId()));
+            Map<Long, List<Long>> tagIds = new HashMap<>();
+            for (ContentTag contentTag : contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                    .select("content_id", "tag_id").in("content_id", ids))) {
+                tagIds.computeIfAbsent(contentTag.getContentId(), id -> new ArrayList<>()).add(contentTag.getTagId());
+            }
+
+            for (Content content : contents) {
+                index.add(content, tagIds.getOrDefault(content.getId(), List.of()));
+            }
+        }
+        return index;
+    }
+
+    private void reindexNow(Long contentId) {
+        Content content;
+        List<Long> tagIds = new ArrayList<>();
+        try {
+            content = contentMapper.selectById(contentId);
+            if (content != null) {
+                for (ContentTag contentTag : contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                        .select("tag_id").eq("content_id", contentId))) {
+                    tagIds.add(contentTag.getTagId());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("内容位图索引更新失败, contentId: {}, 错误: {}", contentId, e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                pendingIds.add(contentId);
+            }
+            state.remove(contentId.intValue());
+            if (content != null) {
+                state.add(content, tagIds);
+            }
+            invalidateFacets();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void invalidateFacets() {
+        synchronized (facetCache) {
+            version++;
+            facetCache.clear();
+        }
+    }
+
+    private void broadcast(Object contentId) {
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.reindexMessage(INDEX_NAME, contentId));
+    }
+
+    /**
+     * 索引数据，由读写锁保护
+     */
+    private static class IndexState {
+
+        private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+        /**
+         * 维度 -> 取值 -> 内容ID位图
+         */
+        private final Map<String, Map<String, CompressedBitmap>> bitmaps = new HashMap<>();
+
+        /**
+         * 内容ID -> 所在的位图，用于更新时移除旧取值
+         */
+        private final Map<Integer, List<CompressedBitmap>> members = new HashMap<>();
+
+        private final CompressedBitmap all = new CompressedBitmap();
+
+        CompressedBitmap get(String dimension, Object value) {
+            Map<String, CompressedBitmap> values = bitmaps.get(dimension);
+            CompressedBitmap bitmap = values == null ? null : values.get(String.valueOf(value));
+            return bitmap == null ? EMPTY : bitmap;
+        }
+
+        void add(Content content, List<Long> tagIds) {
+            int id = content.getId().intValue();
+            List<CompressedBitmap> joined = new ArrayList<>();
+            join(joined, id, STATUS, content.getStatus());
+            join(joined, id, TYPE, content.getContentType());
+            join(joined, id, HERO, content.getHeroId());
+            join(joined, id, MAP, content.getMapId());
+            join(joined, id, WEAPON, content.getWeaponId());
+            join(joined, id, FEATURED, content.getIsFeatured());
+            join(joined, id, OFFICIAL, content.getIsOfficial());
+            join(joined, id, AUTHOR, content.getAuthorId());
+            for (Long tagId : tagIds) {
+                join(joined, id, TAG, tagId);
+            }
+            members.put(id, joined);
+            all.add(id);
+        }
+
+        void remove(int id) {
+            List<CompressedBitmap> joined = members.remove(id);
+            if (joined != null) {
+                joined.forEach(bitmap -> bitmap.remove(id));
+                all.remove(id);
+            }
+        }
+
+        int bitmapCount() {
+            return bitmaps.values().stream().mapToInt(Map::size).sum();
+        }
+
+        private void join(List<CompressedBitmap> joined, int id, String dimension, Object value) {
+            if (value == null) {
+                return;
+            }
+            CompressedBitmap bitmap = bitmaps.computeIfAbsent(dimension, d -> new HashMap<>())
+                    .computeIfAbsent(String.valueOf(value), v -> new CompressedBitmap());
+            bitmap.add(id);
+            joined.add(bitmap);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.escape.search;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 内容过滤条件
+ * 单值条件和allTagIds之间取交集，anyTagIds内部取并集后再求交，excludeTagIds从结果中排除；
+ * 为空的条件不参与过滤
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+public class ContentFilter {
+
+    /**
+     * 状态：0-草稿，1-已发布，2-下线；为空时不限
+     */
+    private Integer status;
+
+    private String contentType;
+
+    private Long heroId;
+
+    private Long mapId;
+
+    private Long weaponId;
+
+    private Integer isFeatured;
+
+    private Integer isOfficial;
+
+    private Long authorId;
+
+    /**
+     * 必须同时拥有的标签
+     */
+    private List<Long> allTagIds;
+
+    /**
+     * 至少拥有其一的标签
+     */
+    private List<Long> anyTagIds;
+
+    /**
+     * 不能拥有的标签
+     */
+    private List<Long> excludeTagIds;
+
+    /**
+     * 查询签名，用作分面统计的缓存key（标签顺序不影响结果）
+     */
+    public String signature() {
+        return "s=" + status + "|t=" + contentType + "|h=" + heroId + "|m=" + mapId + "|w=" + weaponId
+                + "|f=" + isFeatured + "|o=" + isOfficial + "|a=" + authorId
+                + "|all=" + sorted(allTagIds) + "|any=" + sorted(anyTagIds) + "|not=" + sorted(excludeTagIds);
+    }
+
+    private static List<Long> sorted(List<Long> tagIds) {
+        return tagIds == null ? null : tagIds.stream().distinct().sorted().toList();
+    }
+}
@@ -0,0 +1,368 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.cache.ReplicatedIndex;
+import com.escape.entity.Content;
+import com.escape.entity.Tag;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.TagMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内容搜索索引
+ * 进程内倒排索引，覆盖已发布内容的标题、描述和标签，按BM25排序；
+ * 标题和标签中的词按更高权重计入词频。搜索直接在内存中完成，不访问数据库
+ *
+ * 启动后在后台按ID分批扫描全表构建，之后由内容的新增、修改和状态变更增量更新（事务提交后执行）；
+ * 修改和下线只标记旧文档删除，定时重建时清理；变更通过缓存失效频道广播，其他节点收到后同样更新
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ContentSearchIndex implements ReplicatedIndex {
+
+    /**
+     * 广播消息中的索引名
+     */
+    public static final String INDEX_NAME = "content-search";
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SCAN_BATCH_SIZE = 500;
+    private static final int PUBLISHED = 1;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexState state = new IndexState();
+
+    /**
+     * 重建期间发生变更的内容ID，重建完成后重新索引
+     */
+    private Set<Long> pendingIds;
+
+    /**
+     * 搜索内容（按相关度降序分页）
+     */
+    public IPage<Content> search(String keyword, String contentType, long current, long size) {
+        return search(keyword, contentType, current, size, null);
+    }
+
+    /**
+     * 搜索内容，并把全部命中的内容ID写入matchedIds（为空时不收集）
+     * 页码小于1按第1页、每页数量小于1按1处理
+     */
+    public IPage<Content> search(String keyword, String contentType, long current, long size,
+                                 CompressedBitmap matchedIds) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(keyword));
+        current = Math.max(current, 1);
+        size = Math.max(size, 1);
+        Page<Content> page = new Page<>(current, size);
+
+        lock.readLock().lock();
+        try {
+            IndexState index = state;
+            if (terms.isEmpty() || index.liveCount == 0) {
+                page.setRecords(new ArrayList<>());
+                return page;
+            }
+
+            // 只为倒排列表中出现的文档累加得分，不扫描全部文档
+            Map<Integer, Float> scores = new HashMap<>();
+            double avgLength = (double) index.totalLength / index.liveCount;
+            for (String term : terms) {
+                PostingList postings = index.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                int df = postings.docCount();
+                double idf = Math.log(1 + (index.liveCount - df + 0.5) / (df + 0.5));
+                postings.forEach((docId, tf) -> {
+                    if (index.documents.get(docId) == null) {
+                        return;
+                    }
+                    double norm = K1 * (1 - B + B * index.docLengths[docId] / avgLength);
+                    scores.merge(docId, (float) (idf * tf * (K1 + 1) / (tf + norm)), Float::sum);
+                });
+            }
+
+            List<Integer> matched = new ArrayList<>(scores.size());
+            for (Integer docId : scores.keySet()) {
+                if (contentType == null || contentType.equals(index.documents.get(docId).getContentType())) {
+                    matched.add(docId);
+                    if (matchedIds != null) {
+                        matchedIds.add(index.documents.get(docId).getId().intValue());
+                    }
+                }
+            }
+            // 得分相同时先索引的文档在前
+            matched.sort((a, b) -> {
+                int compare = Float.compare(scores.get(b), scores.get(a));
+                return compare != 0 ? compare : Integer.compare(a, b);
+            });
+
+            int from = (int) Math.min((current - 1) * size, matched.size());
+            int to = (int) Math.min(from + size, matched.size());
+            List<Content> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                records.add(index.documents.get(matched.get(i)));
+            }
+            page.setTotal(matched.size());
+            page.setRecords(records);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 重新索引内容，在事务中调用时延迟到提交后执行
+     */
+    public void reindex(Long contentId) {
+        if (contentId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindexNow(contentId);
+                    broadcast(contentId);
+                }
+            });
+        } else {
+            reindexNow(contentId);
+            broadcast(contentId);
+        }
+    }
+
+    /**
+     * 在本节点后台全量重建，并通知其他节点重建（批量导入后调用）
+     */
+    public void rebuildAllNodes() {
+        taskExecutor.execute(this::rebuild);
+        broadcast(CacheInvalidationListener.REINDEX_ALL);
+    }
+
+    @Override
+    public String indexName() {
+        return INDEX_NAME;
+    }
+
+    /**
+     * 应用其他节点广播的变更（内容ID），在后台执行
+     */
+    @Override
+    public void applyRemote(String payload) {
+        taskExecutor.execute(CacheInvalidationListener.REINDEX_ALL.equals(payload)
+                ? this::rebuild : () -> reindexNow(Long.valueOf(payload)));
+    }
+
+    /**
+     * 应用就绪后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 定时重建，清理已删除的文档并刷新计数字段
+     */
+    @Scheduled(initialDelayString = "${app.search.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.search.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                return;
+            }
+            pendingIds = new LinkedHashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexState rebuilt = null;
+        long start = System.currentTimeMillis();
+        try {
+            rebuilt = scan();
+        } catch (Exception e) {
+            log.warn("内容搜索索引构建失败，继续使用旧索引: {}", e.getMessage());
+        }
+
+        Set<Long> pending;
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                state = rebuilt;
+            }
+            pending = pendingIds;
+            pendingIds = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (rebuilt != null) {
+            pending.forEach(this::reindexNow);
+            log.info("内容搜索索引构建完成, 文档数: {}, 词数: {}, 耗时: {}ms",
+                    rebuilt.liveCount, rebuilt.postings.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 按ID分批扫描已发布内容
+     */
+    private IndexState scan() {
+        IndexState index = new IndexState();
+        long lastId = 0;
+        while (true) {
+            List<Content> contents = contentMapper.selectList(new QueryWrapper<Content>()
+                    .eq("status", PUBLISHED).gt("id", lastId).orderByAsc("id").last("LIMIT " + SCAN_BATCH_SIZE));
+            if (contents.isEmpty()) {
+                break;
+            }
+            lastId = contents.get(contents.size() - 1).getId();
+
+            List<Long> ids = new ArrayList<>(contents.size());
+            contents.forEach(content -> ids.add(content.getId()));
+            Map<Long, List<String>> tagNames = new HashMap<>();
+            for (Map<String, Object> row : tagMapper.findByContentIds(ids)) {
+                tagNames.computeIfAbsent(((Number) row.get("content_id")).longValue(), id -> new ArrayList<>())
+                        .add((String) row.get("tag_name"));
+            }
+
+            for (Content content : contents) {
+                index.add(content, tagNames.getOrDefault(content.getId(), List.of()));
+            }
+        }
+        return index;
+    }
+
+    private void reindexNow(Long contentId) {
+        Content content;
+        List<String> tagNames = new ArrayList<>();
+        try {
+            content = contentMapper.selectById(contentId);
+            if (content != null) {
+                for (Tag tag : tagMapper.findByContentId(contentId)) {
+                    tagNames.add(tag.getTagName());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("内容索引更新失败, contentId: {}, 错误: {}", contentId, e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pendingIds != null) {
+                pendingIds.add(contentId);
+            }
+            state.remove(contentId);
+            if (content != null && Integer.valueOf(PUBLISHED).equals(content.getStatus())) {
+                state.add(content, tagNames);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void broadcast(Object contentId) {
+        redisUtils.publish(CacheInvalidationListener.CHANNEL, CacheInvalidationListener.reindexMessage(INDEX_NAME, contentId));
+    }
+
+    /**
+     * 索引数据，由读写锁保护
+     */
+    private static class IndexState {
+
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private final List<Content> documents = new ArrayList<>();
+        private final Map<Long, Integer> docIds = new HashMap<>();
+        private int[] docLengths = new int[256];
+        private long totalLength;
+        private int liveCount;
+
+        void add(Content content, List<String> tagNames) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = count(frequencies, content.getTitle(), TITLE_WEIGHT)
+                    + count(frequencies, content.getDescription(), DESCRIPTION_WEIGHT);
+            for (String tagName : tagNames) {
+                length += count(frequencies, tagName, TAG_WEIGHT);
+            }
+
+            // 搜索结果不需要正文，节省内存
+            Content document = new Content();
+            BeanUtils.copyProperties(content, document);
+            document.setContentBody(null);
+
+            int docId = documents.size();
+            documents.add(document);
+            docIds.put(content.getId(), docId);
+            if (docId >= docLengths.length) {
+                docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+            }
+            docLengths[docId] = length;
+            totalLength += length;
+            liveCount++;
+
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new PostingList()).add(docId, tf));
+        }
+
+        void remove(Long contentId) {
+            Integer docId = docIds.remove(contentId);
+            if (docId != null) {
+                documents.set(docId, null);
+                totalLength -= docLengths[docId];
+                liveCount--;
+            }
+        }
+
+        private static int count(Map<String, Integer> frequencies, String text, int weight) {
+            List<String> tokens = TextTokenizer.tokenizeForIndex(text);
+            for (String token : tokens) {
+                frequencies.merge(token, weight, Integer::sum);
+            }
+            return tokens.size() * weight;
+        }
+    }
+}
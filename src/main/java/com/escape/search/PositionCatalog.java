@@ -0,0 +1,551 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.cache.ReplicatedIndex;
+import com.escape.dto.response.FacetedPage;
+import com.escape.dto.response.NearbyPosition;
+import com.escape.entity.Position;
+import com.escape.mapper.PositionMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 点位内存目录
+ * 全部启用点位按 (difficulty, sort_order, id) 排序后以行号存放，地图、英雄、攻防、站点、类型、难度
+ * 各编码为int列并为每个取值建立压缩位图；筛选为位图求交，按行号遍历即为默认排序，
+ * 其他排序使用预先计算的行号排列。命中的行直接引用快照中的点位对象，不逐行复制；
+ * 每张地图的站位和落点坐标另建网格索引（{@link PositionGrid}），支持半径、矩形和最近邻查询
+ *
+ * 目录整体构建后原子替换：启动时、点位变更刷新缓存时（事务提交后，并广播到其他节点）以及定时刷新浏览量排序时；
+ * 首次构建完成前 {@link #isReady()} 为false，调用方回退到SQL
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class PositionCatalog implements ReplicatedIndex {
+
+    /**
+     * 广播消息中的索引名
+     */
+    public static final String INDEX_NAME = "position-catalog";
+
+    public static final String MAP = "map";
+    public static final String HERO = "hero";
+    public static final String SIDE = "side";
+    public static final String SITE = "site";
+    public static final String TYPE = "type";
+    public static final String DIFFICULTY = "difficulty";
+
+    /**
+     * 通用点位（hero_id为空）在英雄维度上的取值
+     */
+    public static final String GENERIC_HERO = "none";
+
+    /**
+     * 结果排序
+     */
+    public enum Order {
+        /** difficulty, sort_order */
+        DIFFICULTY,
+        /** position_type, sort_order */
+        TYPE,
+        /** view_count DESC */
+        VIEW_COUNT
+    }
+
+    /**
+     * 空间查询使用的坐标
+     */
+    public enum Anchor {
+        /** 站位 stand_x, stand_y */
+        STAND,
+        /** 落点 landing_x, landing_y */
+        LANDING
+    }
+
+    private static final int PUBLISHED = 1;
+    private static final long ALL_MAPS = -1L;
+
+    @Autowired
+    private PositionMapper positionMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 查询点位列表
+     *
+     * @param limit 最大数量，小于等于0时不限
+     */
+    public List<Position> list(PositionFilter filter, Order order, int limit) {
+        Snapshot current = snapshot;
+        CompressedBitmap matched = current.match(filter);
+        int size = limit > 0 ? Math.min(limit, matched.cardinality()) : matched.cardinality();
+        List<Position> result = new ArrayList<>(size);
+        current.collect(matched, order, 0, size, result);
+        return result;
+    }
+
+    /**
+     * 分页查询点位，附带各维度分面统计
+     * 页码小于1按第1页、每页数量小于1按1处理
+     */
+    public IPage<Position> page(PositionFilter filter, Order order, long current, long size) {
+        current = Math.max(current, 1);
+        size = Math.max(size, 1);
+        Snapshot catalog = snapshot;
+        CompressedBitmap matched = catalog.match(filter);
+        int total = matched.cardinality();
+        // 先比较页码再相乘，超大页码不会溢出
+        int offset = current - 1 > total / size ? total : (int) ((current - 1) * size);
+        int count = (int) Math.min(size, total - offset);
+        List<Position> records = new ArrayList<>(count);
+        catalog.collect(matched, order, offset, count, records);
+
+        Page<Position> page = new Page<>(current, size, total);
+        page.setRecords(records);
+        return new FacetedPage<>(page, catalog.facets(matched));
+    }
+
+    /**
+     * 查询坐标在圆内的点位，按距离升序
+     *
+     * @param filter 过滤条件，mapId必填
+     * @param limit  最大数量，小于等于0时不限
+     */
+    public List<NearbyPosition> withinRadius(PositionFilter filter, Anchor anchor, double x, double y,
+                                             double radius, int limit) {
+        Snapshot current = snapshot;
+        PositionGrid grid = current.grid(anchor, filter.getMapId());
+        if (grid == null) {
+            return new ArrayList<>();
+        }
+        CompressedBitmap matched = current.match(filter);
+        return current.toNearby(grid.withinRadius(x, y, radius, matched::contains, limit));
+    }
+
+    /**
+     * 查询坐标在矩形内（含边界）的点位，按难度、排序值排序
+     *
+     * @param filter 过滤条件，mapId必填
+     * @param limit  最大数量，小于等于0时不限
+     */
+    public List<Position> inBox(PositionFilter filter, Anchor anchor, double minX, double minY,
+                                double maxX, double maxY, int limit) {
+        Snapshot current = snapshot;
+        PositionGrid grid = current.grid(anchor, filter.getMapId());
+        if (grid == null) {
+            return new ArrayList<>();
+        }
+        CompressedBitmap matched = current.match(filter);
+        int[] hits = grid.inBox(minX, minY, maxX, maxY, matched::contains);
+        int size = limit > 0 ? Math.min(limit, hits.length) : hits.length;
+        List<Position> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(current.rows[hits[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 查询距离最近的k个点位，按距离升序
+     *
+     * @param filter 过滤条件，mapId必填
+     */
+    public List<NearbyPosition> nearest(PositionFilter filter, Anchor anchor, double x, double y, int k) {
+        Snapshot current = snapshot;
+        PositionGrid grid = current.grid(anchor, filter.getMapId());
+        if (grid == null || k <= 0) {
+            return new ArrayList<>();
+        }
+        CompressedBitmap matched = current.match(filter);
+        return current.toNearby(grid.nearest(x, y, k, matched::contains));
+    }
+
+    /**
+     * 启用点位数
+     *
+     * @param mapId 地图ID，为空时统计全部点位
+     */
+    public int count(Long mapId) {
+        Snapshot current = snapshot;
+        return mapId == null ? current.all.cardinality() : current.dimensions.get(MAP).bitmap(mapId).cardinality();
+    }
+
+    /**
+     * 点位是否在目录中（启用）
+     */
+    public boolean contains(long id) {
+        byte[] bits = snapshot.idBits(null);
+        return id >= 0 && id >>> 3 < bits.length && (bits[(int) (id >>> 3)] & (0x80 >>> (id & 7))) != 0;
+    }
+
+    /**
+     * 目录中最大的点位ID，目录为空时返回-1
+     */
+    public long maxId() {
+        return snapshot.maxId;
+    }
+
+    /**
+     * 统计用户已学习的点位数：已学习位图与地图点位位图按字节求交后计数，只统计目录中的（启用）点位
+     *
+     * @param mapId       地图ID，为空时统计全部点位
+     * @param learnedBits 以点位ID为位偏移的位图，布局与Redis SETBIT一致（每字节高位在前）
+     */
+    public int countLearned(Long mapId, byte[] learnedBits) {
+        byte[] positionBits = snapshot.idBits(mapId);
+        int length = Math.min(positionBits.length, learnedBits.length);
+        ByteBuffer positions = ByteBuffer.wrap(positionBits);
+        ByteBuffer learned = ByteBuffer.wrap(learnedBits);
+        int count = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            count += Long.bitCount(positions.getLong(i) & learned.getLong(i));
+        }
+        for (; i < length; i++) {
+            count += Integer.bitCount(positionBits[i] & learnedBits[i] & 0xFF);
+        }
+        return count;
+    }
+
+    /**
+     * 点位数据变更后重建并通知其他节点重建，在事务中调用时延迟到提交后异步执行
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    taskExecutor.execute(PositionCatalog.this::reload);
+                    broadcast();
+                }
+            });
+        } else {
+            taskExecutor.execute(this::reload);
+            broadcast();
+        }
+    }
+
+    @Override
+    public String indexName() {
+        return INDEX_NAME;
+    }
+
+    /**
+     * 应用其他节点广播的点位变更，目录只支持整体重建，在后台执行
+     */
+    @Override
+    public void applyRemote(String payload) {
+        taskExecutor.execute(this::reload);
+    }
+
+    /**
+     * 应用就绪后在后台构建，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::reload);
+    }
+
+    /**
+     * 定时重建，刷新浏览量排序并修正直接改库的数据
+     */
+    @Scheduled(initialDelayString = "${app.position.catalog-refresh-interval-ms:600000}",
+            fixedDelayString = "${app.position.catalog-refresh-interval-ms:600000}")
+    public void reload() {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Position> positions = positionMapper.selectList(new QueryWrapper<Position>()
+                    .eq("status", PUBLISHED));
+            snapshot = new Snapshot(positions);
+            log.info("点位目录构建完成, 点位数: {}, 耗时: {}ms", positions.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("点位目录构建失败，继续使用旧目录: {}", e.getMessage());
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    private void broadcast() {
+        redisUtils.publish(CacheInvalidationListener.CHANNEL,
+                CacheInvalidationListener.reindexMessage(INDEX_NAME, CacheInvalidationListener.REINDEX_ALL));
+    }
+
+    /**
+     * 只读目录快照
+     */
+    private static final class Snapshot {
+
+        private final Position[] rows;
+        private final int[] sortOrder;
+        private final int[] viewCount;
+        private final Map<String, Dimension> dimensions = new LinkedHashMap<>();
+        private final int[] typeOrder;
+        private final int[] viewCountOrder;
+        private final CompressedBitmap all = new CompressedBitmap();
+        private final Map<Long, byte[]> idBits = new ConcurrentHashMap<>();
+        private final Map<Long, PositionGrid> standGrids;
+        private final Map<Long, PositionGrid> landingGrids;
+        private final long maxId;
+
+        Snapshot(List<Position> positions) {
+            rows = positions.stream()
+                    .sorted(Comparator.comparing(Position::getDifficulty, Comparator.nullsFirst(Comparator.naturalOrder()))
+                            .thenComparing(Position::getSortOrder, Comparator.nullsFirst(Comparator.naturalOrder()))
+                            .thenComparing(Position::getId))
+                    .toArray(Position[]::new);
+            int n = rows.length;
+            maxId = Arrays.stream(rows).mapToLong(Position::getId).max().orElse(-1);
+            sortOrder = new int[n];
+            viewCount = new int[n];
+            for (int row = 0; row < n; row++) {
+                sortOrder[row] = rows[row].getSortOrder() == null ? Integer.MIN_VALUE : rows[row].getSortOrder();
+                viewCount[row] = rows[row].getViewCount() == null ? Integer.MIN_VALUE : rows[row].getViewCount();
+                all.add(row);
+            }
+
+            dimensions.put(MAP, new Dimension(rows, Position::getMapId));
+            dimensions.put(HERO, new Dimension(rows, p -> p.getHeroId() == null ? GENERIC_HERO : p.getHeroId()));
+            dimensions.put(SIDE, new Dimension(rows, Position::getSide));
+            dimensions.put(SITE, new Dimension(rows, Position::getSite));
+            dimensions.put(TYPE, new Dimension(rows, Position::getPositionType));
+            dimensions.put(DIFFICULTY, new Dimension(rows, Position::getDifficulty));
+
+            // 行号已按 difficulty, sort_order 排序，其他排序预先计算排列
+            Dimension type = dimensions.get(TYPE);
+            typeOrder = order(n, Comparator.<Integer, String>comparing(row -> type.value(row),
+                            Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparingInt(row -> sortOrder[row]).thenComparingInt(row -> row));
+            viewCountOrder = order(n, Comparator.<Integer>comparingInt(row -> viewCount[row]).reversed()
+                    .thenComparingInt(row -> row));
+
+            standGrids = grids(Position::getStandX, Position::getStandY);
+            landingGrids = grids(Position::getLandingX, Position::getLandingY);
+        }
+
+        CompressedBitmap match(PositionFilter filter) {
+            List<CompressedBitmap> required = new ArrayList<>();
+            if (filter.getMapId() != null) {
+                required.add(dimensions.get(MAP).bitmap(filter.getMapId()));
+            }
+            if (filter.isGenericOnly()) {
+                required.add(dimensions.get(HERO).bitmap(GENERIC_HERO));
+            } else if (filter.getHeroId() != null) {
+                required.add(dimensions.get(HERO).bitmap(filter.getHeroId()));
+            }
+            if (filter.getSide() != null) {
+                required.add(dimensions.get(SIDE).bitmap(filter.getSide()));
+            }
+            if (filter.getSite() != null) {
+                required.add(dimensions.get(SITE).bitmap(filter.getSite()));
+            }
+            if (filter.getPositionType() != null) {
+                required.add(dimensions.get(TYPE).bitmap(filter.getPositionType()));
+            }
+            if (filter.getDifficulty() != null) {
+                required.add(dimensions.get(DIFFICULTY).bitmap(filter.getDifficulty()));
+            }
+
+            required.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+            CompressedBitmap result = required.isEmpty() ? all : required.get(0);
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result = CompressedBitmap.and(result, required.get(i));
+            }
+            return result;
+        }
+
+        PositionGrid grid(Anchor anchor, Long mapId) {
+            return (anchor == Anchor.STAND ? standGrids : landingGrids).get(mapId);
+        }
+
+        List<NearbyPosition> toNearby(List<PositionGrid.Hit> hits) {
+            List<NearbyPosition> result = new ArrayList<>(hits.size());
+            for (PositionGrid.Hit hit : hits) {
+                result.add(new NearbyPosition(rows[hit.row()], hit.distance()));
+            }
+            return result;
+        }
+
+        /**
+         * 地图（为空时全部）点位的ID位图，按需构建并在快照内缓存；Redis位偏移约定下第 id 位为字节 id/8 的 0x80>>(id%8)
+         */
+        byte[] idBits(Long mapId) {
+            return idBits.computeIfAbsent(mapId == null ? ALL_MAPS : mapId, key -> {
+                CompressedBitmap matched = mapId == null ? all : dimensions.get(MAP).bitmap(mapId);
+                long maxId = -1;
+                int[] matchedRows = matched.toArray();
+                for (int row : matchedRows) {
+                    maxId = Math.max(maxId, rows[row].getId());
+                }
+                byte[] bits = new byte[(int) ((maxId + Byte.SIZE) / Byte.SIZE)];
+                for (int row : matchedRows) {
+                    long id = rows[row].getId();
+                    bits[(int) (id >>> 3)] |= (byte) (0x80 >>> (id & 7));
+                }
+                return bits;
+            });
+        }
+
+        /**
+         * 按排序跳过offset行后收集count行
+         */
+        void collect(CompressedBitmap matched, Order order, int offset, int count, List<Position> out) {
+            if (count <= 0) {
+                return;
+            }
+            int[] skipped = {0};
+            if (order == Order.DIFFICULTY) {
+                matched.forEachWhile(row -> {
+                    if (skipped[0]++ >= offset) {
+                        out.add(rows[row]);
+                    }
+                    return out.size() < count;
+                });
+                return;
+            }
+            int[] permutation = order == Order.TYPE ? typeOrder : viewCountOrder;
+            for (int row : permutation) {
+                if (matched.contains(row) && skipped[0]++ >= offset) {
+                    out.add(rows[row]);
+                    if (out.size() >= count) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<String, Integer>> facets(CompressedBitmap matched) {
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            dimensions.forEach((name, dimension) -> {
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (int code = 0; code < dimension.values.length; code++) {
+                    int count = CompressedBitmap.andCardinality(matched, dimension.bitmaps[code]);
+                    if (count > 0) {
+                        counts.put(dimension.values[code], count);
+                    }
+                }
+                facets.put(name, counts);
+            });
+            return facets;
+        }
+
+        /**
+         * 按地图构建坐标网格，未标注坐标的点位不参与
+         */
+        private Map<Long, PositionGrid> grids(Function<Position, Double> xOf, Function<Position, Double> yOf) {
+            Map<Long, List<Integer>> rowsByMap = new HashMap<>();
+            for (int row = 0; row < rows.length; row++) {
+                if (rows[row].getMapId() != null && xOf.apply(rows[row]) != null && yOf.apply(rows[row]) != null) {
+                    rowsByMap.computeIfAbsent(rows[row].getMapId(), key -> new ArrayList<>()).add(row);
+                }
+            }
+            Map<Long, PositionGrid> grids = new HashMap<>();
+            rowsByMap.forEach((mapId, mapRows) -> {
+                int[] pointRows = new int[mapRows.size()];
+                float[] xs = new float[mapRows.size()];
+                float[] ys = new float[mapRows.size()];
+                for (int i = 0; i < pointRows.length; i++) {
+                    pointRows[i] = mapRows.get(i);
+                    xs[i] = xOf.apply(rows[pointRows[i]]).floatValue();
+                    ys[i] = yOf.apply(rows[pointRows[i]]).floatValue();
+                }
+                grids.put(mapId, new PositionGrid(pointRows, xs, ys));
+            });
+            return grids;
+        }
+
+        private static int[] order(int n, Comparator<Integer> comparator) {
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, comparator);
+            return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * 单个维度：每行的取值编码，以及每个取值的行号位图
+     */
+    private static final class Dimension {
+
+        private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+        private final int[] codes;
+        private final String[] values;
+        private final CompressedBitmap[] bitmaps;
+        private final Map<String, Integer> codeOf = new HashMap<>();
+
+        Dimension(Position[] rows, Function<Position, Object> extractor) {
+            codes = new int[rows.length];
+            List<String> valueList = new ArrayList<>();
+            List<CompressedBitmap> bitmapList = new ArrayList<>();
+            for (int row = 0; row < rows.length; row++) {
+                Object raw = extractor.apply(rows[row]);
+                if (raw == null) {
+                    codes[row] = -1;
+                    continue;
+                }
+                int code = codeOf.computeIfAbsent(String.valueOf(raw), value -> {
+                    valueList.add(value);
+                    bitmapList.add(new CompressedBitmap());
+                    return valueList.size() - 1;
+                });
+                codes[row] = code;
+                bitmapList.get(code).add(row);
+            }
+            values = valueList.toArray(new String[0]);
+            bitmaps = bitmapList.toArray(new CompressedBitmap[0]);
+        }
+
+        CompressedBitmap bitmap(Object value) {
+            Integer code = codeOf.get(String.valueOf(value));
+            return code == null ? EMPTY : bitmaps[code];
+        }
+
+        String value(int row) {
+            return codes[row] < 0 ? null : values[codes[row]];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.escape.search;
+
+import lombok.Data;
+
+/**
+ * 点位过滤条件，为空的条件不参与过滤
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Data
+public class PositionFilter {
+
+    private Long mapId;
+
+    private Long heroId;
+
+    /**
+     * 只查询通用点位（hero_id为空），优先于heroId
+     */
+    private boolean genericOnly;
+
+    private String side;
+
+    private String site;
+
+    private String positionType;
+
+    private Integer difficulty;
+}
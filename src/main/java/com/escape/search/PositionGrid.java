@@ -0,0 +1,182 @@
+package com.escape.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * 单张地图上点位坐标的均匀网格索引
+ * 小地图坐标已归一化到 [0, 1]，按点数选取网格边长使每格平均约 {@link #TARGET_PER_CELL} 个点；
+ * 点按所在格排序后连续存放（格起始下标数组 + 坐标数组），查询只扫描与查询范围相交的格
+ *
+ * 构建后只读，可被多个线程同时查询
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+final class PositionGrid {
+
+    private static final double TARGET_PER_CELL = 4.0;
+    private static final int MAX_SIDE = 1024;
+
+    /**
+     * 查询命中：目录行号与到查询点的距离
+     */
+    record Hit(int row, double distance) {
+    }
+
+    private final int side;
+    private final int[] cellStart;
+    private final int[] rows;
+    private final float[] xs;
+    private final float[] ys;
+
+    /**
+     * @param pointRows 目录行号
+     * @param pointXs   横坐标，与行号一一对应
+     * @param pointYs   纵坐标，与行号一一对应
+     */
+    PositionGrid(int[] pointRows, float[] pointXs, float[] pointYs) {
+        int n = pointRows.length;
+        side = Math.max(1, Math.min(MAX_SIDE, (int) Math.ceil(Math.sqrt(n / TARGET_PER_CELL))));
+        cellStart = new int[side * side + 1];
+        rows = new int[n];
+        xs = new float[n];
+        ys = new float[n];
+
+        // 计数排序：先统计每格点数，再按格写入
+        int[] cells = new int[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = cellOf(pointXs[i], pointYs[i]);
+            cellStart[cells[i] + 1]++;
+        }
+        for (int cell = 0; cell < side * side; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        int[] next = Arrays.copyOf(cellStart, side * side);
+        for (int i = 0; i < n; i++) {
+            int slot = next[cells[i]]++;
+            rows[slot] = pointRows[i];
+            xs[slot] = pointXs[i];
+            ys[slot] = pointYs[i];
+        }
+    }
+
+    /**
+     * 半径查询，按距离升序
+     *
+     * @param accept 行号过滤条件
+     * @param limit  最大数量，小于等于0时不限
+     */
+    List<Hit> withinRadius(double x, double y, double radius, IntPredicate accept, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        double radiusSquared = radius * radius;
+        int minCx = axisCell(x - radius), maxCx = axisCell(x + radius);
+        int minCy = axisCell(y - radius), maxCy = axisCell(y + radius);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                int cell = cy * side + cx;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    double dx = xs[i] - x, dy = ys[i] - y;
+                    double distanceSquared = dx * dx + dy * dy;
+                    if (distanceSquared <= radiusSquared && accept.test(rows[i])) {
+                        hits.add(new Hit(rows[i], Math.sqrt(distanceSquared)));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distance).thenComparingInt(Hit::row));
+        return limit > 0 && hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * 矩形查询（含边界），按行号升序
+     */
+    int[] inBox(double minX, double minY, double maxX, double maxY, IntPredicate accept) {
+        int[] result = new int[16];
+        int size = 0;
+        for (int cy = axisCell(minY); cy <= axisCell(maxY); cy++) {
+            for (int cx = axisCell(minX); cx <= axisCell(maxX); cx++) {
+                int cell = cy * side + cx;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY && accept.test(rows[i])) {
+                        if (size == result.length) {
+                            result = Arrays.copyOf(result, size * 2);
+                        }
+                        result[size++] = rows[i];
+                    }
+                }
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * k近邻查询，按距离升序
+     * 从查询点所在格向外逐圈扫描，已找到k个点且第k近的距离不超过未扫描区域的最近距离时停止
+     */
+    List<Hit> nearest(double x, double y, int k, IntPredicate accept) {
+        Comparator<Hit> byDistance = Comparator.comparingDouble(Hit::distance).thenComparingInt(Hit::row);
+        PriorityQueue<Hit> heap = new PriorityQueue<>(k + 1, byDistance.reversed());
+        int originX = axisCell(x), originY = axisCell(y);
+        double cellSize = 1.0 / side;
+        for (int ring = 0; ring < side; ring++) {
+            for (int cy = originY - ring; cy <= originY + ring; cy++) {
+                if (cy < 0 || cy >= side) {
+                    continue;
+                }
+                boolean edgeRow = cy == originY - ring || cy == originY + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int cx = originX - ring; cx <= originX + ring; cx += step) {
+                    if (cx >= 0 && cx < side) {
+                        scanCell(cy * side + cx, x, y, k, accept, heap);
+                    }
+                }
+            }
+
+            if (heap.size() == k) {
+                // 已扫描区域之外的点到查询点的最小距离；超出网格的一侧没有点
+                double gap = Double.POSITIVE_INFINITY;
+                if (originX - ring > 0) gap = Math.min(gap, x - (originX - ring) * cellSize);
+                if (originX + ring < side - 1) gap = Math.min(gap, (originX + ring + 1) * cellSize - x);
+                if (originY - ring > 0) gap = Math.min(gap, y - (originY - ring) * cellSize);
+                if (originY + ring < side - 1) gap = Math.min(gap, (originY + ring + 1) * cellSize - y);
+                if (heap.peek().distance() <= gap) {
+                    break;
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(byDistance);
+        return hits;
+    }
+
+    private void scanCell(int cell, double x, double y, int k, IntPredicate accept, PriorityQueue<Hit> heap) {
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            double dx = xs[i] - x, dy = ys[i] - y;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (heap.size() == k && distance >= heap.peek().distance()) {
+                continue;
+            }
+            if (accept.test(rows[i])) {
+                heap.offer(new Hit(rows[i], distance));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+        }
+    }
+
+    private int cellOf(double x, double y) {
+        return axisCell(y) * side + axisCell(x);
+    }
+
+    private int axisCell(double value) {
+        return Math.max(0, Math.min(side - 1, (int) (value * side)));
+    }
+}
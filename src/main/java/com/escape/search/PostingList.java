@@ -0,0 +1,77 @@
+package com.escape.search;
+
+import java.util.Arrays;
+
+/**
+ * 倒排列表
+ * 文档编号递增追加，以 (编号差值, 词频) 的变长整数序列存储在字节数组中
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PostingList {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int lastDocId = -1;
+    private int docCount;
+
+    /**
+     * 追加文档，docId必须大于已追加的所有编号
+     */
+    void add(int docId, int termFrequency) {
+        writeVarInt(docId - lastDocId);
+        writeVarInt(termFrequency);
+        lastDocId = docId;
+        docCount++;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    /**
+     * 按文档编号顺序遍历
+     */
+    void forEach(PostingConsumer consumer) {
+        int position = 0;
+        int docId = -1;
+        while (position < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                frequency |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            docId += delta;
+            consumer.accept(docId, frequency);
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int docId, int termFrequency);
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
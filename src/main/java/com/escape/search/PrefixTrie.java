@@ -0,0 +1,136 @@
+package com.escape.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 前缀树（只读）
+ * 每个节点预先保存以该前缀开头的得分最高的前K个条目，查询只需沿前缀走到节点后直接读取；
+ * 构建完成后节点压平为数组：子节点按字符排序存放，查询时二分查找
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PrefixTrie {
+
+    private final int[] childStart;
+    private final char[] childChars;
+    private final int[] childNodes;
+    private final int[] topStart;
+    private final int[] topEntries;
+
+    private PrefixTrie(int[] childStart, char[] childChars, int[] childNodes, int[] topStart, int[] topEntries) {
+        this.childStart = childStart;
+        this.childChars = childChars;
+        this.childNodes = childNodes;
+        this.topStart = topStart;
+        this.topEntries = topEntries;
+    }
+
+    /**
+     * 查询前缀下的条目编号（按得分降序），没有匹配时返回空数组
+     */
+    int[] lookup(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int from = childStart[node];
+            int to = childStart[node + 1];
+            int found = Arrays.binarySearch(childChars, from, to, prefix.charAt(i));
+            if (found < 0) {
+                return new int[0];
+            }
+            node = childNodes[found];
+        }
+        return Arrays.copyOfRange(topEntries, topStart[node], topStart[node + 1]);
+    }
+
+    /**
+     * 构建器，条目必须按得分降序添加
+     */
+    static class Builder {
+
+        private final int topK;
+        private final BuildNode root = new BuildNode();
+        private int nodeCount = 1;
+
+        Builder(int topK) {
+            this.topK = topK;
+        }
+
+        /**
+         * 添加条目的一个检索键
+         */
+        void add(String key, int entry) {
+            BuildNode node = root;
+            offer(node, entry);
+            for (int i = 0; i < key.length(); i++) {
+                BuildNode next = node.children.get(key.charAt(i));
+                if (next == null) {
+                    next = new BuildNode();
+                    node.children.put(key.charAt(i), next);
+                    nodeCount++;
+                }
+                node = next;
+                offer(node, entry);
+            }
+        }
+
+        PrefixTrie build() {
+            // 按广度优先编号，子节点编号连续
+            List<BuildNode> order = new ArrayList<>(nodeCount);
+            Deque<BuildNode> queue = new ArrayDeque<>();
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                BuildNode node = queue.poll();
+                node.index = order.size();
+                order.add(node);
+                queue.addAll(node.children.values());
+            }
+
+            int[] childStart = new int[order.size() + 1];
+            char[] childChars = new char[order.size() - 1];
+            int[] childNodes = new int[order.size() - 1];
+            int[] topStart = new int[order.size() + 1];
+            int topTotal = 0;
+            for (BuildNode node : order) {
+                topTotal += node.top.size();
+            }
+            int[] topEntries = new int[topTotal];
+
+            int child = 0;
+            int top = 0;
+            for (int i = 0; i < order.size(); i++) {
+                BuildNode node = order.get(i);
+                childStart[i] = child;
+                for (var entry : node.children.entrySet()) {
+                    childChars[child] = entry.getKey();
+                    childNodes[child++] = entry.getValue().index;
+                }
+                topStart[i] = top;
+                for (int entry : node.top) {
+                    topEntries[top++] = entry;
+                }
+            }
+            childStart[order.size()] = child;
+            topStart[order.size()] = top;
+            return new PrefixTrie(childStart, childChars, childNodes, topStart, topEntries);
+        }
+
+        private void offer(BuildNode node, int entry) {
+            List<Integer> top = node.top;
+            if (top.size() < topK && (top.isEmpty() || top.get(top.size() - 1) != entry)) {
+                top.add(entry);
+            }
+        }
+    }
+
+    private static class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final List<Integer> top = new ArrayList<>(2);
+        private int index;
+    }
+}
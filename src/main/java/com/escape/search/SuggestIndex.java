@@ -0,0 +1,248 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.escape.entity.GameMap;
+import com.escape.entity.Hero;
+import com.escape.entity.Tag;
+import com.escape.entity.Weapon;
+import com.escape.mapper.GameMapMapper;
+import com.escape.mapper.HeroMapper;
+import com.escape.mapper.TagMapper;
+import com.escape.mapper.WeaponMapper;
+import com.escape.trending.TrendingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 搜索建议索引
+ * 对标签名、英雄名和标识、地图名和标识、武器名和标识建立前缀树，
+ * 标签按热度分、英雄和地图按热度排行分数排序；每个前缀的前K个结果在构建时确定，查询不访问数据库
+ *
+ * 各类数据由对应服务的 refresh*Cache 触发在后台重新加载，其他类型沿用已加载的数据
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class SuggestIndex {
+
+    public static final String TAG = "tag";
+    public static final String HERO = "hero";
+    public static final String MAP = "map";
+    public static final String WEAPON = "weapon";
+
+    private static final List<String> TYPES = List.of(TAG, HERO, MAP, WEAPON);
+    private static final String ALL = "all";
+    private static final int TOP_K = 20;
+    private static final int TRENDING_LIMIT = 1000;
+    private static final int ENABLED = 1;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    private HeroMapper heroMapper;
+
+    @Autowired
+    private GameMapMapper gameMapMapper;
+
+    @Autowired
+    private WeaponMapper weaponMapper;
+
+    @Autowired
+    private TrendingEngine trendingEngine;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private final Map<String, List<Suggestion>> suggestionsByType = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+
+    /**
+     * 获取前缀对应的建议
+     *
+     * @param prefix 输入前缀
+     * @param type 类型，为空时不限
+     * @param limit 数量，最多 TOP_K 个
+     */
+    public List<Map<String, Object>> suggest(String prefix, String type, int limit) {
+        String key = normalize(prefix);
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (key.isEmpty()) {
+            return result;
+        }
+
+        Snapshot current = snapshot;
+        PrefixTrie trie = current.tries.get(type != null ? type : ALL);
+        if (trie == null) {
+            return result;
+        }
+        for (int entry : trie.lookup(key)) {
+            Suggestion suggestion = current.suggestions.get(entry);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("type", suggestion.type);
+            item.put("id", suggestion.id);
+            item.put("name", suggestion.name);
+            result.add(item);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在后台重新加载指定类型并重建前缀树
+     */
+    public void refresh(String type) {
+        taskExecutor.execute(() -> {
+            if (reload(type)) {
+                rebuildTrie();
+            }
+        });
+    }
+
+    /**
+     * 应用就绪后在后台构建，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        taskExecutor.execute(this::rebuildAll);
+    }
+
+    /**
+     * 定时重建，更新热度排序
+     */
+    @Scheduled(initialDelayString = "${app.search.suggest-rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.search.suggest-rebuild-interval-ms:600000}")
+    public void rebuildAll() {
+        boolean changed = false;
+        for (String type : TYPES) {
+            changed |= reload(type);
+        }
+        if (changed) {
+            rebuildTrie();
+        }
+    }
+
+    /**
+     * 从数据库加载一种类型的建议条目
+     */
+    private boolean reload(String type) {
+        try {
+            List<Suggestion> suggestions = new ArrayList<>();
+            switch (type) {
+                case TAG -> {
+                    for (Tag tag : tagMapper.selectList(new QueryWrapper<Tag>().eq("status", ENABLED))) {
+                        int hotScore = tag.getHotScore() != null ? tag.getHotScore() : 0;
+                        suggestions.add(new Suggestion(TAG, tag.getId(), tag.getTagName(), hotScore));
+                    }
+                }
+                case HERO -> {
+                    Map<Long, Double> scores = trendingEngine.topWithScores(TrendingEngine.HERO, TRENDING_LIMIT);
+                    for (Hero hero : heroMapper.selectList(new QueryWrapper<Hero>().eq("status", ENABLED))) {
+                        suggestions.add(new Suggestion(HERO, hero.getId(), hero.getHeroName(),
+                                scores.getOrDefault(hero.getId(), 0.0), hero.getHeroKey()));
+                    }
+                }
+                case MAP -> {
+                    Map<Long, Double> scores = trendingEngine.topWithScores(TrendingEngine.MAP, TRENDING_LIMIT);
+                    for (GameMap map : gameMapMapper.selectList(new QueryWrapper<GameMap>().eq("status", ENABLED))) {
+                        suggestions.add(new Suggestion(MAP, map.getId(), map.getMapName(),
+                                scores.getOrDefault(map.getId(), 0.0), map.getMapKey()));
+                    }
+                }
+                case WEAPON -> {
+                    for (Weapon weapon : weaponMapper.selectList(new QueryWrapper<Weapon>().eq("status", ENABLED))) {
+                        suggestions.add(new Suggestion(WEAPON, weapon.getId(), weapon.getWeaponName(), 0,
+                                weapon.getWeaponKey()));
+                    }
+                }
+                default -> {
+                    return false;
+                }
+            }
+            suggestionsByType.put(type, suggestions);
+            return true;
+        } catch (Exception e) {
+            log.warn("搜索建议加载失败, type: {}, 错误: {}", type, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 合并所有类型的条目，按得分降序插入前缀树
+     */
+    private synchronized void rebuildTrie() {
+        List<Suggestion> all = new ArrayList<>();
+        suggestionsByType.values().forEach(all::addAll);
+        all.sort(Comparator.comparingDouble((Suggestion s) -> s.score).reversed());
+
+        // 全部类型合用一棵，另外每种类型各一棵，按类型查询时不会被其他类型挤出前K
+        Map<String, PrefixTrie.Builder> builders = new HashMap<>();
+        builders.put(ALL, new PrefixTrie.Builder(TOP_K));
+        for (int i = 0; i < all.size(); i++) {
+            Suggestion suggestion = all.get(i);
+            PrefixTrie.Builder typeBuilder = builders.computeIfAbsent(suggestion.type, t -> new PrefixTrie.Builder(TOP_K));
+            for (String key : suggestion.keys) {
+                String normalized = normalize(key);
+                if (!normalized.isEmpty()) {
+                    builders.get(ALL).add(normalized, i);
+                    typeBuilder.add(normalized, i);
+                }
+            }
+        }
+
+        Map<String, PrefixTrie> tries = new HashMap<>();
+        builders.forEach((type, builder) -> tries.put(type, builder.build()));
+        snapshot = new Snapshot(all, tries);
+        log.info("搜索建议索引构建完成, 条目数: {}", all.size());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Suggestion {
+        private final String type;
+        private final Long id;
+        private final String name;
+        private final double score;
+        private final List<String> keys = new ArrayList<>(2);
+
+        Suggestion(String type, Long id, String name, double score, String... aliases) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.score = score;
+            if (name != null) {
+                keys.add(name);
+            }
+            for (String alias : aliases) {
+                if (alias != null && !alias.equalsIgnoreCase(name)) {
+                    keys.add(alias);
+                }
+            }
+        }
+    }
+
+    private record Snapshot(List<Suggestion> suggestions, Map<String, PrefixTrie> tries) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.escape.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 文本分词
+ * 拉丁字母和数字按连续片段切分为单词（转小写），中日韩文字按相邻两字切分为二元词，
+ * 单独出现的一个汉字保留为一元词；其余字符视为分隔符
+ *
+ * 建索引时额外输出每个汉字的一元词，使单字查询（如“烟”）能命中“烟雾弹”；
+ * 查询时多字片段只使用二元词，保持多字查询的精度
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 查询分词
+     */
+    static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 建索引分词，中日韩文字在二元词之外再输出一元词
+     */
+    static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    private static List<String> tokenize(String text, boolean unigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                addCjkTokens(text.substring(start, i), unigrams, tokens);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length && isWordChar(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkTokens(String run, boolean unigrams, List<String> tokens) {
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1) {
+            tokens.add(run);
+            return;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+        if (unigrams) {
+            for (int i = 0; i < codePoints.length; i++) {
+                tokens.add(new String(codePoints, i, 1));
+            }
+        }
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) && !isCjk(codePoint);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.escape.entity.Content;
+import com.escape.search.ContentFilter;
 
 import java.util.List;
 import java.util.Map;
@@ -80,7 +81,7 @@ public interface ContentService extends IService<Content> {
      * @param page 分页参数
      * @param keyword 搜索关键词
      * @param contentType 内容类型（可选）
-     * @return 分页结果
+     * @return 分页结果（附带各维度分面统计facets）
      */
     IPage<Content> searchContents(Page<Content> page, String keyword, String contentType);
 
@@ -88,10 +89,18 @@ public interface ContentService extends IService<Content> {
      * 分页查询内容（支持多条件）
      * @param page 分页参数
      * @param params 查询参数
-     * @return 分页结果
+     * @return 分页结果（附带各维度分面统计facets）
      */
     IPage<Content> getContentPage(Page<Content> page, Map<String, Object> params);
 
+    /**
+     * 多标签组合过滤（基于位图索引，按ID倒序分页）
+     * @param page 分页参数
+     * @param filter 过滤条件
+     * @return 分页结果（附带各维度分面统计facets）
+     */
+    IPage<Content> filterContents(Page<Content> page, ContentFilter filter);
+
     /**
      * 增加浏览次数
      * @param contentId 内容ID
@@ -161,7 +170,12 @@ public interface ContentService extends IService<Content> {
     Map<String, Object> batchImportContents(List<Content> contents);
 
     /**
-     * 刷新内容缓存
+     * 使内容缓存失效（递增命名空间代数，旧key随TTL过期），内容写入后调用
+     */
+    void invalidateContentCache();
+
+    /**
+     * 刷新内容缓存，在失效的基础上后台扫描清理全部内容缓存key，供管理端全量刷新
      */
     void refreshContentCache();
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.escape.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.escape.dto.response.NearbyPosition;
 import com.escape.entity.Position;
 
 import java.util.List;
@@ -137,4 +138,46 @@ public interface PositionService extends IService<Position> {
      * @return 学习进度统计
      */
     Map<String, Object> getUserPositionProgress(Long userId, Long mapId);
-}
\ No newline at end of file
+
+    /**
+     * 查询坐标在圆内的点位（按距离升序）
+     * @param mapId 地图ID
+     * @param anchor 坐标类型：stand（站位）/landing（落点）
+     * @param x 圆心横坐标（0~1）
+     * @param y 圆心纵坐标（0~1）
+     * @param radius 半径（0~1）
+     * @param params 过滤参数（heroId, side, positionType, difficulty）
+     * @param limit 最大数量
+     * @return 点位及距离列表
+     */
+    List<NearbyPosition> getPositionsWithinRadius(Long mapId, String anchor, Double x, Double y, Double radius,
+                                                  Map<String, Object> params, Integer limit);
+
+    /**
+     * 查询坐标在矩形内的点位
+     * @param mapId 地图ID
+     * @param anchor 坐标类型：stand（站位）/landing（落点）
+     * @param minX 左边界（0~1）
+     * @param minY 上边界（0~1）
+     * @param maxX 右边界（0~1）
+     * @param maxY 下边界（0~1）
+     * @param params 过滤参数（heroId, side, positionType, difficulty）
+     * @param limit 最大数量
+     * @return 点位列表
+     */
+    List<Position> getPositionsInBox(Long mapId, String anchor, Double minX, Double minY, Double maxX, Double maxY,
+                                     Map<String, Object> params, Integer limit);
+
+    /**
+     * 查询距离最近的k个点位（按距离升序）
+     * @param mapId 地图ID
+     * @param anchor 坐标类型：stand（站位）/landing（落点）
+     * @param x 查询点横坐标（0~1）
+     * @param y 查询点纵坐标（0~1）
+     * @param k 数量
+     * @param params 过滤参数（heroId, side, positionType, difficulty）
+     * @return 点位及距离列表
+     */
+    List<NearbyPosition> getNearestPositions(Long mapId, String anchor, Double x, Double y, Integer k,
+                                             Map<String, Object> params);
+}
@@ -120,7 +120,12 @@ public interface TagService extends IService<Tag> {
     boolean mergeTags(Long sourceTagId, Long targetTagId);
 
     /**
-     * 刷新标签缓存
+     * 使标签缓存失效（递增命名空间代数，旧key随TTL过期），标签写入后调用
+     */
+    void invalidateTagCache();
+
+    /**
+     * 刷新标签缓存，在失效的基础上后台扫描清理全部标签缓存key，供管理端全量刷新
      */
     void refreshTagCache();
 }
\ No newline at end of file
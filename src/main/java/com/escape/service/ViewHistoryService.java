@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.escape.entity.ViewHistory;
+import com.escape.entity.ViewHistoryTargetDaily;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -87,6 +88,15 @@ public interface ViewHistoryService extends IService<ViewHistory> {
      */
     List<Map<String, Object>> getUnfinishedVideos(Long userId);
 
+    /**
+     * 获取观看进度（用于续播）
+     * @param userId 用户ID
+     * @param targetType 目标类型
+     * @param targetId 目标ID
+     * @return 进度百分比，无记录时为0
+     */
+    int getResumeProgress(Long userId, String targetType, Long targetId);
+
     /**
      * 删除指定时间之前的历史记录
      * @param userId 用户ID
@@ -103,6 +113,14 @@ public interface ViewHistoryService extends IService<ViewHistory> {
      */
     int batchDeleteHistory(Long userId, List<Long> historyIds);
 
+    /**
+     * 按目标删除浏览历史（最近浏览列表中的记录不含ID）
+     * @param userId 用户ID
+     * @param targets 目标列表（targetType, targetId）
+     * @return 删除数量
+     */
+    int deleteHistoryByTargets(Long userId, List<ViewHistory> targets);
+
     /**
      * 清空用户的所有浏览历史
      * @param userId 用户ID
@@ -118,6 +136,15 @@ public interface ViewHistoryService extends IService<ViewHistory> {
      */
     int getUniqueViewerCount(String targetType, Long targetId);
 
+    /**
+     * 精确重新统计浏览用户数，并重建基数估算（管理员功能）
+     *
+     * @param targetType 目标类型
+     * @param targetId 目标ID
+     * @return 精确用户数
+     */
+    int recountUniqueViewers(String targetType, Long targetId);
+
     /**
      * 获取今日浏览历史
      * @param userId 用户ID
@@ -140,6 +167,15 @@ public interface ViewHistoryService extends IService<ViewHistory> {
      */
     Map<String, Object> getViewDurationStatistics(Long userId);
 
+    /**
+     * 获取目标每日浏览趋势（来自每日汇总，不含当天）
+     * @param targetType 目标类型
+     * @param targetId 目标ID
+     * @param days 天数
+     * @return 每日汇总列表
+     */
+    List<ViewHistoryTargetDaily> getTargetViewTrend(String targetType, Long targetId, Integer days);
+
     /**
      * 智能推荐（基于浏览历史）
      * @param userId 用户ID
@@ -1,5 +1,6 @@
 package com.escape.service.impl;
 
+import com.escape.cache.IdExistenceFilter;
 import com.escape.dto.request.LoginRequest;
 import com.escape.dto.request.RegisterRequest;
 import com.escape.dto.response.LoginResponse;
@@ -55,6 +56,9 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
     private static final String VERIFICATION_CODE_PREFIX = "verification_code:";
     private static final String USER_SESSION_PREFIX = "user_session:";
     private static final String BLACKLIST_TOKEN_PREFIX = "blacklist_token:";
@@ -168,6 +172,7 @@ public class AuthServiceImpl implements AuthService {
         if (result <= 0) {
             throw new RuntimeException("用户创建失败");
         }
+        idExistenceFilter.register(IdExistenceFilter.USER, user.getId());
 
         // 分配默认角色（普通用户）- 使用UserService
         userService.assignUserRole(user.getId(), "USER");
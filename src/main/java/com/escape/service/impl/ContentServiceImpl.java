@@ -4,19 +4,32 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.bulk.BulkImportEngine;
+import com.escape.bulk.BulkImportSpec;
 import com.escape.common.ResultCode;
+import com.escape.cache.CacheTemplate;
+import com.escape.cache.IdExistenceFilter;
+import com.escape.counter.ViewCountAggregator;
 import com.escape.common.exception.BusinessException;
+import com.escape.dto.response.FacetedPage;
 import com.escape.entity.Content;
 import com.escape.mapper.*;
+import com.escape.recommend.RelatedContentIndex;
+import com.escape.search.CompressedBitmap;
+import com.escape.search.ContentBitmapIndex;
+import com.escape.search.ContentFilter;
+import com.escape.search.ContentSearchIndex;
 import com.escape.service.ContentService;
 import com.escape.service.TagService;
-import com.escape.utils.RedisUtils;
+import com.escape.trending.TrendingEngine;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -57,54 +70,60 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
     private UserMapper userMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
+
+    @Autowired
+    private TrendingEngine trendingEngine;
+
+    @Autowired
+    private ViewCountAggregator viewCountAggregator;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    @Autowired
+    private ContentBitmapIndex contentBitmapIndex;
+
+    @Autowired
+    private RelatedContentIndex relatedContentIndex;
+
+    @Autowired
+    private BulkImportEngine bulkImportEngine;
 
     private static final String CONTENT_CACHE_PREFIX = "content:";
     private static final String HOT_CONTENTS_KEY = "content:hot:";
     private static final String FEATURED_CONTENTS_KEY = "content:featured:";
+    private static final String CONTENT_DETAIL_NAMESPACE = "content:detail:";
     private static final long CACHE_EXPIRE_HOURS = 2;
+    private static final int BULK_REINDEX_LIMIT = 500;
+    private static final int RELATED_FETCH_FACTOR = 3;
+    private static final int HOT_FETCH_FACTOR = 3;
+    private static final long MAX_FILTER_PAGE_SIZE = 100;
+
+    private static final TypeReference<Map<String, Object>> DETAIL_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Content>> CONTENT_LIST_TYPE = new TypeReference<>() {};
 
     @Override
     public Map<String, Object> getContentDetail(Long contentId) {
         if (contentId == null) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "内容ID不能为空");
         }
-
-        // 先从缓存获取
-        String cacheKey = CONTENT_CACHE_PREFIX + "detail:" + contentId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取内容详情: {}", contentId);
-        }
-
-        // 查询内容基本信息
-        Content content = contentMapper.selectById(contentId);
-        if (content == null || content.getDeleted() == 1) {
+        // 过滤不存在的ID，避免穿透到数据库
+        if (!idExistenceFilter.mightExist(IdExistenceFilter.CONTENT, contentId)) {
             throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "内容不存在");
         }
 
+        // 读穿透缓存，未命中时查询数据库
+        String cacheKey = cacheTemplate.namespacedKey(CONTENT_DETAIL_NAMESPACE, contentId);
+        Map<String, Object> result = cacheTemplate.getOrLoadNear(cacheKey, DETAIL_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, () -> loadContentDetail(contentId));
+
         // 增加浏览次数（异步执行）
         incrementViewCount(contentId);
 
-        // 查询关联信息
-        Map<String, Object> result = contentMapper.findContentDetail(contentId);
-        if (result == null) {
-            result = new HashMap<>();
-            result.put("content", content);
-        }
-
-        // 查询标签
-        List<?> tags = tagService.getContentTags(contentId);
-        result.put("tags", tags);
-
-        // 查询作者信息
-        if (content.getAuthorId() != null) {
-            result.put("author", userMapper.selectById(content.getAuthorId()));
-        }
-
-        // 缓存结果
-        redisUtils.set(cacheKey, result.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
         return result;
     }
 
@@ -128,21 +147,11 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
             limit = 10;
         }
 
-        // 缓存键
-        String cacheKey = HOT_CONTENTS_KEY + limit;
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取热门内容");
-        }
-
-        List<Content> hotContents = contentMapper.findHotContents(limit);
-
-        // 缓存30分钟
-        redisUtils.set(cacheKey, hotContents.toString(), 30, TimeUnit.MINUTES);
-
-        return hotContents;
+        // 热度榜单变化较快，缓存5分钟，临近过期时后台刷新
+        String cacheKey = cacheTemplate.namespacedKey(HOT_CONTENTS_KEY, limit);
+        Integer finalLimit = limit;
+        return cacheTemplate.getOrRefresh(cacheKey, CONTENT_LIST_TYPE, 5, TimeUnit.MINUTES,
+                () -> loadHotContents(finalLimit));
     }
 
     @Override
@@ -151,21 +160,11 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
             limit = 10;
         }
 
-        // 缓存键
-        String cacheKey = FEATURED_CONTENTS_KEY + limit;
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取精选内容");
-        }
-
-        List<Content> featuredContents = contentMapper.findFeaturedContents(limit);
-
-        // 缓存1小时
-        redisUtils.set(cacheKey, featuredContents.toString(), 1, TimeUnit.HOURS);
-
-        return featuredContents;
+        // 缓存1小时，临近过期时后台刷新
+        String cacheKey = cacheTemplate.namespacedKey(FEATURED_CONTENTS_KEY, limit);
+        Integer finalLimit = limit;
+        return cacheTemplate.getOrRefresh(cacheKey, CONTENT_LIST_TYPE, 1, TimeUnit.HOURS,
+                () -> contentMapper.findFeaturedContents(finalLimit));
     }
 
     @Override
@@ -197,8 +196,33 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
             limit = 5;
         }
 
-        // 基于标签查找相关内容
-        return contentMapper.findRelatedContentsByTags(contentId, limit);
+        // 读取预计算的相关列表（标签和英雄/地图/武器/点位的MinHash相似度）；
+        // 其他内容的相关列表只在定时重建时修正，多取一些候选，过滤已下线的内容后截取
+        Map<Long, Float> related = relatedContentIndex.related(contentId, limit * RELATED_FETCH_FACTOR);
+        if (related.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Content> contents = contentMapper.selectBatchIds(related.keySet()).stream()
+                .filter(content -> content.getStatus() != null && content.getStatus() == 1)
+                .collect(Collectors.toMap(Content::getId, content -> content));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        int size = limit;
+        related.forEach((relatedId, similarity) -> {
+            Content content = contents.get(relatedId);
+            if (content == null || result.size() >= size) {
+                return;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", content.getId());
+            item.put("title", content.getTitle());
+            item.put("contentType", content.getContentType());
+            item.put("coverImage", content.getCoverImage());
+            item.put("viewCount", content.getViewCount());
+            item.put("similarity", similarity);
+            result.add(item);
+        });
+        return result;
     }
 
     @Override
@@ -207,7 +231,16 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "搜索关键词不能为空");
         }
 
-        return contentMapper.searchContents(page, keyword.trim(), contentType);
+        // 由进程内倒排索引完成搜索，不访问数据库；分面按关键词和类型缓存，未命中时顺带收集命中ID
+        String signature = "search|" + contentType + "|" + keyword.trim().toLowerCase();
+        Map<String, Map<String, Integer>> facets = contentBitmapIndex.cachedFacets(signature);
+        CompressedBitmap matched = facets == null ? new CompressedBitmap() : null;
+        IPage<Content> result = contentSearchIndex.search(keyword.trim(), contentType,
+                page.getCurrent(), page.getSize(), matched);
+        if (facets == null) {
+            facets = contentBitmapIndex.facets(signature, matched);
+        }
+        return new FacetedPage<>(result, facets);
     }
 
     @Override
@@ -252,25 +285,48 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
 
         wrapper.orderByDesc("is_featured", "view_count", "publish_time");
 
-        return contentMapper.selectPage(page, wrapper);
+        IPage<Content> result = contentMapper.selectPage(page, wrapper);
+        return new FacetedPage<>(result, getFacets(toContentFilter(params)));
+    }
+
+    @Override
+    public IPage<Content> filterContents(Page<Content> page, ContentFilter filter) {
+        // 页码至少为1，每页数量限制在 [1, MAX_FILTER_PAGE_SIZE]
+        page.setCurrent(Math.max(page.getCurrent(), 1));
+        page.setSize(Math.min(Math.max(page.getSize(), 1), MAX_FILTER_PAGE_SIZE));
+
+        CompressedBitmap matched = contentBitmapIndex.filter(filter);
+        Map<String, Map<String, Integer>> facets = contentBitmapIndex.cachedFacets(filter.signature());
+        if (facets == null) {
+            facets = contentBitmapIndex.facets(filter.signature(), matched);
+        }
+
+        // 位图按ID升序，从尾部取页实现新内容在前
+        int[] ids = matched.toArray();
+        int from = (int) Math.max(ids.length - (page.getCurrent() - 1) * page.getSize(), 0);
+        int to = (int) Math.max(from - page.getSize(), 0);
+        List<Long> pageIds = new ArrayList<>(from - to);
+        for (int i = from - 1; i >= to; i--) {
+            pageIds.add((long) ids[i]);
+        }
+
+        page.setTotal(ids.length);
+        if (pageIds.isEmpty()) {
+            page.setRecords(new ArrayList<>());
+            return new FacetedPage<>(page, facets);
+        }
+        Map<Long, Content> contents = contentMapper.selectBatchIds(pageIds).stream()
+                .collect(Collectors.toMap(Content::getId, content -> content));
+        page.setRecords(pageIds.stream().map(contents::get).filter(Objects::nonNull).collect(Collectors.toList()));
+        return new FacetedPage<>(page, facets);
     }
 
     @Override
     public boolean incrementViewCount(Long contentId) {
         try {
-            // 使用Redis实现防刷机制
-            String viewKey = "content:view:" + contentId + ":" + getCurrentHour();
-            Long count = redisUtils.increment(viewKey);
-
-            // 设置过期时间为1小时
-            if (count == 1) {
-                redisUtils.expire(viewKey, 1, TimeUnit.HOURS);
-            }
-
-            // 每10次浏览更新一次数据库
-            if (count % 10 == 0) {
-                contentMapper.incrementViewCount(contentId);
-            }
+            // 累加到内存缓冲，由聚合器定时批量写库
+            viewCountAggregator.recordContentView(contentId);
+            trendingEngine.record(TrendingEngine.CONTENT, contentId, TrendingEngine.VIEW_WEIGHT);
 
             return true;
         } catch (Exception e) {
@@ -288,6 +344,9 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
         int result = contentMapper.updateLikeCount(contentId, delta);
 
         if (result > 0) {
+            if (delta > 0) {
+                trendingEngine.record(TrendingEngine.CONTENT, contentId, TrendingEngine.LIKE_WEIGHT * delta);
+            }
             // 清除相关缓存
             clearContentCache(contentId);
         }
@@ -327,14 +386,18 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
         if (result <= 0) {
             throw new BusinessException(ResultCode.DATABASE_ERROR.getCode(), "保存内容失败");
         }
+        idExistenceFilter.register(IdExistenceFilter.CONTENT, content.getId());
 
         // 设置标签
         if (tagIds != null && !tagIds.isEmpty()) {
             tagService.setContentTags(content.getId(), tagIds);
         }
+        contentSearchIndex.reindex(content.getId());
+        contentBitmapIndex.reindex(content.getId());
+        relatedContentIndex.reindex(content.getId());
 
         // 清除缓存
-        refreshContentCache();
+        invalidateContentCache();
 
         return content.getId();
     }
@@ -356,6 +419,9 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
         if (tagIds != null) {
             tagService.setContentTags(content.getId(), tagIds);
         }
+        contentSearchIndex.reindex(content.getId());
+        contentBitmapIndex.reindex(content.getId());
+        relatedContentIndex.reindex(content.getId());
 
         // 清除缓存
         clearContentCache(content.getId());
@@ -386,11 +452,28 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
 
         if (result > 0) {
             clearContentCache(contentId);
+            // 上线加入搜索索引，下线移出
+            contentSearchIndex.reindex(contentId);
+            contentBitmapIndex.reindex(contentId);
+            relatedContentIndex.reindex(contentId);
         }
 
         return result > 0;
     }
 
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed && id instanceof Number) {
+            // 软删除后移出索引
+            Long contentId = ((Number) id).longValue();
+            contentSearchIndex.reindex(contentId);
+            contentBitmapIndex.reindex(contentId);
+            relatedContentIndex.reindex(contentId);
+        }
+        return removed;
+    }
+
     @Override
     public boolean setContentFeatured(Long contentId, Boolean isFeatured) {
         if (contentId == null || isFeatured == null) {
@@ -405,8 +488,8 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
 
         if (result > 0) {
             // 清除精选内容缓存
-            redisUtils.delete(redisUtils.keys(FEATURED_CONTENTS_KEY + "*"));
             clearContentCache(contentId);
+            contentBitmapIndex.reindex(contentId);
         }
 
         return result > 0;
@@ -442,57 +525,118 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> batchImportContents(List<Content> contents) {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int failCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        for (int i = 0; i < contents.size(); i++) {
-            Content content = contents.get(i);
-            try {
-                validateContent(content);
-                contentMapper.insert(content);
-                successCount++;
-            } catch (Exception e) {
-                failCount++;
-                errors.add(String.format("第%d条数据导入失败：%s", i + 1, e.getMessage()));
-                log.error("导入内容失败", e);
+        // 分块提交，不在外层开启事务
+        List<Long> importedIds = new ArrayList<>();
+        Map<String, Object> result = bulkImportEngine.importRows(contents, BulkImportSpec.<Content>of("内容")
+                .validator(this::validateContent)
+                .afterChunk(inserted -> {
+                    List<Long> ids = inserted.stream().map(Content::getId).collect(Collectors.toList());
+                    idExistenceFilter.registerAll(IdExistenceFilter.CONTENT, ids);
+                    importedIds.addAll(ids);
+                }));
+
+        // 少量内容逐条更新索引，大批量导入后在后台整体重建
+        if (importedIds.size() <= BULK_REINDEX_LIMIT) {
+            for (Long id : importedIds) {
+                contentSearchIndex.reindex(id);
+                contentBitmapIndex.reindex(id);
+                relatedContentIndex.reindex(id);
             }
+        } else {
+            contentSearchIndex.rebuildAllNodes();
+            contentBitmapIndex.rebuildAllNodes();
+            relatedContentIndex.rebuildAllNodes();
         }
 
-        result.put("totalCount", contents.size());
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
-        result.put("errors", errors);
-
-        if (successCount > 0) {
-            refreshContentCache();
+        if (!importedIds.isEmpty()) {
+            invalidateContentCache();
         }
 
         return result;
     }
 
     @Override
-    public void refreshContentCache() {
-        log.info("刷新内容缓存");
+    public void invalidateContentCache() {
         // 删除热门内容缓存
-        redisUtils.delete(redisUtils.keys(HOT_CONTENTS_KEY + "*"));
+        cacheTemplate.invalidateNamespace(HOT_CONTENTS_KEY);
         // 删除精选内容缓存
-        redisUtils.delete(redisUtils.keys(FEATURED_CONTENTS_KEY + "*"));
+        cacheTemplate.invalidateNamespace(FEATURED_CONTENTS_KEY);
         // 删除所有内容详情缓存
-        redisUtils.delete(redisUtils.keys(CONTENT_CACHE_PREFIX + "*"));
+        cacheTemplate.invalidateNamespace(CONTENT_DETAIL_NAMESPACE);
+    }
+
+    @Override
+    public void refreshContentCache() {
+        log.info("刷新内容缓存");
+        invalidateContentCache();
+        // 后台清理旧代数遗留的key
+        cacheTemplate.evictByPrefix(CONTENT_CACHE_PREFIX);
+    }
+
+    /**
+     * 加载热门内容：优先按热度排行，排行为空时按浏览量查询
+     */
+    private List<Content> loadHotContents(int limit) {
+        // 多取候选，过滤未发布的内容后仍能凑够数量
+        List<Long> ids = trendingEngine.topIds(TrendingEngine.CONTENT, limit * HOT_FETCH_FACTOR);
+        if (ids.isEmpty()) {
+            return contentMapper.findHotContents(limit);
+        }
+
+        // 按排行顺序返回，过滤未发布的内容
+        Map<Long, Content> contentMap = contentMapper.selectBatchIds(ids).stream()
+                .filter(content -> content.getStatus() != null && content.getStatus() == 1)
+                .collect(Collectors.toMap(Content::getId, content -> content));
+        return ids.stream()
+                .map(contentMap::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 从数据库加载内容详情（包含标签和作者）
+     */
+    private Map<String, Object> loadContentDetail(Long contentId) {
+        if (idExistenceFilter.isKnownMissing(IdExistenceFilter.CONTENT, contentId)) {
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "内容不存在");
+        }
+
+        // 查询内容基本信息
+        Content content = contentMapper.selectById(contentId);
+        if (content == null || content.getDeleted() == 1) {
+            idExistenceFilter.markMissing(IdExistenceFilter.CONTENT, contentId);
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "内容不存在");
+        }
+
+        // 查询关联信息
+        Map<String, Object> result = contentMapper.findContentDetail(contentId);
+        if (result == null) {
+            result = new HashMap<>();
+            result.put("content", content);
+        }
+
+        // 查询标签
+        List<?> tags = tagService.getContentTags(contentId);
+        result.put("tags", tags);
+
+        // 查询作者信息
+        if (content.getAuthorId() != null) {
+            result.put("author", userMapper.selectById(content.getAuthorId()));
+        }
+
+        return result;
     }
 
     /**
      * 清除单个内容的缓存
      */
     private void clearContentCache(Long contentId) {
-        redisUtils.delete(CONTENT_CACHE_PREFIX + "detail:" + contentId);
+        cacheTemplate.evict(cacheTemplate.namespacedKey(CONTENT_DETAIL_NAMESPACE, contentId));
         // 清除热门和精选缓存
-        redisUtils.delete(redisUtils.keys(HOT_CONTENTS_KEY + "*"));
-        redisUtils.delete(redisUtils.keys(FEATURED_CONTENTS_KEY + "*"));
+        cacheTemplate.invalidateNamespace(HOT_CONTENTS_KEY);
+        cacheTemplate.invalidateNamespace(FEATURED_CONTENTS_KEY);
     }
 
     /**
@@ -524,9 +668,35 @@ public class ContentServiceImpl extends ServiceImpl<ContentMapper, Content> impl
     }
 
     /**
-     * 获取当前小时（用于浏览计数）
+     * 获取分面统计，签名未命中时由位图索引计算
+     */
+    private Map<String, Map<String, Integer>> getFacets(ContentFilter filter) {
+        String signature = filter.signature();
+        Map<String, Map<String, Integer>> facets = contentBitmapIndex.cachedFacets(signature);
+        if (facets == null) {
+            facets = contentBitmapIndex.facets(signature, contentBitmapIndex.filter(filter));
+        }
+        return facets;
+    }
+
+    /**
+     * 分页查询参数转换为位图过滤条件
      */
-    private String getCurrentHour() {
-        return String.valueOf(System.currentTimeMillis() / (1000 * 60 * 60));
+    private ContentFilter toContentFilter(Map<String, Object> params) {
+        ContentFilter filter = new ContentFilter();
+        if (params == null) {
+            return filter;
+        }
+        filter.setStatus(params.get("status") != null ? ((Number) params.get("status")).intValue() : null);
+        Object contentType = params.get("contentType");
+        if (contentType != null && StringUtils.hasText(contentType.toString())) {
+            filter.setContentType(contentType.toString());
+        }
+        filter.setIsFeatured(params.get("isFeatured") != null ? ((Number) params.get("isFeatured")).intValue() : null);
+        filter.setIsOfficial(params.get("isOfficial") != null ? ((Number) params.get("isOfficial")).intValue() : null);
+        filter.setAuthorId(params.get("authorId") != null ? ((Number) params.get("authorId")).longValue() : null);
+        filter.setHeroId(params.get("heroId") != null ? ((Number) params.get("heroId")).longValue() : null);
+        filter.setMapId(params.get("mapId") != null ? ((Number) params.get("mapId")).longValue() : null);
+        return filter;
     }
-}
\ No newline at end of file
+}
@@ -5,19 +5,23 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.cache.CacheTemplate;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.entity.Favorite;
 import com.escape.mapper.FavoriteMapper;
 import com.escape.service.ContentService;
 import com.escape.service.FavoriteService;
+import com.escape.trending.TrendingEngine;
 import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,11 +47,19 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
     @Autowired
     private RedisUtils redisUtils;
 
+    @Autowired
+    private CacheTemplate cacheTemplate;
+
+    @Autowired
+    private TrendingEngine trendingEngine;
+
     private static final String FAVORITE_CACHE_PREFIX = "favorite:";
     private static final String HOT_FAVORITES_KEY = "favorite:hot:";
     private static final String DEFAULT_FOLDER = "默认收藏夹";
     private static final long CACHE_EXPIRE_MINUTES = 30;
 
+    private static final TypeReference<List<Map<String, Object>>> HOT_FAVORITES_TYPE = new TypeReference<>() {};
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean addFavorite(Long userId, String targetType, Long targetId, String folderName) {
@@ -73,6 +85,7 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
             if ("content".equals(targetType)) {
                 contentService.updateCollectCount(targetId, 1);
             }
+            trendingEngine.record(targetType, targetId, TrendingEngine.FAVORITE_WEIGHT);
 
             // 清除缓存
             clearUserFavoriteCache(userId);
@@ -120,7 +133,8 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         validateParams(userId, targetType, targetId);
 
         // 构建缓存键
-        String cacheKey = FAVORITE_CACHE_PREFIX + "check:" + userId + ":" + targetType + ":" + targetId;
+        String cacheKey = cacheTemplate.namespacedKey(FAVORITE_CACHE_PREFIX + "check:" + userId + ":",
+                targetType + ":" + targetId);
 
         // 尝试从缓存获取
         String cached = redisUtils.get(cacheKey);
@@ -284,21 +298,11 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
             limit = 10;
         }
 
-        // 缓存键
-        String cacheKey = HOT_FAVORITES_KEY + targetType + ":" + limit;
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取热门收藏");
-        }
-
-        List<Map<String, Object>> hotFavorites = favoriteMapper.findHotTargets(targetType, limit);
-
         // 缓存30分钟
-        redisUtils.set(cacheKey, hotFavorites.toString(), 30, TimeUnit.MINUTES);
-
-        return hotFavorites;
+        String cacheKey = cacheTemplate.namespacedKey(HOT_FAVORITES_KEY, targetType + ":" + limit);
+        Integer finalLimit = limit;
+        return cacheTemplate.getOrLoadLocked(cacheKey, HOT_FAVORITES_TYPE, 30, TimeUnit.MINUTES,
+                () -> loadHotFavorites(targetType, finalLimit));
     }
 
     @Override
@@ -407,6 +411,34 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         return result;
     }
 
+    /**
+     * 加载热门收藏：地图、英雄、内容、点位按热度排行，其余类型按收藏次数统计
+     * 返回字段：target_type、target_id、collect_count（热度排行时按热度排序，收藏次数另行统计）
+     */
+    private List<Map<String, Object>> loadHotFavorites(String targetType, int limit) {
+        Map<Long, Double> trending = trendingEngine.isTracked(targetType)
+                ? trendingEngine.topWithScores(targetType, limit)
+                : Map.of();
+        if (trending.isEmpty()) {
+            return favoriteMapper.findHotTargets(targetType, limit);
+        }
+
+        Map<Long, Object> collectCounts = new HashMap<>();
+        for (Map<String, Object> row : favoriteMapper.countByTargets(targetType, new ArrayList<>(trending.keySet()))) {
+            collectCounts.put(((Number) row.get("target_id")).longValue(), row.get("collect_count"));
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(trending.size());
+        for (Long targetId : trending.keySet()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("target_type", targetType);
+            item.put("target_id", targetId);
+            item.put("collect_count", collectCounts.getOrDefault(targetId, 0L));
+            result.add(item);
+        }
+        return result;
+    }
+
     /**
      * 验证参数
      */
@@ -446,8 +478,8 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
      */
     private void clearUserFavoriteCache(Long userId) {
         // 清除该用户的所有收藏相关缓存
-        redisUtils.delete(redisUtils.keys(FAVORITE_CACHE_PREFIX + "check:" + userId + ":*"));
+        cacheTemplate.invalidateNamespace(FAVORITE_CACHE_PREFIX + "check:" + userId + ":");
         // 清除热门收藏缓存
-        redisUtils.delete(redisUtils.keys(HOT_FAVORITES_KEY + "*"));
+        cacheTemplate.invalidateNamespace(HOT_FAVORITES_KEY);
     }
 }
\ No newline at end of file
@@ -4,13 +4,15 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.cache.CacheTemplate;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.entity.GameMap;
 import com.escape.mapper.GameMapMapper;
 import com.escape.mapper.PositionMapper;
+import com.escape.search.SuggestIndex;
 import com.escape.service.GameMapService;
-import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -40,49 +42,30 @@ public class GameMapServiceImpl extends ServiceImpl<GameMapMapper, GameMap> impl
     private PositionMapper positionMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
 
-    private static final String MAP_CACHE_PREFIX = "map:";
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    private static final String MAP_DETAIL_NAMESPACE = "map:detail:";
     private static final String MAP_LIST_CACHE_KEY = "map:list:enabled";
     private static final String MAP_OPTIONS_CACHE_KEY = "map:options";
     private static final long CACHE_EXPIRE_HOURS = 2;
 
+    private static final TypeReference<Map<String, Object>> DETAIL_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<GameMap>> MAP_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> OPTIONS_TYPE = new TypeReference<>() {};
+
     @Override
     public Map<String, Object> getMapDetail(Long mapId) {
         if (mapId == null) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "地图ID不能为空");
         }
 
-        // 先从缓存获取
-        String cacheKey = MAP_CACHE_PREFIX + "detail:" + mapId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取地图详情: {}", mapId);
-        }
-
-        // 查询地图基本信息
-        GameMap gameMap = gameMapMapper.selectById(mapId);
-        if (gameMap == null || gameMap.getDeleted() == 1) {
-            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "地图不存在");
-        }
-
-        // 查询地图的点位数量统计
-        List<Map<String, Object>> positionStats = positionMapper.countByMap();
-        Integer positionCount = positionStats.stream()
-                .filter(stat -> mapId.equals(((Number) stat.get("map_id")).longValue()))
-                .map(stat -> ((Number) stat.get("count")).intValue())
-                .findFirst()
-                .orElse(0);
-
-        // 组装结果
-        Map<String, Object> result = new HashMap<>();
-        result.put("map", gameMap);
-        result.put("positionCount", positionCount);
-
-        // 缓存结果
-        redisUtils.set(cacheKey, result.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return result;
+        // 读穿透缓存，未命中时查询数据库
+        String cacheKey = cacheTemplate.namespacedKey(MAP_DETAIL_NAMESPACE, mapId);
+        return cacheTemplate.getOrLoadNear(cacheKey, DETAIL_TYPE, CACHE_EXPIRE_HOURS, TimeUnit.HOURS,
+                () -> loadMapDetail(mapId));
     }
 
     @Override
@@ -119,44 +102,14 @@ public class GameMapServiceImpl extends ServiceImpl<GameMapMapper, GameMap> impl
 
     @Override
     public List<GameMap> getAllEnabledMaps() {
-        // 先从缓存获取
-        String cachedData = redisUtils.get(MAP_LIST_CACHE_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取地图列表");
-        }
-
-        List<GameMap> maps = gameMapMapper.findAllEnabled();
-
-        // 缓存结果
-        redisUtils.set(MAP_LIST_CACHE_KEY, maps.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return maps;
+        return cacheTemplate.getOrLoad(MAP_LIST_CACHE_KEY, MAP_LIST_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, gameMapMapper::findAllEnabled);
     }
 
     @Override
     public List<Map<String, Object>> getMapOptions() {
-        // 先从缓存获取
-        String cachedData = redisUtils.get(MAP_OPTIONS_CACHE_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取地图选项");
-        }
-
-        List<GameMap> maps = gameMapMapper.findMapOptions();
-
-        List<Map<String, Object>> options = maps.stream()
-                .map(map -> {
-                    Map<String, Object> option = new HashMap<>();
-                    option.put("id", map.getId());
-                    option.put("mapKey", map.getMapKey());
-                    option.put("mapName", map.getMapName());
-                    return option;
-                })
-                .collect(Collectors.toList());
-
-        // 缓存结果
-        redisUtils.set(MAP_OPTIONS_CACHE_KEY, options.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return options;
+        return cacheTemplate.getOrRefresh(MAP_OPTIONS_CACHE_KEY, OPTIONS_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, this::loadMapOptions);
     }
 
     @Override
@@ -212,7 +165,7 @@ public class GameMapServiceImpl extends ServiceImpl<GameMapMapper, GameMap> impl
 
         if (result > 0) {
             // 清除相关缓存
-            redisUtils.delete(MAP_CACHE_PREFIX + "detail:" + mapId);
+            cacheTemplate.evict(cacheTemplate.namespacedKey(MAP_DETAIL_NAMESPACE, mapId));
             refreshMapCache();
         }
 
@@ -254,11 +207,56 @@ public class GameMapServiceImpl extends ServiceImpl<GameMapMapper, GameMap> impl
     public void refreshMapCache() {
         log.info("刷新地图缓存");
         // 删除列表缓存
-        redisUtils.delete(MAP_LIST_CACHE_KEY);
+        cacheTemplate.evict(MAP_LIST_CACHE_KEY);
         // 删除选项缓存
-        redisUtils.delete(MAP_OPTIONS_CACHE_KEY);
+        cacheTemplate.evict(MAP_OPTIONS_CACHE_KEY);
         // 删除所有地图详情缓存
-        redisUtils.delete(redisUtils.keys(MAP_CACHE_PREFIX + "*"));
+        cacheTemplate.invalidateNamespace(MAP_DETAIL_NAMESPACE);
+        // 后台重建搜索建议
+        suggestIndex.refresh(SuggestIndex.MAP);
+    }
+
+    /**
+     * 从数据库加载地图详情（包含点位数量）
+     */
+    private Map<String, Object> loadMapDetail(Long mapId) {
+        // 查询地图基本信息
+        GameMap gameMap = gameMapMapper.selectById(mapId);
+        if (gameMap == null || gameMap.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "地图不存在");
+        }
+
+        // 查询地图的点位数量统计
+        List<Map<String, Object>> positionStats = positionMapper.countByMap();
+        Integer positionCount = positionStats.stream()
+                .filter(stat -> mapId.equals(((Number) stat.get("map_id")).longValue()))
+                .map(stat -> ((Number) stat.get("count")).intValue())
+                .findFirst()
+                .orElse(0);
+
+        // 组装结果
+        Map<String, Object> result = new HashMap<>();
+        result.put("map", gameMap);
+        result.put("positionCount", positionCount);
+
+        return result;
+    }
+
+    /**
+     * 从数据库加载地图选项
+     */
+    private List<Map<String, Object>> loadMapOptions() {
+        List<GameMap> maps = gameMapMapper.findMapOptions();
+
+        return maps.stream()
+                .map(map -> {
+                    Map<String, Object> option = new HashMap<>();
+                    option.put("id", map.getId());
+                    option.put("mapKey", map.getMapKey());
+                    option.put("mapName", map.getMapName());
+                    return option;
+                })
+                .collect(Collectors.toList());
     }
 
     /**
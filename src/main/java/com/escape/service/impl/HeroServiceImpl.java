@@ -4,14 +4,19 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.bulk.BulkImportEngine;
+import com.escape.bulk.BulkImportSpec;
+import com.escape.cache.CacheTemplate;
+import com.escape.cache.IdExistenceFilter;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.entity.Hero;
 import com.escape.entity.HeroSkill;
 import com.escape.mapper.HeroMapper;
 import com.escape.mapper.HeroSkillMapper;
+import com.escape.search.SuggestIndex;
 import com.escape.service.HeroService;
-import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -41,45 +46,40 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
     private HeroSkillMapper heroSkillMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
 
-    private static final String HERO_CACHE_PREFIX = "hero:";
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @Autowired
+    private BulkImportEngine bulkImportEngine;
+
+    private static final String HERO_DETAIL_NAMESPACE = "hero:detail:";
     private static final String HERO_LIST_CACHE_KEY = "hero:list:enabled";
     private static final String HERO_TYPE_STATS_KEY = "hero:stats:type";
     private static final long CACHE_EXPIRE_HOURS = 2;
 
+    private static final TypeReference<Map<String, Object>> DETAIL_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Hero>> HERO_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Integer>> TYPE_STATS_TYPE = new TypeReference<>() {};
+
     @Override
     public Map<String, Object> getHeroDetail(Long heroId) {
         if (heroId == null) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "英雄ID不能为空");
         }
-
-        // 先从缓存获取
-        String cacheKey = HERO_CACHE_PREFIX + "detail:" + heroId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            // 这里应该反序列化，简化示例直接返回
-            log.debug("从缓存获取英雄详情: {}", heroId);
-        }
-
-        // 查询英雄基本信息
-        Hero hero = heroMapper.selectById(heroId);
-        if (hero == null || hero.getDeleted() == 1) {
+        // 过滤不存在的ID，避免穿透到数据库
+        if (!idExistenceFilter.mightExist(IdExistenceFilter.HERO, heroId)) {
             throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "英雄不存在");
         }
 
-        // 查询英雄技能
-        List<HeroSkill> skills = heroSkillMapper.findByHeroId(heroId);
-
-        // 组装结果
-        Map<String, Object> result = new HashMap<>();
-        result.put("hero", hero);
-        result.put("skills", skills);
-
-        // 缓存结果
-        redisUtils.set(cacheKey, result.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return result;
+        // 读穿透缓存，未命中时查询数据库
+        String cacheKey = cacheTemplate.namespacedKey(HERO_DETAIL_NAMESPACE, heroId);
+        return cacheTemplate.getOrLoadNear(cacheKey, DETAIL_TYPE, CACHE_EXPIRE_HOURS, TimeUnit.HOURS,
+                () -> loadHeroDetail(heroId));
     }
 
     @Override
@@ -116,40 +116,19 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
 
     @Override
     public List<Hero> getAllEnabledHeroes() {
-        // 先从缓存获取
-        String cachedData = redisUtils.get(HERO_LIST_CACHE_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取英雄列表");
-            // 这里应该反序列化，简化示例
-        }
-
-        List<Hero> heroes = heroMapper.findAllEnabled();
-
-        // 缓存结果
-        redisUtils.set(HERO_LIST_CACHE_KEY, heroes.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return heroes;
+        return cacheTemplate.getOrLoad(HERO_LIST_CACHE_KEY, HERO_LIST_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, heroMapper::findAllEnabled);
     }
 
     @Override
     public Map<String, Integer> getHeroTypeStatistics() {
-        // 从缓存获取
-        String cachedData = redisUtils.get(HERO_TYPE_STATS_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取英雄类型统计");
-        }
-
-        List<Map<String, Object>> stats = heroMapper.countByHeroType();
-        Map<String, Integer> result = stats.stream()
-                .collect(Collectors.toMap(
-                        m -> (String) m.get("hero_type"),
-                        m -> ((Number) m.get("count")).intValue()
-                ));
-
-        // 缓存结果
-        redisUtils.set(HERO_TYPE_STATS_KEY, result.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return result;
+        return cacheTemplate.getOrLoad(HERO_TYPE_STATS_KEY, TYPE_STATS_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS,
+                () -> heroMapper.countByHeroType().stream()
+                        .collect(Collectors.toMap(
+                                m -> (String) m.get("hero_type"),
+                                m -> ((Number) m.get("count")).intValue()
+                        )));
     }
 
     @Override
@@ -196,6 +175,7 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
         if (result <= 0) {
             throw new BusinessException(ResultCode.DATABASE_ERROR.getCode(), "保存英雄失败");
         }
+        idExistenceFilter.register(IdExistenceFilter.HERO, hero.getId());
 
         // 保存技能
         if (skills != null && !skills.isEmpty()) {
@@ -226,7 +206,7 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
 
         if (result > 0) {
             // 清除相关缓存
-            redisUtils.delete(HERO_CACHE_PREFIX + "detail:" + heroId);
+            cacheTemplate.evict(cacheTemplate.namespacedKey(HERO_DETAIL_NAMESPACE, heroId));
             refreshHeroCache();
         }
 
@@ -234,38 +214,17 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> batchImportHeroes(List<Hero> heroes) {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int failCount = 0;
-
-        for (Hero hero : heroes) {
-            try {
-                validateHero(hero);
-
-                // 检查是否已存在
-                Hero existHero = heroMapper.findByHeroKey(hero.getHeroKey());
-                if (existHero != null) {
-                    failCount++;
-                    log.warn("英雄已存在，跳过: {}", hero.getHeroKey());
-                    continue;
-                }
-
-                heroMapper.insert(hero);
-                successCount++;
-            } catch (Exception e) {
-                failCount++;
-                log.error("导入英雄失败: {}", hero.getHeroKey(), e);
-            }
-        }
-
-        result.put("totalCount", heroes.size());
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
+        // 已存在的英雄标识一次查出，分块提交
+        Map<String, Object> result = bulkImportEngine.importRows(heroes, BulkImportSpec.<Hero>of("英雄")
+                .validator(this::validateHero)
+                .uniqueKey(Hero::getHeroKey, keys -> heroMapper.selectObjs(new QueryWrapper<Hero>()
+                        .select("hero_key").in("hero_key", keys)))
+                .afterChunk(inserted -> idExistenceFilter.registerAll(IdExistenceFilter.HERO,
+                        inserted.stream().map(Hero::getId).collect(Collectors.toList()))));
 
         // 刷新缓存
-        if (successCount > 0) {
+        if ((int) result.get("successCount") > 0) {
             refreshHeroCache();
         }
 
@@ -293,11 +252,13 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
     public void refreshHeroCache() {
         log.info("刷新英雄缓存");
         // 删除列表缓存
-        redisUtils.delete(HERO_LIST_CACHE_KEY);
+        cacheTemplate.evict(HERO_LIST_CACHE_KEY);
         // 删除统计缓存
-        redisUtils.delete(HERO_TYPE_STATS_KEY);
+        cacheTemplate.evict(HERO_TYPE_STATS_KEY);
         // 删除所有英雄详情缓存
-        redisUtils.delete(redisUtils.keys(HERO_CACHE_PREFIX + "*"));
+        cacheTemplate.invalidateNamespace(HERO_DETAIL_NAMESPACE);
+        // 后台重建搜索建议
+        suggestIndex.refresh(SuggestIndex.HERO);
     }
 
 
@@ -317,6 +278,33 @@ public class HeroServiceImpl extends ServiceImpl<HeroMapper, Hero> implements He
         if (!success) {
             throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "英雄不存在");
         }
+        refreshHeroCache();
+    }
+
+    /**
+     * 从数据库加载英雄详情（包含技能）
+     */
+    private Map<String, Object> loadHeroDetail(Long heroId) {
+        if (idExistenceFilter.isKnownMissing(IdExistenceFilter.HERO, heroId)) {
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "英雄不存在");
+        }
+
+        // 查询英雄基本信息
+        Hero hero = heroMapper.selectById(heroId);
+        if (hero == null || hero.getDeleted() == 1) {
+            idExistenceFilter.markMissing(IdExistenceFilter.HERO, heroId);
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "英雄不存在");
+        }
+
+        // 查询英雄技能
+        List<HeroSkill> skills = heroSkillMapper.findByHeroId(heroId);
+
+        // 组装结果
+        Map<String, Object> result = new HashMap<>();
+        result.put("hero", hero);
+        result.put("skills", skills);
+
+        return result;
     }
 
     /**
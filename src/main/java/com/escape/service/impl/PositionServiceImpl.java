@@ -4,12 +4,22 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.bulk.BulkImportEngine;
+import com.escape.bulk.BulkImportSpec;
+import com.escape.cache.CacheTemplate;
+import com.escape.cache.IdExistenceFilter;
+import com.escape.counter.ViewCountAggregator;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
+import com.escape.dto.response.NearbyPosition;
 import com.escape.entity.*;
+import com.escape.ingest.LearnedPositionBits;
 import com.escape.mapper.*;
+import com.escape.search.PositionCatalog;
+import com.escape.search.PositionFilter;
 import com.escape.service.PositionService;
-import com.escape.utils.RedisUtils;
+import com.escape.trending.TrendingEngine;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -43,12 +53,37 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
     private ViewHistoryMapper viewHistoryMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
 
-    private static final String POSITION_CACHE_PREFIX = "position:";
+    @Autowired
+    private TrendingEngine trendingEngine;
+
+    @Autowired
+    private ViewCountAggregator viewCountAggregator;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private PositionCatalog positionCatalog;
+
+    @Autowired
+    private LearnedPositionBits learnedPositionBits;
+
+    @Autowired
+    private BulkImportEngine bulkImportEngine;
+
+    private static final String POSITION_FILTER_NAMESPACE = "position:filter:";
     private static final String HOT_POSITIONS_KEY = "position:hot:";
     private static final String FILTER_OPTIONS_KEY = "position:filter:options";
     private static final long CACHE_EXPIRE_HOURS = 2;
+    private static final int DEFAULT_SPATIAL_LIMIT = 50;
+    private static final int MAX_SPATIAL_LIMIT = 500;
+    private static final int HOT_FETCH_FACTOR = 3;
+
+    private static final TypeReference<List<Position>> POSITION_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> MAP_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, List<?>>> FILTER_OPTIONS_TYPE = new TypeReference<>() {};
 
     @Override
     public List<Position> filterPositions(Long mapId, Long heroId, String side) {
@@ -64,25 +99,22 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
         }
 
         // 构建缓存键
-        String cacheKey = String.format("%sfilter:%d:%s:%s",
-                POSITION_CACHE_PREFIX, mapId, heroId != null ? heroId : "null", side);
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取筛选结果");
-            // 实际项目中这里需要反序列化
-        }
-
-        // 执行查询
-        List<Position> positions = positionMapper.findByThreeFilter(mapId, heroId, side);
-
-        // 缓存结果
-        if (!positions.isEmpty()) {
-            redisUtils.set(cacheKey, positions.toString(), 1, TimeUnit.HOURS);
-        }
-
-        return positions;
+        String cacheKey = cacheTemplate.namespacedKey(POSITION_FILTER_NAMESPACE,
+                String.format("%d:%s:%s", mapId, heroId != null ? heroId : "null", side));
+
+        // 优先由内存目录直接筛选
+        if (positionCatalog.isReady()) {
+            PositionFilter filter = new PositionFilter();
+            filter.setMapId(mapId);
+            filter.setHeroId(heroId);
+            filter.setGenericOnly(heroId == null);
+            filter.setSide(side);
+            return positionCatalog.list(filter, PositionCatalog.Order.DIFFICULTY, 0);
+        }
+
+        // 读穿透缓存，缓存1小时
+        return cacheTemplate.getOrLoadNear(cacheKey, POSITION_LIST_TYPE, 1, TimeUnit.HOURS,
+                () -> positionMapper.findByThreeFilter(mapId, heroId, side));
     }
 
     @Override
@@ -90,10 +122,16 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
         if (positionId == null) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "点位ID不能为空");
         }
+        // 过滤不存在的ID，避免穿透到数据库
+        if (!idExistenceFilter.mightExist(IdExistenceFilter.POSITION, positionId)
+                || idExistenceFilter.isKnownMissing(IdExistenceFilter.POSITION, positionId)) {
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "点位不存在");
+        }
 
         // 查询点位基本信息
         Position position = positionMapper.selectById(positionId);
         if (position == null || position.getDeleted() == 1) {
+            idExistenceFilter.markMissing(IdExistenceFilter.POSITION, positionId);
             throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "点位不存在");
         }
 
@@ -127,6 +165,13 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "站点不能为空");
         }
 
+        if (positionCatalog.isReady()) {
+            PositionFilter filter = new PositionFilter();
+            filter.setMapId(mapId);
+            filter.setSite(site);
+            return positionCatalog.list(filter, PositionCatalog.Order.TYPE, 0);
+        }
+
         return positionMapper.findByMapAndSite(mapId, site);
     }
 
@@ -136,21 +181,11 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
             limit = 10;
         }
 
-        // 缓存键
-        String cacheKey = HOT_POSITIONS_KEY + limit;
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取热门点位");
-        }
-
-        List<Map<String, Object>> hotPositions = positionMapper.findHotPositions(limit);
-
-        // 缓存30分钟
-        redisUtils.set(cacheKey, hotPositions.toString(), 30, TimeUnit.MINUTES);
-
-        return hotPositions;
+        // 热度榜单变化较快，缓存5分钟
+        String cacheKey = cacheTemplate.namespacedKey(HOT_POSITIONS_KEY, limit);
+        Integer finalLimit = limit;
+        return cacheTemplate.getOrLoadLocked(cacheKey, MAP_LIST_TYPE, 5, TimeUnit.MINUTES,
+                () -> loadHotPositions(finalLimit));
     }
 
     @Override
@@ -189,6 +224,12 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
             limit = 20;
         }
 
+        if (positionCatalog.isReady()) {
+            PositionFilter filter = new PositionFilter();
+            filter.setPositionType(positionType);
+            return positionCatalog.list(filter, PositionCatalog.Order.VIEW_COUNT, limit);
+        }
+
         return positionMapper.findByPositionType(positionType, limit);
     }
 
@@ -198,11 +239,23 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "难度等级必须在1-5之间");
         }
 
+        if (positionCatalog.isReady()) {
+            PositionFilter filter = new PositionFilter();
+            filter.setDifficulty(difficulty);
+            return positionCatalog.list(filter, PositionCatalog.Order.VIEW_COUNT, 0);
+        }
+
         return positionMapper.findByDifficulty(difficulty);
     }
 
     @Override
     public IPage<Position> getPositionPage(Page<Position> page, Map<String, Object> params) {
+        // 内存目录就绪时直接分页并附带分面统计
+        if (positionCatalog.isReady()) {
+            return positionCatalog.page(toPositionFilter(params), PositionCatalog.Order.DIFFICULTY,
+                    page.getCurrent(), page.getSize());
+        }
+
         QueryWrapper<Position> wrapper = new QueryWrapper<>();
         wrapper.eq("deleted", 0).eq("status", 1);
 
@@ -242,19 +295,9 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
     @Override
     public boolean incrementViewCount(Long positionId) {
         try {
-            // 使用Redis实现防刷机制
-            String viewKey = "position:view:" + positionId + ":" + getCurrentHour();
-            Long count = redisUtils.increment(viewKey);
-
-            // 设置过期时间为1小时
-            if (count == 1) {
-                redisUtils.expire(viewKey, 1, TimeUnit.HOURS);
-            }
-
-            // 每10次浏览更新一次数据库
-            if (count % 10 == 0) {
-                positionMapper.incrementViewCount(positionId);
-            }
+            // 累加到内存缓冲，由聚合器定时批量写库
+            viewCountAggregator.recordPositionView(positionId);
+            trendingEngine.record(TrendingEngine.POSITION, positionId, TrendingEngine.VIEW_WEIGHT);
 
             return true;
         } catch (Exception e) {
@@ -309,6 +352,7 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
         int result = positionMapper.insert(position);
 
         if (result > 0) {
+            idExistenceFilter.register(IdExistenceFilter.POSITION, position.getId());
             // 清除相关缓存
             refreshPositionCache();
         }
@@ -340,32 +384,14 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> batchImportPositions(List<Position> positions) {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int failCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        for (int i = 0; i < positions.size(); i++) {
-            Position position = positions.get(i);
-            try {
-                validatePosition(position);
-                positionMapper.insert(position);
-                successCount++;
-            } catch (Exception e) {
-                failCount++;
-                errors.add(String.format("第%d条数据导入失败：%s", i + 1, e.getMessage()));
-                log.error("导入点位失败", e);
-            }
-        }
+        // 分块提交，不在外层开启事务
+        Map<String, Object> result = bulkImportEngine.importRows(positions, BulkImportSpec.<Position>of("点位")
+                .validator(this::validatePosition)
+                .afterChunk(inserted -> idExistenceFilter.registerAll(IdExistenceFilter.POSITION,
+                        inserted.stream().map(Position::getId).collect(Collectors.toList()))));
 
-        result.put("totalCount", positions.size());
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
-        result.put("errors", errors);
-
-        if (successCount > 0) {
+        if ((int) result.get("successCount") > 0) {
             refreshPositionCache();
         }
 
@@ -374,12 +400,149 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
 
     @Override
     public Map<String, List<?>> getFilterOptions() {
-        // 从缓存获取
-        String cachedData = redisUtils.get(FILTER_OPTIONS_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取筛选选项");
+        return cacheTemplate.getOrLoad(FILTER_OPTIONS_KEY, FILTER_OPTIONS_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, this::loadFilterOptions);
+    }
+
+    @Override
+    public void refreshPositionCache() {
+        log.info("刷新点位缓存");
+        // 删除筛选缓存
+        cacheTemplate.invalidateNamespace(POSITION_FILTER_NAMESPACE);
+        // 删除热门点位缓存
+        cacheTemplate.invalidateNamespace(HOT_POSITIONS_KEY);
+        // 删除筛选选项缓存
+        cacheTemplate.evict(FILTER_OPTIONS_KEY);
+        // 重建内存目录
+        positionCatalog.reloadAfterCommit();
+    }
+
+    @Override
+    public Map<String, Object> getUserPositionProgress(Long userId, Long mapId) {
+        if (userId == null) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "用户ID不能为空");
+        }
+
+        Map<String, Object> progress = new HashMap<>();
+
+        // 已学习位图与目录中地图点位位图求交计数；目录未就绪或Redis不可用时查询数据库
+        byte[] learnedBits = positionCatalog.isReady() ? learnedPositionBits.bits(userId) : null;
+        if (learnedBits != null) {
+            long totalCount = positionCatalog.count(mapId);
+            long learnedCount = positionCatalog.countLearned(mapId, learnedBits);
+            progress.put("totalCount", totalCount);
+            progress.put("learnedCount", learnedCount);
+            progress.put("progressRate", totalCount > 0 ? (learnedCount * 100.0 / totalCount) : 0.0);
+            progress.put("mapId", mapId);
+            return progress;
+        }
+
+        // 查询总点位数
+        QueryWrapper<Position> totalWrapper = new QueryWrapper<>();
+        totalWrapper.eq("status", 1).eq("deleted", 0);
+        if (mapId != null) {
+            totalWrapper.eq("map_id", mapId);
+        }
+        long totalCount = positionMapper.selectCount(totalWrapper);
+
+        // 查询用户已学习的点位数（通过浏览历史）
+        List<ViewHistory> histories = viewHistoryMapper.findByUserAndType(userId, "position");
+        Set<Long> learnedPositionIds = histories.stream()
+                .map(ViewHistory::getTargetId)
+                .collect(Collectors.toSet());
+
+        // 如果指定了地图，需要过滤
+        if (mapId != null && !learnedPositionIds.isEmpty()) {
+            QueryWrapper<Position> filterWrapper = new QueryWrapper<>();
+            filterWrapper.in("id", learnedPositionIds)
+                    .eq("map_id", mapId);
+            learnedPositionIds = positionMapper.selectList(filterWrapper).stream()
+                    .map(Position::getId)
+                    .collect(Collectors.toSet());
         }
 
+        long learnedCount = learnedPositionIds.size();
+
+        progress.put("totalCount", totalCount);
+        progress.put("learnedCount", learnedCount);
+        progress.put("progressRate", totalCount > 0 ? (learnedCount * 100.0 / totalCount) : 0.0);
+        progress.put("mapId", mapId);
+
+        return progress;
+    }
+
+    @Override
+    public List<NearbyPosition> getPositionsWithinRadius(Long mapId, String anchor, Double x, Double y, Double radius,
+                                                         Map<String, Object> params, Integer limit) {
+        PositionCatalog.Anchor coordinate = parseAnchor(anchor);
+        validateCoordinate(x, "x");
+        validateCoordinate(y, "y");
+        if (radius == null || radius <= 0 || radius > 1) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "半径必须在0到1之间");
+        }
+        PositionFilter filter = toSpatialFilter(mapId, params);
+        int size = spatialLimit(limit);
+
+        if (positionCatalog.isReady()) {
+            return positionCatalog.withinRadius(filter, coordinate, x, y, radius, size);
+        }
+
+        // 目录未就绪时按外接矩形查询数据库，再精确计算距离
+        return selectPositionsWithCoordinates(filter, coordinate, x - radius, y - radius, x + radius, y + radius).stream()
+                .map(position -> new NearbyPosition(position, distanceTo(position, coordinate, x, y)))
+                .filter(nearby -> nearby.getDistance() <= radius)
+                .sorted(Comparator.comparingDouble(NearbyPosition::getDistance))
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Position> getPositionsInBox(Long mapId, String anchor, Double minX, Double minY, Double maxX, Double maxY,
+                                            Map<String, Object> params, Integer limit) {
+        PositionCatalog.Anchor coordinate = parseAnchor(anchor);
+        validateCoordinate(minX, "minX");
+        validateCoordinate(minY, "minY");
+        validateCoordinate(maxX, "maxX");
+        validateCoordinate(maxY, "maxY");
+        if (minX > maxX || minY > maxY) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "矩形范围的最小坐标不能大于最大坐标");
+        }
+        PositionFilter filter = toSpatialFilter(mapId, params);
+        int size = spatialLimit(limit);
+
+        if (positionCatalog.isReady()) {
+            return positionCatalog.inBox(filter, coordinate, minX, minY, maxX, maxY, size);
+        }
+
+        return selectPositionsWithCoordinates(filter, coordinate, minX, minY, maxX, maxY).stream()
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<NearbyPosition> getNearestPositions(Long mapId, String anchor, Double x, Double y, Integer k,
+                                                    Map<String, Object> params) {
+        PositionCatalog.Anchor coordinate = parseAnchor(anchor);
+        validateCoordinate(x, "x");
+        validateCoordinate(y, "y");
+        PositionFilter filter = toSpatialFilter(mapId, params);
+        int size = spatialLimit(k);
+
+        if (positionCatalog.isReady()) {
+            return positionCatalog.nearest(filter, coordinate, x, y, size);
+        }
+
+        return selectPositionsWithCoordinates(filter, coordinate, 0, 0, 1, 1).stream()
+                .map(position -> new NearbyPosition(position, distanceTo(position, coordinate, x, y)))
+                .sorted(Comparator.comparingDouble(NearbyPosition::getDistance))
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 从数据库加载筛选选项
+     */
+    private Map<String, List<?>> loadFilterOptions() {
         Map<String, List<?>> options = new HashMap<>();
 
         // 获取所有启用的地图
@@ -420,63 +583,110 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
         );
         options.put("difficulties", difficulties);
 
-        // 缓存结果
-        redisUtils.set(FILTER_OPTIONS_KEY, options.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
         return options;
     }
 
-    @Override
-    public void refreshPositionCache() {
-        log.info("刷新点位缓存");
-        // 删除筛选缓存
-        redisUtils.delete(redisUtils.keys(POSITION_CACHE_PREFIX + "filter:*"));
-        // 删除热门点位缓存
-        redisUtils.delete(redisUtils.keys(HOT_POSITIONS_KEY + "*"));
-        // 删除筛选选项缓存
-        redisUtils.delete(FILTER_OPTIONS_KEY);
+    /**
+     * 加载热门点位：优先按热度排行，排行为空时按浏览量查询
+     */
+    private List<Map<String, Object>> loadHotPositions(int limit) {
+        // 多取候选，过滤未发布和已删除的点位后仍能凑够数量
+        List<Long> ids = trendingEngine.topIds(TrendingEngine.POSITION, limit * HOT_FETCH_FACTOR);
+        if (ids.isEmpty()) {
+            return positionMapper.findHotPositions(limit);
+        }
+
+        // 按排行顺序返回
+        Map<Long, Map<String, Object>> positionMap = positionMapper.findPositionsWithNamesByIds(ids).stream()
+                .collect(Collectors.toMap(row -> ((Number) row.get("id")).longValue(), row -> row));
+        return ids.stream()
+                .map(positionMap::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .collect(Collectors.toList());
     }
 
-    @Override
-    public Map<String, Object> getUserPositionProgress(Long userId, Long mapId) {
-        if (userId == null) {
-            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "用户ID不能为空");
-        }
-
-        Map<String, Object> progress = new HashMap<>();
+    /**
+     * 分页查询参数转换为目录过滤条件
+     */
+    private PositionFilter toPositionFilter(Map<String, Object> params) {
+        PositionFilter filter = new PositionFilter();
+        if (params == null) {
+            return filter;
+        }
+        filter.setMapId(params.get("mapId") != null ? ((Number) params.get("mapId")).longValue() : null);
+        filter.setHeroId(params.get("heroId") != null ? ((Number) params.get("heroId")).longValue() : null);
+        Object side = params.get("side");
+        if (side != null && StringUtils.hasText(side.toString())) {
+            filter.setSide(side.toString());
+        }
+        Object positionType = params.get("positionType");
+        if (positionType != null && StringUtils.hasText(positionType.toString())) {
+            filter.setPositionType(positionType.toString());
+        }
+        filter.setDifficulty(params.get("difficulty") != null ? ((Number) params.get("difficulty")).intValue() : null);
+        return filter;
+    }
 
-        // 查询总点位数
-        QueryWrapper<Position> totalWrapper = new QueryWrapper<>();
-        totalWrapper.eq("status", 1).eq("deleted", 0);
-        if (mapId != null) {
-            totalWrapper.eq("map_id", mapId);
+    /**
+     * 空间查询的过滤条件，地图必填
+     */
+    private PositionFilter toSpatialFilter(Long mapId, Map<String, Object> params) {
+        if (mapId == null) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "地图ID不能为空");
         }
-        long totalCount = positionMapper.selectCount(totalWrapper);
+        PositionFilter filter = toPositionFilter(params);
+        filter.setMapId(mapId);
+        return filter;
+    }
 
-        // 查询用户已学习的点位数（通过浏览历史）
-        List<ViewHistory> histories = viewHistoryMapper.findByUserAndType(userId, "position");
-        Set<Long> learnedPositionIds = histories.stream()
-                .map(ViewHistory::getTargetId)
-                .collect(Collectors.toSet());
+    private PositionCatalog.Anchor parseAnchor(String anchor) {
+        if (!StringUtils.hasText(anchor) || "landing".equals(anchor)) {
+            return PositionCatalog.Anchor.LANDING;
+        }
+        if ("stand".equals(anchor)) {
+            return PositionCatalog.Anchor.STAND;
+        }
+        throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "坐标类型只能为stand或landing");
+    }
 
-        // 如果指定了地图，需要过滤
-        if (mapId != null && !learnedPositionIds.isEmpty()) {
-            QueryWrapper<Position> filterWrapper = new QueryWrapper<>();
-            filterWrapper.in("id", learnedPositionIds)
-                    .eq("map_id", mapId);
-            learnedPositionIds = positionMapper.selectList(filterWrapper).stream()
-                    .map(Position::getId)
-                    .collect(Collectors.toSet());
+    private void validateCoordinate(Double value, String name) {
+        if (value == null || value < 0 || value > 1) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), name + "坐标必须在0到1之间");
         }
+    }
 
-        long learnedCount = learnedPositionIds.size();
+    private int spatialLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_SPATIAL_LIMIT;
+        }
+        return Math.min(limit, MAX_SPATIAL_LIMIT);
+    }
 
-        progress.put("totalCount", totalCount);
-        progress.put("learnedCount", learnedCount);
-        progress.put("progressRate", totalCount > 0 ? (learnedCount * 100.0 / totalCount) : 0.0);
-        progress.put("mapId", mapId);
+    /**
+     * 目录未就绪时从数据库查询矩形范围内标注了坐标的点位
+     */
+    private List<Position> selectPositionsWithCoordinates(PositionFilter filter, PositionCatalog.Anchor anchor,
+                                                          double minX, double minY, double maxX, double maxY) {
+        boolean stand = anchor == PositionCatalog.Anchor.STAND;
+        QueryWrapper<Position> wrapper = new QueryWrapper<>();
+        wrapper.eq("status", 1)
+                .eq("map_id", filter.getMapId())
+                .between(stand ? "stand_x" : "landing_x", minX, maxX)
+                .between(stand ? "stand_y" : "landing_y", minY, maxY)
+                .eq(filter.getHeroId() != null, "hero_id", filter.getHeroId())
+                .eq(filter.getSide() != null, "side", filter.getSide())
+                .eq(filter.getPositionType() != null, "position_type", filter.getPositionType())
+                .eq(filter.getDifficulty() != null, "difficulty", filter.getDifficulty())
+                .orderByAsc("difficulty", "sort_order", "id");
+        return positionMapper.selectList(wrapper);
+    }
 
-        return progress;
+    private double distanceTo(Position position, PositionCatalog.Anchor anchor, double x, double y) {
+        boolean stand = anchor == PositionCatalog.Anchor.STAND;
+        double dx = (stand ? position.getStandX() : position.getLandingX()) - x;
+        double dy = (stand ? position.getStandY() : position.getLandingY()) - y;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     /**
@@ -519,12 +729,19 @@ public class PositionServiceImpl extends ServiceImpl<PositionMapper, Position> i
         if (!isValidSide(position.getSide())) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "无效的攻防方");
         }
+        validateOptionalPoint(position.getStandX(), position.getStandY(), "站位");
+        validateOptionalPoint(position.getLandingX(), position.getLandingY(), "落点");
     }
 
     /**
-     * 获取当前小时（用于浏览计数）
+     * 坐标可以不标注，标注时横纵坐标都必须在0到1之间
      */
-    private String getCurrentHour() {
-        return String.valueOf(System.currentTimeMillis() / (1000 * 60 * 60));
+    private void validateOptionalPoint(Double x, Double y, String name) {
+        if (x == null && y == null) {
+            return;
+        }
+        if (x == null || y == null || x < 0 || x > 1 || y < 0 || y > 1) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), name + "坐标必须同时填写且在0到1之间");
+        }
     }
 }
\ No newline at end of file
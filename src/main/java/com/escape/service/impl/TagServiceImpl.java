@@ -4,14 +4,21 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.bulk.BulkImportEngine;
+import com.escape.bulk.BulkImportSpec;
+import com.escape.cache.CacheTemplate;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.entity.ContentTag;
 import com.escape.entity.Tag;
 import com.escape.mapper.ContentTagMapper;
 import com.escape.mapper.TagMapper;
+import com.escape.recommend.RelatedContentIndex;
+import com.escape.recommend.TagCooccurrenceMatrix;
+import com.escape.search.ContentBitmapIndex;
+import com.escape.search.SuggestIndex;
 import com.escape.service.TagService;
-import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -39,12 +46,31 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     private ContentTagMapper contentTagMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
+
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @Autowired
+    private ContentBitmapIndex contentBitmapIndex;
+
+    @Autowired
+    private RelatedContentIndex relatedContentIndex;
+
+    @Autowired
+    private TagCooccurrenceMatrix tagCooccurrenceMatrix;
+
+    @Autowired
+    private BulkImportEngine bulkImportEngine;
 
     private static final String TAG_CACHE_PREFIX = "tag:";
     private static final String HOT_TAGS_CACHE_KEY = "tag:hot:";
     private static final String TAG_TYPES_CACHE_KEY = "tag:types";
     private static final long CACHE_EXPIRE_HOURS = 2;
+    private static final int RELATED_FETCH_FACTOR = 3;
+
+    private static final TypeReference<List<Tag>> TAG_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> TAG_TYPES_TYPE = new TypeReference<>() {};
 
     @Override
     public List<Tag> getTagsByType(String tagType) {
@@ -61,19 +87,11 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
             limit = 10;
         }
 
-        // 尝试从缓存获取
-        String cacheKey = HOT_TAGS_CACHE_KEY + limit;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取热门标签");
-        }
-
-        List<Tag> hotTags = tagMapper.findHotTags(limit);
-
-        // 缓存结果
-        redisUtils.set(cacheKey, hotTags.toString(), 30, TimeUnit.MINUTES);
-
-        return hotTags;
+        // 缓存30分钟，临近过期时后台刷新
+        String cacheKey = cacheTemplate.namespacedKey(HOT_TAGS_CACHE_KEY, limit);
+        Integer finalLimit = limit;
+        return cacheTemplate.getOrRefresh(cacheKey, TAG_LIST_TYPE, 30, TimeUnit.MINUTES,
+                () -> tagMapper.findHotTags(finalLimit));
     }
 
     @Override
@@ -132,7 +150,43 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
             limit = 5;
         }
 
-        return tagMapper.findRelatedTags(tagId, limit);
+        // 从共现矩阵按次数降序多取候选，跳过未启用的标签；候选中启用的不够时扩大读取范围
+        List<Map<String, Object>> result = new ArrayList<>();
+        int fetch = limit * RELATED_FETCH_FACTOR;
+        while (true) {
+            Map<Long, Integer> related = tagCooccurrenceMatrix.related(tagId, fetch);
+            if (related.isEmpty()) {
+                return result;
+            }
+            Map<Long, Tag> tags = tagMapper.selectBatchIds(related.keySet()).stream()
+                    .collect(Collectors.toMap(Tag::getId, tag -> tag));
+
+            result.clear();
+            for (Map.Entry<Long, Integer> entry : related.entrySet()) {
+                Tag tag = tags.get(entry.getKey());
+                if (tag == null || !Integer.valueOf(1).equals(tag.getStatus())) {
+                    continue;
+                }
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", tag.getId());
+                item.put("tag_name", tag.getTagName());
+                item.put("tag_type", tag.getTagType());
+                item.put("description", tag.getDescription());
+                item.put("color", tag.getColor());
+                item.put("hot_score", tag.getHotScore());
+                item.put("sort_order", tag.getSortOrder());
+                item.put("status", tag.getStatus());
+                item.put("relate_count", entry.getValue());
+                result.add(item);
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+            if (related.size() < fetch) {
+                return result;
+            }
+            fetch *= 2;
+        }
     }
 
     @Override
@@ -183,7 +237,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
         }
 
         // 清除缓存
-        refreshTagCache();
+        invalidateTagCache();
 
         return true;
     }
@@ -198,55 +252,22 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 
         if (result > 0) {
             // 清除热门标签缓存
-            redisUtils.delete(redisUtils.keys(HOT_TAGS_CACHE_KEY + "*"));
+            cacheTemplate.invalidateNamespace(HOT_TAGS_CACHE_KEY);
         }
 
         return result > 0;
     }
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> batchCreateTags(List<Tag> tags) {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int failCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        for (Tag tag : tags) {
-            try {
-                validateTag(tag);
-
-                // 检查是否已存在
-                QueryWrapper<Tag> wrapper = new QueryWrapper<>();
-                wrapper.eq("tag_name", tag.getTagName());
-                Tag existTag = tagMapper.selectOne(wrapper);
-                if (existTag != null) {
-                    failCount++;
-                    errors.add("标签已存在: " + tag.getTagName());
-                    continue;
-                }
-
-                int insertResult = tagMapper.insert(tag);
-                if (insertResult > 0) {
-                    successCount++;
-                } else {
-                    failCount++;
-                    errors.add("标签插入失败: " + tag.getTagName());
-                }
-            } catch (Exception e) {
-                failCount++;
-                errors.add("标签创建失败: " + tag.getTagName() + ", 原因: " + e.getMessage());
-                log.error("创建标签失败: {}", tag.getTagName(), e);
-            }
-        }
-
-        result.put("totalCount", tags.size());
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
-        result.put("errors", errors);
+        // 已存在的标签名一次查出，分块提交
+        Map<String, Object> result = bulkImportEngine.importRows(tags, BulkImportSpec.<Tag>of("标签")
+                .validator(this::validateTag)
+                .uniqueKey(Tag::getTagName, names -> tagMapper.selectObjs(new QueryWrapper<Tag>()
+                        .select("tag_name").in("tag_name", names))));
 
         // 刷新缓存
-        if (successCount > 0) {
-            refreshTagCache();
+        if ((int) result.get("successCount") > 0) {
+            invalidateTagCache();
         }
 
         return result;
@@ -259,8 +280,15 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "内容ID不能为空");
         }
 
+        List<Long> oldTagIds = contentTagMapper.selectList(new QueryWrapper<ContentTag>()
+                .select("tag_id").eq("content_id", contentId)).stream()
+                .map(ContentTag::getTagId).collect(Collectors.toList());
+
         // 更新内容标签（先删除后插入）
         int result = contentTagMapper.updateContentTags(contentId, tagIds);
+        tagCooccurrenceMatrix.onContentTagsChanged(oldTagIds, tagIds);
+        contentBitmapIndex.reindex(contentId);
+        relatedContentIndex.reindex(contentId);
 
         // 更新标签热度
         if (tagIds != null && !tagIds.isEmpty()) {
@@ -274,24 +302,14 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 
     @Override
     public List<Map<String, Object>> getTagTypes() {
-        // 从缓存获取
-        String cachedData = redisUtils.get(TAG_TYPES_CACHE_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取标签类型");
-        }
-
-        List<Map<String, Object>> types = Arrays.asList(
+        return cacheTemplate.getOrLoad(TAG_TYPES_CACHE_KEY, TAG_TYPES_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, () -> Arrays.asList(
                 Map.of("value", "hero", "label", "英雄相关", "color", "#1890ff"),
                 Map.of("value", "map", "label", "地图相关", "color", "#52c41a"),
                 Map.of("value", "skill", "label", "技能技巧", "color", "#faad14"),
                 Map.of("value", "strategy", "label", "战术策略", "color", "#722ed1"),
                 Map.of("value", "difficulty", "label", "难度等级", "color", "#f5222d")
-        );
-
-        // 缓存结果
-        redisUtils.set(TAG_TYPES_CACHE_KEY, types.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return types;
+        ));
     }
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -328,6 +346,9 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 
         // 删除源标签的所有关联
         contentTagMapper.deleteByTagId(sourceTagId);
+        contentIds.forEach(contentBitmapIndex::reindex);
+        contentIds.forEach(relatedContentIndex::reindex);
+        tagCooccurrenceMatrix.rebuildAfterCommit();
 
         // 更新目标标签的热度
         updateTagHotScore(targetTagId, sourceTag.getHotScore());
@@ -336,21 +357,28 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
         tagMapper.deleteById(sourceTagId);
 
         // 刷新缓存
-        refreshTagCache();
+        invalidateTagCache();
 
         log.info("标签合并成功: {} -> {}", sourceTag.getTagName(), targetTag.getTagName());
         return true;
     }
 
     @Override
-    public void refreshTagCache() {
-        log.info("刷新标签缓存");
+    public void invalidateTagCache() {
         // 删除热门标签缓存
-        redisUtils.delete(redisUtils.keys(HOT_TAGS_CACHE_KEY + "*"));
+        cacheTemplate.invalidateNamespace(HOT_TAGS_CACHE_KEY);
         // 删除标签类型缓存
-        redisUtils.delete(TAG_TYPES_CACHE_KEY);
-        // 删除其他标签相关缓存
-        redisUtils.delete(redisUtils.keys(TAG_CACHE_PREFIX + "*"));
+        cacheTemplate.evict(TAG_TYPES_CACHE_KEY);
+        // 后台重建搜索建议
+        suggestIndex.refresh(SuggestIndex.TAG);
+    }
+
+    @Override
+    public void refreshTagCache() {
+        log.info("刷新标签缓存");
+        invalidateTagCache();
+        // 后台清理其他标签相关缓存
+        cacheTemplate.evictByPrefix(TAG_CACHE_PREFIX);
     }
 
     /**
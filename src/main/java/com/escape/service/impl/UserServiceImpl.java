@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.cache.CacheTemplate;
+import com.escape.cache.IdExistenceFilter;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.dto.response.UserInfoResponse;
@@ -12,6 +14,7 @@ import com.escape.entity.*;
 import com.escape.mapper.*;
 import com.escape.service.UserService;
 import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,6 +59,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private RedisUtils redisUtils;
 
+    @Autowired
+    private CacheTemplate cacheTemplate;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
     // 缓存键前缀
     private static final String USER_CACHE_PREFIX = "user:";
     private static final String USER_PREFERENCES_CACHE_PREFIX = "user:preferences:";
@@ -63,6 +72,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     private static final String USER_SESSION_PREFIX = "user:session:";
     private static final long CACHE_EXPIRE_MINUTES = 30;
 
+    private static final TypeReference<UserInfoResponse> USER_INFO_TYPE = new TypeReference<>() {};
+    private static final TypeReference<UserPreferencesResponse> PREFERENCES_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<String>> ROLES_TYPE = new TypeReference<>() {};
+
     // ==================== 用户基本信息管理 ====================
 
     @Override
@@ -75,28 +88,28 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (userId == -1L) {
             return buildGuestUserInfo();
         }
-
-        // 尝试从缓存获取
-        String cacheKey = USER_CACHE_PREFIX + "info:" + userId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取用户信息: {}", userId);
-            // 实际项目中需要反序列化，这里暂时重新查询
-        }
-
-        // 查询用户基本信息
-        User user = userMapper.selectById(userId);
-        if (user == null || user.getDeleted() == 1) {
+        // 过滤不存在的ID，避免穿透到数据库
+        if (!idExistenceFilter.mightExist(IdExistenceFilter.USER, userId)) {
             throw new BusinessException(ResultCode.USER_NOT_EXISTS);
         }
 
-        // 构建用户信息响应
-        UserInfoResponse userInfo = buildUserInfoResponse(user);
+        // 读穿透缓存，未命中时查询数据库
+        String cacheKey = USER_CACHE_PREFIX + "info:" + userId;
+        return cacheTemplate.getOrLoadNear(cacheKey, USER_INFO_TYPE, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES, () -> {
+            if (idExistenceFilter.isKnownMissing(IdExistenceFilter.USER, userId)) {
+                throw new BusinessException(ResultCode.USER_NOT_EXISTS);
+            }
 
-        // 缓存用户信息
-        redisUtils.set(cacheKey, userInfo.toString(), CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            // 查询用户基本信息
+            User user = userMapper.selectById(userId);
+            if (user == null || user.getDeleted() == 1) {
+                idExistenceFilter.markMissing(IdExistenceFilter.USER, userId);
+                throw new BusinessException(ResultCode.USER_NOT_EXISTS);
+            }
 
-        return userInfo;
+            // 构建用户信息响应
+            return buildUserInfoResponse(user);
+        });
     }
 
     @Override
@@ -241,30 +254,22 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             return buildDefaultPreferences();
         }
 
-        // 尝试从缓存获取
+        // 读穿透缓存，未命中时查询数据库
         String cacheKey = USER_PREFERENCES_CACHE_PREFIX + userId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取用户偏好: {}", userId);
-        }
-
-        // 查询用户偏好
-        UserPreferences preferences = userPreferencesMapper.findByUserId(userId);
-        UserPreferencesResponse response = new UserPreferencesResponse();
+        return cacheTemplate.getOrLoad(cacheKey, PREFERENCES_TYPE, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES, () -> {
+            // 查询用户偏好
+            UserPreferences preferences = userPreferencesMapper.findByUserId(userId);
+            if (preferences == null) {
+                // 返回默认偏好
+                return buildDefaultPreferences();
+            }
 
-        if (preferences != null) {
+            UserPreferencesResponse response = new UserPreferencesResponse();
             BeanUtils.copyProperties(preferences, response);
             response.setNotificationEmail(preferences.getNotificationEmail() == 1);
             response.setAutoPlayVideo(preferences.getAutoPlayVideo() == 1);
-        } else {
-            // 返回默认偏好
-            response = buildDefaultPreferences();
-        }
-
-        // 缓存偏好设置
-        redisUtils.set(cacheKey, response.toString(), CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-
-        return response;
+            return response;
+        });
     }
 
     @Override
@@ -289,8 +294,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
             int result = userPreferencesMapper.updateById(updatePreferences);
             if (result > 0) {
-                // 清除缓存
-                redisUtils.delete(USER_PREFERENCES_CACHE_PREFIX + userId);
+                // 清除缓存（用户信息中也包含偏好）
+                refreshUserCache(userId);
                 log.info("用户偏好更新成功: userId={}", userId);
                 return true;
             }
@@ -306,6 +311,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
             int result = userPreferencesMapper.insert(newPreferences);
             if (result > 0) {
+                // 清除缓存，避免继续返回缓存的默认偏好
+                refreshUserCache(userId);
                 log.info("用户偏好创建成功: userId={}", userId);
                 return true;
             }
@@ -348,22 +355,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             return List.of("GUEST");
         }
 
-        // 尝试从缓存获取
+        // 读穿透缓存，未命中时查询数据库
         String cacheKey = USER_ROLES_CACHE_PREFIX + userId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取用户角色: {}", userId);
-        }
-
-        List<String> roles = userMapper.findRolesByUserId(userId);
-        if (roles.isEmpty()) {
-            roles = List.of("USER"); // 默认角色
-        }
-
-        // 缓存角色信息
-        redisUtils.set(cacheKey, roles.toString(), CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-
-        return roles;
+        return cacheTemplate.getOrLoad(cacheKey, ROLES_TYPE, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES, () -> {
+            List<String> roles = userMapper.findRolesByUserId(userId);
+            if (roles.isEmpty()) {
+                roles = List.of("USER"); // 默认角色
+            }
+            return roles;
+        });
     }
 
     @Override
@@ -394,8 +394,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         int result = userRoleMapper.insert(userRole);
         if (result > 0) {
-            // 清除角色缓存
-            redisUtils.delete(USER_ROLES_CACHE_PREFIX + userId);
+            // 清除角色缓存（用户信息中也包含角色）
+            refreshUserCache(userId);
             log.info("用户角色分配成功: userId={}, roleKey={}", userId, roleKey);
             return true;
         }
@@ -421,8 +421,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         int result = userRoleMapper.delete(query);
         if (result > 0) {
-            // 清除角色缓存
-            redisUtils.delete(USER_ROLES_CACHE_PREFIX + userId);
+            // 清除角色缓存（用户信息中也包含角色）
+            refreshUserCache(userId);
             log.info("用户角色移除成功: userId={}, roleKey={}", userId, roleKey);
         }
         return true;
@@ -585,9 +585,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         log.info("刷新用户缓存: userId={}", userId);
 
         // 删除用户相关的所有缓存
-        redisUtils.delete(USER_CACHE_PREFIX + "info:" + userId);
-        redisUtils.delete(USER_PREFERENCES_CACHE_PREFIX + userId);
-        redisUtils.delete(USER_ROLES_CACHE_PREFIX + userId);
+        cacheTemplate.evict(USER_CACHE_PREFIX + "info:" + userId);
+        cacheTemplate.evict(USER_PREFERENCES_CACHE_PREFIX + userId);
+        cacheTemplate.evict(USER_ROLES_CACHE_PREFIX + userId);
     }
 
     @Override
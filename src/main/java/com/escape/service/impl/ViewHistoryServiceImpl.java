@@ -1,14 +1,29 @@
 package com.escape.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.cache.IdExistenceFilter;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
+import com.escape.entity.Content;
 import com.escape.entity.ViewHistory;
+import com.escape.entity.ViewHistoryTargetDaily;
+import com.escape.entity.ViewHistoryUserDaily;
+import com.escape.entity.ViewHistoryUserSummary;
+import com.escape.ingest.LearnedPositionBits;
+import com.escape.ingest.RecentViewList;
+import com.escape.ingest.ViewEvent;
+import com.escape.ingest.ViewHistoryIngestor;
+import com.escape.ingest.ViewProgressBuffer;
+import com.escape.mapper.ContentMapper;
 import com.escape.mapper.ViewHistoryMapper;
+import com.escape.mapper.ViewHistoryTargetDailyMapper;
+import com.escape.mapper.ViewHistoryUserDailyMapper;
+import com.escape.mapper.ViewHistoryUserSummaryMapper;
+import com.escape.recommend.ItemSimilarityIndex;
 import com.escape.service.ViewHistoryService;
+import com.escape.trending.TrendingEngine;
 import com.escape.utils.RedisUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,9 +34,9 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 浏览历史服务实现类
@@ -39,59 +54,101 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
     @Autowired
     private RedisUtils redisUtils;
 
-    private static final String VIEW_HISTORY_CACHE_PREFIX = "view:history:";
-    private static final String VIEW_COUNT_CACHE_PREFIX = "view:count:";
-    private static final long CACHE_EXPIRE_MINUTES = 30;
+    @Autowired
+    private RecentViewList recentViewList;
+
+    @Autowired
+    private LearnedPositionBits learnedPositionBits;
+
+    @Autowired
+    private TrendingEngine trendingEngine;
+
+    @Autowired
+    private ViewHistoryIngestor viewHistoryIngestor;
+
+    @Autowired
+    private ViewProgressBuffer viewProgressBuffer;
+
+    @Autowired
+    private ContentMapper contentMapper;
+
+    @Autowired
+    private ViewHistoryUserDailyMapper userDailyMapper;
+
+    @Autowired
+    private ViewHistoryTargetDailyMapper targetDailyMapper;
+
+    @Autowired
+    private ViewHistoryUserSummaryMapper userSummaryMapper;
+
+    @Autowired
+    private ItemSimilarityIndex itemSimilarityIndex;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    private static final String VIEWER_HLL_PREFIX = "view:viewers:";
+    private static final String VIEWER_SEEDED_PREFIX = "view:viewers:seeded:";
+    private static final String VIEWER_SEEDING_PREFIX = "view:viewers:seeding:";
+    private static final long VIEWER_EXPIRE_DAYS = 30;
+    private static final long VIEWER_SEEDING_LOCK_SECONDS = 30;
+    private static final int HLL_BATCH_SIZE = 1000;
+    private static final String CONTENT_TYPE = "content";
+    private static final int RECOMMEND_SEED_SIZE = 20;
+    private static final String POSITION_TYPE = "position";
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean recordView(Long userId, String targetType, Long targetId, Integer duration, Integer progress) {
         // 参数验证
         validateParams(userId, targetType, targetId);
 
-        try {
-            // 使用insertOrUpdate，避免重复记录
-            int result = viewHistoryMapper.insertOrUpdate(userId, targetType, targetId,
-                    duration != null ? duration : 0,
-                    progress != null ? progress : 0);
-
-            if (result > 0) {
-                // 清除缓存
-                clearUserHistoryCache(userId);
-                log.debug("记录浏览历史成功: userId={}, targetType={}, targetId={}", userId, targetType, targetId);
-                return true;
-            }
-            return false;
-        } catch (Exception e) {
-            log.error("记录浏览历史失败", e);
-            throw new BusinessException(ResultCode.DATABASE_ERROR.getCode(), "记录浏览历史失败");
-        }
+        // 写库交给异步管道，由后台线程合并后批量插入或更新
+        viewHistoryIngestor.submit(new ViewEvent(userId, targetType, targetId,
+                duration != null ? duration : 0,
+                progress != null ? progress : 0));
+
+        // 更新最近浏览列表
+        recentViewList.record(userId, targetType, targetId,
+                duration != null ? duration : 0,
+                progress != null ? progress : 0);
+        // 浏览点位即视为已学习
+        if (POSITION_TYPE.equals(targetType)) {
+            learnedPositionBits.record(userId, targetId);
+        }
+        // 更新浏览用户数估算
+        redisUtils.pfAdd(VIEWER_HLL_PREFIX + targetType + ":" + targetId, String.valueOf(userId));
+        // 内容和点位的浏览热度在详情接口中记录，这里只记录地图和英雄
+        if (TrendingEngine.MAP.equals(targetType) || TrendingEngine.HERO.equals(targetType)) {
+            trendingEngine.record(targetType, targetId, TrendingEngine.VIEW_WEIGHT);
+        }
+        log.debug("提交浏览记录: userId={}, targetType={}, targetId={}", userId, targetType, targetId);
+        return true;
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean updateViewRecord(Long userId, String targetType, Long targetId, Integer duration, Integer progress) {
         // 参数验证
         validateParams(userId, targetType, targetId);
 
-        // 查找现有记录
-        ViewHistory history = viewHistoryMapper.findByUserAndTarget(userId, targetType, targetId);
-
-        if (history != null) {
-            int result = viewHistoryMapper.updateViewRecord(history.getId(),
-                    duration != null ? duration : 0,
-                    progress != null ? progress : 0);
+        recentViewList.record(userId, targetType, targetId,
+                duration != null ? duration : 0,
+                progress != null ? progress : 0);
+        if (POSITION_TYPE.equals(targetType)) {
+            learnedPositionBits.record(userId, targetId);
+        }
 
-            if (result > 0) {
-                clearUserHistoryCache(userId);
-                return true;
-            }
-        } else {
-            // 如果不存在，创建新记录
-            return recordView(userId, targetType, targetId, duration, progress);
+        // 进度心跳先写入Redis缓冲，定时或播放完成时批量落库
+        if (viewProgressBuffer.record(userId, targetType, targetId,
+                duration != null ? duration : 0,
+                progress != null ? progress : 0)) {
+            return true;
         }
 
-        return false;
+        // Redis不可用时直接提交到写入管道
+        viewHistoryIngestor.submit(new ViewEvent(userId, targetType, targetId,
+                duration != null ? duration : 0,
+                progress != null ? progress : 0));
+        return true;
     }
 
     @Override
@@ -117,21 +174,12 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             limit = 20;
         }
 
-        // 缓存键
-        String cacheKey = VIEW_HISTORY_CACHE_PREFIX + "recent:" + userId + ":" + limit;
-
-        // 尝试从缓存获取
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取最近浏览历史");
+        // 优先读取Redis中的最近浏览列表
+        List<ViewHistory> recent = recentViewList.recent(userId, limit);
+        if (recent != null) {
+            return recent;
         }
-
-        List<ViewHistory> histories = viewHistoryMapper.findRecentHistory(userId, limit);
-
-        // 缓存结果
-        redisUtils.set(cacheKey, histories.toString(), CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-
-        return histories;
+        return viewHistoryMapper.findRecentHistory(userId, limit);
     }
 
     @Override
@@ -166,7 +214,29 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "用户ID不能为空");
         }
 
-        return viewHistoryMapper.statisticsByUser(userId);
+        // 保留期内的记录实时聚合，已归档的记录读取归档汇总
+        Map<String, Map<String, Object>> byType = new LinkedHashMap<>();
+        for (Map<String, Object> row : viewHistoryMapper.statisticsByUser(userId)) {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("target_type", row.get("target_type"));
+            stat.put("count", ((Number) row.get("count")).longValue());
+            stat.put("total_duration", row.get("total_duration") != null
+                    ? ((Number) row.get("total_duration")).longValue() : 0L);
+            byType.put((String) row.get("target_type"), stat);
+        }
+        for (ViewHistoryUserSummary summary : userSummaryMapper.findByUser(userId)) {
+            Map<String, Object> stat = byType.computeIfAbsent(summary.getTargetType(), type -> {
+                Map<String, Object> empty = new HashMap<>();
+                empty.put("target_type", type);
+                empty.put("count", 0L);
+                empty.put("total_duration", 0L);
+                return empty;
+            });
+            stat.put("count", (Long) stat.get("count") + summary.getViewCount());
+            stat.put("total_duration", (Long) stat.get("total_duration") + summary.getTotalDuration());
+        }
+
+        return new ArrayList<>(byType.values());
     }
 
     @Override
@@ -175,7 +245,64 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "用户ID不能为空");
         }
 
-        return viewHistoryMapper.findUnfinishedVideos(userId);
+        List<Map<String, Object>> videos = viewHistoryMapper.findUnfinishedVideos(userId);
+
+        // 以Redis缓冲中尚未落库的最新进度为准
+        Map<Long, Integer> buffered = viewProgressBuffer.getProgressByType(userId, CONTENT_TYPE);
+        if (buffered.isEmpty()) {
+            return videos;
+        }
+
+        Map<Long, Map<String, Object>> byTargetId = new LinkedHashMap<>();
+        for (Map<String, Object> video : videos) {
+            byTargetId.put(((Number) video.get("target_id")).longValue(), video);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : buffered.entrySet()) {
+            Map<String, Object> video = byTargetId.remove(entry.getKey());
+            if (entry.getValue() <= 0 || entry.getValue() >= 100) {
+                continue;
+            }
+            if (video == null) {
+                missingIds.add(entry.getKey());
+                continue;
+            }
+            video.put("progress", entry.getValue());
+            result.add(video);
+        }
+
+        // 尚未落库的新视频，补充内容信息
+        if (!missingIds.isEmpty()) {
+            for (Content content : contentMapper.selectBatchIds(missingIds)) {
+                Map<String, Object> video = new HashMap<>();
+                video.put("user_id", userId);
+                video.put("target_type", CONTENT_TYPE);
+                video.put("target_id", content.getId());
+                video.put("progress", buffered.get(content.getId()));
+                video.put("title", content.getTitle());
+                video.put("video_duration", content.getVideoDuration());
+                result.add(video);
+            }
+        }
+
+        // 缓冲中没有的记录保持数据库中的顺序
+        result.addAll(byTargetId.values());
+        return result;
+    }
+
+    @Override
+    public int getResumeProgress(Long userId, String targetType, Long targetId) {
+        validateParams(userId, targetType, targetId);
+
+        Integer buffered = viewProgressBuffer.getProgress(userId, targetType, targetId);
+        if (buffered != null) {
+            return buffered;
+        }
+
+        ViewHistory history = viewHistoryMapper.findByUserAndTarget(userId, targetType, targetId);
+        return history != null && history.getProgress() != null ? history.getProgress() : 0;
     }
 
     @Override
@@ -185,7 +312,9 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             return 0;
         }
 
-        int result = viewHistoryMapper.deleteOldHistory(userId, beforeTime);
+        // 归档表保留原记录，一并删除，避免合并查询时重新出现
+        int result = viewHistoryMapper.deleteOldHistory(userId, beforeTime)
+                + viewHistoryMapper.deleteOldArchive(userId, beforeTime);
 
         if (result > 0) {
             clearUserHistoryCache(userId);
@@ -202,7 +331,8 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             return 0;
         }
 
-        int result = viewHistoryMapper.batchDelete(userId, historyIds);
+        int result = viewHistoryMapper.batchDelete(userId, historyIds)
+                + viewHistoryMapper.batchDeleteArchive(userId, historyIds);
 
         if (result > 0) {
             clearUserHistoryCache(userId);
@@ -212,6 +342,24 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
         return result;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int deleteHistoryByTargets(Long userId, List<ViewHistory> targets) {
+        if (userId == null || targets == null || targets.isEmpty()) {
+            return 0;
+        }
+
+        int result = viewHistoryMapper.deleteByTargets(userId, targets)
+                + viewHistoryMapper.deleteArchiveByTargets(userId, targets);
+
+        if (result > 0) {
+            clearUserHistoryCache(userId);
+            log.info("按目标删除浏览历史成功: userId={}, count={}", userId, result);
+        }
+
+        return result;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int clearAllHistory(Long userId) {
@@ -219,7 +367,10 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             return 0;
         }
 
-        int result = viewHistoryMapper.clearUserHistory(userId);
+        int result = viewHistoryMapper.clearUserHistory(userId) + viewHistoryMapper.clearUserArchive(userId);
+        viewProgressBuffer.clear(userId);
+        userDailyMapper.deleteByUser(userId);
+        userSummaryMapper.deleteByUser(userId);
 
         if (result > 0) {
             clearUserHistoryCache(userId);
@@ -231,24 +382,50 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
 
     @Override
     public int getUniqueViewerCount(String targetType, Long targetId) {
-        if (!StringUtils.hasText(targetType) || targetId == null) {
+        if (!isValidTargetType(targetType) || targetId == null
+                || !idExistenceFilter.mightExist(targetType, targetId)) {
             return 0;
         }
 
-        // 缓存键
-        String cacheKey = VIEW_COUNT_CACHE_PREFIX + targetType + ":" + targetId;
+        // HyperLogLog估算，误差约0.81%
+        String hllKey = VIEWER_HLL_PREFIX + targetType + ":" + targetId;
+        long estimate = redisUtils.pfCount(hllKey);
+        if (estimate < 0) {
+            // Redis不可用，回退到精确统计
+            return viewHistoryMapper.countUniqueViewers(targetType, targetId);
+        }
+        String seededKey = VIEWER_SEEDED_PREFIX + targetType + ":" + targetId;
+        if (redisUtils.hasKey(seededKey)) {
+            return (int) estimate;
+        }
 
-        // 尝试从缓存获取
-        String cached = redisUtils.get(cacheKey);
-        if (cached != null) {
-            return Integer.parseInt(cached);
+        // 首次查询时把数据库中的浏览用户并入估算：上线后浏览写入的PFADD与回填取并集，重复添加不影响结果；
+        // 无人浏览的目标同样设置标记。同一目标只有抢到锁的请求回填，其余请求先返回当前估算
+        String lockKey = VIEWER_SEEDING_PREFIX + targetType + ":" + targetId;
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtils.setIfAbsent(lockKey, token, VIEWER_SEEDING_LOCK_SECONDS, TimeUnit.SECONDS))) {
+            return (int) estimate;
+        }
+        try {
+            seedViewerEstimate(hllKey, seededKey, targetType, targetId);
+        } finally {
+            redisUtils.deleteIfEquals(lockKey, token);
         }
+        return (int) Math.max(redisUtils.pfCount(hllKey), 0);
+    }
 
-        int count = viewHistoryMapper.countUniqueViewers(targetType, targetId);
+    @Override
+    public int recountUniqueViewers(String targetType, Long targetId) {
+        if (!StringUtils.hasText(targetType) || targetId == null) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "参数不能为空");
+        }
 
-        // 缓存结果
-        redisUtils.set(cacheKey, String.valueOf(count), CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        String hllKey = VIEWER_HLL_PREFIX + targetType + ":" + targetId;
+        redisUtils.delete(hllKey);
+        seedViewerEstimate(hllKey, VIEWER_SEEDED_PREFIX + targetType + ":" + targetId, targetType, targetId);
 
+        int count = viewHistoryMapper.countUniqueViewers(targetType, targetId);
+        log.info("重新统计浏览用户数: targetType={}, targetId={}, count={}", targetType, targetId, count);
         return count;
     }
 
@@ -259,9 +436,13 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
         }
 
         LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        return getHistoryByTimeRange(userId, startOfDay, endOfDay);
+        // 今日浏览未超过最近浏览列表容量时直接从Redis读取
+        List<ViewHistory> today = recentViewList.since(userId, startOfDay);
+        if (today != null) {
+            return today;
+        }
+        return getHistoryByTimeRange(userId, startOfDay, startOfDay.plusDays(1));
     }
 
     @Override
@@ -274,35 +455,40 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             days = 30;
         }
 
-        Map<String, Object> heatmap = new HashMap<>();
-        LocalDateTime endTime = LocalDateTime.now();
-        LocalDateTime startTime = endTime.minusDays(days);
+        LocalDate today = LocalDate.now();
+        long[] dailyCounts = new long[days];
 
-        // 获取时间范围内的浏览历史
-        List<ViewHistory> histories = getHistoryByTimeRange(userId, startTime, endTime);
+        // 历史日期读取每日汇总，固定最多days行
+        if (days > 1) {
+            List<ViewHistoryUserDaily> rollups = userDailyMapper.findByUserAndDateRange(
+                    userId, today.minusDays(days - 1), today.minusDays(1));
+            for (ViewHistoryUserDaily rollup : rollups) {
+                int index = (int) ChronoUnit.DAYS.between(rollup.getViewDate(), today);
+                dailyCounts[index] = rollup.getViewCount();
+            }
+        }
 
-        // 按日期分组统计
-        Map<String, Long> dailyCounts = histories.stream()
-                .collect(Collectors.groupingBy(
-                        h -> h.getUpdateTime().format(DateTimeFormatter.ISO_LOCAL_DATE),
-                        Collectors.counting()
-                ));
+        // 当天尚未汇总，实时统计
+        LocalDateTime startOfDay = today.atStartOfDay();
+        for (Map<String, Object> row : viewHistoryMapper.countDailyByUser(userId, startOfDay, startOfDay.plusDays(1))) {
+            dailyCounts[0] += ((Number) row.get("total")).longValue();
+        }
 
         // 生成完整的日期范围
-        List<Map<String, Object>> data = new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>(days);
+        long totalViews = 0;
         for (int i = 0; i < days; i++) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-
             Map<String, Object> dayData = new HashMap<>();
-            dayData.put("date", dateStr);
-            dayData.put("count", dailyCounts.getOrDefault(dateStr, 0L));
+            dayData.put("date", today.minusDays(i).format(DateTimeFormatter.ISO_LOCAL_DATE));
+            dayData.put("count", dailyCounts[i]);
             data.add(dayData);
+            totalViews += dailyCounts[i];
         }
 
+        Map<String, Object> heatmap = new HashMap<>();
         heatmap.put("data", data);
         heatmap.put("totalDays", days);
-        heatmap.put("totalViews", histories.size());
+        heatmap.put("totalViews", totalViews);
 
         return heatmap;
     }
@@ -313,37 +499,47 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "用户ID不能为空");
         }
 
-        Map<String, Object> statistics = new HashMap<>();
-
-        // 获取用户所有浏览历史
-        QueryWrapper<ViewHistory> wrapper = new QueryWrapper<>();
-        wrapper.eq("user_id", userId);
-        List<ViewHistory> histories = viewHistoryMapper.selectList(wrapper);
-
-        // 统计总时长
-        int totalDuration = histories.stream()
-                .mapToInt(ViewHistory::getViewDuration)
-                .sum();
+        // 按类型聚合在数据库中完成，只返回每种类型一行
+        List<Map<String, Object>> rows = getUserViewStatistics(userId);
 
-        // 按类型统计时长
-        Map<String, Integer> durationByType = histories.stream()
-                .collect(Collectors.groupingBy(
-                        ViewHistory::getTargetType,
-                        Collectors.summingInt(ViewHistory::getViewDuration)
-                ));
+        long totalDuration = 0;
+        long totalCount = 0;
+        Map<String, Long> durationByType = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            long duration = (Long) row.get("total_duration");
+            totalDuration += duration;
+            totalCount += (Long) row.get("count");
+            durationByType.put((String) row.get("target_type"), duration);
+        }
 
         // 计算平均观看时长
-        double avgDuration = histories.isEmpty() ? 0 :
-                (double) totalDuration / histories.size();
+        double avgDuration = totalCount == 0 ? 0 : (double) totalDuration / totalCount;
 
+        Map<String, Object> statistics = new HashMap<>();
         statistics.put("totalDuration", totalDuration);
-        statistics.put("totalCount", histories.size());
+        statistics.put("totalCount", totalCount);
         statistics.put("avgDuration", avgDuration);
         statistics.put("durationByType", durationByType);
 
         return statistics;
     }
 
+    @Override
+    public List<ViewHistoryTargetDaily> getTargetViewTrend(String targetType, Long targetId, Integer days) {
+        if (!StringUtils.hasText(targetType) || targetId == null) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "目标类型和ID不能为空");
+        }
+
+        if (days == null || days <= 0) {
+            days = 30;
+        }
+
+        // 每日汇总不含当天
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        return targetDailyMapper.findByTargetAndDateRange(targetType, targetId,
+                yesterday.minusDays(days - 1), yesterday);
+    }
+
     @Override
     public List<Map<String, Object>> getRecommendations(Long userId, Integer limit) {
         if (userId == null) {
@@ -354,18 +550,14 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
             limit = 10;
         }
 
-        // 获取用户最近的浏览历史
-        List<ViewHistory> recentHistories = getRecentHistory(userId, 50);
-
-        // 统计最常浏览的类型和标签
-        Map<String, Long> typeFrequency = recentHistories.stream()
-                .collect(Collectors.groupingBy(ViewHistory::getTargetType, Collectors.counting()));
-
-        // TODO: 基于浏览历史的智能推荐算法
-        // 这里简化处理，实际项目中应该实现更复杂的推荐算法
-        List<Map<String, Object>> recommendations = new ArrayList<>();
+        // 获取用户最近的浏览历史（已缓存），合并这些物品的相似物品列表
+        List<ViewHistory> recentHistories = getRecentHistory(userId, RECOMMEND_SEED_SIZE);
+        List<Map.Entry<String, Long>> recentItems = new ArrayList<>(recentHistories.size());
+        for (ViewHistory history : recentHistories) {
+            recentItems.add(Map.entry(history.getTargetType(), history.getTargetId()));
+        }
 
-        return recommendations;
+        return itemSimilarityIndex.recommend(recentItems, limit);
     }
 
     /**
@@ -395,11 +587,28 @@ public class ViewHistoryServiceImpl extends ServiceImpl<ViewHistoryMapper, ViewH
                 || "weapon".equals(targetType);
     }
 
+    /**
+     * 把数据库中的浏览用户并入浏览用户数估算，并设置已回填标记
+     * 估算和标记同时过期，过期后下次查询重新从数据库回填
+     */
+    private void seedViewerEstimate(String hllKey, String seededKey, String targetType, Long targetId) {
+        List<Long> viewerIds = viewHistoryMapper.findViewerIds(targetType, targetId);
+        for (int from = 0; from < viewerIds.size(); from += HLL_BATCH_SIZE) {
+            String[] batch = viewerIds.subList(from, Math.min(from + HLL_BATCH_SIZE, viewerIds.size())).stream()
+                    .map(String::valueOf)
+                    .toArray(String[]::new);
+            redisUtils.pfAdd(hllKey, batch);
+        }
+        redisUtils.expire(hllKey, VIEWER_EXPIRE_DAYS, TimeUnit.DAYS);
+        redisUtils.set(seededKey, "1", VIEWER_EXPIRE_DAYS, TimeUnit.DAYS);
+    }
+
     /**
      * 清除用户浏览历史缓存
      */
     private void clearUserHistoryCache(Long userId) {
-        // 清除该用户的所有浏览历史相关缓存
-        redisUtils.delete(redisUtils.keys(VIEW_HISTORY_CACHE_PREFIX + "*:" + userId + ":*"));
+        // 清除该用户的最近浏览列表，下次读取时从数据库回填
+        recentViewList.invalidate(userId);
+        learnedPositionBits.invalidate(userId);
     }
 }
\ No newline at end of file
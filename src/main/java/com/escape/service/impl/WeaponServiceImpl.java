@@ -4,12 +4,17 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.escape.bulk.BulkImportEngine;
+import com.escape.bulk.BulkImportSpec;
+import com.escape.cache.CacheTemplate;
+import com.escape.cache.IdExistenceFilter;
 import com.escape.common.ResultCode;
 import com.escape.common.exception.BusinessException;
 import com.escape.entity.Weapon;
 import com.escape.mapper.WeaponMapper;
+import com.escape.search.SuggestIndex;
 import com.escape.service.WeaponService;
-import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -37,47 +42,40 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
     private WeaponMapper weaponMapper;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private CacheTemplate cacheTemplate;
 
-    private static final String WEAPON_CACHE_PREFIX = "weapon:";
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private SuggestIndex suggestIndex;
+
+    @Autowired
+    private BulkImportEngine bulkImportEngine;
+
+    private static final String WEAPON_DETAIL_NAMESPACE = "weapon:detail:";
     private static final String WEAPON_LIST_CACHE_KEY = "weapon:list:enabled";
     private static final String WEAPON_TYPE_STATS_KEY = "weapon:stats:type";
     private static final long CACHE_EXPIRE_HOURS = 2;
 
+    private static final TypeReference<Map<String, Object>> DETAIL_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Weapon>> WEAPON_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> TYPE_STATS_TYPE = new TypeReference<>() {};
+
     @Override
     public Map<String, Object> getWeaponDetail(Long weaponId) {
         if (weaponId == null) {
             throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "武器ID不能为空");
         }
-
-        // 先从缓存获取
-        String cacheKey = WEAPON_CACHE_PREFIX + "detail:" + weaponId;
-        String cachedData = redisUtils.get(cacheKey);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取武器详情: {}", weaponId);
-        }
-
-        // 查询武器基本信息
-        Weapon weapon = weaponMapper.selectById(weaponId);
-        if (weapon == null || weapon.getDeleted() == 1) {
+        // 过滤不存在的ID，避免穿透到数据库
+        if (!idExistenceFilter.mightExist(IdExistenceFilter.WEAPON, weaponId)) {
             throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "武器不存在");
         }
 
-        // 组装结果
-        Map<String, Object> result = new HashMap<>();
-        result.put("weapon", weapon);
-
-        // 添加伤害统计
-        Map<String, Object> damageStats = new HashMap<>();
-        damageStats.put("head", weapon.getDamageHead());
-        damageStats.put("body", weapon.getDamageBody());
-        damageStats.put("leg", weapon.getDamageLeg());
-        result.put("damageStats", damageStats);
-
-        // 缓存结果
-        redisUtils.set(cacheKey, result.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return result;
+        // 读穿透缓存，未命中时查询数据库
+        String cacheKey = cacheTemplate.namespacedKey(WEAPON_DETAIL_NAMESPACE, weaponId);
+        return cacheTemplate.getOrLoadNear(cacheKey, DETAIL_TYPE, CACHE_EXPIRE_HOURS, TimeUnit.HOURS,
+                () -> loadWeaponDetail(weaponId));
     }
 
     @Override
@@ -132,34 +130,14 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
 
     @Override
     public List<Weapon> getAllEnabledWeapons() {
-        // 先从缓存获取
-        String cachedData = redisUtils.get(WEAPON_LIST_CACHE_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取武器列表");
-        }
-
-        List<Weapon> weapons = weaponMapper.findAllEnabled();
-
-        // 缓存结果
-        redisUtils.set(WEAPON_LIST_CACHE_KEY, weapons.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return weapons;
+        return cacheTemplate.getOrLoad(WEAPON_LIST_CACHE_KEY, WEAPON_LIST_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, weaponMapper::findAllEnabled);
     }
 
     @Override
     public List<Map<String, Object>> getWeaponTypeStatistics() {
-        // 从缓存获取
-        String cachedData = redisUtils.get(WEAPON_TYPE_STATS_KEY);
-        if (StringUtils.hasText(cachedData)) {
-            log.debug("从缓存获取武器类型统计");
-        }
-
-        List<Map<String, Object>> stats = weaponMapper.statisticsByType();
-
-        // 缓存结果
-        redisUtils.set(WEAPON_TYPE_STATS_KEY, stats.toString(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-
-        return stats;
+        return cacheTemplate.getOrLoad(WEAPON_TYPE_STATS_KEY, TYPE_STATS_TYPE,
+                CACHE_EXPIRE_HOURS, TimeUnit.HOURS, weaponMapper::statisticsByType);
     }
 
     @Override
@@ -206,6 +184,7 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
         if (result <= 0) {
             throw new BusinessException(ResultCode.DATABASE_ERROR.getCode(), "保存武器失败");
         }
+        idExistenceFilter.register(IdExistenceFilter.WEAPON, weapon.getId());
 
         // 清除缓存
         refreshWeaponCache();
@@ -227,7 +206,7 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
 
         if (result > 0) {
             // 清除相关缓存
-            redisUtils.delete(WEAPON_CACHE_PREFIX + "detail:" + weaponId);
+            cacheTemplate.evict(cacheTemplate.namespacedKey(WEAPON_DETAIL_NAMESPACE, weaponId));
             refreshWeaponCache();
         }
 
@@ -258,38 +237,17 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> batchImportWeapons(List<Weapon> weapons) {
-        Map<String, Object> result = new HashMap<>();
-        int successCount = 0;
-        int failCount = 0;
-
-        for (Weapon weapon : weapons) {
-            try {
-                validateWeapon(weapon);
-
-                // 检查是否已存在
-                Weapon existWeapon = weaponMapper.findByWeaponKey(weapon.getWeaponKey());
-                if (existWeapon != null) {
-                    failCount++;
-                    log.warn("武器已存在，跳过: {}", weapon.getWeaponKey());
-                    continue;
-                }
-
-                weaponMapper.insert(weapon);
-                successCount++;
-            } catch (Exception e) {
-                failCount++;
-                log.error("导入武器失败: {}", weapon.getWeaponKey(), e);
-            }
-        }
-
-        result.put("totalCount", weapons.size());
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
+        // 已存在的武器标识一次查出，分块提交
+        Map<String, Object> result = bulkImportEngine.importRows(weapons, BulkImportSpec.<Weapon>of("武器")
+                .validator(this::validateWeapon)
+                .uniqueKey(Weapon::getWeaponKey, keys -> weaponMapper.selectObjs(new QueryWrapper<Weapon>()
+                        .select("weapon_key").in("weapon_key", keys)))
+                .afterChunk(inserted -> idExistenceFilter.registerAll(IdExistenceFilter.WEAPON,
+                        inserted.stream().map(Weapon::getId).collect(Collectors.toList()))));
 
         // 刷新缓存
-        if (successCount > 0) {
+        if ((int) result.get("successCount") > 0) {
             refreshWeaponCache();
         }
 
@@ -333,11 +291,42 @@ public class WeaponServiceImpl extends ServiceImpl<WeaponMapper, Weapon> impleme
     public void refreshWeaponCache() {
         log.info("刷新武器缓存");
         // 删除列表缓存
-        redisUtils.delete(WEAPON_LIST_CACHE_KEY);
+        cacheTemplate.evict(WEAPON_LIST_CACHE_KEY);
         // 删除统计缓存
-        redisUtils.delete(WEAPON_TYPE_STATS_KEY);
+        cacheTemplate.evict(WEAPON_TYPE_STATS_KEY);
         // 删除所有武器详情缓存
-        redisUtils.delete(redisUtils.keys(WEAPON_CACHE_PREFIX + "*"));
+        cacheTemplate.invalidateNamespace(WEAPON_DETAIL_NAMESPACE);
+        // 后台重建搜索建议
+        suggestIndex.refresh(SuggestIndex.WEAPON);
+    }
+
+    /**
+     * 从数据库加载武器详情（包含伤害统计）
+     */
+    private Map<String, Object> loadWeaponDetail(Long weaponId) {
+        if (idExistenceFilter.isKnownMissing(IdExistenceFilter.WEAPON, weaponId)) {
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "武器不存在");
+        }
+
+        // 查询武器基本信息
+        Weapon weapon = weaponMapper.selectById(weaponId);
+        if (weapon == null || weapon.getDeleted() == 1) {
+            idExistenceFilter.markMissing(IdExistenceFilter.WEAPON, weaponId);
+            throw new BusinessException(ResultCode.DATA_NOT_EXISTS.getCode(), "武器不存在");
+        }
+
+        // 组装结果
+        Map<String, Object> result = new HashMap<>();
+        result.put("weapon", weapon);
+
+        // 添加伤害统计
+        Map<String, Object> damageStats = new HashMap<>();
+        damageStats.put("head", weapon.getDamageHead());
+        damageStats.put("body", weapon.getDamageBody());
+        damageStats.put("leg", weapon.getDamageLeg());
+        result.put("damageStats", damageStats);
+
+        return result;
     }
 
     /**
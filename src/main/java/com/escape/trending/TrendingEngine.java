@@ -0,0 +1,198 @@
+package com.escape.trending;
+
+import com.escape.mapper.FavoriteMapper;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热度排行引擎
+ * 按类型（内容/点位/地图/英雄）在Redis有序集合 trending:{type} 中维护随时间衰减的热度分：
+ * 浏览、点赞、收藏事件按权重累加，定时任务按半衰期整体缩放分数，使热门榜单随时间更替
+ *
+ * 衰减任务通过Redis锁保证每个周期只有一个节点执行
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class TrendingEngine {
+
+    public static final String CONTENT = "content";
+    public static final String POSITION = "position";
+    public static final String MAP = "map";
+    public static final String HERO = "hero";
+
+    public static final double VIEW_WEIGHT = 1.0;
+    public static final double LIKE_WEIGHT = 3.0;
+    public static final double FAVORITE_WEIGHT = 5.0;
+
+    private static final Set<String> TRACKED_TYPES = Set.of(CONTENT, POSITION, MAP, HERO);
+
+    private static final String TRENDING_KEY_PREFIX = "trending:";
+    private static final String DECAY_LOCK_KEY = "trending:decay:lock";
+
+    /**
+     * 衰减后低于该分数的成员被移除，控制集合大小
+     */
+    private static final double MIN_SCORE = 0.01;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    @Autowired
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Value("${app.trending.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${app.trending.decay-interval-ms:3600000}")
+    private long decayIntervalMs;
+
+    /**
+     * 是否维护该类型的热度
+     */
+    public boolean isTracked(String type) {
+        return TRACKED_TYPES.contains(type);
+    }
+
+    /**
+     * 记录热度事件
+     */
+    public void record(String type, Long id, double weight) {
+        if (id == null || !isTracked(type)) {
+            return;
+        }
+        redisUtils.zIncrementScore(TRENDING_KEY_PREFIX + type, String.valueOf(id), weight);
+    }
+
+    /**
+     * 获取热度最高的ID（按分数降序），集合不存在或Redis不可用时返回空列表
+     */
+    public List<Long> topIds(String type, int limit) {
+        return new ArrayList<>(topWithScores(type, limit).keySet());
+    }
+
+    /**
+     * 获取热度最高的ID及分数（按分数降序）
+     */
+    public Map<Long, Double> topWithScores(String type, int limit) {
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisUtils.zReverseRangeWithScores(TRENDING_KEY_PREFIX + type, 0, limit - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Double> result = new LinkedHashMap<>();
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            result.put(Long.valueOf(tuple.getValue()), tuple.getScore());
+        }
+        return result;
+    }
+
+    /**
+     * 定时衰减所有热度分
+     */
+    @Scheduled(initialDelayString = "${app.trending.decay-interval-ms:3600000}",
+            fixedDelayString = "${app.trending.decay-interval-ms:3600000}")
+    public void decay() {
+        // 锁有效期略短于周期，保证每个周期只衰减一次
+        long lockMillis = Math.max(decayIntervalMs - 10000, 1000);
+        Boolean acquired = redisUtils.setIfAbsent(DECAY_LOCK_KEY, "1", lockMillis, TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+
+        double factor = Math.pow(0.5, decayIntervalMs / (halfLifeHours * 3600000));
+        for (String type : TRACKED_TYPES) {
+            String key = TRENDING_KEY_PREFIX + type;
+            redisUtils.zScale(key, factor);
+            redisUtils.zRemoveRangeByScore(key, Double.NEGATIVE_INFINITY, MIN_SCORE);
+        }
+        log.info("热度分衰减完成, factor: {}", factor);
+    }
+
+    /**
+     * 从数据库重建所有类型的热度分
+     * 与实时累加保持同一尺度：取近期带时间的浏览记录和收藏，每条按权重乘以 0.5^(距今时长/半衰期) 后累加，
+     * 窗口之前的事件衰减后低于 {@link #MIN_SCORE}，不再计入。
+     * 浏览记录每个（用户, 目标）只有一行，按最后浏览时间计一次；点赞没有时间记录，不参与重建
+     */
+    public Map<String, Integer> rebuildAll() {
+        double halfLifeSeconds = halfLifeHours * 3600;
+        long windowSeconds = (long) Math.ceil(halfLifeSeconds * Math.log(1 / MIN_SCORE) / Math.log(2));
+        LocalDateTime since = LocalDateTime.now().minusSeconds(windowSeconds);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String type : List.of(CONTENT, POSITION, MAP, HERO)) {
+            result.put(type, rebuild(type, loadDecayedScores(type, since, halfLifeSeconds)));
+        }
+        return result;
+    }
+
+    /**
+     * 写入临时key后原子替换，重建期间读取不受影响
+     */
+    private int rebuild(String type, Map<Long, Double> scores) {
+        String key = TRENDING_KEY_PREFIX + type;
+        String tempKey = key + ":rebuild";
+        redisUtils.delete(tempKey);
+
+        Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            batch.add(new DefaultTypedTuple<>(String.valueOf(entry.getKey()), entry.getValue()));
+            if (batch.size() >= REBUILD_BATCH_SIZE) {
+                redisUtils.zAdd(tempKey, batch);
+                batch = new HashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisUtils.zAdd(tempKey, batch);
+        }
+
+        if (!redisUtils.hasKey(tempKey)) {
+            redisUtils.delete(key);
+            return 0;
+        }
+        redisUtils.rename(tempKey, key);
+        log.info("热度分重建完成, type: {}, 数量: {}", type, scores.size());
+        return scores.size();
+    }
+
+    private Map<Long, Double> loadDecayedScores(String type, LocalDateTime since, double halfLifeSeconds) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map<String, Object> row : favoriteMapper.sumDecayedByTarget(type, since, halfLifeSeconds)) {
+            scores.merge(((Number) row.get("target_id")).longValue(),
+                    FAVORITE_WEIGHT * ((Number) row.get("total")).doubleValue(), Double::sum);
+        }
+        for (Map<String, Object> row : viewHistoryMapper.sumDecayedByTarget(type, since, halfLifeSeconds)) {
+            scores.merge(((Number) row.get("target_id")).longValue(),
+                    VIEW_WEIGHT * ((Number) row.get("total")).doubleValue(), Double::sum);
+        }
+        return scores;
+    }
+}
@@ -2,10 +2,24 @@ package com.escape.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Collection;
 
@@ -20,6 +34,10 @@ import java.util.Collection;
 @Component
 public class RedisUtils {
 
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
@@ -194,6 +212,21 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * Hash操作 - 获取所有字段
+     */
+    public Map<String, String> hGetAll(String key) {
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+            Map<String, String> result = new HashMap<>(entries.size());
+            entries.forEach((field, value) -> result.put(field.toString(), value.toString()));
+            return result;
+        } catch (Exception e) {
+            log.error("Redis Hash获取全部失败, key: {}, 错误: {}", key, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
     /**
      * List操作 - 左侧推入
      */
@@ -220,6 +253,47 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * List操作 - 右侧批量推入
+     */
+    public long rightPushAll(String key, Collection<String> values) {
+        try {
+            Long result = stringRedisTemplate.opsForList().rightPushAll(key, values);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis List批量右推失败, key: {}, 错误: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * List操作 - 左侧弹出多个元素
+     */
+    public List<String> leftPop(String key, long count) {
+        try {
+            List<String> result = stringRedisTemplate.opsForList().leftPop(key, count);
+            return result != null ? result : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("Redis List左弹失败, key: {}, 错误: {}", key, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * List操作 - 获取长度
+     *
+     * @return Redis异常时返回-1
+     */
+    public long listSize(String key) {
+        try {
+            Long result = stringRedisTemplate.opsForList().size(key);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis List获取长度失败, key: {}, 错误: {}", key, e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Set操作 - 添加成员
      */
@@ -244,4 +318,236 @@ public class RedisUtils {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Set操作 - 随机弹出多个成员
+     */
+    public List<String> sPop(String key, long count) {
+        try {
+            List<String> result = stringRedisTemplate.opsForSet().pop(key, count);
+            return result != null ? result : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("Redis Set弹出失败, key: {}, 错误: {}", key, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Set操作 - 随机获取多个不重复成员（不移除）
+     */
+    public Set<String> sRandMembers(String key, long count) {
+        try {
+            Set<String> result = stringRedisTemplate.opsForSet().distinctRandomMembers(key, count);
+            return result != null ? result : Collections.emptySet();
+        } catch (Exception e) {
+            log.error("Redis Set随机获取失败, key: {}, 错误: {}", key, e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * 执行Lua脚本
+     *
+     * @return 脚本返回值，Redis异常时返回null
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        try {
+            return stringRedisTemplate.execute(script, keys, args);
+        } catch (Exception e) {
+            log.error("Redis执行脚本失败, keys: {}, 错误: {}", keys, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 发布消息到指定频道
+     */
+    public void publish(String channel, String message) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.error("Redis发布消息失败, channel: {}, 错误: {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * 使用SCAN按模式分批删除key，避免KEYS阻塞Redis
+     *
+     * @return 删除的key数量
+     */
+    public long deleteByScan(String pattern, int batchSize) {
+        long deleted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    deleted += delete(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                deleted += delete(batch);
+            }
+        } catch (Exception e) {
+            log.error("Redis扫描删除失败, pattern: {}, 错误: {}", pattern, e.getMessage());
+        }
+        return deleted;
+    }
+
+    /**
+     * 不存在时设置（用于分布式锁）
+     *
+     * @return 是否设置成功，Redis异常时返回null
+     */
+    public Boolean setIfAbsent(String key, String value, long timeout, TimeUnit unit) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit));
+        } catch (Exception e) {
+            log.error("Redis设置锁失败, key: {}, 错误: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 值匹配时删除（释放分布式锁，避免误删其他持有者的锁）
+     */
+    public boolean deleteIfEquals(String key, String value) {
+        try {
+            Long result = stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(key), value);
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.error("Redis释放锁失败, key: {}, 错误: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * HyperLogLog操作 - 添加元素
+     */
+    public long pfAdd(String key, String... values) {
+        try {
+            Long result = stringRedisTemplate.opsForHyperLogLog().add(key, values);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis HyperLogLog添加失败, key: {}, 错误: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * HyperLogLog操作 - 基数估算
+     *
+     * @return 估算值，Redis异常时返回-1
+     */
+    public long pfCount(String key) {
+        try {
+            Long result = stringRedisTemplate.opsForHyperLogLog().size(key);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis HyperLogLog统计失败, key: {}, 错误: {}", key, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * ZSet操作 - 增加成员分数
+     */
+    public void zIncrementScore(String key, String member, double delta) {
+        try {
+            stringRedisTemplate.opsForZSet().incrementScore(key, member, delta);
+        } catch (Exception e) {
+            log.error("Redis ZSet增加分数失败, key: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * ZSet操作 - 批量添加成员
+     */
+    public long zAdd(String key, Set<ZSetOperations.TypedTuple<String>> tuples) {
+        try {
+            Long result = stringRedisTemplate.opsForZSet().add(key, tuples);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis ZSet批量添加失败, key: {}, 错误: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * ZSet操作 - 按分数从高到低获取成员及分数
+     */
+    public Set<ZSetOperations.TypedTuple<String>> zReverseRangeWithScores(String key, long start, long end) {
+        try {
+            return stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, start, end);
+        } catch (Exception e) {
+            log.error("Redis ZSet获取范围失败, key: {}, 错误: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * ZSet操作 - 按分数范围倒序获取成员及分数
+     */
+    public Set<ZSetOperations.TypedTuple<String>> zReverseRangeByScoreWithScores(String key, double min, double max) {
+        try {
+            return stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, min, max);
+        } catch (Exception e) {
+            log.error("Redis ZSet按分数获取范围失败, key: {}, 错误: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * ZSet操作 - 按权重缩放所有分数（ZUNIONSTORE key 1 key WEIGHTS factor）
+     */
+    public void zScale(String key, double factor) {
+        try {
+            stringRedisTemplate.opsForZSet().unionAndStore(key, Collections.emptyList(), key,
+                    Aggregate.SUM, Weights.of(factor));
+        } catch (Exception e) {
+            log.error("Redis ZSet缩放分数失败, key: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * ZSet操作 - 删除分数区间内的成员
+     */
+    public long zRemoveRangeByScore(String key, double min, double max) {
+        try {
+            Long result = stringRedisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+            return result != null ? result : 0;
+        } catch (Exception e) {
+            log.error("Redis ZSet删除区间失败, key: {}, 错误: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 重命名key（原子替换目标key）
+     */
+    public boolean rename(String oldKey, String newKey) {
+        try {
+            stringRedisTemplate.rename(oldKey, newKey);
+            return true;
+        } catch (Exception e) {
+            log.error("Redis重命名失败, key: {} -> {}, 错误: {}", oldKey, newKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 读取原始字节（用于位图），key不存在时返回空数组，Redis异常时返回null
+     */
+    public byte[] getBytes(String key) {
+        try {
+            byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+            return value != null ? value : new byte[0];
+        } catch (Exception e) {
+            log.error("Redis读取字节失败, key: {}, 错误: {}", key, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- 点位小地图坐标
+-- 站位与落点的归一化坐标（0~1，左上角为原点，对应 maps.minimap_url 图片），
+-- 由 PositionCatalog 按地图构建网格索引，支持半径、矩形和最近邻查询；未标注坐标的点位不参与空间查询
+
+ALTER TABLE positions
+    ADD COLUMN stand_x   DOUBLE NULL COMMENT '站位横坐标（0~1）' AFTER landing_image,
+    ADD COLUMN stand_y   DOUBLE NULL COMMENT '站位纵坐标（0~1）' AFTER stand_x,
+    ADD COLUMN landing_x DOUBLE NULL COMMENT '落点横坐标（0~1）' AFTER stand_y,
+    ADD COLUMN landing_y DOUBLE NULL COMMENT '落点纵坐标（0~1）' AFTER landing_x;
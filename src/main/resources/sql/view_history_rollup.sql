@@ -0,0 +1,74 @@
+-- 浏览历史汇总与归档表
+-- 每日汇总由 ViewHistoryRollupJob 定时写入，热力图按日期范围读取固定行数；
+-- 超过保留期的记录移入归档表，其条数和时长累加到用户汇总表
+
+CREATE TABLE IF NOT EXISTS view_history_user_daily (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id        BIGINT      NOT NULL,
+    view_date      DATE        NOT NULL,
+    view_count     INT         NOT NULL DEFAULT 0,
+    total_duration BIGINT      NOT NULL DEFAULT 0,
+    update_time    DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_user_date (user_id, view_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户每日浏览汇总';
+
+CREATE TABLE IF NOT EXISTS view_history_target_daily (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    target_type    VARCHAR(20) NOT NULL,
+    target_id      BIGINT      NOT NULL,
+    view_date      DATE        NOT NULL,
+    viewer_count   INT         NOT NULL DEFAULT 0,
+    total_duration BIGINT      NOT NULL DEFAULT 0,
+    update_time    DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_target_date (target_type, target_id, view_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '目标每日浏览汇总';
+
+CREATE TABLE IF NOT EXISTS view_history_user_summary (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id        BIGINT      NOT NULL,
+    target_type    VARCHAR(20) NOT NULL,
+    view_count     BIGINT      NOT NULL DEFAULT 0,
+    total_duration BIGINT      NOT NULL DEFAULT 0,
+    update_time    DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_user_type (user_id, target_type)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户已归档浏览记录汇总';
+
+CREATE TABLE IF NOT EXISTS view_history_archive (
+    id             BIGINT      NOT NULL,
+    user_id        BIGINT      NOT NULL,
+    target_type    VARCHAR(20) NOT NULL,
+    target_id      BIGINT      NOT NULL,
+    view_duration  INT         NOT NULL DEFAULT 0,
+    progress       INT         NOT NULL DEFAULT 0,
+    create_time    DATETIME    NULL,
+    update_time    DATETIME    NULL,
+    archive_time   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    KEY idx_user (user_id),
+    KEY idx_target (target_type, target_id),
+    KEY idx_update_time (update_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '浏览历史归档';
+
+-- 浏览用户数、热度重建等按目标查询时合并归档表；已创建归档表的环境补充该索引
+-- ALTER TABLE view_history_archive ADD INDEX idx_target (target_type, target_id);
+
+-- 归档按 update_time 筛选，原表需要该索引
+-- ALTER TABLE view_history ADD INDEX idx_update_time (update_time);
+
+-- 首次部署时回填历史数据（不含当天，当天数据由查询实时汇总）
+INSERT INTO view_history_user_daily(user_id, view_date, view_count, total_duration)
+SELECT user_id, DATE(update_time), COUNT(*), COALESCE(SUM(view_duration), 0)
+FROM view_history
+WHERE update_time < CURDATE()
+GROUP BY user_id, DATE(update_time)
+ON DUPLICATE KEY UPDATE view_count = VALUES(view_count), total_duration = VALUES(total_duration);
+
+INSERT INTO view_history_target_daily(target_type, target_id, view_date, viewer_count, total_duration)
+SELECT target_type, target_id, DATE(update_time), COUNT(*), COALESCE(SUM(view_duration), 0)
+FROM view_history
+WHERE update_time < CURDATE()
+GROUP BY target_type, target_id, DATE(update_time)
+ON DUPLICATE KEY UPDATE viewer_count = VALUES(viewer_count), total_duration = VALUES(total_duration);
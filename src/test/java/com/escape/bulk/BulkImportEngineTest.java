@@ -0,0 +1,149 @@
+package com.escape.bulk;
+
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mockStatic;
+
+/**
+ * 批量导入引擎测试：整块写入失败后逐行定位错误
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkImportEngineTest {
+
+    private static final String BAD = "Bad";
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BulkImportEngine engine;
+
+    private final List<List<String>> committedChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() {
+        ReflectionTestUtils.setField(engine, "chunkSize", 2);
+        List<Row> rows = rows("Jett", "Sova", BAD, "Sage", "Raze");
+
+        Map<String, Object> result;
+        try (MockedStatic<Db> db = mockDb()) {
+            result = engine.importRows(rows, spec());
+        }
+
+        assertEquals(5, result.get("totalCount"));
+        assertEquals(4, result.get("successCount"));
+        assertEquals(1, result.get("failCount"));
+        assertEquals(List.of("第3条数据导入失败：Data too long for column 'name'"), result.get("errors"));
+        // 失败块之前和之后的块不受影响，失败块中其余行仍写入
+        assertEquals(List.of(List.of("Jett", "Sova"), List.of("Sage"), List.of("Raze")), committedChunks);
+    }
+
+    @Test
+    void validationAndKeyErrorsKeepRowNumbers() {
+        ReflectionTestUtils.setField(engine, "chunkSize", 10);
+        List<Row> rows = rows("Jett", "", "jett ", BAD, "omen", "Sage");
+
+        Map<String, Object> result;
+        try (MockedStatic<Db> db = mockDb()) {
+            result = engine.importRows(rows, spec());
+        }
+
+        assertEquals(6, result.get("totalCount"));
+        assertEquals(2, result.get("successCount"));
+        assertEquals(4, result.get("failCount"));
+        assertEquals(List.of(
+                "第2条数据导入失败：名称不能为空",
+                "第3条数据导入失败：英雄重复: jett ",
+                "第4条数据导入失败：Data too long for column 'name'",
+                "第5条数据导入失败：英雄已存在: omen"), result.get("errors"));
+        assertEquals(List.of(List.of("Jett", "Sage")), committedChunks);
+    }
+
+    @Test
+    void emptyInputImportsNothing() {
+        Map<String, Object> result = engine.importRows(List.of(), spec());
+        assertEquals(0, result.get("totalCount"));
+        assertEquals(0, result.get("successCount"));
+        assertEquals(List.of(), result.get("errors"));
+    }
+
+    /**
+     * 含“Bad”的块整体写入失败，“Bad”行单独写入也失败
+     */
+    private static MockedStatic<Db> mockDb() {
+        MockedStatic<Db> db = mockStatic(Db.class);
+        db.when(() -> Db.saveBatch(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            Collection<Row> chunk = invocation.getArgument(0);
+            if (chunk.stream().anyMatch(row -> BAD.equals(row.name))) {
+                throw new RuntimeException("batch failed", new SQLException("Data too long for column 'name'"));
+            }
+            return true;
+        });
+        db.when(() -> Db.save(any())).thenAnswer(invocation -> {
+            Row row = invocation.getArgument(0);
+            if (BAD.equals(row.name)) {
+                throw new RuntimeException("insert failed", new SQLException("Data too long for column 'name'"));
+            }
+            return true;
+        });
+        return db;
+    }
+
+    private BulkImportSpec<Row> spec() {
+        return BulkImportSpec.<Row>of("英雄")
+                .validator(row -> {
+                    if (row.name.isBlank()) {
+                        throw new IllegalArgumentException("名称不能为空");
+                    }
+                })
+                // 库中已有“Omen”，数据库排序规则不区分大小写
+                .uniqueKey(row -> row.name, keys -> keys.stream().filter("Omen"::equalsIgnoreCase).map(key -> "Omen").toList())
+                .afterChunk(inserted -> committedChunks.add(inserted.stream().map(row -> row.name).toList()));
+    }
+
+    private static List<Row> rows(String... names) {
+        List<Row> rows = new ArrayList<>();
+        for (String name : names) {
+            rows.add(new Row(name));
+        }
+        return rows;
+    }
+
+    private static class Row {
+
+        private final String name;
+
+        Row(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.escape.cache;
+
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缓存命名空间代数测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheGenerationsTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private CacheGenerations cacheGenerations;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheGenerations, "localTtlSeconds", 60L);
+    }
+
+    @Test
+    void missingGenerationStartsAtZeroAndIsCachedLocally() {
+        assertEquals(0L, cacheGenerations.current("content:hot:"));
+        assertEquals(0L, cacheGenerations.current("content:hot:"));
+
+        verify(redisUtils, times(1)).get("cache:gen:content:hot:");
+    }
+
+    @Test
+    void bumpIncrementsAndRefreshesExpiry() {
+        when(redisUtils.increment("cache:gen:content:hot:")).thenReturn(4L);
+
+        assertEquals(4L, cacheGenerations.bump("content:hot:"));
+        // 递增后本节点立即使用新代数，不再读取Redis
+        assertEquals(4L, cacheGenerations.current("content:hot:"));
+
+        verify(redisUtils).expire("cache:gen:content:hot:", 7, TimeUnit.DAYS);
+        verify(redisUtils, times(0)).get("cache:gen:content:hot:");
+    }
+
+    @Test
+    void forgetRereadsGenerationBumpedByAnotherNode() {
+        when(redisUtils.get("cache:gen:tag:hot:")).thenReturn("2", "3");
+
+        assertEquals(2L, cacheGenerations.current("tag:hot:"));
+        cacheGenerations.forget("tag:hot:");
+        assertEquals(3L, cacheGenerations.current("tag:hot:"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.escape.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 缓存失效广播监听器测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationListenerTest {
+
+    @Mock
+    private NearCache nearCache;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @Mock
+    private IdExistenceFilter idExistenceFilter;
+
+    @Mock
+    private ReplicatedIndex searchIndex;
+
+    @Mock
+    private ReplicatedIndex bitmapIndex;
+
+    @InjectMocks
+    private CacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(searchIndex.indexName()).thenReturn("content-search");
+        lenient().when(bitmapIndex.indexName()).thenReturn("content-bitmap");
+        ReflectionTestUtils.setField(listener, "replicatedIndexes", List.of(searchIndex, bitmapIndex));
+    }
+
+    @Test
+    void dispatchesRemoteReindexByIndexName() {
+        receive("R:other-node:content-bitmap:42");
+        receive("R:other-node:content-search:*");
+
+        verify(bitmapIndex).applyRemote("42");
+        verify(searchIndex).applyRemote(CacheInvalidationListener.REINDEX_ALL);
+    }
+
+    @Test
+    void ignoresOwnReindexMessages() {
+        receive(CacheInvalidationListener.reindexMessage("content-search", 42L));
+
+        verify(searchIndex, never()).applyRemote(anyString());
+    }
+
+    @Test
+    void appliesCacheMessages() {
+        receive(CacheInvalidationListener.KEY_MESSAGE + "content:detail:g1:5");
+        receive(CacheInvalidationListener.GENERATION_MESSAGE + "content:hot:");
+        receive(CacheInvalidationListener.REGISTER_MESSAGE + "content:7,8");
+
+        verify(nearCache).remove("content:detail:g1:5");
+        verify(cacheGenerations).forget("content:hot:");
+        verify(nearCache).removeByPrefix("content:hot:");
+        verify(idExistenceFilter).add("content", 7L);
+        verify(idExistenceFilter).add("content", 8L);
+    }
+
+    private void receive(String body) {
+        listener.onMessage(new DefaultMessage(CacheInvalidationListener.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.escape.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 缓存后台刷新器测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class CacheRefresherTest {
+
+    @Test
+    void submitsOneRefreshPerKeyUntilItCompletes() {
+        List<Runnable> queued = new ArrayList<>();
+        CacheRefresher refresher = new CacheRefresher();
+        ReflectionTestUtils.setField(refresher, "taskExecutor", (TaskExecutor) queued::add);
+        AtomicInteger runs = new AtomicInteger();
+
+        refresher.refreshAsync("content:hot:g1:10", runs::incrementAndGet);
+        refresher.refreshAsync("content:hot:g1:10", runs::incrementAndGet);
+        refresher.refreshAsync("content:featured:g1:10", runs::incrementAndGet);
+        assertEquals(2, queued.size());
+
+        queued.forEach(Runnable::run);
+        assertEquals(2, runs.get());
+
+        // 完成后允许再次刷新
+        refresher.refreshAsync("content:hot:g1:10", runs::incrementAndGet);
+        assertEquals(3, queued.size());
+    }
+
+    @Test
+    void failedRefreshReleasesKey() {
+        List<Runnable> queued = new ArrayList<>();
+        CacheRefresher refresher = new CacheRefresher();
+        ReflectionTestUtils.setField(refresher, "taskExecutor", (TaskExecutor) queued::add);
+
+        refresher.refreshAsync("key", () -> {
+            throw new IllegalStateException("加载失败");
+        });
+        queued.get(0).run();
+
+        refresher.refreshAsync("key", () -> {
+        });
+        assertEquals(2, queued.size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.escape.cache;
+
+import com.escape.utils.RedisUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 读穿透缓存模板测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheTemplateTest {
+
+    private static final TypeReference<List<String>> ROLES_TYPE = new TypeReference<>() {};
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private NearCache nearCache;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @Mock
+    private CacheSweeper cacheSweeper;
+
+    @Mock
+    private CacheRefresher cacheRefresher;
+
+    @Spy
+    private JsonCacheCodec cacheCodec;
+
+    @Spy
+    private SingleFlight singleFlight;
+
+    @InjectMocks
+    private CacheTemplate cacheTemplate;
+
+    @Test
+    void hitReturnsDecodedValueWithoutLoading() {
+        when(redisUtils.get("user:roles:1")).thenReturn("[\"SUPER_ADMIN\"]");
+
+        List<String> roles = cacheTemplate.getOrLoad("user:roles:1", ROLES_TYPE, 30, TimeUnit.MINUTES, () -> {
+            throw new AssertionError("命中时不应加载");
+        });
+
+        assertEquals(List.of("SUPER_ADMIN"), roles);
+    }
+
+    @Test
+    void missLoadsAndWritesBack() {
+        List<String> roles = cacheTemplate.getOrLoad("user:roles:1", ROLES_TYPE, 30, TimeUnit.MINUTES,
+                () -> List.of("USER"));
+
+        assertEquals(List.of("USER"), roles);
+        verify(redisUtils).set("user:roles:1", "[\"USER\"]", 30, TimeUnit.MINUTES);
+    }
+
+    @Test
+    void nullIsNotCached() {
+        assertNull(cacheTemplate.getOrLoad("user:info:1", ROLES_TYPE, 30, TimeUnit.MINUTES, () -> null));
+        verify(redisUtils, never()).set(anyString(), anyString(), eq(30L), eq(TimeUnit.MINUTES));
+    }
+
+    @Test
+    void undecodableValueIsDroppedAndReloaded() {
+        // 旧版本 toString() 写入的值
+        when(redisUtils.get("user:roles:1")).thenReturn("[USER]");
+
+        List<String> roles = cacheTemplate.getOrLoad("user:roles:1", ROLES_TYPE, 30, TimeUnit.MINUTES,
+                () -> List.of("USER"));
+
+        assertEquals(List.of("USER"), roles);
+        verify(redisUtils).delete("user:roles:1");
+    }
+
+    @Test
+    void freshEnvelopeIsServedWithoutRefresh() {
+        ReflectionTestUtils.setField(cacheTemplate, "refreshBeta", 1.0);
+        String envelope = new CacheEnvelope(0, System.currentTimeMillis() + 60000, "[\"USER\"]").format();
+        when(redisUtils.get("content:hot:g1:10")).thenReturn(envelope);
+
+        assertEquals(List.of("USER"), cacheTemplate.getOrRefresh("content:hot:g1:10", ROLES_TYPE,
+                10, TimeUnit.MINUTES, () -> List.of("reload")));
+        verify(cacheRefresher, never()).refreshAsync(anyString(), any());
+    }
+
+    @Test
+    void expiredEnvelopeServesStaleValueAndRefreshesInBackground() {
+        ReflectionTestUtils.setField(cacheTemplate, "refreshBeta", 1.0);
+        String envelope = new CacheEnvelope(50, System.currentTimeMillis() - 1, "[\"stale\"]").format();
+        when(redisUtils.get("content:hot:g1:10")).thenReturn(envelope);
+
+        assertEquals(List.of("stale"), cacheTemplate.getOrRefresh("content:hot:g1:10", ROLES_TYPE,
+                10, TimeUnit.MINUTES, () -> List.of("fresh")));
+
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(cacheRefresher).refreshAsync(eq("content:hot:g1:10"), refresh.capture());
+        refresh.getValue().run();
+        ArgumentCaptor<String> written = ArgumentCaptor.forClass(String.class);
+        // 物理TTL为逻辑TTL的1.5倍
+        verify(redisUtils).set(eq("content:hot:g1:10"), written.capture(),
+                eq(TimeUnit.MINUTES.toMillis(15)), eq(TimeUnit.MILLISECONDS));
+        assertEquals("[\"fresh\"]", CacheEnvelope.parse(written.getValue()).payload());
+    }
+
+    @Test
+    void legacyValueIsTreatedAsMissByRefreshingReader() {
+        when(redisUtils.get("content:hot:g1:10")).thenReturn("[\"legacy\"]");
+
+        assertEquals(List.of("fresh"), cacheTemplate.getOrRefresh("content:hot:g1:10", ROLES_TYPE,
+                10, TimeUnit.MINUTES, () -> List.of("fresh")));
+        verify(redisUtils).set(eq("content:hot:g1:10"), anyString(),
+                eq(TimeUnit.MINUTES.toMillis(15)), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void evictInTransactionEvictsAgainAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheTemplate.evict("user:roles:1");
+            verify(redisUtils, times(1)).delete("user:roles:1");
+
+            // 提交前的并发读取把旧角色写回缓存，提交后必须再删除一次
+            AtomicInteger synchronizations = new AtomicInteger();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronizations.incrementAndGet();
+            }
+
+            assertEquals(1, synchronizations.get());
+            verify(redisUtils, times(2)).delete("user:roles:1");
+            verify(nearCache, times(2)).remove("user:roles:1");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictOutsideTransactionEvictsOnce() {
+        cacheTemplate.evict("user:roles:1");
+
+        verify(redisUtils).delete("user:roles:1");
+        verify(redisUtils).publish(CacheInvalidationListener.CHANNEL,
+                CacheInvalidationListener.KEY_MESSAGE + "user:roles:1");
+    }
+}
@@ -0,0 +1,46 @@
+package com.escape.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ID布隆过滤器测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class IdBloomFilterTest {
+
+    @Test
+    void neverReportsAddedIdAsMissing() {
+        IdBloomFilter filter = new IdBloomFilter(100000, 0.01);
+        for (long id = 1; id <= 100000; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= 100000; id++) {
+            assertTrue(filter.mightContain(id), "id " + id);
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTarget() {
+        IdBloomFilter filter = new IdBloomFilter(100000, 0.01);
+        for (long id = 1; id <= 100000; id++) {
+            filter.add(id);
+        }
+        long falsePositives = LongStream.rangeClosed(1000001, 1100000).filter(filter::mightContain).count();
+        assertTrue(falsePositives < 2000, "误判数: " + falsePositives);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() {
+        IdBloomFilter filter = new IdBloomFilter(200000, 0.01);
+        LongStream.rangeClosed(1, 200000).parallel().forEach(filter::add);
+        for (long id = 1; id <= 200000; id++) {
+            assertTrue(filter.mightContain(id), "id " + id);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.escape.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 进程内近端缓存测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class NearCacheTest {
+
+    private NearCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new NearCache();
+        ReflectionTestUtils.setField(nearCache, "maxEntries", 3);
+        ReflectionTestUtils.setField(nearCache, "maxWeight", 100L);
+        ReflectionTestUtils.setField(nearCache, "ttlSeconds", 60L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        nearCache.put("a", "A", 1, 60000);
+        nearCache.put("b", "B", 1, 60000);
+        nearCache.put("c", "C", 1, 60000);
+        // 访问a后，b成为最久未使用
+        nearCache.get("a");
+        nearCache.put("d", "D", 1, 60000);
+
+        assertEquals(3, nearCache.size());
+        assertNull(nearCache.get("b"));
+        assertEquals("A", nearCache.get("a"));
+        assertEquals("D", nearCache.get("d"));
+    }
+
+    @Test
+    void evictsByWeightAndSkipsOversizedEntries() {
+        nearCache.put("a", "A", 60, 60000);
+        nearCache.put("b", "B", 60, 60000);
+        assertNull(nearCache.get("a"));
+        assertEquals("B", nearCache.get("b"));
+
+        nearCache.put("huge", "H", 101, 60000);
+        assertNull(nearCache.get("huge"));
+        assertEquals(1, nearCache.size());
+
+        // 覆盖写入时扣除旧权重
+        nearCache.put("b", "B2", 30, 60000);
+        nearCache.put("c", "C", 70, 60000);
+        assertEquals("B2", nearCache.get("b"));
+        assertEquals("C", nearCache.get("c"));
+    }
+
+    @Test
+    void expiresWithRemoteTtl() {
+        nearCache.put("a", "A", 1, -1);
+        assertNull(nearCache.get("a"));
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    void removesByPrefix() {
+        nearCache.put("content:detail:1", "1", 10, 60000);
+        nearCache.put("content:detail:2", "2", 10, 60000);
+        nearCache.put("tag:detail:1", "t", 10, 60000);
+
+        nearCache.removeByPrefix("content:");
+
+        assertEquals(1, nearCache.size());
+        assertEquals("t", nearCache.get("tag:detail:1"));
+        // 删除后权重已归还
+        nearCache.put("big", "B", 90, 60000);
+        assertEquals("t", nearCache.get("tag:detail:1"));
+    }
+}
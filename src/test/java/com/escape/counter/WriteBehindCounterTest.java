@@ -0,0 +1,103 @@
+package com.escape.counter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 写回计数缓冲测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class WriteBehindCounterTest {
+
+    @Test
+    void drainSplitsIntoBatchesAndResets() {
+        WriteBehindCounter counter = new WriteBehindCounter();
+        for (long id = 1; id <= 5; id++) {
+            counter.add(id, id);
+        }
+        counter.add(3L, 10);
+
+        List<Map<Long, Long>> batches = counter.drain(2);
+        assertEquals(3, batches.size());
+        Map<Long, Long> merged = merge(batches);
+        assertEquals(Map.of(1L, 1L, 2L, 2L, 3L, 13L, 4L, 4L, 5L, 5L), merged);
+        batches.forEach(batch -> assertTrue(batch.size() <= 2));
+
+        assertEquals(0, counter.pending());
+        assertTrue(counter.drain(2).isEmpty());
+    }
+
+    @Test
+    void restoredDeltasAreDrainedAgain() {
+        WriteBehindCounter counter = new WriteBehindCounter();
+        counter.add(1L, 3);
+        Map<Long, Long> failed = counter.drain(100).get(0);
+
+        counter.add(1L, 2);
+        counter.restore(failed);
+
+        assertEquals(5, counter.pending());
+        assertEquals(Map.of(1L, 5L), counter.drain(100).get(0));
+    }
+
+    @Test
+    void noIncrementIsLostWhileDrainingConcurrently() throws Exception {
+        WriteBehindCounter counter = new WriteBehindCounter();
+        int threads = 4;
+        int perThread = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean done = new AtomicBoolean();
+        Map<Long, Long> drained = new HashMap<>();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.add((long) (i % 10), 1);
+                    }
+                }));
+            }
+            // 写入的同时不断取出
+            Thread drainer = new Thread(() -> {
+                while (!done.get()) {
+                    merge(counter.drain(3), drained);
+                }
+            });
+            drainer.start();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            drainer.join();
+        } finally {
+            executor.shutdownNow();
+        }
+        merge(counter.drain(3), drained);
+
+        assertEquals((long) threads * perThread, drained.values().stream().mapToLong(Long::longValue).sum());
+        drained.values().forEach(total -> assertEquals((long) threads * perThread / 10, total));
+    }
+
+    private static Map<Long, Long> merge(List<Map<Long, Long>> batches) {
+        return merge(batches, new HashMap<>());
+    }
+
+    private static Map<Long, Long> merge(List<Map<Long, Long>> batches, Map<Long, Long> into) {
+        batches.forEach(batch -> batch.forEach((id, delta) -> into.merge(id, delta, Long::sum)));
+        return into;
+    }
+}
@@ -0,0 +1,165 @@
+package com.escape.ingest;
+
+import com.escape.cache.IdExistenceFilter;
+import com.escape.entity.ViewHistory;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.search.PositionCatalog;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 已学习点位位图测试：置位前校验点位ID、回填参数过滤和目录未就绪时的回退
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class LearnedPositionBitsTest {
+
+    private static final List<String> KEYS = List.of("position:learned:1", "position:learned:loaded:1");
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Mock
+    private PositionCatalog positionCatalog;
+
+    @Mock
+    private IdExistenceFilter idExistenceFilter;
+
+    @InjectMocks
+    private LearnedPositionBits learnedPositionBits;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(positionCatalog.isReady()).thenReturn(true);
+        lenient().when(positionCatalog.maxId()).thenReturn(100L);
+        lenient().when(positionCatalog.contains(anyLong())).thenReturn(false);
+        lenient().when(positionCatalog.contains(5L)).thenReturn(true);
+        lenient().when(positionCatalog.contains(100L)).thenReturn(true);
+    }
+
+    @Test
+    void recordsPositionInCatalog() {
+        learnedPositionBits.record(1L, 5L);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisUtils).execute(any(RedisScript.class), eq(KEYS), args.capture());
+        assertEquals(List.of("2592000", "5"), List.of(args.getValue()));
+    }
+
+    @Test
+    void recordsDisabledPositionKnownToExistenceFilter() {
+        when(idExistenceFilter.mightExist(IdExistenceFilter.POSITION, 7L)).thenReturn(true);
+
+        learnedPositionBits.record(1L, 7L);
+
+        verify(redisUtils).execute(any(RedisScript.class), eq(KEYS), any(Object[].class));
+    }
+
+    @Test
+    void ignoresUnknownPosition() {
+        when(idExistenceFilter.mightExist(IdExistenceFilter.POSITION, 8L)).thenReturn(false);
+
+        learnedPositionBits.record(1L, 8L);
+        learnedPositionBits.record(1L, -1L);
+
+        verifyNoInteractions(redisUtils);
+    }
+
+    @Test
+    void capsOffsetAtCatalogMaxId() {
+        // 即使存在性过滤器误判，也不为超过最大点位ID的偏移置位
+        lenient().when(idExistenceFilter.mightExist(anyString(), anyLong())).thenReturn(true);
+
+        learnedPositionBits.record(1L, 101L);
+        learnedPositionBits.record(1L, 4_000_000_000L);
+
+        verifyNoInteractions(redisUtils);
+    }
+
+    @Test
+    void catalogNotReadyClearsBitmapInsteadOfSetting() {
+        when(positionCatalog.isReady()).thenReturn(false);
+
+        learnedPositionBits.record(1L, 5L);
+
+        verify(redisUtils).delete(KEYS);
+        verify(redisUtils, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void backfillSkipsUnknownPositions() {
+        when(viewHistoryMapper.findByUserAndType(1L, "position")).thenReturn(List.of(
+                history(5L), history(100L), history(8L), history(4_000_000_000L), history(null)));
+        when(redisUtils.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        when(redisUtils.getBytes("position:learned:1")).thenReturn(new byte[]{0x04});
+
+        assertArrayEquals(new byte[]{0x04}, learnedPositionBits.bits(1L));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisUtils).execute(any(RedisScript.class), eq(KEYS), args.capture());
+        assertEquals(List.of("2592000", "5", "100"), List.of(args.getValue()));
+        verify(redisUtils).set("position:learned:loaded:1", "1", 30, TimeUnit.DAYS);
+    }
+
+    @Test
+    void loadedBitmapIsReadDirectly() {
+        when(redisUtils.hasKey("position:learned:loaded:1")).thenReturn(true);
+        when(redisUtils.getBytes("position:learned:1")).thenReturn(new byte[]{0x04});
+
+        assertArrayEquals(new byte[]{0x04}, learnedPositionBits.bits(1L));
+        verifyNoInteractions(viewHistoryMapper);
+    }
+
+    @Test
+    void unloadedBitmapWithoutCatalogFallsBackToDatabase() {
+        when(positionCatalog.isReady()).thenReturn(false);
+
+        assertNull(learnedPositionBits.bits(1L));
+        verifyNoInteractions(viewHistoryMapper);
+    }
+
+    @Test
+    void redisFailureDuringBackfillFallsBackToDatabase() {
+        when(viewHistoryMapper.findByUserAndType(1L, "position")).thenReturn(List.of(history(5L)));
+
+        assertNull(learnedPositionBits.bits(1L));
+        verify(redisUtils, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+    }
+
+    private static ViewHistory history(Long targetId) {
+        ViewHistory history = new ViewHistory();
+        history.setUserId(1L);
+        history.setTargetType("position");
+        history.setTargetId(targetId);
+        return history;
+    }
+}
@@ -0,0 +1,108 @@
+package com.escape.ingest;
+
+import com.escape.entity.ViewHistory;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 最近浏览列表测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class RecentViewListTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @InjectMocks
+    private RecentViewList recentViewList;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recentViewList, "capacity", 100);
+    }
+
+    @Test
+    void recentIsServedFromRedisWithDurationAndProgress() {
+        when(redisUtils.hasKey("view:recent:loaded:1")).thenReturn(true);
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        tuples.add(new DefaultTypedTuple<>("content:5", 2000.0));
+        tuples.add(new DefaultTypedTuple<>("position:7", 1000.0));
+        when(redisUtils.zReverseRangeWithScores("view:recent:1", 0, 9)).thenReturn(tuples);
+        when(redisUtils.hGetAll("view:recent:detail:1")).thenReturn(Map.of("content:5", "120,80"));
+
+        List<ViewHistory> recent = recentViewList.recent(1L, 10);
+
+        assertEquals(2, recent.size());
+        ViewHistory first = recent.get(0);
+        assertEquals("content", first.getTargetType());
+        assertEquals(5L, first.getTargetId());
+        assertEquals(120, first.getViewDuration());
+        assertEquals(80, first.getProgress());
+        assertNull(first.getId());
+        assertEquals(2000L, first.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertNull(recent.get(1).getViewDuration());
+        verifyNoInteractions(viewHistoryMapper);
+    }
+
+    @Test
+    void backfillsOnceWithDurationAndProgress() {
+        ViewHistory row = new ViewHistory();
+        row.setTargetType("content");
+        row.setTargetId(5L);
+        row.setViewDuration(30);
+        row.setProgress(40);
+        row.setUpdateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(5000), ZoneId.systemDefault()));
+        when(viewHistoryMapper.findRecentHistory(1L, 100)).thenReturn(List.of(row));
+        when(redisUtils.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        when(redisUtils.zReverseRangeWithScores("view:recent:1", 0, 9)).thenReturn(Set.of());
+
+        assertEquals(List.of(), recentViewList.recent(1L, 10));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisUtils).execute(any(RedisScript.class),
+                eq(List.of("view:recent:1", "view:recent:loaded:1", "view:recent:detail:1")), args.capture());
+        assertEquals(List.of("100", "2592000", "5000", "content:5", "30,40"), List.of(args.getValue()));
+        verify(redisUtils).set("view:recent:loaded:1", "1", 30, TimeUnit.DAYS);
+    }
+
+    @Test
+    void limitBeyondCapacityFallsBackToDatabase() {
+        assertNull(recentViewList.recent(1L, 101));
+        verifyNoInteractions(redisUtils);
+    }
+}
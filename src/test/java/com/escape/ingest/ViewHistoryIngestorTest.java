@@ -0,0 +1,162 @@
+package com.escape.ingest;
+
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 浏览历史写入管道测试：合并写入、队列满时同步写入、死信和重放
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewHistoryIngestorTest {
+
+    private static final String DEAD_LETTER_KEY = "view:ingest:dead-letter";
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private ViewHistoryIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ingestor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(ingestor, "batchSize", 500);
+        ReflectionTestUtils.setField(ingestor, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(ingestor, "offerTimeoutMs", 0L);
+    }
+
+    @Test
+    void workerWritesSubmittedEvents() {
+        ingestor.start();
+        try {
+            ingestor.submit(new ViewEvent(1L, "content", 5L, 30, 40));
+
+            verify(viewHistoryMapper, timeout(2000)).batchInsertOrUpdate(List.of(new ViewEvent(1L, "content", 5L, 30, 40)));
+        } finally {
+            ingestor.stop();
+        }
+    }
+
+    @Test
+    void coalescesEventsPerUserAndTarget() {
+        useIdleWorker(10);
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 30, 40));
+        ingestor.submit(new ViewEvent(2L, "content", 5L, 10, 10));
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 20, 90));
+
+        ingestor.stop();
+
+        verify(viewHistoryMapper).batchInsertOrUpdate(List.of(
+                new ViewEvent(1L, "content", 5L, 50, 90),
+                new ViewEvent(2L, "content", 5L, 10, 10)));
+        assertEquals(2L, ingestor.getMetrics().get("writtenRows"));
+    }
+
+    @Test
+    void fullQueueWritesOnCallerThread() {
+        useIdleWorker(1);
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 30, 40));
+        ingestor.submit(new ViewEvent(1L, "map", 2L, 10, 0));
+
+        verify(viewHistoryMapper).batchInsertOrUpdate(List.of(new ViewEvent(1L, "map", 2L, 10, 0)));
+        assertEquals(1L, ingestor.getMetrics().get("syncFallbackEvents"));
+        assertEquals(1, ingestor.getMetrics().get("queueDepth"));
+    }
+
+    @Test
+    void failedWriteIsRetriedThenDeadLettered() {
+        useIdleWorker(1);
+        when(viewHistoryMapper.batchInsertOrUpdate(anyList())).thenThrow(new RuntimeException("db down"));
+        when(redisUtils.rightPushAll(eq(DEAD_LETTER_KEY), anyList())).thenReturn(1L);
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 30, 40));
+
+        ingestor.stop();
+
+        verify(viewHistoryMapper, times(2)).batchInsertOrUpdate(anyList());
+        verify(redisUtils).rightPushAll(DEAD_LETTER_KEY, List.of("1,content,5,30,40"));
+        assertEquals(1L, ingestor.getMetrics().get("deadLetteredRows"));
+        assertEquals(0L, ingestor.getMetrics().get("failedEvents"));
+    }
+
+    @Test
+    void eventsAreCountedAsFailedWhenDeadLetterUnavailable() {
+        useIdleWorker(2);
+        when(viewHistoryMapper.batchInsertOrUpdate(anyList())).thenThrow(new RuntimeException("db down"));
+        when(redisUtils.rightPushAll(eq(DEAD_LETTER_KEY), anyList())).thenReturn(0L);
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 30, 40));
+        ingestor.submit(new ViewEvent(1L, "content", 5L, 10, 50));
+
+        ingestor.stop();
+
+        assertEquals(2L, ingestor.getMetrics().get("failedEvents"));
+    }
+
+    @Test
+    void replaysDeadLettersUntilEmpty() {
+        useIdleWorker(1);
+        when(redisUtils.leftPop(DEAD_LETTER_KEY, 500)).thenReturn(List.of("1,content,5,30,40"), List.of());
+
+        ingestor.replayDeadLetters();
+
+        verify(viewHistoryMapper).batchInsertOrUpdate(List.of(new ViewEvent(1L, "content", 5L, 30, 40)));
+        assertEquals(1L, ingestor.getMetrics().get("replayedRows"));
+    }
+
+    @Test
+    void failedReplayPushesRowsBack() {
+        useIdleWorker(1);
+        when(redisUtils.leftPop(DEAD_LETTER_KEY, 500)).thenReturn(List.of("1,content,5,30,40"));
+        when(viewHistoryMapper.batchInsertOrUpdate(anyList())).thenThrow(new RuntimeException("db down"));
+
+        ingestor.replayDeadLetters();
+
+        verify(redisUtils).rightPushAll(DEAD_LETTER_KEY, List.of("1,content,5,30,40"));
+        verify(redisUtils, times(1)).leftPop(anyString(), anyLong());
+        verify(viewHistoryMapper, times(1)).batchInsertOrUpdate(anyList());
+        assertEquals(0L, ingestor.getMetrics().get("replayedRows"));
+    }
+
+    @Test
+    void stopWithEmptyQueueWritesNothing() {
+        useIdleWorker(1);
+
+        ingestor.stop();
+
+        verify(viewHistoryMapper, never()).batchInsertOrUpdate(anyList());
+    }
+
+    /**
+     * 不启动后台线程，事件留在队列中直到stop时统一写入，便于确定合并结果
+     */
+    private void useIdleWorker(int capacity) {
+        ReflectionTestUtils.setField(ingestor, "queue", new ArrayBlockingQueue<ViewEvent>(capacity));
+        ReflectionTestUtils.setField(ingestor, "worker", new Thread(() -> { }));
+    }
+}
@@ -0,0 +1,160 @@
+package com.escape.ingest;
+
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 观看进度缓冲测试：心跳记录、读取缓冲进度、定时取出提交和失败放回
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewProgressBufferTest {
+
+    private static final List<String> KEYS = List.of("view:progress:1", "view:progress:dirty");
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private ViewHistoryIngestor viewHistoryIngestor;
+
+    @InjectMocks
+    private ViewProgressBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "maxFlushUsers", 5000);
+    }
+
+    @Test
+    void recordsHeartbeatWithoutDraining() {
+        when(redisUtils.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        assertTrue(buffer.record(1L, "content", 5L, 10, 40));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisUtils).execute(any(RedisScript.class), eq(KEYS), args.capture());
+        List<Object> values = List.of(args.getValue());
+        assertEquals(List.of("content:5", "10", "40"), values.subList(0, 3));
+        assertEquals(List.of("604800", "1"), values.subList(4, 6));
+        verify(viewHistoryIngestor, never()).submit(any());
+    }
+
+    @Test
+    void redisUnavailableFallsBackToCaller() {
+        assertFalse(buffer.record(1L, "content", 5L, 10, 40));
+    }
+
+    @Test
+    void finishedVideoIsDrainedImmediately() {
+        when(redisUtils.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        when(redisUtils.execute(any(RedisScript.class), eq(KEYS), eq("100"), eq("1")))
+                .thenReturn(List.of("content:5", "25", "100"));
+
+        assertTrue(buffer.record(1L, "content", 5L, 10, 100));
+
+        verify(viewHistoryIngestor).submit(new ViewEvent(1L, "content", 5L, 25, 100));
+    }
+
+    @Test
+    void readsBufferedProgress() {
+        when(redisUtils.hGet("view:progress:1", "content:5:p")).thenReturn("40");
+
+        assertEquals(40, buffer.getProgress(1L, "content", 5L));
+        assertNull(buffer.getProgress(1L, "content", 6L));
+    }
+
+    @Test
+    void progressByTypeIsOrderedByLatestHeartbeat() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("content:5:p", "40");
+        fields.put("content:5:t", "1000");
+        fields.put("content:6:p", "70");
+        fields.put("content:6:t", "3000");
+        fields.put("map:6:p", "10");
+        fields.put("map:6:t", "5000");
+        when(redisUtils.hGetAll("view:progress:1")).thenReturn(fields);
+
+        Map<Long, Integer> progress = buffer.getProgressByType(1L, "content");
+
+        assertEquals(List.of(6L, 5L), List.copyOf(progress.keySet()));
+        assertEquals(70, progress.get(6L));
+    }
+
+    @Test
+    void flushSubmitsDrainedTargetsOfDirtyUsers() {
+        when(redisUtils.sRandMembers("view:progress:dirty", 200)).thenReturn(Set.of("1"), Set.of());
+        when(redisUtils.execute(any(RedisScript.class), eq(KEYS), eq("100"), eq("1")))
+                .thenReturn(List.of("content:5", "30", "40", "map:2", "12", "0"));
+
+        buffer.flush();
+
+        verify(viewHistoryIngestor).submit(new ViewEvent(1L, "content", 5L, 30, 40));
+        verify(viewHistoryIngestor).submit(new ViewEvent(1L, "map", 2L, 12, 0));
+    }
+
+    @Test
+    void flushStopsWhenDrainFails() {
+        when(redisUtils.sRandMembers("view:progress:dirty", 200)).thenReturn(Set.of("1"));
+
+        buffer.flush();
+
+        verify(redisUtils, times(1)).sRandMembers(anyString(), anyLong());
+        verify(viewHistoryIngestor, never()).submit(any());
+    }
+
+    @Test
+    void flushIsBoundedPerRun() {
+        ReflectionTestUtils.setField(buffer, "maxFlushUsers", 1);
+        when(redisUtils.sRandMembers("view:progress:dirty", 200)).thenReturn(Set.of("1"));
+        when(redisUtils.execute(any(RedisScript.class), eq(KEYS), eq("100"), eq("1"))).thenReturn(List.of());
+
+        buffer.flush();
+
+        verify(redisUtils, times(1)).sRandMembers(anyString(), anyLong());
+    }
+
+    @Test
+    void unsubmittedTargetsAreRestored() {
+        when(redisUtils.sRandMembers("view:progress:dirty", 200)).thenReturn(Set.of("1"), Set.of());
+        when(redisUtils.execute(any(RedisScript.class), eq(KEYS), eq("100"), eq("1")))
+                .thenReturn(List.of("content:5", "30", "40", "map:2", "12", "0"));
+        // 第二个目标提交失败
+        doNothing().doThrow(new IllegalStateException("queue closed")).when(viewHistoryIngestor).submit(any());
+
+        buffer.flush();
+
+        verify(redisUtils).execute(any(RedisScript.class), eq(KEYS), eq("604800"), eq("1"),
+                eq("map:2"), eq("12"), eq("0"));
+    }
+}
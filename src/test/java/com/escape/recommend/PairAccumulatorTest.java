@@ -0,0 +1,61 @@
+package com.escape.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 物品对权重累加器与 {@link HashMap} 对照测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PairAccumulatorTest {
+
+    @Test
+    void matchesHashMapAcrossResizes() {
+        Random random = new Random(23);
+        // 初始容量很小，累加过程中多次扩容
+        PairAccumulator accumulator = new PairAccumulator(1);
+        Map<Long, Float> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            int a = random.nextInt(2000);
+            int b = random.nextInt(2000);
+            if (a == b) {
+                continue;
+            }
+            float delta = random.nextFloat();
+            accumulator.add(a, b, delta);
+            expected.merge(key(a, b), delta, Float::sum);
+        }
+
+        assertEquals(expected.size(), accumulator.size());
+        Map<Long, Float> actual = new HashMap<>();
+        accumulator.forEach((a, b, weight) -> {
+            assertTrue(a < b, "小下标在前");
+            actual.put(key(a, b), weight);
+        });
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void orderOfPairDoesNotMatter() {
+        PairAccumulator accumulator = new PairAccumulator(16);
+        accumulator.add(7, 3, 1f);
+        accumulator.add(3, 7, 2f);
+        accumulator.add(0, Integer.MAX_VALUE, 0.5f);
+
+        Map<Long, Float> actual = new HashMap<>();
+        accumulator.forEach((a, b, weight) -> actual.put(key(a, b), weight));
+        assertEquals(Map.of(key(3, 7), 3f, key(0, Integer.MAX_VALUE), 0.5f), actual);
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
@@ -0,0 +1,170 @@
+package com.escape.recommend;
+
+import com.escape.entity.Content;
+import com.escape.entity.ContentTag;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.ContentTagMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 相关内容索引（MinHash + LSH）测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class RelatedContentIndexTest {
+
+    @Mock
+    private ContentMapper contentMapper;
+
+    @Mock
+    private ContentTagMapper contentTagMapper;
+
+    @Mock
+    private TaskExecutor taskExecutor;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private RelatedContentIndex index;
+
+    private final List<Content> contents = new ArrayList<>();
+    private final List<ContentTag> contentTags = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "relatedCount", 20);
+    }
+
+    @Test
+    void ranksByExactJaccardSimilarity() {
+        addContent(1L, 1L, 1L, 1L, 2L, 3L);
+        addContent(2L, 1L, 1L, 1L, 2L, 3L);
+        addContent(3L, 1L, 2L, 1L, 2L, 3L);
+        addContent(4L, 9L, null, 7L, 8L);
+        addContent(5L, null, null);
+        rebuild();
+
+        Map<Long, Float> related = index.related(1L, 10);
+        assertEquals(List.of(2L, 3L), new ArrayList<>(related.keySet()));
+        assertEquals(1f, related.get(2L));
+        // 特征 {标签1,2,3, 英雄1, 地图1} 与 {标签1,2,3, 英雄1, 地图2}：交集4，并集6
+        assertEquals(4f / 6, related.get(3L), 1e-6);
+        assertTrue(index.related(4L, 10).isEmpty());
+        assertTrue(index.related(5L, 10).isEmpty());
+        assertEquals(1, index.related(1L, 1).size());
+    }
+
+    @Test
+    void findsHighlySimilarContentsAmongMany() {
+        Random random = new Random(29);
+        Map<Long, Set<Long>> features = new HashMap<>();
+        for (long id = 1; id <= 400; id++) {
+            Set<Long> tags = new HashSet<>();
+            if (id > 200) {
+                // 后一半是前一半的近似副本：增删一个标签
+                tags.addAll(features.get(id - 200));
+                tags.remove(tags.iterator().next());
+                tags.add(1000 + id);
+            } else {
+                int size = 4 + random.nextInt(5);
+                while (tags.size() < size) {
+                    tags.add((long) random.nextInt(60));
+                }
+            }
+            features.put(id, tags);
+            addContent(id, null, null, tags.stream().mapToLong(Long::longValue).toArray());
+        }
+        ReflectionTestUtils.setField(index, "relatedCount", 400);
+        rebuild();
+
+        int pairs = 0;
+        for (long id = 1; id <= 400; id++) {
+            Map<Long, Float> related = index.related(id, 400);
+            assertFalse(related.containsKey(id));
+
+            float previous = Float.MAX_VALUE;
+            for (Map.Entry<Long, Float> entry : related.entrySet()) {
+                assertEquals(jaccard(features.get(id), features.get(entry.getKey())), entry.getValue(), 1e-6);
+                assertTrue(entry.getValue() <= previous, "按相似度降序");
+                previous = entry.getValue();
+            }
+
+            // 相似度0.6以上的内容大概率同桶，对固定种子应全部找到
+            for (long other = 1; other <= 400; other++) {
+                if (other != id && jaccard(features.get(id), features.get(other)) >= 0.6f) {
+                    assertTrue(related.containsKey(other), id + " -> " + other);
+                    pairs++;
+                }
+            }
+        }
+        assertTrue(pairs >= 400, "近似副本对数: " + pairs);
+    }
+
+    @Test
+    void reindexDropsUnpublishedContent() {
+        addContent(1L, 1L, 1L, 1L, 2L);
+        addContent(2L, 1L, 1L, 1L, 2L);
+        rebuild();
+        assertEquals(1, index.related(2L, 10).size());
+
+        Content unpublished = new Content();
+        unpublished.setId(2L);
+        unpublished.setStatus(0);
+        when(contentMapper.selectById(2L)).thenReturn(unpublished);
+        index.reindex(2L);
+
+        assertTrue(index.related(2L, 10).isEmpty());
+    }
+
+    private void rebuild() {
+        when(contentMapper.selectList(any())).thenReturn(contents, List.of());
+        when(contentTagMapper.selectList(any())).thenReturn(contentTags);
+        index.rebuild();
+    }
+
+    private void addContent(Long id, Long heroId, Long mapId, long... tagIds) {
+        Content content = new Content();
+        content.setId(id);
+        content.setHeroId(heroId);
+        content.setMapId(mapId);
+        content.setStatus(1);
+        contents.add(content);
+        for (long tagId : tagIds) {
+            ContentTag contentTag = new ContentTag();
+            contentTag.setContentId(id);
+            contentTag.setTagId(tagId);
+            contentTags.add(contentTag);
+        }
+    }
+
+    private static float jaccard(Set<Long> a, Set<Long> b) {
+        Set<Long> common = new HashSet<>(a);
+        common.retainAll(b);
+        return (float) common.size() / (a.size() + b.size() - common.size());
+    }
+}
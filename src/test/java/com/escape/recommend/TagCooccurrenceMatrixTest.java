@@ -0,0 +1,242 @@
+package com.escape.recommend;
+
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.entity.ContentTag;
+import com.escape.mapper.ContentTagMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 标签共现矩阵测试：快照往返、增量广播与应用、快照写入选举
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class TagCooccurrenceMatrixTest {
+
+    private static final String SNAPSHOT_KEY = "tag-cooccurrence:snapshot";
+    private static final String SNAPSHOT_LOCK_KEY = "tag-cooccurrence:snapshot:lock";
+    private static final long LARGE_TAG = 1_000_000_000_000L;
+
+    @Mock
+    private ContentTagMapper contentTagMapper;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    private List<ContentTag> rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = new ArrayList<>();
+        long id = 1;
+        long[][] contents = {{1, 2, 3}, {1, 2}, {2, 3, 4}, {5}, {4, LARGE_TAG}};
+        for (int content = 0; content < contents.length; content++) {
+            for (long tagId : contents[content]) {
+                ContentTag row = new ContentTag();
+                row.setId(id++);
+                row.setContentId(content + 1L);
+                row.setTagId(tagId);
+                rows.add(row);
+            }
+        }
+    }
+
+    @Test
+    void snapshotRoundTripRestoresMatrix() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11));
+        TagCooccurrenceMatrix source = newMatrix();
+        source.rebuild();
+        String snapshot = capturedSnapshot();
+
+        Map<Long, Integer> expected = new LinkedHashMap<>();
+        expected.put(1L, 2);
+        expected.put(3L, 2);
+        expected.put(4L, 1);
+        assertEquals(expected, source.related(2L, 10));
+
+        clearInvocations(contentTagMapper);
+        when(redisUtils.get(SNAPSHOT_KEY)).thenReturn(snapshot);
+        TagCooccurrenceMatrix loaded = newMatrix();
+        loaded.loadOnStartup();
+
+        verify(contentTagMapper, never()).selectList(any());
+        for (long tagId : new long[]{1, 2, 3, 4, 5, LARGE_TAG}) {
+            assertEquals(source.related(tagId, 10), loaded.related(tagId, 10), "tag " + tagId);
+        }
+        assertEquals(Map.of(4L, 1), loaded.related(LARGE_TAG, 10));
+        assertTrue(loaded.related(5L, 10).isEmpty());
+    }
+
+    @Test
+    void incrementalChangesArePersisted() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11), watermark(13, 12));
+        TagCooccurrenceMatrix source = newMatrix();
+        source.rebuild();
+        capturedSnapshot();
+
+        // 内容4的标签从{5}变为{5, 1, 2}
+        source.onContentTagsChanged(List.of(5L), List.of(5L, 1L, 2L));
+        when(redisUtils.setIfAbsent(eq(SNAPSHOT_LOCK_KEY), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+        source.persist();
+        String snapshot = capturedSnapshot();
+
+        clearInvocations(contentTagMapper);
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(13, 12));
+        when(redisUtils.get(SNAPSHOT_KEY)).thenReturn(snapshot);
+        TagCooccurrenceMatrix loaded = newMatrix();
+        loaded.loadOnStartup();
+
+        verify(contentTagMapper, never()).selectList(any());
+        assertEquals(Map.of(1L, 1, 2L, 1), loaded.related(5L, 10));
+        assertEquals(3, loaded.related(1L, 10).get(2L));
+    }
+
+    @Test
+    void staleSnapshotIsRebuilt() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11));
+        TagCooccurrenceMatrix source = newMatrix();
+        source.rebuild();
+        String snapshot = capturedSnapshot();
+
+        // 快照写入后content_tags新增了一行
+        ContentTag added = new ContentTag();
+        added.setId(12L);
+        added.setContentId(4L);
+        added.setTagId(1L);
+        List<ContentTag> current = new ArrayList<>(rows);
+        current.add(9, added);
+        when(contentTagMapper.selectList(any())).thenReturn(current, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(12, 12));
+        when(redisUtils.get(SNAPSHOT_KEY)).thenReturn(snapshot);
+        TagCooccurrenceMatrix loaded = newMatrix();
+        loaded.loadOnStartup();
+
+        assertEquals(Map.of(1L, 1), loaded.related(5L, 10));
+    }
+
+    @Test
+    void deltaIsBroadcastAndAppliedRemotely() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of(), rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11));
+        TagCooccurrenceMatrix local = newMatrix();
+        TagCooccurrenceMatrix remote = newMatrix();
+        local.rebuild();
+        remote.rebuild();
+        clearInvocations(redisUtils);
+
+        local.onContentTagsChanged(List.of(5L), List.of(5L, 1L));
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisUtils).publish(eq(CacheInvalidationListener.CHANNEL), message.capture());
+        String prefix = CacheInvalidationListener.reindexMessage(TagCooccurrenceMatrix.INDEX_NAME, "");
+        assertTrue(message.getValue().startsWith(prefix));
+
+        remote.applyRemote(message.getValue().substring(prefix.length()));
+
+        assertEquals(Map.of(1L, 1), remote.related(5L, 10));
+        for (long tagId : new long[]{1, 2, 3, 4, 5, LARGE_TAG}) {
+            assertEquals(local.related(tagId, 10), remote.related(tagId, 10), "tag " + tagId);
+        }
+    }
+
+    @Test
+    void onlyLockHolderPersistsDeltas() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11));
+        TagCooccurrenceMatrix matrix = newMatrix();
+        matrix.rebuild();
+        capturedSnapshot();
+
+        matrix.applyRemote("5|1,5");
+        when(redisUtils.setIfAbsent(eq(SNAPSHOT_LOCK_KEY), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(false);
+        matrix.persist();
+
+        verify(redisUtils, never()).set(eq(SNAPSHOT_KEY), anyString(), anyLong(), any());
+        // 没有新的增量时不再抢锁
+        clearInvocations(redisUtils);
+        matrix.persist();
+        verify(redisUtils, never()).setIfAbsent(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void mergeRebuildIsBroadcastAndRemoteRebuildPersists() {
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        when(contentTagMapper.selectWatermark()).thenReturn(watermark(11, 11));
+        TagCooccurrenceMatrix matrix = newMatrix();
+
+        matrix.rebuildAfterCommit();
+
+        verify(redisUtils).publish(eq(CacheInvalidationListener.CHANNEL),
+                eq(CacheInvalidationListener.reindexMessage(TagCooccurrenceMatrix.INDEX_NAME,
+                        CacheInvalidationListener.REINDEX_ALL)));
+        capturedSnapshot();
+
+        when(contentTagMapper.selectList(any())).thenReturn(rows, List.of());
+        TagCooccurrenceMatrix remote = newMatrix();
+        remote.applyRemote(CacheInvalidationListener.REINDEX_ALL);
+
+        assertEquals(2, remote.related(2L, 10).get(1L));
+        verify(redisUtils, never()).setIfAbsent(anyString(), anyString(), anyLong(), any());
+        capturedSnapshot();
+    }
+
+    @Test
+    void malformedRemoteDeltaIsIgnored() {
+        TagCooccurrenceMatrix matrix = newMatrix();
+
+        matrix.applyRemote("1,2");
+
+        assertTrue(matrix.related(1L, 10).isEmpty());
+    }
+
+    private TagCooccurrenceMatrix newMatrix() {
+        TagCooccurrenceMatrix matrix = new TagCooccurrenceMatrix();
+        ReflectionTestUtils.setField(matrix, "contentTagMapper", contentTagMapper);
+        ReflectionTestUtils.setField(matrix, "redisUtils", redisUtils);
+        ReflectionTestUtils.setField(matrix, "taskExecutor", (TaskExecutor) Runnable::run);
+        ReflectionTestUtils.setField(matrix, "snapshotTtlDays", 30L);
+        ReflectionTestUtils.setField(matrix, "snapshotIntervalMs", 300000L);
+        return matrix;
+    }
+
+    private String capturedSnapshot() {
+        ArgumentCaptor<String> snapshot = ArgumentCaptor.forClass(String.class);
+        verify(redisUtils).set(eq(SNAPSHOT_KEY), snapshot.capture(), anyLong(), eq(TimeUnit.DAYS));
+        clearInvocations(redisUtils);
+        return snapshot.getValue();
+    }
+
+    private static Map<String, Object> watermark(long maxId, long total) {
+        return Map.of("max_id", maxId, "total", total);
+    }
+}
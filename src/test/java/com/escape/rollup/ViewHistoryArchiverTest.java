@@ -0,0 +1,61 @@
+package com.escape.rollup;
+
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.mapper.ViewHistoryUserSummaryMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 浏览历史归档测试：先累加用户汇总、再复制到归档表、最后删除
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewHistoryArchiverTest {
+
+    private static final LocalDateTime BEFORE_TIME = LocalDateTime.of(2026, 4, 20, 0, 0);
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Mock
+    private ViewHistoryUserSummaryMapper userSummaryMapper;
+
+    @InjectMocks
+    private ViewHistoryArchiver archiver;
+
+    @Test
+    void accumulatesSummaryBeforeMovingRows() {
+        List<Long> ids = List.of(3L, 4L, 9L);
+        when(viewHistoryMapper.findIdsBefore(BEFORE_TIME, 1000)).thenReturn(ids);
+        when(viewHistoryMapper.deleteByIds(ids)).thenReturn(3);
+
+        assertEquals(3, archiver.archiveChunk(BEFORE_TIME, 1000));
+
+        InOrder order = inOrder(userSummaryMapper, viewHistoryMapper);
+        order.verify(userSummaryMapper).accumulateByHistoryIds(ids);
+        order.verify(viewHistoryMapper).copyToArchive(ids);
+        order.verify(viewHistoryMapper).deleteByIds(ids);
+    }
+
+    @Test
+    void nothingToArchiveReturnsZero() {
+        when(viewHistoryMapper.findIdsBefore(BEFORE_TIME, 1000)).thenReturn(List.of());
+
+        assertEquals(0, archiver.archiveChunk(BEFORE_TIME, 1000));
+        verifyNoInteractions(userSummaryMapper);
+    }
+}
@@ -0,0 +1,149 @@
+package com.escape.rollup;
+
+import com.escape.mapper.ViewHistoryTargetDailyMapper;
+import com.escape.mapper.ViewHistoryUserDailyMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 浏览历史汇总与归档任务测试：按天汇总、单日失败不影响其他日期、分块归档、按锁执行
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewHistoryRollupJobTest {
+
+    private static final String ARCHIVE_LOCK_KEY = "rollup:view-history:archive:lock";
+
+    @Mock
+    private ViewHistoryUserDailyMapper userDailyMapper;
+
+    @Mock
+    private ViewHistoryTargetDailyMapper targetDailyMapper;
+
+    @Mock
+    private ViewHistoryArchiver viewHistoryArchiver;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private ViewHistoryRollupJob job;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(job, "lookbackDays", 1);
+        ReflectionTestUtils.setField(job, "retentionDays", 180);
+        ReflectionTestUtils.setField(job, "chunkSize", 1000);
+        ReflectionTestUtils.setField(job, "pauseMs", 0L);
+        ReflectionTestUtils.setField(job, "maxChunks", 500);
+    }
+
+    @Test
+    void rollsUpEachDayInRange() {
+        LocalDateTime first = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime second = first.plusDays(1);
+        when(userDailyMapper.rollup(first, second)).thenReturn(3);
+        when(targetDailyMapper.rollup(first, second)).thenReturn(2);
+        when(userDailyMapper.rollup(second, second.plusDays(1))).thenReturn(1);
+        when(targetDailyMapper.rollup(second, second.plusDays(1))).thenReturn(1);
+
+        assertEquals(7, job.rollup(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 3)));
+    }
+
+    @Test
+    void failedDayDoesNotStopLaterDays() {
+        LocalDateTime first = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime second = first.plusDays(1);
+        when(userDailyMapper.rollup(first, second)).thenThrow(new RuntimeException("lock wait timeout"));
+        when(userDailyMapper.rollup(second, second.plusDays(1))).thenReturn(4);
+        when(targetDailyMapper.rollup(second, second.plusDays(1))).thenReturn(2);
+
+        assertEquals(6, job.rollup(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 3)));
+        verify(targetDailyMapper, never()).rollup(first, second);
+    }
+
+    @Test
+    void scheduledRollupCoversLookbackDaysBeforeToday() {
+        when(redisUtils.setIfAbsent("rollup:view-history:lock", "1", 30, TimeUnit.MINUTES)).thenReturn(true);
+
+        job.rollup();
+
+        LocalDateTime yesterday = LocalDate.now().minusDays(1).atStartOfDay();
+        verify(userDailyMapper).rollup(yesterday, yesterday.plusDays(1));
+        verify(targetDailyMapper).rollup(yesterday, yesterday.plusDays(1));
+    }
+
+    @Test
+    void scheduledRollupSkippedWithoutLock() {
+        when(redisUtils.setIfAbsent("rollup:view-history:lock", "1", 30, TimeUnit.MINUTES)).thenReturn(false);
+
+        job.rollup();
+
+        verify(userDailyMapper, never()).rollup(any(), any());
+    }
+
+    @Test
+    void archivesChunksUntilNothingLeft() {
+        LocalDateTime beforeTime = LocalDate.now().minusDays(180).atStartOfDay();
+        when(redisUtils.setIfAbsent(ARCHIVE_LOCK_KEY, "1", 2, TimeUnit.HOURS)).thenReturn(true);
+        when(viewHistoryArchiver.archiveChunk(beforeTime, 1000)).thenReturn(1000, 400, 0);
+
+        job.archive();
+
+        verify(viewHistoryArchiver, times(3)).archiveChunk(beforeTime, 1000);
+        verify(redisUtils).delete(ARCHIVE_LOCK_KEY);
+    }
+
+    @Test
+    void archiveStopsAfterMaxChunks() {
+        ReflectionTestUtils.setField(job, "maxChunks", 2);
+        when(redisUtils.setIfAbsent(ARCHIVE_LOCK_KEY, "1", 2, TimeUnit.HOURS)).thenReturn(true);
+        when(viewHistoryArchiver.archiveChunk(any(), anyInt())).thenReturn(1000);
+
+        job.archive();
+
+        verify(viewHistoryArchiver, times(2)).archiveChunk(any(), anyInt());
+    }
+
+    @Test
+    void failedChunkReleasesArchiveLock() {
+        when(redisUtils.setIfAbsent(ARCHIVE_LOCK_KEY, "1", 2, TimeUnit.HOURS)).thenReturn(true);
+        when(viewHistoryArchiver.archiveChunk(any(), anyInt())).thenReturn(1000)
+                .thenThrow(new RuntimeException("deadlock"));
+
+        job.archive();
+
+        verify(viewHistoryArchiver, times(2)).archiveChunk(any(), anyInt());
+        verify(redisUtils).delete(ARCHIVE_LOCK_KEY);
+    }
+
+    @Test
+    void archiveSkippedWithoutLock() {
+        when(redisUtils.setIfAbsent(ARCHIVE_LOCK_KEY, "1", 2, TimeUnit.HOURS)).thenReturn(false);
+
+        job.archive();
+
+        verify(viewHistoryArchiver, never()).archiveChunk(any(), anyInt());
+        verify(redisUtils, never()).delete(ARCHIVE_LOCK_KEY);
+    }
+}
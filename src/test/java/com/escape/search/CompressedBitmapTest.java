@@ -0,0 +1,167 @@
+package com.escape.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 压缩位图与 {@link BitSet} 对照测试
+ * 覆盖数组/位图两种容器、4096个元素的转换边界以及跨多个16位分块的运算
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class CompressedBitmapTest {
+
+    private static final int CHUNK = 1 << 16;
+    private static final int ARRAY_MAX = 4096;
+
+    @Test
+    void addRemoveAndContainsMatchBitSet() {
+        Random random = new Random(1);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 50000; i++) {
+            int value = random.nextInt(3 * CHUNK);
+            if (random.nextInt(4) == 0) {
+                bitmap.remove(value);
+                expected.clear(value);
+            } else {
+                bitmap.add(value);
+                expected.set(value);
+            }
+        }
+        assertBitmapEquals(expected, bitmap);
+        for (int value = 0; value < 3 * CHUNK; value += 7) {
+            assertEquals(expected.get(value), bitmap.contains(value), "contains " + value);
+        }
+    }
+
+    @Test
+    void convertsAtArrayLimitInBothDirections() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < ARRAY_MAX; i++) {
+            bitmap.add(i * 3);
+            expected.set(i * 3);
+        }
+        assertBitmapEquals(expected, bitmap);
+
+        // 第4097个元素转为位图
+        bitmap.add(1);
+        expected.set(1);
+        assertBitmapEquals(expected, bitmap);
+
+        // 删回4096个元素转回数组
+        bitmap.remove(1);
+        expected.clear(1);
+        assertBitmapEquals(expected, bitmap);
+        bitmap.add(2);
+        expected.set(2);
+        assertBitmapEquals(expected, bitmap);
+    }
+
+    @Test
+    void removingLastValueDropsChunk() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(5);
+        bitmap.add(CHUNK + 5);
+        bitmap.remove(5);
+        assertArrayEquals(new int[]{CHUNK + 5}, bitmap.toArray());
+        bitmap.remove(CHUNK + 5);
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void setOperationsMatchBitSetAcrossContainerKinds() {
+        // 每个分块的元素数：稀疏、恰好4096、4097、稠密，覆盖数组与位图的各种组合
+        int[][] densities = {
+                {100, 5000, 0, ARRAY_MAX, 30000},
+                {ARRAY_MAX + 1, 50, 20000, ARRAY_MAX, 0},
+                {0, 40000, 3000, 10, ARRAY_MAX + 1},
+        };
+        Random random = new Random(7);
+        for (int[] left : densities) {
+            for (int[] right : densities) {
+                BitSet expectedA = new BitSet();
+                BitSet expectedB = new BitSet();
+                CompressedBitmap a = randomBitmap(random, left, expectedA);
+                CompressedBitmap b = randomBitmap(random, right, expectedB);
+                assertOperations(a, expectedA, b, expectedB);
+            }
+        }
+    }
+
+    @Test
+    void operationsDoNotModifyArguments() {
+        Random random = new Random(11);
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        CompressedBitmap a = randomBitmap(random, new int[]{5000, 100}, expectedA);
+        CompressedBitmap b = randomBitmap(random, new int[]{100, 5000}, expectedB);
+
+        CompressedBitmap.and(a, b);
+        CompressedBitmap.or(a, b);
+        CompressedBitmap.andNot(a, b);
+        CompressedBitmap.andNot(b, a);
+
+        assertBitmapEquals(expectedA, a);
+        assertBitmapEquals(expectedB, b);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 5000; i++) {
+            bitmap.add(i);
+        }
+        CompressedBitmap copy = bitmap.copy();
+        copy.remove(0);
+        copy.add(CHUNK);
+        assertTrue(bitmap.contains(0));
+        assertEquals(5000, bitmap.cardinality());
+        assertEquals(5000, copy.cardinality());
+    }
+
+    private static void assertOperations(CompressedBitmap a, BitSet expectedA, CompressedBitmap b, BitSet expectedB) {
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+        BitSet andNot = (BitSet) expectedA.clone();
+        andNot.andNot(expectedB);
+
+        assertBitmapEquals(and, CompressedBitmap.and(a, b));
+        assertBitmapEquals(or, CompressedBitmap.or(a, b));
+        assertBitmapEquals(andNot, CompressedBitmap.andNot(a, b));
+        assertEquals(and.cardinality(), CompressedBitmap.andCardinality(a, b));
+        assertEquals(and.cardinality(), CompressedBitmap.andCardinality(b, a));
+    }
+
+    private static CompressedBitmap randomBitmap(Random random, int[] perChunk, BitSet expected) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int chunk = 0; chunk < perChunk.length; chunk++) {
+            int base = chunk * CHUNK;
+            BitSet values = new BitSet();
+            while (values.cardinality() < perChunk[chunk]) {
+                values.set(random.nextInt(CHUNK));
+            }
+            values.stream().forEach(low -> {
+                bitmap.add(base + low);
+                expected.set(base + low);
+            });
+        }
+        return bitmap;
+    }
+
+    private static void assertBitmapEquals(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+}
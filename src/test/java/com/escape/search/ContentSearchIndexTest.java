@@ -0,0 +1,156 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.escape.entity.Content;
+import com.escape.mapper.ContentMapper;
+import com.escape.mapper.TagMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内容搜索索引测试：BM25排序、字段权重、类型过滤、分页和增量更新
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ContentSearchIndexTest {
+
+    @Mock
+    private ContentMapper contentMapper;
+
+    @Mock
+    private TagMapper tagMapper;
+
+    @Mock
+    private TaskExecutor taskExecutor;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private ContentSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(contentMapper.selectList(any())).thenReturn(List.of(
+                content(1L, "Jett 烟雾弹 教学", "基础投掷", "video"),
+                content(2L, "Sova 侦查箭", "Jett 也能用的烟雾弹技巧 烟雾弹", "article"),
+                content(3L, "Omen 传送", "进攻路线", "video")), List.of());
+        when(tagMapper.findByContentIds(anyList())).thenReturn(List.of(
+                Map.of("content_id", 2L, "tag_name", "教学")));
+        index.rebuild();
+    }
+
+    @Test
+    void titleMatchRanksAboveDescriptionMatch() {
+        assertArrayEquals(new long[]{1, 2}, ids(index.search("烟雾弹", null, 1, 10)));
+        assertArrayEquals(new long[]{1, 2}, ids(index.search("JETT", null, 1, 10)));
+    }
+
+    @Test
+    void tagsAreSearchable() {
+        assertArrayEquals(new long[]{1, 2}, ids(index.search("教学", null, 1, 10)));
+    }
+
+    @Test
+    void filtersByContentType() {
+        assertArrayEquals(new long[]{2}, ids(index.search("烟雾弹", "article", 1, 10)));
+        IPage<Content> videos = index.search("omen 烟雾弹", "video", 1, 10);
+        assertEquals(2, videos.getTotal());
+        assertArrayEquals(new long[]{1, 3}, Arrays.stream(ids(videos)).sorted().toArray());
+    }
+
+    @Test
+    void pagesThroughMatches() {
+        IPage<Content> first = index.search("jett omen", null, 1, 2);
+        IPage<Content> second = index.search("jett omen", null, 2, 2);
+        assertEquals(3, first.getTotal());
+        assertEquals(2, first.getRecords().size());
+        assertEquals(1, second.getRecords().size());
+        assertEquals(0, index.search("jett omen", null, 3, 2).getRecords().size());
+    }
+
+    @Test
+    void singleCjkCharacterMatchesInsideWords() {
+        assertArrayEquals(new long[]{1, 2}, ids(index.search("烟", null, 1, 10)));
+        assertArrayEquals(new long[]{3}, ids(index.search("送", null, 1, 10)));
+    }
+
+    @Test
+    void clampsInvalidPaging() {
+        IPage<Content> page = index.search("jett omen", null, 0, 2);
+        assertEquals(1, page.getCurrent());
+        assertEquals(2, page.getRecords().size());
+        assertEquals(2, index.search("jett omen", null, -5, 2).getRecords().size());
+        assertEquals(1, index.search("jett omen", null, 1, 0).getRecords().size());
+        assertEquals(1, index.search("jett omen", null, 1, -1).getRecords().size());
+    }
+
+    @Test
+    void collectsAllMatchedIds() {
+        CompressedBitmap matched = new CompressedBitmap();
+        index.search("烟雾弹", null, 1, 1, matched);
+        assertArrayEquals(new int[]{1, 2}, matched.toArray());
+    }
+
+    @Test
+    void unmatchedOrEmptyKeywordReturnsNothing() {
+        assertEquals(0, index.search("viper", null, 1, 10).getTotal());
+        assertEquals(0, index.search("  ", null, 1, 10).getRecords().size());
+    }
+
+    @Test
+    void reindexRemovesUnpublishedContent() {
+        Content unpublished = content(1L, "Jett 烟雾弹 教学", "基础投掷", "video");
+        unpublished.setStatus(0);
+        when(contentMapper.selectById(1L)).thenReturn(unpublished);
+        when(tagMapper.findByContentId(1L)).thenReturn(List.of());
+
+        index.reindex(1L);
+
+        assertArrayEquals(new long[]{2}, ids(index.search("烟雾弹", null, 1, 10)));
+    }
+
+    @Test
+    void reindexUpdatesChangedTitle() {
+        when(contentMapper.selectById(3L)).thenReturn(content(3L, "Omen 烟雾弹 一图流", "进攻路线", "video"));
+        when(tagMapper.findByContentId(3L)).thenReturn(List.of());
+
+        index.reindex(3L);
+
+        assertEquals(3, index.search("烟雾弹", null, 1, 10).getTotal());
+        assertEquals(0, index.search("传送", null, 1, 10).getTotal());
+    }
+
+    private static Content content(Long id, String title, String description, String contentType) {
+        Content content = new Content();
+        content.setId(id);
+        content.setTitle(title);
+        content.setDescription(description);
+        content.setContentType(contentType);
+        content.setStatus(1);
+        content.setContentBody("正文");
+        return content;
+    }
+
+    private static long[] ids(IPage<Content> page) {
+        return page.getRecords().stream().mapToLong(Content::getId).toArray();
+    }
+}
@@ -0,0 +1,189 @@
+package com.escape.search;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.escape.cache.CacheInvalidationListener;
+import com.escape.dto.response.FacetedPage;
+import com.escape.dto.response.NearbyPosition;
+import com.escape.entity.Position;
+import com.escape.mapper.PositionMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * 点位目录测试：位图筛选、排序、分页与分面、空间查询、已学习计数和远程重建
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class PositionCatalogTest {
+
+    @Mock
+    private PositionMapper positionMapper;
+
+    @Mock
+    private TaskExecutor taskExecutor;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @InjectMocks
+    private PositionCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        when(positionMapper.selectList(any())).thenReturn(List.of(
+                position(1L, 1L, 10L, "attack", "A", "smoke", 1, 2, 5, 0.0, 0.0),
+                position(2L, 1L, null, "defense", "B", "flash", 1, 1, 50, 3.0, 4.0),
+                position(3L, 1L, 10L, "attack", "A", "smoke", 2, 0, 10, 10.0, 0.0),
+                position(4L, 2L, 11L, "attack", "A", "molly", 3, 0, 1, null, null)));
+        catalog.reload();
+    }
+
+    @Test
+    void listsInRequestedOrder() {
+        PositionFilter all = new PositionFilter();
+        assertArrayEquals(new long[]{2, 1, 3, 4}, ids(catalog.list(all, PositionCatalog.Order.DIFFICULTY, 0)));
+        assertArrayEquals(new long[]{2, 4, 3, 1}, ids(catalog.list(all, PositionCatalog.Order.TYPE, 0)));
+        assertArrayEquals(new long[]{2, 3, 1, 4}, ids(catalog.list(all, PositionCatalog.Order.VIEW_COUNT, 0)));
+        assertArrayEquals(new long[]{2, 1}, ids(catalog.list(all, PositionCatalog.Order.DIFFICULTY, 2)));
+    }
+
+    @Test
+    void intersectsFilters() {
+        PositionFilter filter = new PositionFilter();
+        filter.setMapId(1L);
+        filter.setHeroId(10L);
+        assertArrayEquals(new long[]{1, 3}, ids(catalog.list(filter, PositionCatalog.Order.DIFFICULTY, 0)));
+
+        filter.setGenericOnly(true);
+        assertArrayEquals(new long[]{2}, ids(catalog.list(filter, PositionCatalog.Order.DIFFICULTY, 0)));
+
+        PositionFilter unknown = new PositionFilter();
+        unknown.setSite("C");
+        assertTrue(catalog.list(unknown, PositionCatalog.Order.DIFFICULTY, 0).isEmpty());
+    }
+
+    @Test
+    void pagesWithFacets() {
+        PositionFilter filter = new PositionFilter();
+        filter.setMapId(1L);
+        IPage<Position> page = catalog.page(filter, PositionCatalog.Order.DIFFICULTY, 2, 2);
+        assertEquals(3, page.getTotal());
+        assertArrayEquals(new long[]{3}, ids(page.getRecords()));
+
+        Map<String, Map<String, Integer>> facets = ((FacetedPage<Position>) page).getFacets();
+        assertEquals(Map.of("attack", 2, "defense", 1), facets.get(PositionCatalog.SIDE));
+        assertEquals(Map.of("10", 2, PositionCatalog.GENERIC_HERO, 1), facets.get(PositionCatalog.HERO));
+    }
+
+    @Test
+    void clampsInvalidPaging() {
+        PositionFilter all = new PositionFilter();
+        IPage<Position> page = catalog.page(all, PositionCatalog.Order.DIFFICULTY, 0, 2);
+        assertEquals(1, page.getCurrent());
+        assertArrayEquals(new long[]{2, 1}, ids(page.getRecords()));
+        assertArrayEquals(new long[]{2, 1}, ids(catalog.page(all, PositionCatalog.Order.DIFFICULTY, -3, 2).getRecords()));
+        assertArrayEquals(new long[]{2}, ids(catalog.page(all, PositionCatalog.Order.DIFFICULTY, 1, 0).getRecords()));
+        assertTrue(catalog.page(all, PositionCatalog.Order.DIFFICULTY, Long.MAX_VALUE, 2).getRecords().isEmpty());
+        assertTrue(catalog.page(all, PositionCatalog.Order.DIFFICULTY, 3, Long.MAX_VALUE).getRecords().isEmpty());
+    }
+
+    @Test
+    void answersSpatialQueries() {
+        PositionFilter filter = new PositionFilter();
+        filter.setMapId(1L);
+        List<NearbyPosition> nearby = catalog.withinRadius(filter, PositionCatalog.Anchor.STAND, 0, 0, 5, 0);
+        assertArrayEquals(new long[]{1, 2}, nearby.stream().mapToLong(hit -> hit.getPosition().getId()).toArray());
+        assertEquals(5.0, nearby.get(1).getDistance(), 1e-6);
+
+        assertEquals(3L, catalog.nearest(filter, PositionCatalog.Anchor.STAND, 9, 0, 1).get(0).getPosition().getId());
+        assertArrayEquals(new long[]{2, 1}, ids(catalog.inBox(filter, PositionCatalog.Anchor.STAND, 0, 0, 5, 5, 0)));
+
+        // 地图2的点位未标注坐标
+        filter.setMapId(2L);
+        assertTrue(catalog.nearest(filter, PositionCatalog.Anchor.STAND, 0, 0, 3).isEmpty());
+    }
+
+    @Test
+    void countsLearnedPositionsPerMap() {
+        // 位偏移1和4（每字节高位在前）
+        byte[] learned = {0x48};
+        assertEquals(1, catalog.countLearned(1L, learned));
+        assertEquals(2, catalog.countLearned(null, learned));
+        assertEquals(3, catalog.count(1L));
+        assertEquals(4, catalog.count(null));
+    }
+
+    @Test
+    void checksIdMembershipAndMaxId() {
+        assertTrue(catalog.contains(4L));
+        assertFalse(catalog.contains(0L));
+        assertFalse(catalog.contains(5L));
+        assertFalse(catalog.contains(-1L));
+        assertFalse(catalog.contains(Long.MAX_VALUE));
+        assertEquals(4L, catalog.maxId());
+    }
+
+    @Test
+    void remoteChangeRebuildsCatalog() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        when(positionMapper.selectList(any())).thenReturn(List.of(
+                position(5L, 1L, null, "attack", "A", "smoke", 1, 0, 0, null, null)));
+
+        assertEquals(PositionCatalog.INDEX_NAME, catalog.indexName());
+        catalog.applyRemote(CacheInvalidationListener.REINDEX_ALL);
+
+        assertArrayEquals(new long[]{5}, ids(catalog.list(new PositionFilter(), PositionCatalog.Order.DIFFICULTY, 0)));
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousCatalog() {
+        when(positionMapper.selectList(any())).thenThrow(new RuntimeException("db down"));
+
+        catalog.reload();
+
+        assertEquals(4, catalog.count(null));
+    }
+
+    private static Position position(Long id, Long mapId, Long heroId, String side, String site, String type,
+                                     int difficulty, int sortOrder, int viewCount, Double standX, Double standY) {
+        Position position = new Position();
+        position.setId(id);
+        position.setMapId(mapId);
+        position.setHeroId(heroId);
+        position.setSide(side);
+        position.setSite(site);
+        position.setPositionType(type);
+        position.setDifficulty(difficulty);
+        position.setSortOrder(sortOrder);
+        position.setViewCount(viewCount);
+        position.setStandX(standX);
+        position.setStandY(standY);
+        return position;
+    }
+
+    private static long[] ids(List<Position> positions) {
+        return positions.stream().mapToLong(Position::getId).toArray();
+    }
+}
@@ -0,0 +1,166 @@
+package com.escape.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 点位网格索引与暴力扫描对照测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PositionGridTest {
+
+    private static final Comparator<PositionGrid.Hit> BY_DISTANCE =
+            Comparator.comparingDouble(PositionGrid.Hit::distance).thenComparingInt(PositionGrid.Hit::row);
+
+    @Test
+    void nearestMatchesBruteForce() {
+        Random random = new Random(3);
+        for (int n : new int[]{1, 7, 200, 5000}) {
+            Points points = Points.random(random, n);
+            PositionGrid grid = points.grid();
+            for (int query = 0; query < 50; query++) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                int k = 1 + random.nextInt(20);
+                IntPredicate accept = query % 2 == 0 ? row -> true : row -> row % 3 != 0;
+
+                List<PositionGrid.Hit> expected = points.bruteForce(x, y, Double.POSITIVE_INFINITY, accept);
+                expected = expected.subList(0, Math.min(k, expected.size()));
+                assertEquals(expected, grid.nearest(x, y, k, accept), "n=" + n + ", k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void nearestReturnsAllWhenFewerThanK() {
+        Points points = Points.random(new Random(5), 30);
+        List<PositionGrid.Hit> hits = points.grid().nearest(0.5, 0.5, 100, row -> row < 10);
+        assertEquals(points.bruteForce(0.5, 0.5, Double.POSITIVE_INFINITY, row -> row < 10), hits);
+        assertEquals(10, hits.size());
+    }
+
+    @Test
+    void nearestHandlesDuplicateCoordinatesAndEdges() {
+        int n = 64;
+        Points points = new Points(n);
+        for (int i = 0; i < n; i++) {
+            // 一半点重合在同一位置，其余落在四条边和角上
+            points.xs[i] = i % 2 == 0 ? 0.25f : (i % 4 == 1 ? 0f : 1f);
+            points.ys[i] = i % 2 == 0 ? 0.25f : (float) (i % 8) / 7;
+        }
+        PositionGrid grid = points.grid();
+        for (double[] query : new double[][]{{0, 0}, {1, 1}, {0.25, 0.25}, {0.99, 0.01}}) {
+            List<PositionGrid.Hit> expected = points.bruteForce(query[0], query[1], Double.POSITIVE_INFINITY, row -> true);
+            assertEquals(expected.subList(0, 10), grid.nearest(query[0], query[1], 10, row -> true));
+        }
+    }
+
+    @Test
+    void withinRadiusMatchesBruteForce() {
+        Random random = new Random(9);
+        Points points = Points.random(random, 3000);
+        PositionGrid grid = points.grid();
+        for (int query = 0; query < 100; query++) {
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            double radius = random.nextDouble() * 0.2;
+            IntPredicate accept = row -> row % 5 != 0;
+
+            List<PositionGrid.Hit> expected = points.bruteForce(x, y, radius, accept);
+            assertEquals(expected, grid.withinRadius(x, y, radius, accept, 0));
+
+            int limit = 1 + random.nextInt(10);
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                    grid.withinRadius(x, y, radius, accept, limit));
+        }
+    }
+
+    @Test
+    void inBoxMatchesBruteForce() {
+        Random random = new Random(13);
+        Points points = Points.random(random, 3000);
+        PositionGrid grid = points.grid();
+        for (int query = 0; query < 100; query++) {
+            double x1 = random.nextDouble();
+            double x2 = random.nextDouble();
+            double y1 = random.nextDouble();
+            double y2 = random.nextDouble();
+            double minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+            double minY = Math.min(y1, y2), maxY = Math.max(y1, y2);
+            IntPredicate accept = row -> row % 2 == 0;
+
+            int[] expected = IntStream.range(0, points.xs.length)
+                    .filter(i -> points.xs[i] >= minX && points.xs[i] <= maxX
+                            && points.ys[i] >= minY && points.ys[i] <= maxY && accept.test(i))
+                    .toArray();
+            assertArrayEquals(expected, grid.inBox(minX, minY, maxX, maxY, accept));
+        }
+    }
+
+    @Test
+    void inBoxIncludesBoundary() {
+        Points points = new Points(3);
+        points.xs[0] = 0.2f;
+        points.ys[0] = 0.2f;
+        points.xs[1] = 0.5f;
+        points.ys[1] = 0.5f;
+        points.xs[2] = 0.8f;
+        points.ys[2] = 0.8f;
+        int[] rows = points.grid().inBox(0.2f, 0.2f, 0.5f, 0.5f, row -> true);
+        assertArrayEquals(new int[]{0, 1}, rows);
+        assertEquals(0, points.grid().inBox(0.6, 0.1, 0.7, 0.2, row -> true).length);
+    }
+
+    /**
+     * 测试点集，行号即下标
+     */
+    private static final class Points {
+
+        final int[] rows;
+        final float[] xs;
+        final float[] ys;
+
+        Points(int n) {
+            rows = IntStream.range(0, n).toArray();
+            xs = new float[n];
+            ys = new float[n];
+        }
+
+        static Points random(Random random, int n) {
+            Points points = new Points(n);
+            for (int i = 0; i < n; i++) {
+                points.xs[i] = random.nextFloat();
+                points.ys[i] = random.nextFloat();
+            }
+            return points;
+        }
+
+        PositionGrid grid() {
+            return new PositionGrid(rows, xs, ys);
+        }
+
+        List<PositionGrid.Hit> bruteForce(double x, double y, double radius, IntPredicate accept) {
+            List<PositionGrid.Hit> hits = new ArrayList<>();
+            for (int i = 0; i < rows.length; i++) {
+                double dx = xs[i] - x, dy = ys[i] - y;
+                double distanceSquared = dx * dx + dy * dy;
+                if (distanceSquared <= radius * radius && accept.test(rows[i])) {
+                    hits.add(new PositionGrid.Hit(rows[i], Math.sqrt(distanceSquared)));
+                }
+            }
+            hits.sort(BY_DISTANCE);
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.escape.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 倒排列表变长编码往返测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PostingListTest {
+
+    @Test
+    void roundTripsDocIdsAndFrequencies() {
+        Random random = new Random(17);
+        PostingList postings = new PostingList();
+        List<int[]> expected = new ArrayList<>();
+        int docId = -1;
+        for (int i = 0; i < 10000; i++) {
+            // 差值和词频覆盖1到5个字节的变长整数
+            int gap = 1 + switch (i % 4) {
+                case 0 -> random.nextInt(100);
+                case 1 -> random.nextInt(20000);
+                case 2 -> random.nextInt(3000000);
+                default -> 0;
+            };
+            docId += gap;
+            int frequency = i % 5 == 0 ? 1 << (7 * (i % 4)) : 1 + random.nextInt(200);
+            postings.add(docId, frequency);
+            expected.add(new int[]{docId, frequency});
+        }
+
+        List<int[]> actual = new ArrayList<>();
+        postings.forEach((id, frequency) -> actual.add(new int[]{id, frequency}));
+        assertEquals(expected.size(), postings.docCount());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], actual.get(i)[0], "docId at " + i);
+            assertEquals(expected.get(i)[1], actual.get(i)[1], "frequency at " + i);
+        }
+    }
+
+    @Test
+    void firstDocumentMayBeZero() {
+        PostingList postings = new PostingList();
+        postings.add(0, 3);
+        postings.add(Integer.MAX_VALUE - 1, 1);
+        List<Integer> docIds = new ArrayList<>();
+        postings.forEach((docId, frequency) -> docIds.add(docId));
+        assertEquals(List.of(0, Integer.MAX_VALUE - 1), docIds);
+    }
+}
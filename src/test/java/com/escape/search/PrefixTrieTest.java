@@ -0,0 +1,53 @@
+package com.escape.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 前缀树测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class PrefixTrieTest {
+
+    @Test
+    void returnsTopEntriesForPrefixInInsertionOrder() {
+        // 条目按得分降序添加：0 > 1 > 2 > 3
+        PrefixTrie.Builder builder = new PrefixTrie.Builder(2);
+        builder.add("jett", 0);
+        builder.add("jade", 1);
+        builder.add("jinx", 2);
+        builder.add("omen", 3);
+        PrefixTrie trie = builder.build();
+
+        assertArrayEquals(new int[]{0, 1}, trie.lookup(""));
+        assertArrayEquals(new int[]{0, 1}, trie.lookup("j"));
+        assertArrayEquals(new int[]{2}, trie.lookup("ji"));
+        assertArrayEquals(new int[]{3}, trie.lookup("omen"));
+        assertArrayEquals(new int[0], trie.lookup("omens"));
+        assertArrayEquals(new int[0], trie.lookup("x"));
+    }
+
+    @Test
+    void entryWithSeveralKeysIsListedOnce() {
+        PrefixTrie.Builder builder = new PrefixTrie.Builder(3);
+        builder.add("jett", 0);
+        builder.add("捷风", 0);
+        builder.add("jet", 0);
+        builder.add("jade", 1);
+        PrefixTrie trie = builder.build();
+
+        assertArrayEquals(new int[]{0, 1}, trie.lookup(""));
+        assertArrayEquals(new int[]{0}, trie.lookup("jet"));
+        assertArrayEquals(new int[]{0}, trie.lookup("捷"));
+    }
+
+    @Test
+    void emptyTrieHasNoEntries() {
+        PrefixTrie trie = new PrefixTrie.Builder(5).build();
+        assertArrayEquals(new int[0], trie.lookup(""));
+        assertArrayEquals(new int[0], trie.lookup("a"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.escape.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文本分词测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+class TextTokenizerTest {
+
+    @Test
+    void splitsLatinWordsAndLowercases() {
+        assertEquals(List.of("jett", "a", "site", "2v2"), TextTokenizer.tokenize("Jett  A-Site, 2v2!"));
+    }
+
+    @Test
+    void splitsCjkIntoBigrams() {
+        assertEquals(List.of("烟雾", "雾弹"), TextTokenizer.tokenize("烟雾弹"));
+        assertEquals(List.of("jett", "的烟", "烟雾", "雾弹"), TextTokenizer.tokenize("Jett的烟雾弹"));
+    }
+
+    @Test
+    void keepsSingleCjkCharacter() {
+        assertEquals(List.of("点", "位"), TextTokenizer.tokenize("点 位"));
+        assertEquals(List.of("b", "点"), TextTokenizer.tokenize("B点"));
+    }
+
+    @Test
+    void indexTokensAddCjkUnigrams() {
+        assertEquals(List.of("烟雾", "雾弹", "烟", "雾", "弹"), TextTokenizer.tokenizeForIndex("烟雾弹"));
+        assertEquals(List.of("b", "点"), TextTokenizer.tokenizeForIndex("B点"));
+        assertEquals(List.of("jett", "smoke"), TextTokenizer.tokenizeForIndex("Jett smoke"));
+    }
+
+    @Test
+    void emptyInputHasNoTokens() {
+        assertTrue(TextTokenizer.tokenize(null).isEmpty());
+        assertTrue(TextTokenizer.tokenize("").isEmpty());
+        assertTrue(TextTokenizer.tokenize(" ,.-!").isEmpty());
+    }
+}
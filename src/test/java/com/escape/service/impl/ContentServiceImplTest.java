@@ -0,0 +1,88 @@
+package com.escape.service.impl;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.escape.entity.Content;
+import com.escape.mapper.ContentMapper;
+import com.escape.search.CompressedBitmap;
+import com.escape.search.ContentBitmapIndex;
+import com.escape.search.ContentFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内容服务测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ContentServiceImplTest {
+
+    @Mock
+    private ContentMapper contentMapper;
+
+    @Mock
+    private ContentBitmapIndex contentBitmapIndex;
+
+    @InjectMocks
+    private ContentServiceImpl contentService;
+
+    @BeforeEach
+    void setUp() {
+        CompressedBitmap matched = new CompressedBitmap();
+        for (int id = 1; id <= 250; id++) {
+            matched.add(id);
+        }
+        when(contentBitmapIndex.filter(any())).thenReturn(matched);
+        when(contentBitmapIndex.cachedFacets(any())).thenReturn(Map.of());
+        lenient().when(contentMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(ContentServiceImplTest::content).toList();
+        });
+    }
+
+    @Test
+    void filterPagesNewestFirst() {
+        IPage<Content> page = contentService.filterContents(new Page<>(2, 10), new ContentFilter());
+
+        assertEquals(250, page.getTotal());
+        assertEquals(240L, page.getRecords().get(0).getId());
+        assertEquals(231L, page.getRecords().get(9).getId());
+    }
+
+    @Test
+    void filterClampsInvalidPaging() {
+        IPage<Content> zeroPage = contentService.filterContents(new Page<>(0, 10), new ContentFilter());
+        assertEquals(1, zeroPage.getCurrent());
+        assertEquals(250L, zeroPage.getRecords().get(0).getId());
+
+        IPage<Content> negativeSize = contentService.filterContents(new Page<>(1, -5), new ContentFilter());
+        assertEquals(1, negativeSize.getRecords().size());
+
+        IPage<Content> hugeSize = contentService.filterContents(new Page<>(1, 100000), new ContentFilter());
+        assertEquals(100, hugeSize.getRecords().size());
+
+        assertEquals(List.of(), contentService.filterContents(new Page<>(50, 10), new ContentFilter()).getRecords());
+    }
+
+    private static Content content(Long id) {
+        Content content = new Content();
+        content.setId(id);
+        return content;
+    }
+}
@@ -0,0 +1,91 @@
+package com.escape.service.impl;
+
+import com.escape.cache.IdExistenceFilter;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 浏览历史服务测试
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class ViewHistoryServiceImplTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @Mock
+    private IdExistenceFilter idExistenceFilter;
+
+    @InjectMocks
+    private ViewHistoryServiceImpl viewHistoryService;
+
+    @Test
+    void unknownTargetCreatesNoKeys() {
+        when(idExistenceFilter.mightExist("content", 999L)).thenReturn(false);
+
+        assertEquals(0, viewHistoryService.getUniqueViewerCount("content", 999L));
+        assertEquals(0, viewHistoryService.getUniqueViewerCount("unknown", 1L));
+        verifyNoInteractions(redisUtils, viewHistoryMapper);
+    }
+
+    @Test
+    void seedsOnceWithExpiry() {
+        when(idExistenceFilter.mightExist("content", 1L)).thenReturn(true);
+        when(redisUtils.pfCount("view:viewers:content:1")).thenReturn(1L, 3L);
+        when(redisUtils.setIfAbsent(eq("view:viewers:seeding:content:1"), anyString(), eq(30L), eq(TimeUnit.SECONDS)))
+                .thenReturn(true);
+        when(viewHistoryMapper.findViewerIds("content", 1L)).thenReturn(List.of(7L, 8L, 9L));
+
+        assertEquals(3, viewHistoryService.getUniqueViewerCount("content", 1L));
+
+        verify(redisUtils).pfAdd("view:viewers:content:1", "7", "8", "9");
+        verify(redisUtils).expire("view:viewers:content:1", 30, TimeUnit.DAYS);
+        verify(redisUtils).set("view:viewers:seeded:content:1", "1", 30, TimeUnit.DAYS);
+        verify(redisUtils).deleteIfEquals(eq("view:viewers:seeding:content:1"), anyString());
+    }
+
+    @Test
+    void concurrentSeedingReturnsCurrentEstimate() {
+        when(idExistenceFilter.mightExist("content", 1L)).thenReturn(true);
+        when(redisUtils.pfCount("view:viewers:content:1")).thenReturn(2L);
+        when(redisUtils.setIfAbsent(anyString(), anyString(), anyLong(), any())).thenReturn(false);
+
+        assertEquals(2, viewHistoryService.getUniqueViewerCount("content", 1L));
+        verifyNoInteractions(viewHistoryMapper);
+        verify(redisUtils, never()).set(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void seededTargetIsServedFromEstimate() {
+        when(idExistenceFilter.mightExist("map", 2L)).thenReturn(true);
+        when(redisUtils.pfCount("view:viewers:map:2")).thenReturn(5L);
+        when(redisUtils.hasKey("view:viewers:seeded:map:2")).thenReturn(true);
+
+        assertEquals(5, viewHistoryService.getUniqueViewerCount("map", 2L));
+        verifyNoInteractions(viewHistoryMapper);
+    }
+}
@@ -0,0 +1,139 @@
+package com.escape.trending;
+
+import com.escape.mapper.FavoriteMapper;
+import com.escape.mapper.ViewHistoryMapper;
+import com.escape.utils.RedisUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热度排行引擎测试：事件累加、榜单读取、按锁衰减和从数据库重建
+ *
+ * @author escape
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+class TrendingEngineTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private FavoriteMapper favoriteMapper;
+
+    @Mock
+    private ViewHistoryMapper viewHistoryMapper;
+
+    @InjectMocks
+    private TrendingEngine trendingEngine;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trendingEngine, "halfLifeHours", 24.0);
+        ReflectionTestUtils.setField(trendingEngine, "decayIntervalMs", 3600000L);
+    }
+
+    @Test
+    void recordsOnlyTrackedTypes() {
+        trendingEngine.record(TrendingEngine.CONTENT, 7L, TrendingEngine.LIKE_WEIGHT);
+        verify(redisUtils).zIncrementScore("trending:content", "7", TrendingEngine.LIKE_WEIGHT);
+
+        trendingEngine.record("weapon", 7L, TrendingEngine.VIEW_WEIGHT);
+        trendingEngine.record(TrendingEngine.MAP, null, TrendingEngine.VIEW_WEIGHT);
+        verify(redisUtils, never()).zIncrementScore(eq("trending:weapon"), anyString(), anyDouble());
+        verify(redisUtils, never()).zIncrementScore(eq("trending:map"), anyString(), anyDouble());
+    }
+
+    @Test
+    void readsTopIdsInScoreOrder() {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        tuples.add(new DefaultTypedTuple<>("3", 9.0));
+        tuples.add(new DefaultTypedTuple<>("1", 4.5));
+        when(redisUtils.zReverseRangeWithScores("trending:hero", 0, 1)).thenReturn(tuples);
+
+        assertEquals(List.of(3L, 1L), trendingEngine.topIds(TrendingEngine.HERO, 2));
+        assertEquals(Map.of(3L, 9.0, 1L, 4.5), trendingEngine.topWithScores(TrendingEngine.HERO, 2));
+    }
+
+    @Test
+    void missingRankingReturnsEmpty() {
+        assertTrue(trendingEngine.topIds(TrendingEngine.POSITION, 10).isEmpty());
+    }
+
+    @Test
+    void decayScalesEveryTypeByHalfLife() {
+        when(redisUtils.setIfAbsent("trending:decay:lock", "1", 3590000L, TimeUnit.MILLISECONDS)).thenReturn(true);
+
+        trendingEngine.decay();
+
+        double factor = Math.pow(0.5, 1.0 / 24);
+        for (String type : List.of("content", "position", "map", "hero")) {
+            verify(redisUtils).zScale("trending:" + type, factor);
+            verify(redisUtils).zRemoveRangeByScore("trending:" + type, Double.NEGATIVE_INFINITY, 0.01);
+        }
+    }
+
+    @Test
+    void decaySkippedWhenAnotherNodeHoldsLock() {
+        when(redisUtils.setIfAbsent(anyString(), anyString(), anyLong(), any())).thenReturn(false);
+
+        trendingEngine.decay();
+
+        verify(redisUtils, never()).zScale(anyString(), anyDouble());
+    }
+
+    @Test
+    void rebuildMergesWeightedScoresAndSwapsKey() {
+        when(favoriteMapper.sumDecayedByTarget(anyString(), any(LocalDateTime.class), anyDouble())).thenReturn(List.of());
+        when(viewHistoryMapper.sumDecayedByTarget(anyString(), any(LocalDateTime.class), anyDouble())).thenReturn(List.of());
+        when(favoriteMapper.sumDecayedByTarget(eq("content"), any(LocalDateTime.class), eq(86400.0)))
+                .thenReturn(List.of(row(1L, 2.0)));
+        when(viewHistoryMapper.sumDecayedByTarget(eq("content"), any(LocalDateTime.class), eq(86400.0)))
+                .thenReturn(List.of(row(1L, 1.5), row(2L, 0.5)));
+        when(redisUtils.hasKey("trending:content:rebuild")).thenReturn(true);
+
+        Map<String, Integer> result = trendingEngine.rebuildAll();
+
+        assertEquals(Map.of("content", 2, "position", 0, "map", 0, "hero", 0), result);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> tuples = ArgumentCaptor.forClass(Set.class);
+        verify(redisUtils).zAdd(eq("trending:content:rebuild"), tuples.capture());
+        Map<String, Double> scores = new HashMap<>();
+        tuples.getValue().forEach(tuple -> scores.put(tuple.getValue(), tuple.getScore()));
+        assertEquals(Map.of("1", 11.5, "2", 0.5), scores);
+        verify(redisUtils).rename("trending:content:rebuild", "trending:content");
+        // 没有事件的类型直接清空
+        verify(redisUtils).delete("trending:hero");
+    }
+
+    private static Map<String, Object> row(Long targetId, double total) {
+        return Map.of("target_id", targetId, "total", total);
+    }
+}